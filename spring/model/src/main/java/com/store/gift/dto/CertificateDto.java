@@ -114,6 +114,11 @@ public class CertificateDto
     @EqualsAndHashCode.Exclude
     private Set<OrderDto> orderDtos = new HashSet<>();
 
+    /**
+     * The version of the certificate, the entity tag of its representation.
+     */
+    private Long version;
+
     @JsonCreator
     public CertificateDto(
             @JsonProperty("id") Long id,
@@ -127,7 +132,8 @@ public class CertificateDto
             @JsonProperty("lastUpdateDate") Timestamp lastUpdateDate,
             @JsonProperty("path") String path,
             @JsonProperty("tags") Set<TagDto> tags,
-            @JsonProperty("orderDtos") Set<OrderDto> orderDtos) {
+            @JsonProperty("orderDtos") Set<OrderDto> orderDtos,
+            @JsonProperty("version") Long version) {
         this.id = id;
         this.name = name;
         this.description = description;
@@ -140,5 +146,6 @@ public class CertificateDto
         this.path = path;
         this.tags = tags;
         this.orderDtos = orderDtos;
+        this.version = version;
     }
 }
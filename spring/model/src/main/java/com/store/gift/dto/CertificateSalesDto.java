@@ -0,0 +1,38 @@
+package com.store.gift.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * The sales of a certificate within a date range.
+ * <p>
+ * The revenue of an order is shared by its lines in proportion
+ * to the prices of their certificates, as orders keep a single cost.
+ */
+@Getter
+@Builder
+@ToString
+public class CertificateSalesDto {
+    /**
+     * The ID of the certificate.
+     */
+    private final Long id;
+
+    /**
+     * The name of the certificate.
+     */
+    private final String name;
+
+    /**
+     * The number of order lines of the certificate.
+     */
+    private final long lines;
+
+    /**
+     * The revenue of those lines.
+     */
+    private final BigDecimal revenue;
+}
@@ -10,18 +10,25 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.core.Relation;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.List;
 
 /**
  * Represents a slim version of the Certificate entity.
  * It includes a subset of properties from the full Certificate entity.
+ * <p>
+ * Catalog listings are read straight into this projection with the names
+ * of the tags, without loading the entity and its orders. It is embedded
+ * under the same relation as {@link CertificateDto} for the clients.
  */
 @Getter
 @Setter
 @Builder
 @EqualsAndHashCode(callSuper = false)
+@Relation(collectionRelation = "certificateDtoList")
 public class CertificateSlimDto
         extends RepresentationModel<CertificateSlimDto> {
     /**
@@ -77,4 +84,9 @@ public class CertificateSlimDto
     private Timestamp lastUpdateDate;
 
     private String path;
+
+    /**
+     * The names of the tags of the certificate in alphabetical order.
+     */
+    private List<String> tagNames;
 }
@@ -0,0 +1,30 @@
+package com.store.gift.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of deleting one ID of a batch delete.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class DeleteOutcome {
+    /**
+     * The requested ID.
+     */
+    private final Long id;
+
+    /**
+     * The outcome of the deletion.
+     */
+    private final DeleteStatus status;
+
+    /**
+     * The reason the deletion failed, or null.
+     */
+    private final String message;
+}
@@ -0,0 +1,42 @@
+package com.store.gift.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a batch delete, with one outcome per distinct requested ID.
+ */
+@Getter
+@Builder
+@ToString
+public class DeleteReport {
+    /**
+     * The number of distinct requested IDs.
+     */
+    private final long requested;
+
+    /**
+     * The number of deleted entities.
+     */
+    private final long deleted;
+
+    /**
+     * The number of IDs without an entity.
+     */
+    private final long notFound;
+
+    /**
+     * The number of entities that could not be deleted.
+     */
+    private final long failed;
+
+    /**
+     * The outcomes in the order of the requested IDs.
+     */
+    @Builder.Default
+    private final List<DeleteOutcome> outcomes = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package com.store.gift.dto;
+
+/**
+ * The outcomes of deleting one ID of a batch delete.
+ */
+public enum DeleteStatus {
+    /**
+     * The entity was deleted.
+     */
+    DELETED,
+    /**
+     * No entity has the ID.
+     */
+    NOT_FOUND,
+    /**
+     * The entity could not be deleted.
+     */
+    FAILED
+}
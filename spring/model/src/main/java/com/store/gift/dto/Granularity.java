@@ -0,0 +1,15 @@
+package com.store.gift.dto;
+
+/**
+ * The periods the revenue is reported by.
+ */
+public enum Granularity {
+    /**
+     * One period per calendar day.
+     */
+    DAY,
+    /**
+     * One period per calendar month.
+     */
+    MONTH
+}
@@ -0,0 +1,25 @@
+package com.store.gift.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The error of one row of a bulk import.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ImportError {
+    /**
+     * The number of the row in the input, starting from one.
+     */
+    private final long row;
+
+    /**
+     * The reason the row was not imported.
+     */
+    private final String message;
+}
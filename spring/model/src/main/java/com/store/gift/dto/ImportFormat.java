@@ -0,0 +1,15 @@
+package com.store.gift.dto;
+
+/**
+ * The formats of a bulk certificate import and export.
+ */
+public enum ImportFormat {
+    /**
+     * One JSON certificate per line.
+     */
+    NDJSON,
+    /**
+     * Comma-separated values with a header row, tags are separated by {@code |}.
+     */
+    CSV
+}
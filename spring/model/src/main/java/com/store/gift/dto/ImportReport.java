@@ -0,0 +1,40 @@
+package com.store.gift.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a bulk import.
+ * <p>
+ * Only the first errors are listed, so that the report stays
+ * small for any input; {@code failed} counts all rejected rows.
+ */
+@Getter
+@Builder
+@ToString
+public class ImportReport {
+    /**
+     * The number of rows read from the input.
+     */
+    private final long rows;
+
+    /**
+     * The number of rows imported.
+     */
+    private final long imported;
+
+    /**
+     * The number of rows rejected.
+     */
+    private final long failed;
+
+    /**
+     * The errors of the first rejected rows.
+     */
+    @Builder.Default
+    private final List<ImportError> errors = new ArrayList<>();
+}
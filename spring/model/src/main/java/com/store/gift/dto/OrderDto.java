@@ -14,6 +14,7 @@ import org.springframework.hateoas.RepresentationModel;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -65,17 +66,32 @@ public class OrderDto extends RepresentationModel<OrderDto> {
     @EqualsAndHashCode.Exclude
     private Set<CertificateDto> certificateDtos;
 
+    /**
+     * The lines of the order, priced when it was placed.
+     * They are not changed by an update.
+     */
+    private List<OrderLineDto> lines;
+
+    /**
+     * The version of the order, the entity tag of its representation.
+     */
+    private Long version;
+
     @JsonCreator
     public OrderDto(
             @JsonProperty("id") Long id,
             @JsonProperty("user") UserSlimDto user,
             @JsonProperty("cost") BigDecimal cost,
             @JsonProperty("orderDate") Timestamp orderDate,
-            @JsonProperty("certificateDtos") Set<CertificateDto> certificateDtos) {
+            @JsonProperty("certificateDtos") Set<CertificateDto> certificateDtos,
+            @JsonProperty("lines") List<OrderLineDto> lines,
+            @JsonProperty("version") Long version) {
         this.id = id;
         this.cost = cost;
         this.user = user;
         this.orderDate = orderDate;
         this.certificateDtos = certificateDtos;
+        this.lines = lines;
+        this.version = version;
     }
 }
@@ -0,0 +1,33 @@
+package com.store.gift.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A line of an order: a certificate, the quantity ordered
+ * and the price of the certificate when the order was placed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineDto {
+    /**
+     * The ID of the certificate ordered.
+     */
+    private Long certificateId;
+
+    /**
+     * The number of certificates ordered.
+     */
+    private Long quantity;
+
+    /**
+     * The price of a certificate when the order was placed.
+     */
+    private BigDecimal unitPrice;
+}
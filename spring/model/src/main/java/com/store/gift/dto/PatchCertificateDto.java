@@ -48,6 +48,12 @@ public class PatchCertificateDto
     @EqualsAndHashCode.Exclude
     private Set<TagDto> tags;
 
+    /**
+     * The version of the certificate the update is based on,
+     * or null to update whatever the current version.
+     */
+    private Long version;
+
     /**
      * Handles unknown properties during deserialization.
      * Throws an exception indicating that the field is not allowed for update.
@@ -69,16 +75,19 @@ public class PatchCertificateDto
      * @param price    the updated price of the certificate
      * @param duration the updated duration of the certificate
      * @param tags     the updated tags of the certificate
+     * @param version  the version the update is based on
      */
     @JsonCreator
     public PatchCertificateDto(
             @JsonProperty("id") Long id,
             @JsonProperty("price") BigDecimal price,
             @JsonProperty("duration") int duration,
-            @JsonProperty("tags") Set<TagDto> tags) {
+            @JsonProperty("tags") Set<TagDto> tags,
+            @JsonProperty("version") Long version) {
         this.id = id;
         this.price = price;
         this.duration = duration;
         this.tags = tags;
+        this.version = version;
     }
 }
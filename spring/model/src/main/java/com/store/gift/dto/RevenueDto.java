@@ -0,0 +1,31 @@
+package com.store.gift.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The revenue of a period.
+ */
+@Getter
+@Builder
+@ToString
+public class RevenueDto {
+    /**
+     * The first day of the period.
+     */
+    private final LocalDate period;
+
+    /**
+     * The number of orders placed in the period.
+     */
+    private final long orders;
+
+    /**
+     * The summed cost of those orders.
+     */
+    private final BigDecimal revenue;
+}
@@ -0,0 +1,33 @@
+package com.store.gift.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * The revenue of the certificates with a tag within a date range.
+ * <p>
+ * A line of a certificate with several tags counts for each of them,
+ * so the revenues of the tags do not add up to the total revenue.
+ */
+@Getter
+@Builder
+@ToString
+public class TagRevenueDto {
+    /**
+     * The name of the tag.
+     */
+    private final String name;
+
+    /**
+     * The number of order lines of certificates with the tag.
+     */
+    private final long lines;
+
+    /**
+     * The revenue of those lines.
+     */
+    private final BigDecimal revenue;
+}
@@ -1,5 +1,6 @@
 package com.store.gift.entity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -11,10 +12,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
-import jakarta.persistence.NamedAttributeNode;
-import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -22,8 +22,12 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.Where;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -40,6 +44,9 @@ import java.util.Set;
  * with the {@link Tag} and {@link Order} entities.
  * A certificate can have multiple tags,
  * and it can be associated with multiple orders
+ * <p>Certificates and their tag sets are kept in the second-level cache.
+ * <p>Soft-deleted certificates stay in the table, flagged as deleted, until
+ * they are purged, and are filtered out of every query.
  */
 @Getter
 @Setter
@@ -48,9 +55,10 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "gift_certificates")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @EntityListeners(AuditListener.class)
-@NamedEntityGraph(name = "Certificate.tags",
-        attributeNodes = @NamedAttributeNode("tags"))
+@Where(clause = "deleted = false")
 public class Certificate implements Serializable {
     /**
      * The unique identifier of the certificate.
@@ -60,7 +68,7 @@ public class Certificate implements Serializable {
             generator = "certificate_sequence")
     @SequenceGenerator(name = "certificate_sequence",
             sequenceName = "gift_certificate_id_seq",
-            allocationSize = 1)
+            allocationSize = 50)
     private Long id;
     /**
      * The name of the certificate.
@@ -105,21 +113,38 @@ public class Certificate implements Serializable {
     @Column(length = 1024)
     private String path;
 
+    /**
+     * Whether the certificate is soft-deleted and waits to be purged.
+     */
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean deleted;
+
+    /**
+     * The version of the certificate, incremented by every update
+     * and checked against the version the update was based on.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * The set of tags associated with the certificate.
      * <p>
      * This is a many-to-many relationship mapped
      * by the "gift_certificate_tag" join table.
      * <p>
-     * The tags are eagerly fetched
+     * The tags are lazily fetched
      * and cascaded on persist and merge operations.
      */
     @Builder.Default
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
     @ManyToMany(
-            fetch = FetchType.EAGER,
+            fetch = FetchType.LAZY,
             cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "gift_certificate_tag",
             joinColumns = @JoinColumn(name = "gift_certificate_id"),
             inverseJoinColumns = @JoinColumn(name = "tag_id"))
@@ -131,7 +156,7 @@ public class Certificate implements Serializable {
      * This is a many-to-many relationship mapped
      * by the "certificates" field in the Order entity.
      * <p>
-     * The orders are eagerly fetched
+     * The orders are lazily fetched
      * and cascaded on persist and merge operations.
      */
     @Builder.Default
@@ -140,7 +165,7 @@ public class Certificate implements Serializable {
     @ManyToMany(
             mappedBy = "certificates",
             cascade = {CascadeType.PERSIST, CascadeType.MERGE},
-            fetch = FetchType.EAGER)
+            fetch = FetchType.LAZY)
     private Set<Order> orders = new HashSet<>();
 
     /**
@@ -27,4 +27,24 @@ public class Criteria {
      * The list of tag names associated with the certificate.
      */
     private List<String> tagNames;
+
+    /**
+     * Whether the certificate must have all the tag names instead of any.
+     */
+    private boolean allTags;
+
+    /**
+     * The list of tag names the certificate must not have.
+     */
+    private List<String> excludedTagNames;
+
+    /**
+     * Checks whether the criteria filter certificates by tags.
+     *
+     * @return true if tag names or excluded tag names are given
+     */
+    public boolean hasTagFilter() {
+        return tagNames != null && !tagNames.isEmpty()
+                || excludedTagNames != null && !excludedTagNames.isEmpty();
+    }
 }
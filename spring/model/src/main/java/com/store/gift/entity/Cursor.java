@@ -0,0 +1,114 @@
+package com.store.gift.entity;
+
+import com.store.gift.exception.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Represents a position in a keyset (seek) paginated listing.
+ * <p>
+ * A cursor remembers the sort property and direction of the listing,
+ * the value of that property and the ID of the boundary row,
+ * so that the next page can be selected with a range predicate
+ * on {@code (property, id)} instead of an offset.
+ * <p>
+ * Clients receive the cursor as an opaque URL-safe token.
+ */
+@Getter
+@Builder
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class Cursor {
+    /**
+     * The separator between the encoded cursor parts.
+     */
+    private static final String SEPARATOR = "\u001F";
+    /**
+     * The number of parts in an encoded cursor.
+     */
+    private static final int PARTS = 5;
+
+    /**
+     * The sort property the listing is ordered by.
+     */
+    private final String property;
+
+    /**
+     * Whether the listing is ordered ascending by the sort property.
+     */
+    private final boolean ascending;
+
+    /**
+     * The string form of the sort property value of the boundary row,
+     * or null if the boundary row has no value for it.
+     */
+    private final String value;
+
+    /**
+     * The ID of the boundary row, used as the tie-breaker.
+     */
+    private final Long id;
+
+    /**
+     * Whether the cursor points backwards, selecting the rows
+     * before the boundary row instead of after it.
+     */
+    private final boolean backward;
+
+    /**
+     * Encodes the cursor into an opaque URL-safe token.
+     *
+     * @return the encoded token
+     */
+    public String encode() {
+        String raw = String.join(SEPARATOR,
+                property,
+                ascending ? "a" : "d",
+                value == null ? "" : value,
+                String.valueOf(id),
+                backward ? "b" : "f");
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the opaque token
+     * @return the decoded cursor, or null if the token is blank,
+     * which denotes the first page of a keyset listing
+     * @throws InvalidCursorException if the token is malformed
+     */
+    public static Cursor decode(final String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String[] parts;
+        Long id;
+        try {
+            parts = new String(
+                    Base64.getUrlDecoder().decode(token),
+                    StandardCharsets.UTF_8).split(SEPARATOR, -1);
+            id = parts.length == PARTS ? Long.valueOf(parts[3]) : null;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token, e);
+        }
+        if (id == null || parts[0].isEmpty()) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+        return Cursor.builder()
+                .property(parts[0])
+                .ascending("a".equals(parts[1]))
+                .value(parts[2].isEmpty() ? null : parts[2])
+                .id(id)
+                .backward("b".equals(parts[4]))
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.store.gift.entity;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Represents one page of a keyset (seek) paginated listing.
+ * <p>
+ * Besides the content, the page carries the cursors
+ * pointing to the following and the preceding page,
+ * either of which is null when there is no such page.
+ *
+ * @param <T> the type of the page content
+ */
+@Getter
+@Builder
+public class CursorPage<T> {
+    /**
+     * The content of the page in listing order.
+     */
+    @Builder.Default
+    private final List<T> content = Collections.emptyList();
+
+    /**
+     * The cursor of the next page, or null if this is the last page.
+     */
+    private final Cursor next;
+
+    /**
+     * The cursor of the previous page, or null if this is the first page.
+     */
+    private final Cursor previous;
+
+    /**
+     * Converts the content of the page, keeping its cursors.
+     *
+     * @param mapper the function applied to each element
+     * @param <R>    the type of the converted content
+     * @return the converted page
+     */
+    public <R> CursorPage<R> map(final Function<? super T, ? extends R> mapper) {
+        return CursorPage.<R>builder()
+                .content(content.stream().<R>map(mapper).toList())
+                .next(next)
+                .previous(previous)
+                .build();
+    }
+}
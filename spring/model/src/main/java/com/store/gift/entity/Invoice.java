@@ -1,31 +1,79 @@
 package com.store.gift.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
+import lombok.ToString;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 
+/**
+ * Represents a line of an order: a certificate, the quantity ordered
+ * and the price of the certificate when the order was placed.
+ * <p>
+ * The IDs are drawn from a sequence in blocks, so that the lines of
+ * an order are inserted in JDBC batches rather than one by one.
+ */
 @Setter
 @Getter
 @Entity
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "invoices")
 public class Invoice implements Serializable {
+    /**
+     * The unique identifier of the line.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(
+            strategy = GenerationType.SEQUENCE,
+            generator = "invoice_sequence")
+    @SequenceGenerator(
+            name = "invoice_sequence",
+            sequenceName = "invoice_id_seq",
+            allocationSize = 50)
     private Long id;
 
-    private Long counter;
+    /**
+     * The number of certificates ordered.
+     */
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
 
-    @ManyToOne
-    @JoinColumn(name = "order_id")
+    /**
+     * The price of a certificate when the order was placed.
+     */
+    @Column(name = "unit_price", nullable = false)
+    private BigDecimal unitPrice;
+
+    /**
+     * The order of the line.
+     */
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
-    @ManyToOne
-    @JoinColumn(name = "certificate_id")
+    /**
+     * The certificate ordered.
+     */
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "certificate_id", nullable = false)
     private Certificate certificate;
 }
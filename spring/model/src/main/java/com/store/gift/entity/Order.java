@@ -12,26 +12,25 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.NamedAttributeNode;
-import jakarta.persistence.NamedEntityGraph;
-import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -44,22 +43,6 @@ import java.util.Set;
 @AllArgsConstructor
 @Table(name = "orders")
 @EntityListeners(AuditListener.class)
-@NamedEntityGraph(
-        name = "Order.certificates.tags",
-        attributeNodes = {
-                @NamedAttributeNode(
-                        value = "certificates",
-                        subgraph = "certificateGraph")
-        },
-        subgraphs = {
-                @NamedSubgraph(
-                        name = "certificateGraph",
-                        attributeNodes = {
-                                @NamedAttributeNode("tags")
-                        }
-                )
-        }
-)
 public class Order implements Serializable {
     /**
      * The unique identifier of the order.
@@ -72,7 +55,7 @@ public class Order implements Serializable {
     @SequenceGenerator(
             name = "order_sequence",
             sequenceName = "order_id_seq",
-            allocationSize = 1)
+            allocationSize = 50)
     private Long id;
 
     /**
@@ -88,10 +71,21 @@ public class Order implements Serializable {
     @Column(name = "cost", nullable = false)
     private BigDecimal cost;
 
+    /**
+     * The version of the order, incremented by every update
+     * and checked against the version the update was based on.
+     */
+    @Version
+    @ColumnDefault("0")
+    @EqualsAndHashCode.Exclude
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * The user who placed the order.
      */
-    @ManyToOne(cascade = CascadeType.PERSIST)
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -101,7 +95,7 @@ public class Order implements Serializable {
     @Builder.Default
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    @ManyToMany(fetch = FetchType.EAGER,
+    @ManyToMany(fetch = FetchType.LAZY,
             cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
             name = "order_certificate",
@@ -110,12 +104,18 @@ public class Order implements Serializable {
     )
     private Set<Certificate> certificates = new HashSet<>();
 
+    /**
+     * The invoice lines of the order, in the order they were placed in.
+     * A set rather than a bag, so that they can be fetched together
+     * with the certificates.
+     */
     @Builder.Default
+    @OrderBy("id")
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "order",
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "order",
             cascade = CascadeType.ALL, orphanRemoval = true)
-    private List<Invoice> invoices = new ArrayList<>();
+    private Set<Invoice> invoices = new LinkedHashSet<>();
 
     /**
      * Adds a certificate to the order.
@@ -0,0 +1,18 @@
+package com.store.gift.entity;
+
+import java.sql.Timestamp;
+
+/**
+ * Identifies the state of a certificate or of the catalog for conditional requests.
+ * <p>
+ * The revision is read with scalar queries, without loading entities,
+ * so that a client holding the current state can be answered with
+ * 304 Not Modified before the state itself is read.
+ *
+ * @param tag          the opaque tag changing with every change of the state
+ * @param lastModified the time of the last modification, or null if unknown
+ */
+public record Revision(
+        String tag,
+        Timestamp lastModified) {
+}
@@ -1,5 +1,6 @@
 package com.store.gift.entity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
@@ -22,8 +23,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.annotations.Fetch;
-import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.List;
@@ -32,6 +33,7 @@ import java.util.Set;
 /**
  * The Role class represents a user role.
  * It contains information about the role's ID, permission, associated users, and authorities.
+ * Roles and their authorities are kept in the second-level cache.
  */
 @Getter
 @Setter
@@ -40,6 +42,8 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Role implements Serializable {
     /**
      * The ID of the role.
@@ -48,7 +52,7 @@ public class Role implements Serializable {
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "role_sequence")
     @SequenceGenerator(name = "role_sequence",
             sequenceName = "role_id_seq",
-            allocationSize = 1, initialValue = 5)
+            allocationSize = 50, initialValue = 5)
     @Column(name = "role_id")
     private Long id;
     /**
@@ -56,20 +60,20 @@ public class Role implements Serializable {
      */
     @Enumerated(EnumType.STRING)
     @Column(name = "permission")
-    @Fetch(FetchMode.JOIN)
     private RoleType permission;
     /**
      * The list of users associated with the role.
      */
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "role",
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "role",
             cascade = CascadeType.ALL, orphanRemoval = true)
     private List<User> users;
     /**
      * The set of authorities associated with the role.
      */
-    @ElementCollection(targetClass = Permission.class, fetch = FetchType.EAGER)
+    @ElementCollection(targetClass = Permission.class, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(name = "role_authorities", joinColumns = @JoinColumn(name = "role_id"))
     @Column(name = "authority", nullable = false)
     @Enumerated(EnumType.STRING)
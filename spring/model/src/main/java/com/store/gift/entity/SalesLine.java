@@ -0,0 +1,25 @@
+package com.store.gift.entity;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/**
+ * Represents an order line scanned for the sales analytics.
+ * <p>
+ * The lines are read as scalar rows of the orders and their certificates,
+ * ordered by order, so that the lines of an order arrive together.
+ * An order without certificates is read as one line without a certificate.
+ *
+ * @param orderId       the ID of the order
+ * @param orderDate     the date of the order
+ * @param cost          the cost of the order
+ * @param certificateId the ID of the ordered certificate, or null
+ * @param price         the current price of the certificate, or null
+ */
+public record SalesLine(
+        Long orderId,
+        Timestamp orderDate,
+        BigDecimal cost,
+        Long certificateId,
+        BigDecimal price) {
+}
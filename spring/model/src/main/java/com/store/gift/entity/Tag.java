@@ -1,6 +1,7 @@
 package com.store.gift.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -15,6 +16,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.HashSet;
@@ -22,6 +25,7 @@ import java.util.Set;
 
 /**
  * Represents a tag entity.
+ * Tags are kept in the second-level cache.
  */
 @Data
 @Entity
@@ -29,6 +33,8 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "tag")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Tag implements Serializable {
     /**
      * The unique identifier of the tag.
@@ -39,7 +45,7 @@ public class Tag implements Serializable {
             generator = "tag_sequence")
     @SequenceGenerator(name = "tag_sequence",
             sequenceName = "tag_id_seq",
-            allocationSize = 1)
+            allocationSize = 50)
     private Long id;
 
     /**
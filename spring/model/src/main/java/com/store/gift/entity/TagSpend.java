@@ -0,0 +1,71 @@
+package com.store.gift.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Represents the spending of a user on a tag: the order lines of
+ * certificates with the tag and their summed amount, kept up to date
+ * as orders change, so the most used tag of a user is read from one row.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "tag_spend",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "tag_id"}),
+        indexes = @Index(name = "tag_spend_user_cost", columnList = "user_id, cost"))
+public class TagSpend implements Serializable {
+    /**
+     * The unique identifier of the summary row.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The user who placed the orders.
+     */
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * The tag of the ordered certificates.
+     */
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tag_id", nullable = false)
+    private Tag tag;
+
+    /**
+     * The number of order lines of certificates with the tag.
+     */
+    @Column(name = "line_count", nullable = false)
+    private long lines;
+
+    /**
+     * The summed amount of those lines.
+     */
+    @Column(name = "cost", nullable = false)
+    private BigDecimal cost;
+}
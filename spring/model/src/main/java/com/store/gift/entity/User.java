@@ -9,9 +9,6 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.NamedAttributeNode;
-import jakarta.persistence.NamedEntityGraph;
-import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
@@ -24,6 +21,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Where;
 import org.springframework.validation.annotation.Validated;
 
 import java.io.Serializable;
@@ -34,6 +33,10 @@ import java.util.Set;
  * User class representing a user in the system.
  * <p>
  * Implements UserDetails interface for Spring Security integration.
+ * <p>
+ * Soft-deleted users stay in the table, flagged as deleted, until they are
+ * purged, and are filtered out of every query. Their usernames stay taken
+ * until then.
  */
 @Slf4j
 @Getter
@@ -44,37 +47,7 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "users")
-@NamedEntityGraph(
-        name = "User.orders.certificates.tags.role",
-        attributeNodes = {
-                @NamedAttributeNode(value = "orders", subgraph = "orderGraph"),
-                @NamedAttributeNode(value = "role", subgraph = "roleGraph"),
-                @NamedAttributeNode("tokens")
-        },
-        subgraphs = {
-                @NamedSubgraph(
-                        name = "orderGraph",
-                        attributeNodes = {
-                                @NamedAttributeNode(
-                                        value = "certificates",
-                                        subgraph = "certificateGraph"
-                                )
-                        }
-                ),
-                @NamedSubgraph(
-                        name = "certificateGraph",
-                        attributeNodes = {
-                                @NamedAttributeNode(value = "tags")
-                        }
-                ),
-                @NamedSubgraph(
-                        name = "roleGraph",
-                        attributeNodes = {
-                                @NamedAttributeNode("authorities")
-                        }
-                )
-        }
-)
+@Where(clause = "deleted = false")
 public class User implements Serializable {
     /**
      * The unique identifier of the user.
@@ -85,7 +58,7 @@ public class User implements Serializable {
             generator = "user_sequence")
     @SequenceGenerator(name = "user_sequence",
             sequenceName = "user_id_seq",
-            allocationSize = 1)
+            allocationSize = 50)
     private Long id;
 
     /**
@@ -107,13 +80,20 @@ public class User implements Serializable {
     @Column(name = "password", nullable = false)
     private String password;
 
+    /**
+     * Whether the user is soft-deleted and waits to be purged.
+     */
+    @ColumnDefault("false")
+    @Column(name = "deleted", nullable = false)
+    private boolean deleted;
+
     /**
      * The set of orders associated with the user.
      */
     @Builder.Default
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "user",
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "user",
             cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Order> orders = new HashSet<>();
 
@@ -123,14 +103,14 @@ public class User implements Serializable {
     @Builder.Default
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "user",
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "user",
             cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Token> tokens = new HashSet<>();
 
     /**
      * The role of a user.
      */
-    @ManyToOne(fetch = FetchType.EAGER,
+    @ManyToOne(fetch = FetchType.LAZY,
             cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinColumn(name = "role_id")
     private Role role;
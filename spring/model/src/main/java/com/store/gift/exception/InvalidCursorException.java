@@ -0,0 +1,31 @@
+package com.store.gift.exception;
+/**
+ * Exception thrown when a keyset pagination cursor is malformed
+ * or does not fit the listing it is applied to.
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    /**
+     * Constructs a new {@code InvalidCursorException}
+     * with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public InvalidCursorException(
+            final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new {@code InvalidCursorException}
+     * with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause
+     */
+    public InvalidCursorException(
+            final String message,
+            final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.store.gift.exception;
+
+/**
+ * Exception thrown when an order is placed or updated with lines,
+ * quantities or prices that cannot make up the order.
+ */
+public class InvalidOrderException extends IllegalArgumentException {
+
+    /**
+     * Constructs a new {@code InvalidOrderException}
+     * with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public InvalidOrderException(
+            final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new {@code InvalidOrderException}
+     * with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause
+     */
+    public InvalidOrderException(
+            final String message,
+            final Throwable cause) {
+        super(message, cause);
+    }
+}
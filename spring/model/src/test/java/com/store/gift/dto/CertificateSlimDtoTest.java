@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 import static java.sql.Timestamp.valueOf;
@@ -51,7 +52,7 @@ class CertificateSlimDtoTest {
     @Test
     @DisplayName("Test CertificateSlimDto validation")
     void testCertificateSlimDtoValidation() {
-        CertificateSlimDto certificate = new CertificateSlimDto(id, name, description, price, duration, createDate, lastUpdateDate, "http");
+        CertificateSlimDto certificate = new CertificateSlimDto(id, name, description, price, duration, createDate, lastUpdateDate, "http", List.of("spa"));
         Set<ConstraintViolation<CertificateSlimDto>> violations =
                 validator.validate(certificate);
         assertTrue(violations.isEmpty());
@@ -21,7 +21,7 @@ class PatchCertificateDtoTest {
         BigDecimal price = new BigDecimal("99.99");
 
         PatchCertificateDto dto = new PatchCertificateDto(
-                id, price, duration, tags);
+                id, price, duration, tags, null);
 
         dto.setId(id);
         dto.setTags(tags);
@@ -0,0 +1,63 @@
+package com.store.gift.entity;
+
+import com.store.gift.exception.InvalidCursorException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorTest {
+
+    @ParameterizedTest
+    @DisplayName("Given a cursor, when it is encoded and decoded, then the same cursor is returned")
+    @CsvSource({
+            "id, true, , 25, false",
+            "name, false, Holiday, 7, true",
+            "price, true, 49.00, 1, false",
+            "createDate, true, 2023-05-01 10:15:30.0, 12, true"
+    })
+    void testEncodeDecode(String property, boolean ascending, String value, Long id, boolean backward) {
+        Cursor cursor = Cursor.builder()
+                .property(property)
+                .ascending(ascending)
+                .value(value)
+                .id(id)
+                .backward(backward)
+                .build();
+        assertEquals(cursor, Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    @DisplayName("Given a blank token, when it is decoded, then the first page is requested")
+    void testDecodeBlank() {
+        assertNull(Cursor.decode(""));
+        assertNull(Cursor.decode(null));
+    }
+
+    @Test
+    @DisplayName("Given a malformed token, when it is decoded, then InvalidCursorException is thrown")
+    void testDecodeMalformed() {
+        assertThrows(InvalidCursorException.class, () -> Cursor.decode("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> Cursor.decode("bm90LWEtY3Vyc29y"));
+    }
+
+    @Test
+    @DisplayName("Given a cursor page, when it is mapped, then the cursors are kept")
+    void testPageMap() {
+        Cursor next = Cursor.builder().property("id").ascending(true).id(2L).build();
+        CursorPage<Integer> page = CursorPage.<Integer>builder()
+                .content(List.of(1, 2))
+                .next(next)
+                .build();
+        CursorPage<String> mapped = page.map(String::valueOf);
+        assertEquals(List.of("1", "2"), mapped.getContent());
+        assertEquals(next, mapped.getNext());
+        assertNull(mapped.getPrevious());
+    }
+}
@@ -1,12 +1,19 @@
 package com.store.gift.dao;
 
+import com.store.gift.dto.CertificateSlimDto;
 import com.store.gift.entity.Certificate;
 import com.store.gift.entity.Criteria;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
+import com.store.gift.entity.Revision;
 import com.store.gift.entity.Tag;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * This interface provides methods for accessing
@@ -69,4 +76,116 @@ public interface CertificateDao extends Dao<Certificate> {
      * @return the set of certificates associated with the order
      */
     Set<Certificate> findAllByOrderId(Long id);
+
+    /**
+     * Saves the certificates with their tags in one transaction.
+     * <p>
+     * The tags of all certificates are resolved by name at once,
+     * and the inserts are flushed in JDBC batches.
+     *
+     * @param certificates the certificates to save
+     * @return the saved certificates
+     */
+    List<Certificate> saveAll(List<Certificate> certificates);
+
+    /**
+     * Retrieves which of the given names are already used by certificates.
+     *
+     * @param names the certificate names to check
+     * @return the names used by existing certificates
+     */
+    Set<String> findExistingNames(Set<String> names);
+
+    /**
+     * Retrieves the ID, name and description of the certificates
+     * following the given ID, in the order of their IDs.
+     * <p>
+     * The returned certificates are not managed and carry no associations.
+     *
+     * @param id    the ID to start after, or null to start from the first
+     * @param limit the maximum number of certificates
+     * @return the certificates with their text fields
+     */
+    List<Certificate> findTextAfter(Long id, int limit);
+
+    /**
+     * Streams all the certificates with the names of their tags,
+     * in the order of their IDs, to a consumer.
+     * <p>
+     * The certificates are read as scalar rows from a forward-only cursor
+     * fetching a bounded number of rows per round trip, so that the memory
+     * used does not depend on the size of the catalog. The certificates
+     * passed to the consumer are not managed, and their tags carry names only.
+     *
+     * @param consumer the consumer of the certificates
+     * @return the number of certificates
+     */
+    long streamAll(Consumer<Certificate> consumer);
+
+    /**
+     * Retrieves one page of listing rows, the certificates without their
+     * orders, in the sort of the pageable.
+     *
+     * @param pageable the pagination information
+     * @return the listing rows of the page in the requested order
+     */
+    List<CertificateSlimDto> findListingBy(Pageable pageable);
+
+    /**
+     * Retrieves one page of listing rows using keyset (seek) pagination.
+     * <p>
+     * The rows are ordered by the first sort property of the pageable,
+     * or of the cursor when one is given, with the ID as the tie-breaker.
+     * Only the listing columns can be sorted by.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the page size and the sort of the first page
+     * @return the page of listing rows with the cursors of the adjacent pages
+     */
+    CursorPage<CertificateSlimDto> findListingBy(Cursor cursor, Pageable pageable);
+
+    /**
+     * Reads the revision of a certificate without loading it.
+     * The tag of the revision is the version of the certificate.
+     *
+     * @param id the ID of the certificate
+     * @return the revision, or empty if there is no such certificate
+     */
+    Optional<Revision> findRevision(Long id);
+
+    /**
+     * Reads the revision of the whole catalog, changing with every change
+     * of a certificate or of the set of tags, without loading entities.
+     * The catalog has no last modification time, as deletes leave none.
+     *
+     * @return the revision of the catalog
+     */
+    Revision findCatalogRevision();
+
+    /**
+     * Deletes the certificates with the specified IDs with set-based statements,
+     * with their order lines and tags, in one transaction.
+     *
+     * @param ids the IDs of the certificates to delete
+     * @return the IDs of the certificates found and deleted
+     */
+    Set<Long> deleteAll(Collection<Long> ids);
+
+    /**
+     * Flags the certificates with the specified IDs as deleted in one
+     * transaction, leaving them to be purged later.
+     *
+     * @param ids the IDs of the certificates to delete
+     * @return the IDs of the certificates found and flagged
+     */
+    Set<Long> softDeleteAll(Collection<Long> ids);
+
+    /**
+     * Deletes soft-deleted certificates, with their order lines and tags,
+     * in one transaction.
+     *
+     * @param limit the maximum number of certificates to purge
+     * @return the IDs of the purged certificates
+     */
+    Set<Long> purgeDeleted(int limit);
 }
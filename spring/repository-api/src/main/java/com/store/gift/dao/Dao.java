@@ -1,5 +1,7 @@
 package com.store.gift.dao;
 
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import org.springframework.data.domain.Pageable;
 
 import java.io.Serializable;
@@ -21,6 +23,25 @@ public interface Dao<T extends Serializable> {
      */
     List<T> getAllBy(Pageable pageable);
 
+    /**
+     * Retrieves one page of entities using keyset (seek) pagination.
+     * <p>
+     * The entities are ordered by the first sort property of the pageable,
+     * or of the cursor when one is given, with the ID as the tie-breaker.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the page size and the sort of the first page
+     * @return the page of entities with the cursors of the adjacent pages
+     */
+    CursorPage<T> getAllBy(Cursor cursor, Pageable pageable);
+
+    /**
+     * Counts all entities, the total of the paged listing.
+     *
+     * @return the number of entities
+     */
+    long count();
+
     /**
      * Retrieves an entity by its ID.
      *
@@ -1,11 +1,11 @@
 package com.store.gift.dao;
 
-import com.store.gift.entity.Invoice;
 import com.store.gift.entity.Order;
 import com.store.gift.entity.Tag;
 import com.store.gift.entity.User;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +25,15 @@ public interface OrderDao extends Dao<Order> {
      */
     List<Order> getUserOrders(User user, Pageable pageable);
 
+    /**
+     * Counts the orders of the user with the specified ID,
+     * the total of the paged user orders.
+     *
+     * @param userId The ID of the user.
+     * @return The number of orders of the user.
+     */
+    long countUserOrders(Long userId);
+
     /**
      * Retrieves an order for the specified user and order ID.
      *
@@ -36,7 +45,11 @@ public interface OrderDao extends Dao<Order> {
     Optional<Order> getUserOrder(Long userId, Long orderId);
 
     /**
-     * Retrieves the most used tag by the user with the specified ID.
+     * Retrieves the most used tag by the user with the specified ID,
+     * the tag the user spent the most on.
+     * <p>
+     * The tag is read from the tag spending kept up to date
+     * as orders change, not aggregated from the orders.
      *
      * @param userId The ID of the user.
      * @return An optional containing the most used tag by the user,
@@ -61,5 +74,25 @@ public interface OrderDao extends Dao<Order> {
      */
     Order update(Order order);
 
-    Invoice saveInvoice(Invoice invoice);
+    /**
+     * Rebuilds the tag spending of all users from their orders.
+     *
+     * @return The number of tag spending rows written.
+     */
+    int rebuildTagSpend();
+
+    /**
+     * Rebuilds the tag spending of the users with the specified IDs from their orders.
+     *
+     * @param userIds The IDs of the users.
+     */
+    void rebuildTagSpend(Collection<Long> userIds);
+
+    /**
+     * Finds the users whose tag spending differs from
+     * the spending aggregated from their orders.
+     *
+     * @return The IDs of the users with stale tag spending.
+     */
+    List<Long> findUsersWithStaleTagSpend();
 }
@@ -0,0 +1,44 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.SalesLine;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Data access interface for reading the sales of the orders.
+ */
+public interface SalesDao {
+
+    /**
+     * Streams the lines of the orders placed within a range of times,
+     * ordered by order so that the lines of an order follow each other.
+     * <p>
+     * The lines are read as scalar rows without loading the orders, and
+     * the stream must be consumed and closed within the transaction.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the stream of the order lines
+     */
+    Stream<SalesLine> streamLines(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Finds the names of the certificates with the specified IDs.
+     *
+     * @param certificateIds the IDs of the certificates
+     * @return the names by certificate ID, without deleted certificates
+     */
+    Map<Long, String> findCertificateNames(Collection<Long> certificateIds);
+
+    /**
+     * Finds the names of the tags of the certificates with the specified IDs.
+     *
+     * @param certificateIds the IDs of the certificates
+     * @return the tag names by certificate ID, without untagged certificates
+     */
+    Map<Long, List<String>> findTagNames(Collection<Long> certificateIds);
+}
@@ -2,6 +2,7 @@ package com.store.gift.dao;
 
 import com.store.gift.entity.Tag;
 
+import java.util.Collection;
 import java.util.Set;
 
 /**
@@ -24,4 +25,13 @@ public interface TagDao extends Dao<Tag> {
      * @return the saved set of tags
      */
     Set<Tag> saveAll(Set<Tag> tags);
+
+    /**
+     * Deletes the tags with the specified IDs with set-based statements,
+     * with their certificate links and the spending on them, in one transaction.
+     *
+     * @param ids the IDs of the tags to delete
+     * @return the IDs of the tags found and deleted
+     */
+    Set<Long> deleteAll(Collection<Long> ids);
 }
@@ -2,6 +2,9 @@ package com.store.gift.dao;
 
 import com.store.gift.entity.User;
 
+import java.util.Collection;
+import java.util.Set;
+
 /**
  * Data access interface for managing users.
  */
@@ -13,4 +16,31 @@ public interface UserDao extends Dao<User> {
      * @return the updated User
      */
     User update(User user);
+
+    /**
+     * Deletes the users with the specified IDs with set-based statements,
+     * with their orders, tokens and tag spending, in one transaction.
+     *
+     * @param ids the IDs of the users to delete
+     * @return the IDs of the users found and deleted
+     */
+    Set<Long> deleteAll(Collection<Long> ids);
+
+    /**
+     * Flags the users with the specified IDs as deleted in one
+     * transaction, leaving them to be purged later.
+     *
+     * @param ids the IDs of the users to delete
+     * @return the IDs of the users found and flagged
+     */
+    Set<Long> softDeleteAll(Collection<Long> ids);
+
+    /**
+     * Deletes soft-deleted users, with their orders, tokens and tag spending,
+     * in one transaction.
+     *
+     * @param limit the maximum number of users to purge
+     * @return the IDs of the purged users
+     */
+    Set<Long> purgeDeleted(int limit);
 }
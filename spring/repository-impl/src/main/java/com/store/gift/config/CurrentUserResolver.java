@@ -0,0 +1,17 @@
+package com.store.gift.config;
+
+import java.util.Optional;
+
+/**
+ * Resolves the user the current thread acts for, the key of the
+ * read-your-writes window of {@link ReplicaRoutingDataSource}.
+ */
+@FunctionalInterface
+public interface CurrentUserResolver {
+    /**
+     * Returns the name of the current user.
+     *
+     * @return the name of the current user, or empty for anonymous work
+     */
+    Optional<String> currentUser();
+}
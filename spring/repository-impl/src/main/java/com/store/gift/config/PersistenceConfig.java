@@ -1,28 +1,44 @@
 package com.store.gift.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
 import lombok.NonNull;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.jdbc.datasource.init.DataSourceInitializer;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.UUID;
 
 /**
  * Configuration class for persistence-related beans.
@@ -90,6 +106,129 @@ public class PersistenceConfig implements ApplicationContextAware {
     @Value("${spring.jpa.properties.hibernate.dialect}")
     private String dialect;
 
+    /**
+     * The name of the connection pool, used as the metrics tag.
+     */
+    @Value("${spring.datasource.hikari.pool-name:gift-store-pool}")
+    private String poolName;
+
+    /**
+     * The maximum number of connections kept by the pool, both idle and in use.
+     */
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    /**
+     * The minimum number of idle connections the pool tries to maintain.
+     */
+    @Value("${spring.datasource.hikari.minimum-idle:2}")
+    private int minimumIdle;
+
+    /**
+     * The maximum time in milliseconds a caller waits for a connection from the pool.
+     */
+    @Value("${spring.datasource.hikari.connection-timeout:30000}")
+    private long connectionTimeout;
+
+    /**
+     * The maximum time in milliseconds a connection is tested for aliveness.
+     */
+    @Value("${spring.datasource.hikari.validation-timeout:5000}")
+    private long validationTimeout;
+
+    /**
+     * The maximum time in milliseconds a connection may sit idle in the pool.
+     */
+    @Value("${spring.datasource.hikari.idle-timeout:600000}")
+    private long idleTimeout;
+
+    /**
+     * The maximum lifetime in milliseconds of a connection in the pool.
+     */
+    @Value("${spring.datasource.hikari.max-lifetime:1800000}")
+    private long maxLifetime;
+
+    /**
+     * The time in milliseconds a connection may be out of the pool before
+     * a possible leak is logged, zero disables leak detection.
+     */
+    @Value("${spring.datasource.hikari.leak-detection-threshold:0}")
+    private long leakDetectionThreshold;
+
+    /**
+     * The number of prepared statements cached per connection by the PostgreSQL driver.
+     */
+    @Value("${spring.datasource.hikari.statement-cache-size:250}")
+    private int statementCacheSize;
+
+    /**
+     * The number of executions of a statement after which the PostgreSQL
+     * driver switches it to a named server-side prepared statement.
+     */
+    @Value("${spring.datasource.hikari.prepare-threshold:5}")
+    private int prepareThreshold;
+
+    /**
+     * The JDBC URLs of the read replicas, none sends every transaction to the primary.
+     */
+    @Value("${spring.datasource.replicas.urls:}")
+    private String[] replicaUrls;
+
+    /**
+     * The strategy choosing the replica of a read-only transaction.
+     */
+    @Value("${spring.datasource.replicas.selection:ROUND_ROBIN}")
+    private ReplicaSelection replicaSelection;
+
+    /**
+     * The interval in milliseconds between validations of the replicas.
+     */
+    @Value("${spring.datasource.replicas.health-check-interval:5000}")
+    private long replicaHealthCheckInterval;
+
+    /**
+     * The time in milliseconds after a write in which the user
+     * reads from the primary, zero disables read-your-writes.
+     */
+    @Value("${spring.datasource.replicas.read-your-writes-window:0}")
+    private long readYourWritesWindow;
+
+    /**
+     * The number of statements Hibernate sends to the driver in one JDBC batch.
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    /**
+     * Whether inserts and updates are ordered by entity, so that they batch.
+     */
+    @Value("${spring.jpa.properties.hibernate.order_inserts:true}")
+    private boolean orderStatements;
+
+    /**
+     * The optimizer of sequences with an allocation size above one.
+     */
+    @Value("${spring.jpa.properties.hibernate.id.optimizer.pooled.preferred:pooled-lo}")
+    private String sequenceOptimizer;
+
+    /**
+     * Whether entities and collections marked as cacheable are kept in the second-level cache.
+     */
+    @Value("${spring.jpa.properties.hibernate.cache.use_second_level_cache:true}")
+    private boolean secondLevelCache;
+
+    /**
+     * Whether the results of queries marked as cacheable are kept in the query cache.
+     */
+    @Value("${spring.jpa.properties.hibernate.cache.use_query_cache:true}")
+    private boolean queryCache;
+
+    /**
+     * The Ehcache configuration of the second-level cache regions.
+     */
+    @Value("${spring.jpa.properties.hibernate.javax.cache.uri:classpath:ehcache.xml}")
+    private String cacheConfiguration;
+
     /**
      * Creates a bean for Jackson2ObjectMapperBuilder.
      *
@@ -101,7 +240,12 @@ public class PersistenceConfig implements ApplicationContextAware {
     }
 
     /**
-     * Creates an {@link EntityManager} bean.
+     * Creates the shared {@link EntityManager} bean.
+     * <p>
+     * The entity manager is a proxy delegating to the entity manager of the
+     * current transaction, so the DAOs called by one service method share its
+     * persistence context and connection. Outside a transaction every call
+     * runs in a short-lived entity manager of its own.
      *
      * @param factoryBean the {@link LocalContainerEntityManagerFactoryBean} bean.
      * @return the created {@link EntityManager} bean.
@@ -112,7 +256,7 @@ public class PersistenceConfig implements ApplicationContextAware {
     public EntityManager entityManager(
             final LocalContainerEntityManagerFactoryBean factoryBean) {
         return Optional.ofNullable(factoryBean.getObject())
-                .map(EntityManagerFactory::createEntityManager)
+                .map(SharedEntityManagerCreator::createSharedEntityManager)
                 .orElseThrow(() -> new IllegalStateException(
                         "Entity manager factory is not initialized"));
     }
@@ -136,38 +280,134 @@ public class PersistenceConfig implements ApplicationContextAware {
     }
 
     /**
-     * Creates a {@link DataSource} bean.
+     * Creates a pooled {@link DataSource} bean backed by HikariCP.
+     * <p>
+     * Pool sizing, timeouts, leak detection and the driver statement cache
+     * are read from the {@code spring.datasource.hikari.*} properties.
+     * When a {@link MeterRegistry} is available the pool publishes its
+     * active, idle, pending and acquisition time meters under {@code hikaricp.*}.
+     * <p>
+     * When {@code spring.datasource.replicas.urls} lists read replicas, every
+     * replica gets a pool of its own and the bean is a {@link ReplicaRoutingDataSource}
+     * running read-only transactions on the replicas and writes on the primary.
      *
+     * @param meterRegistry the optional registry for pool saturation metrics.
+     * @param currentUser   the optional resolver of the user of a read-your-writes window.
      * @return the created {@link DataSource} bean.
      */
-    @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(driverClassName);
-        dataSource.setUrl(url);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
-        return dataSource;
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(
+            final ObjectProvider<MeterRegistry> meterRegistry,
+            final ObjectProvider<CurrentUserResolver> currentUser) {
+        HikariDataSource primary = pool(poolName, url, meterRegistry);
+        if (replicaUrls.length == 0) {
+            return primary;
+        }
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            replicas.add(pool(poolName + "-replica-" + i, replicaUrls[i].trim(), meterRegistry));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, replicaSelection,
+                Duration.ofMillis(replicaHealthCheckInterval),
+                Duration.ofMillis(readYourWritesWindow),
+                currentUser.getIfAvailable(() -> Optional::empty));
+    }
+
+    /**
+     * Creates a HikariCP pool configured by the {@code spring.datasource.hikari.*} properties.
+     *
+     * @param name          the name of the pool, used as the metrics tag.
+     * @param jdbcUrl       the JDBC URL of the database.
+     * @param meterRegistry the optional registry for pool saturation metrics.
+     * @return the created pool.
+     */
+    private HikariDataSource pool(
+            final String name,
+            final String jdbcUrl,
+            final ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setDriverClassName(driverClassName);
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(minimumIdle);
+        config.setConnectionTimeout(connectionTimeout);
+        config.setValidationTimeout(validationTimeout);
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+        config.setLeakDetectionThreshold(leakDetectionThreshold);
+        config.addDataSourceProperty("preparedStatementCacheQueries", statementCacheSize);
+        config.addDataSourceProperty("prepareThreshold", prepareThreshold);
+        meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(
+                new MicrometerMetricsTrackerFactory(registry)));
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Creates the JCache {@link CacheManager} of the Hibernate second-level cache.
+     * <p>
+     * The regions are bounded in-process Ehcache caches configured in
+     * {@code ehcache.xml}. Every manager gets a URI of its own, so that
+     * application contexts do not share or close each other's caches.
+     * When a {@link MeterRegistry} is available every region publishes its
+     * hit, miss, put and eviction meters under {@code cache.*}.
+     *
+     * @param meterRegistry the optional registry for cache metrics.
+     * @return the created {@link CacheManager} bean.
+     * @throws IOException if the cache configuration cannot be read
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            final ObjectProvider<MeterRegistry> meterRegistry)
+            throws IOException {
+        URL configuration = applicationContext.getResource(cacheConfiguration).getURL();
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching
+                .getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:gift-store:second-level-cache:" + UUID.randomUUID()),
+                new XmlConfiguration(configuration, getClass().getClassLoader()));
+        meterRegistry.ifAvailable(registry -> cacheManager.getCacheNames()
+                .forEach(name -> JCacheMetrics.monitor(registry, cacheManager.getCache(name))));
+        return cacheManager;
     }
 
     /**
      * Creates a {@link LocalContainerEntityManagerFactoryBean}
      * bean for managing the entity manager factory.
+     * <p>
+     * Sequences allocate blocks of IDs with the pooled-lo optimizer, and
+     * inserts and updates are ordered by entity and sent in JDBC batches.
+     * Entities and collections marked as cacheable, and the results of
+     * queries marked as cacheable, are kept in the second-level cache.
      *
-     * @param dataSource the {@link DataSource} bean.
+     * @param dataSource   the {@link DataSource} bean.
+     * @param cacheManager the {@link CacheManager} of the second-level cache.
      * @return the created {@link LocalContainerEntityManagerFactoryBean} bean.
      */
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(
-            final DataSource dataSource) {
+            final DataSource dataSource,
+            final CacheManager cacheManager) {
         Properties properties = new Properties();
         properties.setProperty("hibernate.show_sql", showSql);
         properties.setProperty("hibernate.hbm2ddl.auto", hibernateDdlAuto);
         properties.setProperty("hibernate.dialect", dialect);
         properties.setProperty("hibernate.default_batch_fetch_size", "16");
+        properties.setProperty("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+        properties.setProperty("hibernate.order_inserts", String.valueOf(orderStatements));
+        properties.setProperty("hibernate.order_updates", String.valueOf(orderStatements));
+        properties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+        properties.setProperty("hibernate.id.optimizer.pooled.preferred", sequenceOptimizer);
+        properties.setProperty("hibernate.cache.use_second_level_cache", String.valueOf(secondLevelCache));
+        properties.setProperty("hibernate.cache.use_query_cache", String.valueOf(queryCache));
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.setProperty("hibernate.javax.cache.missing_cache_strategy", "create");
         LocalContainerEntityManagerFactoryBean factoryBean =
                 new LocalContainerEntityManagerFactoryBean();
         factoryBean.setJpaProperties(properties);
+        factoryBean.getJpaPropertyMap().put("hibernate.javax.cache.cache_manager", cacheManager);
         factoryBean.setDataSource(dataSource);
         factoryBean.setPackagesToScan("com.store.gift.entity");
         factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
@@ -0,0 +1,236 @@
+package com.store.gift.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link DataSource} sending read-only transactions to the replicas
+ * and everything else to the primary.
+ * <p>
+ * Connections are fetched lazily, on the first statement, so the route is
+ * chosen once the read-only flag of the transaction is bound. A read-only
+ * transaction runs on a healthy replica chosen by the {@link ReplicaSelection},
+ * or on the primary when no replica is healthy. The replicas are validated
+ * periodically, a replica failing validation gets no reads until it passes again.
+ * <p>
+ * With a read-your-writes window, a user whose read-write transaction
+ * committed within the window reads from the primary, so replication lag
+ * does not hide the user's own changes.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    /**
+     * The lookup key of the primary.
+     */
+    static final String PRIMARY = "primary";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaSelection selection;
+    private final long readYourWritesNanos;
+    private final CurrentUserResolver currentUser;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecks;
+
+    /**
+     * Creates the data source and validates the replicas once.
+     *
+     * @param primary             the primary data source
+     * @param replicas            the replica data sources
+     * @param selection           the strategy choosing a replica
+     * @param healthCheckInterval the interval between replica validations
+     * @param readYourWrites      the window after a write in which the user
+     *                            reads from the primary, zero disables it
+     * @param currentUser         the resolver of the user a window belongs to
+     */
+    public ReplicaRoutingDataSource(
+            final DataSource primary,
+            final List<? extends DataSource> replicas,
+            final ReplicaSelection selection,
+            final Duration healthCheckInterval,
+            final Duration readYourWrites,
+            final CurrentUserResolver currentUser) {
+        this.primary = primary;
+        this.selection = selection;
+        this.readYourWritesNanos = readYourWrites.toNanos();
+        this.currentUser = currentUser;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicas.get(i));
+            this.replicas.add(replica);
+            targets.put(replica.name, replica.dataSource);
+        }
+        Router router = new Router();
+        router.setTargetDataSources(targets);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+        checkHealth();
+        healthChecks = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = healthCheckInterval.toMillis();
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Validates a connection of every replica and forgets the writes
+     * that left the read-your-writes window.
+     */
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.warn("Replica {} is {}", replica.name, healthy ? "healthy again" : "unhealthy");
+                replica.healthy = healthy;
+            }
+        }
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(written -> now - written > readYourWritesNanos);
+    }
+
+    /**
+     * Returns the lookup key of the data source the current work runs on,
+     * and remembers the commit of a read-write transaction of the user.
+     *
+     * @return the name of a replica or {@link #PRIMARY}
+     */
+    String route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWrite();
+            return PRIMARY;
+        }
+        if (wroteRecently()) {
+            return PRIMARY;
+        }
+        return select().map(replica -> replica.name).orElse(PRIMARY);
+    }
+
+    private Optional<Replica> select() {
+        List<Replica> healthy = replicas.stream()
+                .filter(replica -> replica.healthy)
+                .toList();
+        if (healthy.isEmpty()) {
+            return Optional.empty();
+        }
+        return switch (selection) {
+            case ROUND_ROBIN -> Optional.of(healthy.get(
+                    Math.floorMod(next.getAndIncrement(), healthy.size())));
+            case LEAST_LOADED -> healthy.stream()
+                    .min(Comparator.comparingInt(Replica::load));
+        };
+    }
+
+    private void rememberWrite() {
+        if (readYourWritesNanos <= 0
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        currentUser.currentUser().ifPresent(user ->
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        lastWrites.put(user, System.nanoTime());
+                    }
+                }));
+    }
+
+    private boolean wroteRecently() {
+        if (readYourWritesNanos <= 0) {
+            return false;
+        }
+        return currentUser.currentUser()
+                .map(lastWrites::get)
+                .filter(written -> System.nanoTime() - written <= readYourWritesNanos)
+                .isPresent();
+    }
+
+    /**
+     * Stops the health checks and closes the pools of the primary and the replicas.
+     */
+    @Override
+    public void close() {
+        healthChecks.shutdownNow();
+        replicas.forEach(replica -> close(replica.dataSource));
+        close(primary);
+    }
+
+    private static void close(final DataSource dataSource) {
+        if (dataSource instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close the data source", e);
+            }
+        }
+    }
+
+    /**
+     * Routes every connection by {@link #route()}.
+     */
+    private final class Router extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return route();
+        }
+    }
+
+    /**
+     * A replica and its health.
+     */
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(final String name, final DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Returns the connections in use, known for Hikari pools only.
+         *
+         * @return the number of active connections
+         */
+        private int load() {
+            if (dataSource instanceof HikariDataSource hikari) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections();
+            }
+            return 0;
+        }
+    }
+}
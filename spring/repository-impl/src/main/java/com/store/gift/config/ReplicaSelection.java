@@ -0,0 +1,16 @@
+package com.store.gift.config;
+
+/**
+ * Strategies choosing the replica a read-only transaction runs on.
+ */
+public enum ReplicaSelection {
+    /**
+     * The healthy replicas take turns.
+     */
+    ROUND_ROBIN,
+    /**
+     * The healthy replica with the fewest connections in use,
+     * as reported by its connection pool.
+     */
+    LEAST_LOADED
+}
@@ -1,38 +1,48 @@
 package com.store.gift.dao;
 
+import com.store.gift.dto.CertificateSlimDto;
 import com.store.gift.entity.Certificate;
 import com.store.gift.entity.Criteria;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
+import com.store.gift.entity.Invoice;
 import com.store.gift.entity.Order;
+import com.store.gift.entity.Revision;
 import com.store.gift.entity.Tag;
 import com.store.gift.exception.CertificateNotFoundException;
+import com.store.gift.exception.InvalidCursorException;
 import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceException;
-import jakarta.persistence.PersistenceUnit;
-import jakarta.persistence.Subgraph;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toSet;
 
 
@@ -42,19 +52,29 @@ import static java.util.stream.Collectors.toSet;
  * This class provides the concrete implementation
  * for accessing and manipulating certificates in the database.
  * <p>
- * It utilizes the EntityManagerFactory and EntityManager
- * to interact with the database.
+ * It uses the shared, transaction-scoped EntityManager, so its methods
+ * join the transaction of the calling service and run on its connection.
+ * The tag index is updated once that transaction has committed.
  */
 
 @Repository
+@Transactional
 @RequiredArgsConstructor
 public class CertificateDaoImpl implements CertificateDao {
     private static final String NOT_FOUND_WITH_ID = "Certificate not found with ID: ";
     /**
-     * The entity manager factory used for obtaining the entity manager.
+     * The number of rows fetched per round trip while streaming the catalog.
      */
-    @PersistenceUnit
-    private final EntityManagerFactory factory;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    /**
+     * The entity manager of the current transaction.
+     */
+    @PersistenceContext
+    private final EntityManager entityManager;
+    /**
+     * The in-memory index of the certificates of every tag.
+     */
+    private final TagBitmapIndex tagIndex;
 
     /**
      * Retrieves a certificate by its ID.
@@ -64,6 +84,7 @@ public class CertificateDaoImpl implements CertificateDao {
      * or an empty optional if not found
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Certificate> getById(final Long id) {
         return Optional.ofNullable(findById(id));
     }
@@ -76,38 +97,191 @@ public class CertificateDaoImpl implements CertificateDao {
      * or an empty optional if not found
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Certificate> findByUsername(final String name) {
-        try (EntityManager entityManager = factory
-                .createEntityManager()) {
-            List<Certificate> certificates =
-                    entityManager.createQuery(Queries.SELECT_BY_NAME, Certificate.class)
-                            .setParameter(Queries.NAME, name)
-                            .getResultList();
-            return certificates.isEmpty()
-                    ? Optional.empty()
-                    : Optional.of(certificates.get(0));
-        }
+        List<Certificate> certificates =
+                entityManager.createQuery(Queries.SELECT_BY_NAME, Certificate.class)
+                        .setParameter(Queries.NAME, name)
+                        .setHint(Queries.FETCH_GRAPH,
+                                FetchPlan.CERTIFICATE_DETAIL.graph(entityManager))
+                        .getResultList();
+        return certificates.isEmpty()
+                ? Optional.empty()
+                : Optional.of(certificates.get(0));
     }
 
     /**
      * Retrieves all certificates with pagination.
+     * <p>
+     * The IDs of the page are selected first with the requested sort,
+     * then the certificates with their tags are fetched in that order.
      *
      * @param pageable the pagination information
      * @return a list of certificates based
      * on the pagination parameters
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Certificate> getAllBy(final Pageable pageable) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityGraph<Certificate> graph = entityManager.createEntityGraph(
-                    Certificate.class);
-            return new ArrayList<>(findAllByIds(new HashSet<>(
-                    entityManager.createQuery("SELECT c.id FROM Certificate c", Long.class)
-                            .setHint(Queries.FETCH_GRAPH, graph)
-                            .setFirstResult((int) pageable.getOffset())
-                            .setMaxResults(pageable.getPageSize())
-                            .getResultList())));
+        return PageLoader.load(entityManager, Certificate.class, pageable,
+                FetchPlan.CERTIFICATE_DETAIL.graph(entityManager),
+                Certificate::getId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Retrieves certificates with keyset pagination,
+     * seeking on the sort property and the ID.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the pagination information
+     * @return a page of certificate entities with the adjacent cursors
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Certificate> getAllBy(
+            final Cursor cursor,
+            final Pageable pageable) {
+        return Keyset.select(entityManager, Certificate.class, cursor, pageable,
+                FetchPlan.CERTIFICATE_DETAIL.graph(entityManager),
+                Certificate::getId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the listing columns are selected with the requested sort, offset
+     * and limit, then the tag names of the page are selected with one query.
+     * No entities are loaded, so the orders of the certificates are not read.
+     *
+     * @param pageable the pagination information
+     * @return the listing rows of the page in the requested order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<CertificateSlimDto> findListingBy(final Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<Certificate> root = query.from(Certificate.class);
+        query.multiselect(listingColumns(root))
+                .orderBy(PageLoader.orders(builder, root, pageable));
+        List<CertificateSlimDto> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList()
+                .stream()
+                .map(CertificateDaoImpl::toListing)
+                .toList();
+        return withTagNames(entityManager, rows);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The listing columns are selected with keyset pagination, then the
+     * tag names of the page are selected with one query. The listing can
+     * be sorted by the selected columns only, the cursors are taken from them.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the pagination information
+     * @return a page of listing rows with the adjacent cursors
+     * @throws InvalidCursorException if the sort property is not a listing column
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CertificateSlimDto> findListingBy(
+            final Cursor cursor,
+            final Pageable pageable) {
+        Cursor position = Keyset.resolve(cursor, pageable);
+        if (!Queries.LISTING_ATTRIBUTES.contains(position.getProperty())) {
+            throw new InvalidCursorException(
+                    "Certificates cannot be listed by " + position.getProperty());
         }
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<Certificate> root = query.from(Certificate.class);
+        query.multiselect(listingColumns(root));
+        Keyset.apply(builder, query, root, position, List.of());
+        List<CertificateSlimDto> rows = entityManager.createQuery(query)
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList()
+                .stream()
+                .map(CertificateDaoImpl::toListing)
+                .toList();
+        CursorPage<CertificateSlimDto> page = Keyset.page(rows, position, pageable);
+        withTagNames(entityManager, page.getContent());
+        return page;
+    }
+
+    /**
+     * Selects the listing columns of a certificate.
+     *
+     * @param root the root of the query
+     * @return the columns in the order of {@link Queries#LISTING_ATTRIBUTES}
+     */
+    private static List<Selection<?>> listingColumns(
+            final Root<Certificate> root) {
+        return Queries.LISTING_ATTRIBUTES.stream()
+                .<Selection<?>>map(root::get)
+                .toList();
+    }
+
+    /**
+     * Builds a listing row from the selected columns.
+     *
+     * @param row the columns in the order of {@link Queries#LISTING_ATTRIBUTES}
+     * @return the listing row without tag names
+     */
+    private static CertificateSlimDto toListing(final Object[] row) {
+        return CertificateSlimDto.builder()
+                .id((Long) row[0])
+                .name((String) row[1])
+                .description((String) row[2])
+                .price((BigDecimal) row[3])
+                .duration((Integer) row[4])
+                .createDate((Timestamp) row[5])
+                .lastUpdateDate((Timestamp) row[6])
+                .path((String) row[7])
+                .build();
+    }
+
+    /**
+     * Sets the tag names of the listing rows, selected with one query.
+     *
+     * @param entityManager the entity manager
+     * @param rows          the listing rows
+     * @return the listing rows
+     */
+    private static List<CertificateSlimDto> withTagNames(
+            final EntityManager entityManager,
+            final List<CertificateSlimDto> rows) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        Map<Long, List<String>> names = new HashMap<>();
+        entityManager.createQuery(Queries.SELECT_TAG_NAMES_BY_CERTIFICATE_IDS, Object[].class)
+                .setParameter("ids", rows.stream().map(CertificateSlimDto::getId).toList())
+                .getResultList()
+                .forEach(row -> names.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                        .add((String) row[1]));
+        rows.forEach(row -> row.setTagNames(names.getOrDefault(row.getId(), List.of())));
+        return rows;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Counts all certificates.
+     *
+     * @return the number of certificates
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return entityManager.createQuery(
+                        String.format(Queries.COUNT_ALL, "Certificate"), Long.class)
+                .getSingleResult();
     }
 
     /**
@@ -116,26 +290,22 @@ public class CertificateDaoImpl implements CertificateDao {
      * This method fetches a certificate
      * from the database based on its ID.
      * <p>
-     * It creates an entity graph to include the "tags"
-     * attribute when retrieving the certificate.
-     * <p>
-     * The entity manager is used to find the certificate using
-     * the specified ID and the entity graph hints.
+     * The certificate is found with the tags of the
+     * {@link FetchPlan#CERTIFICATE_DETAIL} plan. A soft-deleted certificate
+     * found in the second-level cache is not returned.
      *
      * @param id the ID of the certificate
      * @return the certificate with the specified ID,
      * or null if not found
      */
     @Override
+    @Transactional(readOnly = true)
     public Certificate findById(final Long id) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityGraph<Certificate> graph = entityManager.createEntityGraph(
-                    Certificate.class);
-            graph.addAttributeNodes(Queries.TAGS);
-            Map<String, Object> hints = new HashMap<>();
-            hints.put(Queries.FETCH_GRAPH, graph);
-            return entityManager.find(Certificate.class, id, hints);
-        }
+        Certificate certificate = entityManager.find(Certificate.class, id,
+                FetchPlan.CERTIFICATE_DETAIL.hints(entityManager));
+        return certificate == null || certificate.isDeleted()
+                ? null
+                : certificate;
     }
 
     /**
@@ -143,40 +313,182 @@ public class CertificateDaoImpl implements CertificateDao {
      * <p>
      * This method saves the specified certificate to the database.
      * </p>
-     * The entity manager is used to perform the transaction
-     * and persist the certificate object.
+     * The certificate is persisted in the current transaction
+     * and flushed, so constraint violations surface here.
      *
      * @param certificate the certificate to be saved
      * @return the saved certificate
      */
     @Override
     public Certificate save(final Certificate certificate) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                transaction.begin();
-                setCertificateTags(entityManager, certificate);
+        try {
+            Map<String, Tag> tags = TagResolver.resolve(entityManager,
+                    tagNames(List.of(certificate)));
+            certificate.setTags(certificate.getTags().stream()
+                    .map(tag -> tags.get(tag.getName()))
+                    .collect(toSet()));
+            entityManager.persist(certificate);
+            entityManager.flush();
+            tagIndex.add(certificate.getId(), tags.keySet());
+            return certificate;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Existing tags are selected with one {@code IN} query and missing tags
+     * are inserted with one statement, then the persistence context is flushed and cleared
+     * every {@link Queries#BATCH_SIZE} certificates, so the inserts are sent
+     * in JDBC batches and the context does not grow with the input.
+     * Clearing detaches the entities loaded earlier in the transaction.
+     *
+     * @param certificates the certificates to save
+     * @return the saved certificates
+     */
+    @Override
+    public List<Certificate> saveAll(final List<Certificate> certificates) {
+        try {
+            List<Set<String>> names = certificates.stream()
+                    .map(certificate -> tagNames(List.of(certificate)))
+                    .toList();
+            Map<String, Tag> tags = TagResolver.resolve(entityManager,
+                    tagNames(certificates));
+            for (int i = 0; i < certificates.size(); i++) {
+                Certificate certificate = certificates.get(i);
+                certificate.setTags(certificate.getTags().stream()
+                        .map(tag -> tags.get(tag.getName()))
+                        .collect(toSet()));
                 entityManager.persist(certificate);
-                transaction.commit();
-                return certificate;
-            } catch (Exception e) {
-                if (transaction.isActive()) {
-                    transaction.rollback();
+                if ((i + 1) % Queries.BATCH_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    tags.replaceAll((name, tag) -> entityManager
+                            .getReference(Tag.class, tag.getId()));
+                }
+            }
+            entityManager.flush();
+            for (int i = 0; i < certificates.size(); i++) {
+                tagIndex.add(certificates.get(i).getId(), names.get(i));
+            }
+            return certificates;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param names the certificate names to check
+     * @return the names used by existing certificates
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> findExistingNames(final Set<String> names) {
+        if (names.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(entityManager
+                .createQuery(Queries.SELECT_NAMES_IN, String.class)
+                .setParameter("names", names)
+                .getResultList());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the selected columns are read, the certificates are built
+     * from the rows without loading their tags and orders.
+     *
+     * @param id    the ID to start after, or null to start from the first
+     * @param limit the maximum number of certificates
+     * @return the certificates with their text fields
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Certificate> findTextAfter(
+            final Long id,
+            final int limit) {
+        return entityManager
+                .createQuery(Queries.SELECT_TEXT_AFTER_ID, Object[].class)
+                .setParameter(Queries.ID, id == null ? Long.MIN_VALUE : id)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(row -> Certificate.builder()
+                        .id((Long) row[0])
+                        .name((String) row[1])
+                        .description((String) row[2])
+                        .build())
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The certificates are joined to their tags, so a certificate spans
+     * as many consecutive rows as it has tags, and it is passed to the
+     * consumer once its last row has been read. No entity is loaded, so
+     * the persistence context stays empty however many rows are read.
+     *
+     * @param consumer the consumer of the certificates
+     * @return the number of certificates
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long streamAll(final Consumer<Certificate> consumer) {
+        long count = 0;
+        Certificate current = null;
+        try (Stream<Object[]> rows = entityManager
+                .createQuery(Queries.SELECT_EXPORT_ROWS, Object[].class)
+                .setHint(Queries.FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .getResultStream()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if (current == null || !current.getId().equals(row[0])) {
+                    if (current != null) {
+                        consumer.accept(current);
+                        count++;
+                    }
+                    current = Certificate.builder()
+                            .id((Long) row[0])
+                            .name((String) row[1])
+                            .description((String) row[2])
+                            .shortDescription((String) row[3])
+                            .company((String) row[4])
+                            .price((BigDecimal) row[5])
+                            .duration((Integer) row[6])
+                            .path((String) row[7])
+                            .createDate((Timestamp) row[8])
+                            .lastUpdateDate((Timestamp) row[9])
+                            .version((Long) row[10])
+                            .build();
+                }
+                if (row[11] != null) {
+                    current.addTag(Tag.builder().name((String) row[11]).build());
                 }
-                throw new PersistenceException(e.getMessage());
             }
         }
+        if (current != null) {
+            consumer.accept(current);
+            count++;
+        }
+        return count;
     }
 
     /**
      * Removes the certificate with the specified ID from the database.
      * <p>
-     * It uses the EntityManager and EntityTransaction
-     * to perform the deletion in a transactional manner.
+     * The deletion runs in the current transaction, and the tag spending
+     * of the users who ordered the certificate is rebuilt without it.
      * <p>
      * If any exception occurs during the process,
-     * the transaction is rolled back
-     * and a PersistenceException is thrown.
+     * a PersistenceException is thrown and
+     * the transaction is rolled back.
      *
      * @param id the ID of the certificate to be deleted
      * @throws PersistenceException if an error
@@ -184,90 +496,252 @@ public class CertificateDaoImpl implements CertificateDao {
      */
     @Override
     public void delete(final Long id) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                transaction.begin();
-                if (getById(id).isEmpty()) {
-                    throw new CertificateNotFoundException(
-                            NOT_FOUND_WITH_ID + id);
-                }
-                entityManager.createNativeQuery(Queries.DELETE_ORDER_CERTIFICATE)
-                        .setParameter(Queries.ID, id)
-                        .executeUpdate();
-                entityManager.createNativeQuery(Queries.DELETE_CERTIFICATE_TAG)
-                        .setParameter(Queries.ID, id)
-                        .executeUpdate();
-                entityManager.createNativeQuery(Queries.DELETE_CERTIFICATE)
-                        .setParameter(Queries.ID, id)
+        try {
+            if (getById(id).isEmpty()) {
+                throw new CertificateNotFoundException(
+                        NOT_FOUND_WITH_ID + id);
+            }
+            List<Long> users = TagSpendLedger.usersOf(entityManager, id);
+            NativeQueries.update(entityManager, Queries.DELETE_INVOICES_BY_CERTIFICATE, Invoice.class)
+                    .setParameter(Queries.ID, id)
+                    .executeUpdate();
+            NativeQueries.update(entityManager, Queries.DELETE_ORDER_CERTIFICATE, Order.class)
+                    .setParameter(Queries.ID, id)
+                    .executeUpdate();
+            NativeQueries.update(entityManager, Queries.DELETE_CERTIFICATE_TAG, Certificate.class)
+                    .setParameter(Queries.ID, id)
+                    .executeUpdate();
+            NativeQueries.update(entityManager, Queries.DELETE_CERTIFICATE, Certificate.class)
+                    .setParameter(Queries.ID, id)
+                    .executeUpdate();
+            entityManager.flush();
+            TagSpendLedger.rebuild(entityManager, users);
+            tagIndex.remove(id);
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the IDs of the certificates are selected, the certificates are
+     * not loaded. The tag spending of the users who ordered them is rebuilt
+     * once for all of them.
+     *
+     * @param ids the IDs of the certificates to delete
+     * @return the IDs of the certificates found and deleted
+     */
+    @Override
+    public Set<Long> deleteAll(final Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            Set<Long> existing = findExistingIds(ids);
+            hardDelete(existing);
+            return existing;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the two columns are selected, the certificate is not loaded.
+     *
+     * @param id the ID of the certificate
+     * @return the revision, or empty if there is no such certificate
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Revision> findRevision(final Long id) {
+        return entityManager.createQuery(Queries.SELECT_CERTIFICATE_REVISION, Object[].class)
+                .setParameter(Queries.ID, id)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .map(row -> new Revision(String.valueOf(row[0]), (Timestamp) row[1]));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The aggregates are selected with one query. An update bumps the sum of
+     * versions, a delete lowers a count and an insert raises a highest ID,
+     * so no change leaves all of them as they were.
+     *
+     * @return the revision of the catalog
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Revision findCatalogRevision() {
+        Object[] row = entityManager.createQuery(Queries.SELECT_CATALOG_REVISION, Object[].class)
+                .getSingleResult();
+        StringBuilder tag = new StringBuilder();
+        for (Object column : row) {
+            if (!tag.isEmpty()) {
+                tag.append('-');
+            }
+            tag.append(column instanceof Timestamp time ? time.getTime() : column);
+        }
+        return new Revision(tag.toString(), null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The certificates are flagged with one update and leave the tag index
+     * once the transaction has committed. Their order lines, tags and the
+     * tag spending of the users who ordered them stay until they are purged.
+     *
+     * @param ids the IDs of the certificates to delete
+     * @return the IDs of the certificates found and flagged
+     */
+    @Override
+    public Set<Long> softDeleteAll(final Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            Set<Long> existing = findExistingIds(ids);
+            if (!existing.isEmpty()) {
+                entityManager.createQuery(Queries.SOFT_DELETE_CERTIFICATES)
+                        .setParameter("ids", existing)
                         .executeUpdate();
-                transaction.commit();
-            } catch (Exception e) {
-                if (transaction.isActive()) {
-                    transaction.rollback();
-                }
-                throw new PersistenceException(e.getMessage(), e);
+                existing.forEach(tagIndex::remove);
             }
+            return existing;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The flagged IDs are selected with a native query, as the soft-deleted
+     * certificates are filtered out of the entity queries, and deleted with
+     * the statements of {@link #deleteAll(Collection)}.
+     *
+     * @param limit the maximum number of certificates to purge
+     * @return the IDs of the purged certificates
+     */
+    @Override
+    public Set<Long> purgeDeleted(final int limit) {
+        try {
+            Set<Long> deleted = ids(entityManager
+                    .createNativeQuery(Queries.SELECT_DELETED_CERTIFICATE_IDS)
+                    .setMaxResults(limit)
+                    .getResultList());
+            hardDelete(deleted);
+            return deleted;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
+        }
+    }
+
+    private Set<Long> findExistingIds(final Collection<Long> ids) {
+        return new HashSet<>(entityManager
+                .createQuery(Queries.SELECT_CERTIFICATE_IDS_IN, Long.class)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    private void hardDelete(final Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> users = ids(entityManager
+                .createNativeQuery(Queries.SELECT_USER_IDS_BY_CERTIFICATE_IDS)
+                .setParameter("ids", ids)
+                .getResultList());
+        for (Map.Entry<String, Class<?>> query : List.<Map.Entry<String, Class<?>>>of(
+                Map.entry(Queries.DELETE_INVOICES_BY_CERTIFICATES, Invoice.class),
+                Map.entry(Queries.DELETE_ORDER_CERTIFICATES, Order.class),
+                Map.entry(Queries.DELETE_CERTIFICATE_TAGS, Certificate.class),
+                Map.entry(Queries.DELETE_CERTIFICATES, Certificate.class))) {
+            NativeQueries.update(entityManager, query.getKey(), query.getValue())
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        entityManager.flush();
+        TagSpendLedger.rebuild(entityManager, users);
+        ids.forEach(tagIndex::remove);
+    }
+
+    private static Set<Long> ids(final List<?> rows) {
+        return rows.stream()
+                .map(row -> ((Number) row).longValue())
+                .collect(toSet());
+    }
+
     /**
      * Updates a certificate in the database.
      * <p>
      * The method updates a certificate in the database.
-     * It mentions the usage of EntityManager and EntityTransaction
-     * for performing the update in a transactional manner.
+     * The certificate is loaded into the persistence context of the
+     * current transaction, changed there and flushed.
      * <p>
      * The method checks if the certificate exists by its ID and throws
      * a CertificateNotFoundException if it doesn't.
      * It then updates the fields of the existing certificate based
-     * on the provided certificate object.
+     * on the provided certificate object. When the tags change, the tag
+     * spending of the users who ordered the certificate is rebuilt.
+     * <p>
+     * When the certificate carries a version, the update is rejected unless
+     * the stored certificate is still at that version. The version is checked
+     * again by the update statement, so a concurrent update committed in
+     * between is not overwritten either.
      *
      * @param certificate the certificate object with updated values
      * @return the updated certificate
      * @throws CertificateNotFoundException if the certificate
      *                                      does not exist in the database
+     * @throws OptimisticLockException      if the certificate
+     *                                      is at another version
      * @throws PersistenceException         if an error occurs
      *                                      during the update process
      */
     @Override
     public Certificate update(
             final Certificate certificate) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            EntityTransaction transaction =
-                    entityManager.getTransaction();
-            try {
-                transaction.begin();
-                EntityGraph<Certificate> graph = entityManager
-                        .createEntityGraph(Certificate.class);
-                graph.addAttributeNodes(Queries.ORDERS, Queries.TAGS);
-                Subgraph<Order> orderSubgraph = graph.addSubgraph(Queries.ORDERS);
-                orderSubgraph.addAttributeNodes(Queries.USER);
-
-                Certificate existed = getById(certificate.getId())
-                        .orElseThrow(() -> new CertificateNotFoundException(
-                                NOT_FOUND_WITH_ID + certificate.getId()));
-
-                if (certificate.getPrice() != null) {
-                    existed.setPrice(certificate.getPrice());
-                }
-                if (certificate.getDuration() != null) {
-                    existed.setDuration(certificate.getDuration());
-                }
-                if (certificate.getTags() != null) {
-                    setCertificateTags(entityManager,
-                            certificate,
-                            existed);
-                }
-                transaction.commit();
-                return existed;
-            } catch (Exception e) {
-                if (transaction.isActive()) {
-                    transaction.rollback();
-                }
-                throw new PersistenceException(e.getMessage());
+        try {
+            Certificate existed = getById(certificate.getId())
+                    .orElseThrow(() -> new CertificateNotFoundException(
+                            NOT_FOUND_WITH_ID + certificate.getId()));
+            if (certificate.getVersion() != null
+                    && !certificate.getVersion().equals(existed.getVersion())) {
+                throw new OptimisticLockException(String.format(
+                        "Certificate %d is at version %d, not %d",
+                        existed.getId(), existed.getVersion(), certificate.getVersion()));
+            }
+
+            if (certificate.getPrice() != null) {
+                existed.setPrice(certificate.getPrice());
+            }
+            if (certificate.getDuration() != null) {
+                existed.setDuration(certificate.getDuration());
+            }
+            if (certificate.getTags() != null) {
+                setCertificateTags(entityManager,
+                        certificate,
+                        existed);
             }
+            entityManager.flush();
+            if (certificate.getTags() != null) {
+                TagSpendLedger.rebuild(entityManager,
+                        TagSpendLedger.usersOf(entityManager, existed.getId()));
+            }
+            tagIndex.put(existed.getId(), existed.getTags().stream()
+                    .map(Tag::getName)
+                    .toList());
+            return existed;
+        } catch (OptimisticLockException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage());
         }
     }
 
@@ -281,79 +755,112 @@ public class CertificateDaoImpl implements CertificateDao {
      * @return a list of tags associated with the certificate
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Tag> findTagsByCertificateId(final Long id) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            return entityManager
-                    .createQuery(Queries.SELECT_TAGS_BY_ID, Tag.class)
-                    .setParameter(Queries.ID, id)
-                    .getResultList();
-        }
+        return entityManager
+                .createQuery(Queries.SELECT_TAGS_BY_ID, Tag.class)
+                .setParameter(Queries.ID, id)
+                .getResultList();
     }
 
     /**
-     * Retrieves certificates based on a list of tag names.
+     * Retrieves certificates based on the search criteria.
      * <p>
-     * This method retrieves certificates from the database
-     * that are associated with any of the specified tag names.
-     * <p>
-     * It uses the EntityManager to create a query that selects
-     * the certificates based on the provided tag names.
-     * <p>
-     * The method sets the tag names as parameters in the query
-     * and returns the resulting list of certificates.
+     * Pages filtered only by tags and sorted by ID are selected from the
+     * in-memory {@link TagBitmapIndex} and hydrated by ID, without querying
+     * the join table. Other searches filter by tags with subqueries on the
+     * join table, so certificates with several matching tags are not
+     * repeated, and by name and description with {@code LIKE}.
      *
-     * @param criteria the list of tag names
-     * @return a list of certificates associated
-     * with any of the specified tag names
+     * @param criteria the tag names, name and description to search for
+     * @param pageable the page information
+     * @return a list of certificates matching the criteria
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Certificate> findByCriteria(
             final Criteria criteria,
             final Pageable pageable) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Certificate> query =
-                    builder.createQuery(Certificate.class);
-            Root<Certificate> root = query.from(Certificate.class);
-            List<Predicate> predicates = new ArrayList<>();
-
-            if (criteria.getTagNames() != null && !criteria.getTagNames().isEmpty()) {
-                Join<Certificate, Tag> tagJoin = root.join(Queries.TAGS, JoinType.INNER);
-                predicates.add(tagJoin.get(Queries.NAME).in(criteria.getTagNames()));
-            }
+        EntityGraph<?> graph = FetchPlan.CERTIFICATE_DETAIL.graph(entityManager);
 
-            if (criteria.getName() != null) {
-                predicates.add(builder.like(root.get(Queries.NAME),
-                        String.format("%%%s%%", criteria.getName())));
-            }
-            if (criteria.getDescription() != null) {
-                predicates.add(builder.like(root.get(Queries.DESCRIPTION),
-                        String.format("%%%s%%", criteria.getDescription())));
-            }
+        if (criteria.hasTagFilter()
+                && criteria.getName() == null
+                && criteria.getDescription() == null
+                && pageable.isPaged()
+                && pageable.getSort().stream()
+                .allMatch(order -> Queries.ID.equals(order.getProperty()))) {
+            return PageLoader.fetch(entityManager, Certificate.class,
+                    tagIndex.page(criteria, pageable), graph, Certificate::getId);
+        }
 
-            query.select(root).where(builder.and(predicates.toArray(new Predicate[0])));
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Certificate> query =
+                builder.createQuery(Certificate.class);
+        Root<Certificate> root = query.from(Certificate.class);
+        List<Predicate> predicates = new ArrayList<>();
 
-            if (pageable.getSort().isSorted()) {
-                List<jakarta.persistence.criteria.Order> orders = new ArrayList<>();
-                for (Sort.Order order : pageable.getSort()) {
-                    orders.add(order.getDirection().equals(Sort.Direction.ASC)
-                            ? builder.asc(root.get(order.getProperty()))
-                            : builder.desc(root.get(order.getProperty())));
-                }
-                query.orderBy(orders);
+        if (criteria.getTagNames() != null && !criteria.getTagNames().isEmpty()) {
+            predicates.add(root.get(Queries.ID).in(taggedIds(query, builder,
+                    criteria.getTagNames(), criteria.isAllTags())));
+        }
+        if (criteria.getExcludedTagNames() != null && !criteria.getExcludedTagNames().isEmpty()) {
+            predicates.add(builder.not(root.get(Queries.ID).in(taggedIds(query, builder,
+                    criteria.getExcludedTagNames(), false))));
+        }
+        if (criteria.getName() != null) {
+            predicates.add(builder.like(root.get(Queries.NAME),
+                    String.format("%%%s%%", criteria.getName())));
+        }
+        if (criteria.getDescription() != null) {
+            predicates.add(builder.like(root.get(Queries.DESCRIPTION),
+                    String.format("%%%s%%", criteria.getDescription())));
+        }
+
+        query.select(root).where(builder.and(predicates.toArray(new Predicate[0])));
+
+        if (pageable.getSort().isSorted()) {
+            List<jakarta.persistence.criteria.Order> orders = new ArrayList<>();
+            for (Sort.Order order : pageable.getSort()) {
+                orders.add(order.getDirection().equals(Sort.Direction.ASC)
+                        ? builder.asc(root.get(order.getProperty()))
+                        : builder.desc(root.get(order.getProperty())));
             }
+            query.orderBy(orders);
+        }
 
-            EntityGraph<Certificate> graph = entityManager
-                    .createEntityGraph(Certificate.class);
-            graph.addAttributeNodes(Queries.TAGS);
+        return entityManager.createQuery(query)
+                .setHint(Queries.FETCH_GRAPH, graph)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
 
-            return entityManager.createQuery(query)
-                    .setHint(Queries.FETCH_GRAPH, graph)
-                    .setFirstResult((int) pageable.getOffset())
-                    .setMaxResults(pageable.getPageSize())
-                    .getResultList();
+    /**
+     * Creates a subquery of the IDs of the certificates
+     * having any or all of the given tag names.
+     *
+     * @param query   the enclosing query
+     * @param builder the criteria builder
+     * @param names   the tag names
+     * @param all     whether all the tag names are required
+     * @return the subquery of certificate IDs
+     */
+    private static Subquery<Long> taggedIds(
+            final CriteriaQuery<?> query,
+            final CriteriaBuilder builder,
+            final List<String> names,
+            final boolean all) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<Certificate> certificate = subquery.from(Certificate.class);
+        Join<Certificate, Tag> tag = certificate.join(Queries.TAGS);
+        subquery.select(certificate.get(Queries.ID))
+                .where(tag.get(Queries.NAME).in(names));
+        if (all) {
+            subquery.groupBy(certificate.get(Queries.ID))
+                    .having(builder.equal(builder.countDistinct(tag.get(Queries.NAME)),
+                            (long) new HashSet<>(names).size()));
         }
+        return subquery;
     }
 
     /**
@@ -366,20 +873,16 @@ public class CertificateDaoImpl implements CertificateDao {
      * @return a list of certificates associated with the user
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Certificate> getCertificatesByUserId(
             final Long id) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            EntityGraph<Certificate> graph =
-                    entityManager.createEntityGraph(Certificate.class);
-            graph.addAttributeNodes(Queries.TAGS);
-            return entityManager.createQuery(
-                            Queries.SELECT_CERTIFICATES_BY_USER_ID,
-                            Certificate.class)
-                    .setParameter(Queries.ID, id)
-                    .setHint(Queries.FETCH_GRAPH, graph)
-                    .getResultList();
-        }
+        return entityManager.createQuery(
+                        Queries.SELECT_CERTIFICATES_BY_USER_ID,
+                        Certificate.class)
+                .setParameter(Queries.ID, id)
+                .setHint(Queries.FETCH_GRAPH,
+                        FetchPlan.CERTIFICATE_DETAIL.graph(entityManager))
+                .getResultList();
     }
 
     /**
@@ -394,20 +897,16 @@ public class CertificateDaoImpl implements CertificateDao {
      * @param certificateIds the set of certificate IDs
      * @return a set of certificates matching the specified IDs
      */
+    @Transactional(readOnly = true)
     public List<Certificate> findAllByIds(
             final Set<Long> certificateIds) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            EntityGraph<Certificate> graph = entityManager
-                    .createEntityGraph(Certificate.class);
-            graph.addAttributeNodes(Queries.TAGS);
-            return entityManager.createQuery(
-                            Queries.SELECT_ALL_BY_IDS,
-                            Certificate.class)
-                    .setParameter("ids", certificateIds)
-                    .setHint(Queries.FETCH_GRAPH, graph)
-                    .getResultList();
-        }
+        return entityManager.createQuery(
+                        Queries.SELECT_ALL_BY_IDS,
+                        Certificate.class)
+                .setParameter("ids", certificateIds)
+                .setHint(Queries.FETCH_GRAPH,
+                        FetchPlan.CERTIFICATE_DETAIL.graph(entityManager))
+                .getResultList();
     }
 
     /**
@@ -422,75 +921,45 @@ public class CertificateDaoImpl implements CertificateDao {
      * @param orderId the ID of the order
      * @return a set of certificates associated with the order
      */
+    @Transactional(readOnly = true)
     public Set<Certificate> findAllByOrderId(final Long orderId) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityGraph<Certificate> graph = entityManager.createEntityGraph(
-                    Certificate.class);
-            graph.addAttributeNodes(Queries.TAGS);
-            graph.addSubgraph(Queries.ORDERS).addAttributeNodes(Queries.USER);
-
-            List<Certificate> list = entityManager.createQuery(
-                            Queries.SELECT_CERTIFICATES_BY_ORDER_ID,
-                            Certificate.class)
-                    .setParameter("orderId", orderId)
-                    .setHint(Queries.FETCH_GRAPH, graph)
-                    .getResultList();
-            return new HashSet<>(list);
-        }
+        List<Certificate> list = entityManager.createQuery(
+                        Queries.SELECT_CERTIFICATES_BY_ORDER_ID,
+                        Certificate.class)
+                .setParameter("orderId", orderId)
+                .setHint(Queries.FETCH_GRAPH,
+                        FetchPlan.CERTIFICATE_DETAIL.graph(entityManager))
+                .getResultList();
+        return new HashSet<>(list);
     }
 
     /**
-     * Sets the tags for a certificate using the provided EntityManager.
-     * <p>
-     * It maps the existing tags of the certificate
-     * to the corresponding tags fetched from the database based on their names.
-     * The method updates the certificate's tags with the fetched tags.
+     * Collects the distinct tag names of the certificates.
      *
-     * @param entityManager the EntityManager used for database access
-     * @param certificate   the certificate for which to set the tags
+     * @param certificates the certificates
+     * @return the tag names
      */
-    private void setCertificateTags(
-            final EntityManager entityManager,
-            final Certificate certificate) {
-        Set<Tag> tagSet = certificate.getTags()
-                .stream()
-                .map(tag -> entityManager.createQuery(
-                                Queries.SELECT_TAGS_BY_NAME,
-                                Tag.class)
-                        .setParameter(Queries.NAME, tag.getName())
-                        .getResultList()
-                        .stream()
-                        .findFirst()
-                        .orElse(tag))
+    private static Set<String> tagNames(final List<Certificate> certificates) {
+        return certificates.stream()
+                .flatMap(certificate -> certificate.getTags().stream())
+                .map(Tag::getName)
                 .collect(toSet());
-        certificate.setTags(tagSet);
     }
 
+    /**
+     * Adds the tags of the update to the existing certificate,
+     * resolving them by name and creating the missing ones.
+     *
+     * @param entityManager the EntityManager used for database access
+     * @param certificate   the certificate carrying the new tags
+     * @param existed       the certificate being updated
+     */
     private void setCertificateTags(
             final EntityManager entityManager,
             final Certificate certificate,
             final Certificate existed) {
-        Set<Tag> updatedTags = existed.getTags();
-        List<String> tagNames = certificate.getTags()
-                .stream()
-                .map(Tag::getName)
-                .toList();
-        List<Tag> existingTags = entityManager.createQuery(
-                        Queries.SELECT_TAG_BY_NAMES,
-                        Tag.class)
-                .setParameter("names", tagNames)
-                .getResultList();
-        Map<String, Tag> existingTagsMap = existingTags.stream()
-                .collect(Collectors.toMap(Tag::getName, identity()));
-        for (Tag tag : certificate.getTags()) {
-            Tag existingTag = existingTagsMap.get(tag.getName());
-            if (existingTag != null) {
-                updatedTags.add(existingTag);
-            } else {
-                entityManager.persist(tag);
-                updatedTags.add(tag);
-            }
-        }
-        existed.setTags(updatedTags);
+        Map<String, Tag> tags = TagResolver.resolve(entityManager,
+                tagNames(List.of(certificate)));
+        existed.getTags().addAll(tags.values());
     }
 }
@@ -0,0 +1,108 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.User;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Subgraph;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the named fetch plans of the DAOs.
+ * <p>
+ * Associations are mapped lazily, and a read names the plan of what its
+ * callers render, so the associations loaded with an entity are declared
+ * in one place instead of a graph built in every DAO method. The entities
+ * returned by the DAOs are detached, an association outside the plan
+ * of the read cannot be loaded later.
+ * <p>
+ * A plan lists attribute paths in the dot notation of Spring Data entity
+ * graphs; the attributes along a path are fetched too.
+ */
+enum FetchPlan {
+    /**
+     * A certificate with its tags, as rendered by the certificate views.
+     */
+    CERTIFICATE_DETAIL(Certificate.class, Queries.TAGS),
+    /**
+     * An order with its invoice lines and its certificates with their tags.
+     */
+    ORDER_WITH_LINES(Order.class, "invoices", "certificates.tags"),
+    /**
+     * A user with its role and its orders with their lines.
+     */
+    USER_DETAIL(User.class, "role", "orders.certificates.tags"),
+    /**
+     * An authenticated user with the role its authorities derive from.
+     */
+    AUTH_PRINCIPAL(User.class, "role");
+
+    private final Class<?> type;
+    private final List<String> paths;
+
+    FetchPlan(final Class<?> type, final String... paths) {
+        this.type = type;
+        this.paths = List.of(paths);
+    }
+
+    /**
+     * Creates the fetch graph of the plan.
+     *
+     * @param entityManager the entity manager the graph is used with
+     * @return the fetch graph
+     */
+    EntityGraph<?> graph(final EntityManager entityManager) {
+        EntityGraph<?> graph = entityManager.createEntityGraph(type);
+        Map<String, Subgraph<?>> subgraphs = new HashMap<>();
+        for (String path : paths) {
+            int dot = path.lastIndexOf('.');
+            if (dot < 0) {
+                graph.addAttributeNodes(path);
+            } else {
+                subgraph(graph, subgraphs, path.substring(0, dot))
+                        .addAttributeNodes(path.substring(dot + 1));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Creates the hints applying the plan to a find.
+     *
+     * @param entityManager the entity manager the find runs with
+     * @return the hints with the fetch graph of the plan
+     */
+    Map<String, Object> hints(final EntityManager entityManager) {
+        Map<String, Object> hints = new HashMap<>();
+        hints.put(Queries.FETCH_GRAPH, graph(entityManager));
+        return hints;
+    }
+
+    /**
+     * Returns the subgraph of a path, adding the subgraphs along it once.
+     *
+     * @param graph     the root graph
+     * @param subgraphs the subgraphs added so far by path
+     * @param path      the path of the subgraph
+     * @return the subgraph
+     */
+    private static Subgraph<?> subgraph(
+            final EntityGraph<?> graph,
+            final Map<String, Subgraph<?>> subgraphs,
+            final String path) {
+        Subgraph<?> subgraph = subgraphs.get(path);
+        if (subgraph == null) {
+            int dot = path.lastIndexOf('.');
+            subgraph = dot < 0
+                    ? graph.addSubgraph(path)
+                    : subgraph(graph, subgraphs, path.substring(0, dot))
+                    .addSubgraph(path.substring(dot + 1));
+            subgraphs.put(path, subgraph);
+        }
+        return subgraph;
+    }
+}
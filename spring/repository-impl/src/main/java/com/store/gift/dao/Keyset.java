@@ -0,0 +1,244 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
+import com.store.gift.exception.InvalidCursorException;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Helper for keyset (seek) pagination with the Criteria API.
+ * <p>
+ * A listing is ordered by one sort property followed by the ID
+ * as a unique tie-breaker. The page after a cursor is selected with
+ * {@code property > :value OR (property = :value AND id > :id)},
+ * so the database seeks the index instead of skipping an offset.
+ */
+final class Keyset {
+    private Keyset() {
+    }
+
+    /**
+     * Resolves the cursor the listing is seeking from.
+     * <p>
+     * A null cursor starts a new listing from the first page,
+     * ordered by the first sort property of the pageable.
+     *
+     * @param cursor   the cursor from the client, or null
+     * @param pageable the pagination information
+     * @return the cursor describing the sort of the listing
+     */
+    static Cursor resolve(final Cursor cursor, final Pageable pageable) {
+        if (cursor != null) {
+            return cursor;
+        }
+        Sort.Order order = pageable.getSort().stream()
+                .findFirst()
+                .orElse(Sort.Order.asc(Queries.ID));
+        return Cursor.builder()
+                .property(order.getProperty())
+                .ascending(order.isAscending())
+                .build();
+    }
+
+    /**
+     * Selects one keyset page of the given entity type.
+     * <p>
+     * The root entities are selected without a fetch graph, so the limit
+     * is applied by the database; the associations of the fetch graph are
+     * then fetched for the selected IDs with {@link PageLoader#fetch}.
+     *
+     * @param entityManager the entity manager
+     * @param type          the entity class
+     * @param cursor        the cursor from the client, or null for the first page
+     * @param pageable      the pagination information
+     * @param graph         the fetch graph of the entities, or null
+     * @param idOf          the function returning the ID of an entity
+     * @param <T>           the entity type
+     * @return the page with next and previous cursors
+     */
+    static <T> CursorPage<T> select(
+            final EntityManager entityManager,
+            final Class<T> type,
+            final Cursor cursor,
+            final Pageable pageable,
+            final EntityGraph<?> graph,
+            final Function<T, Long> idOf) {
+        Cursor position = resolve(cursor, pageable);
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(type);
+        Root<T> root = query.from(type);
+        query.select(root);
+        apply(builder, query, root, position, List.of());
+        List<T> rows = entityManager.createQuery(query)
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        if (graph != null) {
+            rows = PageLoader.fetch(entityManager, type,
+                    rows.stream().map(idOf).toList(), graph, idOf);
+        }
+        return page(rows, position, pageable);
+    }
+
+    /**
+     * Applies the seek predicate and the keyset order to the query.
+     *
+     * @param builder    the criteria builder
+     * @param query      the query to restrict
+     * @param root       the root of the query
+     * @param cursor     the resolved cursor
+     * @param predicates additional predicates of the listing
+     * @param <T>        the entity type
+     * @throws InvalidCursorException if the entity has no such sort property
+     */
+    static <T> void apply(
+            final CriteriaBuilder builder,
+            final CriteriaQuery<?> query,
+            final Root<T> root,
+            final Cursor cursor,
+            final List<Predicate> predicates) {
+        Path<Comparable<Object>> id = root.get(Queries.ID);
+        Path<Comparable<Object>> key = key(root, cursor.getProperty());
+        boolean forward = cursor.isAscending() != cursor.isBackward();
+        List<Predicate> where = new ArrayList<>(predicates);
+        if (cursor.getId() != null) {
+            Comparable<Object> lastId = convert(cursor.getId().toString(), id.getJavaType());
+            Predicate afterId = forward
+                    ? builder.greaterThan(id, lastId)
+                    : builder.lessThan(id, lastId);
+            if (Queries.ID.equals(cursor.getProperty()) || cursor.getValue() == null) {
+                where.add(afterId);
+            } else {
+                Comparable<Object> value = convert(cursor.getValue(), key.getJavaType());
+                where.add(builder.or(
+                        forward
+                                ? builder.greaterThan(key, value)
+                                : builder.lessThan(key, value),
+                        builder.and(builder.equal(key, value), afterId)));
+            }
+        }
+        query.where(where.toArray(new Predicate[0]));
+        List<jakarta.persistence.criteria.Order> orders = new ArrayList<>();
+        if (!Queries.ID.equals(cursor.getProperty())) {
+            orders.add(forward ? builder.asc(key) : builder.desc(key));
+        }
+        orders.add(forward ? builder.asc(id) : builder.desc(id));
+        query.orderBy(orders);
+    }
+
+    /**
+     * Resolves the sort property of a cursor on the root entity.
+     *
+     * @param root     the root of the query
+     * @param property the sort property
+     * @param <T>      the entity type
+     * @return the path of the property
+     * @throws InvalidCursorException if the entity has no such property
+     */
+    private static <T> Path<Comparable<Object>> key(
+            final Root<T> root,
+            final String property) {
+        try {
+            return root.get(property);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(
+                    "Cannot seek on the sort property: " + property, e);
+        }
+    }
+
+    /**
+     * Builds a page from the rows selected with a limit of page size plus one.
+     * <p>
+     * The extra row only tells whether another page exists in
+     * the seek direction; rows of a backward seek are reversed
+     * back into listing order.
+     *
+     * @param rows     the selected rows in seek order
+     * @param cursor   the resolved cursor
+     * @param pageable the pagination information
+     * @param <T>      the entity type
+     * @return the page with next and previous cursors
+     */
+    static <T> CursorPage<T> page(
+            final List<T> rows,
+            final Cursor cursor,
+            final Pageable pageable) {
+        boolean more = rows.size() > pageable.getPageSize();
+        List<T> content = new ArrayList<>(more
+                ? rows.subList(0, pageable.getPageSize())
+                : rows);
+        if (cursor.isBackward()) {
+            Collections.reverse(content);
+        }
+        if (content.isEmpty()) {
+            return CursorPage.<T>builder().build();
+        }
+        boolean hasNext = cursor.isBackward() || more;
+        boolean hasPrevious = cursor.isBackward() ? more : cursor.getId() != null;
+        return CursorPage.<T>builder()
+                .content(content)
+                .next(hasNext ? boundary(content.get(content.size() - 1), cursor, false) : null)
+                .previous(hasPrevious ? boundary(content.get(0), cursor, true) : null)
+                .build();
+    }
+
+    /**
+     * Creates the cursor pointing at the given boundary row.
+     *
+     * @param row      the boundary row
+     * @param cursor   the resolved cursor
+     * @param backward whether the new cursor seeks backwards
+     * @return the cursor of the row
+     */
+    private static Cursor boundary(
+            final Object row,
+            final Cursor cursor,
+            final boolean backward) {
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(row);
+        Object value = wrapper.getPropertyValue(cursor.getProperty());
+        return Cursor.builder()
+                .property(cursor.getProperty())
+                .ascending(cursor.isAscending())
+                .value(value == null ? null : value.toString())
+                .id((Long) wrapper.getPropertyValue(Queries.ID))
+                .backward(backward)
+                .build();
+    }
+
+    /**
+     * Converts the string form of a cursor value to the attribute type.
+     *
+     * @param value the string form of the value
+     * @param type  the Java type of the attribute
+     * @return the typed value
+     * @throws InvalidCursorException if the value does not fit the type
+     */
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> convert(
+            final String value,
+            final Class<?> type) {
+        try {
+            return (Comparable<Object>) DefaultConversionService
+                    .getSharedInstance()
+                    .convert(value, type);
+        } catch (ConversionException e) {
+            throw new InvalidCursorException(
+                    "Cursor value does not match the sort property: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.store.gift.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+
+/**
+ * Native statements declaring the entities whose tables they write.
+ * <p>
+ * Hibernate cannot tell which tables a native {@code executeUpdate}
+ * touches, so unless the statement declares them it evicts every region
+ * of the second-level cache and invalidates the whole query cache.
+ * Declaring the entities limits the eviction to their regions and to the
+ * cached queries over their tables.
+ */
+final class NativeQueries {
+    private NativeQueries() {
+    }
+
+    /**
+     * Creates a native statement writing the tables of the entities.
+     * A query of another provider is returned as it is.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @param sql           the SQL statement
+     * @param entities      the entities whose tables the statement writes
+     * @return the query
+     */
+    static Query update(
+            final EntityManager entityManager,
+            final String sql,
+            final Class<?>... entities) {
+        Query query = entityManager.createNativeQuery(sql);
+        if (query instanceof NativeQuery<?> nativeQuery) {
+            for (Class<?> entity : entities) {
+                nativeQuery.addSynchronizedEntityClass(entity);
+            }
+        }
+        return query;
+    }
+}
@@ -1,32 +1,31 @@
 package com.store.gift.dao;
 
 import com.store.gift.entity.Certificate;
-import com.store.gift.entity.Invoice;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import com.store.gift.entity.Order;
 import com.store.gift.entity.Tag;
 import com.store.gift.entity.User;
+import com.store.gift.exception.InvalidOrderException;
 import com.store.gift.exception.OrderNotFoundException;
-import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceException;
-import jakarta.persistence.PersistenceUnit;
-import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.Hibernate;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -35,49 +34,72 @@ import java.util.stream.Collectors;
 /**
  * Implementation of the {@link OrderDao} interface
  * for managing orders in the data access layer.
+ * <p>
+ * The shared, transaction-scoped entity manager is used, so placing an
+ * order looks up its user and certificates and inserts it in the one
+ * transaction and connection of the calling service.
  */
 @Slf4j
 @Repository
+@Transactional
 @RequiredArgsConstructor
 public class OrderDaoImpl implements OrderDao {
     /**
-     * The entity manager factory used for obtaining the entity manager.
+     * The entity manager of the current transaction.
      */
-    @PersistenceUnit
-    private final EntityManagerFactory factory;
+    @PersistenceContext
+    private final EntityManager entityManager;
 
     /**
      * {@inheritDoc}
      * <p>
      * Retrieves all orders with pagination.
+     * The IDs of the page are selected first with the requested sort,
+     * then the orders with their certificates and tags are fetched in that order.
      *
      * @param pageable the pagination information.
      * @return a list of order entities.
      */
+    @Transactional(readOnly = true)
     public List<Order> getAllBy(final Pageable pageable) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Long> query = builder.createQuery(Long.class);
-            Root<Order> root = query.from(Order.class);
-            query.select(root.get("id"));
-            if (pageable.getSort().isSorted()) {
-                query.orderBy(pageable.getSort().stream()
-                        .map(order -> order.getDirection().equals(Sort.Direction.ASC)
-                                ? builder.asc(root.get(order.getProperty()))
-                                : builder.desc(root.get(order.getProperty())))
-                        .toList());
-            }
-            List<Long> orderIds = entityManager.createQuery(query)
-                    .setMaxResults(pageable.getPageSize())
-                    .setFirstResult(pageable.getPageNumber() * pageable.getPageSize())
-                    .getResultList();
-            return entityManager.createQuery(Queries.SELECT_ORDER_BY_IDS, Order.class)
-                    .setParameter("orderIds", orderIds)
-                    .setHint(Queries.FETCH_GRAPH, entityManager
-                            .getEntityGraph("Order.certificates.tags"))
+        return PageLoader.load(entityManager, Order.class, pageable,
+                FetchPlan.ORDER_WITH_LINES.graph(entityManager),
+                Order::getId);
+    }
 
-                    .getResultList();
-        }
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Retrieves orders with keyset pagination,
+     * seeking on the sort property and the ID.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the pagination information
+     * @return a page of order entities with the adjacent cursors
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getAllBy(
+            final Cursor cursor,
+            final Pageable pageable) {
+        return Keyset.select(entityManager, Order.class, cursor, pageable,
+                FetchPlan.ORDER_WITH_LINES.graph(entityManager),
+                Order::getId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Counts all orders.
+     *
+     * @return the number of orders
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return entityManager.createQuery(
+                        String.format(Queries.COUNT_ALL, "Order"), Long.class)
+                .getSingleResult();
     }
 
     /**
@@ -88,17 +110,15 @@ public class OrderDaoImpl implements OrderDao {
      * or empty if not found.
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Order> getById(final Long id) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            return entityManager.createQuery(
-                            Queries.SELECT_ORDER_BY_ID, Order.class)
-                    .setParameter(Queries.ID, id)
-                    .setHint(Queries.FETCH_GRAPH, entityManager
-                            .getEntityGraph("Order.certificates.tags"))
-                    .getResultStream()
-                    .findFirst();
-        }
+        return entityManager.createQuery(
+                        Queries.SELECT_ORDER_BY_ID, Order.class)
+                .setParameter(Queries.ID, id)
+                .setHint(Queries.FETCH_GRAPH,
+                        FetchPlan.ORDER_WITH_LINES.graph(entityManager))
+                .getResultStream()
+                .findFirst();
     }
 
     /**
@@ -110,75 +130,74 @@ public class OrderDaoImpl implements OrderDao {
      * @return an optional containing the order entity, or empty if not found.
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Order> findByUsername(final String username) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            TypedQuery<Order> query = entityManager
-                    .createQuery(Queries.SELECT_ORDER_BY_NAME,
-                            Order.class);
-            query.setParameter("username", username);
-            List<Order> orders = query.getResultList();
-            return orders.isEmpty()
-                    ? Optional.empty()
-                    : Optional.of(orders.get(0));
-        }
+        TypedQuery<Order> query = entityManager
+                .createQuery(Queries.SELECT_ORDER_BY_NAME,
+                        Order.class);
+        query.setParameter("username", username);
+        query.setHint(Queries.FETCH_GRAPH,
+                FetchPlan.ORDER_WITH_LINES.graph(entityManager));
+        List<Order> orders = query.getResultList();
+        return orders.isEmpty()
+                ? Optional.empty()
+                : Optional.of(orders.get(0));
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The lines of the order are added to the tag spending of its user.
+     * Its invoice lines are inserted with it in JDBC batches.
      *
      * @param order the order entity to be saved.
      * @return the saved order entity.
      */
     @Override
     public Order save(final Order order) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                transaction.begin();
-                order.setUser(entityManager.getReference(User.class, order.getUser().getId()));
-                order.setCertificates(order.getCertificates()
-                        .stream()
-                        .map(certificate -> entityManager.find(Certificate.class, certificate.getId()))
-                        .collect(Collectors.toSet()));
-                entityManager.persist(order);
-                transaction.commit();
-                return order;
-            } catch (Exception e) {
-                if (transaction.isActive()) {
-                    transaction.rollback();
-                }
-                throw new PersistenceException(e);
-            }
+        try {
+            order.setUser(entityManager.getReference(User.class, order.getUser().getId()));
+            order.setCertificates(order.getCertificates()
+                    .stream()
+                    .map(certificate -> entityManager.find(Certificate.class, certificate.getId(),
+                            FetchPlan.CERTIFICATE_DETAIL.hints(entityManager)))
+                    .collect(Collectors.toSet()));
+            order.getInvoices().forEach(line -> {
+                line.setOrder(order);
+                line.setCertificate(entityManager.getReference(Certificate.class,
+                        line.getCertificate().getId()));
+            });
+            entityManager.persist(order);
+            entityManager.flush();
+            TagSpendLedger.add(entityManager, order);
+            return order;
+        } catch (Exception e) {
+            throw new PersistenceException(e);
         }
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The lines of the order are subtracted from the tag spending of its user.
      *
      * @param id the ID of the order to be deleted.
      */
     @Override
     public void delete(final Long id) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            EntityTransaction transaction =
-                    entityManager.getTransaction();
-            try {
-                transaction.begin();
-                Order order = entityManager
-                        .getReference(Order.class, id);
-                if (order == null) {
-                    throw new OrderNotFoundException(
-                            "Order Not Found" + id);
-                }
-                entityManager.remove(order);
-                transaction.commit();
-            } catch (Exception e) {
-                transaction.rollback();
-                throw new EntityNotFoundException(
-                        e.getMessage(), e);
+        try {
+            Order order = entityManager.find(Order.class, id,
+                    FetchPlan.ORDER_WITH_LINES.hints(entityManager));
+            if (order == null) {
+                throw new OrderNotFoundException(
+                        "Order Not Found" + id);
             }
+            TagSpendLedger.subtract(entityManager, order);
+            entityManager.remove(order);
+            entityManager.flush();
+        } catch (Exception e) {
+            throw new EntityNotFoundException(
+                    e.getMessage(), e);
         }
     }
 
@@ -191,37 +210,49 @@ public class OrderDaoImpl implements OrderDao {
      * @param pageable the pagination information.
      * @return a list of order entities.
      */
+    @Transactional(readOnly = true)
     public List<Order> getUserOrders(
             final User user,
             final Pageable pageable) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            CriteriaBuilder builder = entityManager
-                    .getCriteriaBuilder();
-            CriteriaQuery<Order> query = builder
-                    .createQuery(Order.class);
-            Root<Order> root = query.from(Order.class);
-            EntityGraph<Order> graph = entityManager
-                    .createEntityGraph(Order.class);
-            graph.addAttributeNodes(Queries.USER);
-            graph.addSubgraph("certificate")
-                    .addAttributeNodes(Queries.TAGS);
-            if (pageable.getSort().isSorted()) {
-                query.orderBy(pageable.getSort().stream()
-                        .map(order -> order.getDirection().equals(Sort.Direction.ASC)
-                                ? builder.asc(root.get(order.getProperty()))
-                                : builder.desc(root.get(order.getProperty())))
-                        .toList());
-            }
-            query.where(builder.equal(root.get(Queries.USER), user));
-
-            return entityManager.createQuery(query)
-                    .setHint(Queries.FETCH_GRAPH, graph)
-                    .setMaxResults(pageable.getPageSize())
-                    .setFirstResult(pageable.getPageNumber()
-                            * pageable.getPageSize())
-                    .getResultList();
+        CriteriaBuilder builder = entityManager
+                .getCriteriaBuilder();
+        CriteriaQuery<Order> query = builder
+                .createQuery(Order.class);
+        Root<Order> root = query.from(Order.class);
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(pageable.getSort().stream()
+                    .map(order -> order.getDirection().equals(Sort.Direction.ASC)
+                            ? builder.asc(root.get(order.getProperty()))
+                            : builder.desc(root.get(order.getProperty())))
+                    .toList());
         }
+        query.where(builder.equal(root.get(Queries.USER), user));
+
+        return entityManager.createQuery(query)
+                .setHint(Queries.FETCH_GRAPH,
+                        FetchPlan.ORDER_WITH_LINES.graph(entityManager))
+                .setMaxResults(pageable.getPageSize())
+                .setFirstResult(pageable.getPageNumber()
+                        * pageable.getPageSize())
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Counts the orders of a user.
+     *
+     * @param userId the ID of the user.
+     * @return the number of orders of the user.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long countUserOrders(
+            final Long userId) {
+        return entityManager.createQuery(
+                        Queries.COUNT_ORDERS_BY_USER_ID, Long.class)
+                .setParameter(Queries.ID, userId)
+                .getSingleResult();
     }
 
     /**
@@ -234,62 +265,41 @@ public class OrderDaoImpl implements OrderDao {
      * @return an optional containing the order entity,
      * or empty if not found.
      */
+    @Transactional(readOnly = true)
     public Optional<Order> getUserOrder(final Long userId, final Long orderId) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Order> query = builder.createQuery(Order.class);
-            Root<Order> root = query.from(Order.class);
-            root.fetch("certificates", JoinType.LEFT)
-                    .fetch("tags", JoinType.LEFT);
-            query.select(root).distinct(true).where(
-                    builder.equal(root.get("user").get("id"), userId),
-                    builder.equal(root.get("id"), orderId)
-            );
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> query = builder.createQuery(Order.class);
+        Root<Order> root = query.from(Order.class);
+        query.select(root).where(
+                builder.equal(root.get("user").get("id"), userId),
+                builder.equal(root.get("id"), orderId)
+        );
 
-            List<Order> results = entityManager
-                    .createQuery(query)
-                    .setHint(Queries.FETCH_GRAPH, entityManager
-                            .getEntityGraph("User.orders.certificates.tags.role"))
-                    .getResultList();
-            if (!results.isEmpty()) {
-                Order order = results.get(0);
-                Hibernate.initialize(order.getCertificates());
-                return Optional.of(order);
-            } else {
-                return Optional.empty();
-            }
-        }
+        return entityManager
+                .createQuery(query)
+                .setHint(Queries.FETCH_GRAPH,
+                        FetchPlan.ORDER_WITH_LINES.graph(entityManager))
+                .getResultStream()
+                .findFirst();
     }
 
     /**
      * Retrieves the most used tag by a specific user.
+     * <p>
+     * The tag is the first row of the tag spending of the user
+     * by cost, read through the index on the user and cost.
      *
      * @param userId the ID of the user.
      * @return an optional containing
      * the most used tag entity, or empty if not found.
      */
+    @Transactional(readOnly = true)
     public Optional<Tag> getMostUsedTagBy(final Long userId) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Tuple> query = builder.createTupleQuery();
-            Root<Order> root = query.from(Order.class);
-            Join<Certificate, Tag> join = root.join(Queries.CERTIFICATES).join(Queries.TAGS);
-            query.multiselect(
-                            join.alias("tag"),
-                            builder.count(join),
-                            builder.sum(root.get("cost")))
-                    .where(builder.equal(root.get("user").get(Queries.ID), userId))
-                    .groupBy(join)
-                    .orderBy(builder.desc(
-                            builder.sum(root.get("cost"))));
-            List<Tuple> result = entityManager
-                    .createQuery(query)
-                    .setMaxResults(1)
-                    .getResultList();
-            return result.isEmpty()
-                    ? Optional.empty()
-                    : Optional.of(result.get(0).get("tag", Tag.class));
-        }
+        return entityManager.createQuery(Queries.SELECT_MOST_USED_TAG, Tag.class)
+                .setParameter(Queries.ID, userId)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst();
     }
 
     /**
@@ -301,73 +311,133 @@ public class OrderDaoImpl implements OrderDao {
      * @param pageable the page of information
      * @return a list of order entities.
      */
+    @Transactional(readOnly = true)
     public List<Order> findOrdersByUserId(
             final Long userId,
             final Pageable pageable) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            EntityGraph<Order> graph =
-                    entityManager.createEntityGraph(Order.class);
-            graph.addAttributeNodes(Queries.CERTIFICATES);
-            graph.addSubgraph(Queries.CERTIFICATES).addAttributeNodes(Queries.TAGS);
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Order> query = builder.createQuery(Order.class);
-            Root<Order> root = query.from(Order.class);
-            query.where(builder.equal(root.get(Queries.USER).get(Queries.ID), userId));
-            if (pageable.getSort().isSorted()) {
-                query.orderBy(pageable.getSort().stream()
-                        .map(order -> order.getDirection().equals(Sort.Direction.ASC)
-                                ? builder.asc(root.get(order.getProperty()))
-                                : builder.desc(root.get(order.getProperty())))
-                        .toList());
-            }
-            return entityManager
-                    .createQuery(query)
-                    .setHint(Queries.FETCH_GRAPH, graph)
-                    .getResultList();
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> query = builder.createQuery(Order.class);
+        Root<Order> root = query.from(Order.class);
+        query.where(builder.equal(root.get(Queries.USER).get(Queries.ID), userId));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(pageable.getSort().stream()
+                    .map(order -> order.getDirection().equals(Sort.Direction.ASC)
+                            ? builder.asc(root.get(order.getProperty()))
+                            : builder.desc(root.get(order.getProperty())))
+                    .toList());
         }
+        return entityManager
+                .createQuery(query)
+                .setHint(Queries.FETCH_GRAPH,
+                        FetchPlan.ORDER_WITH_LINES.graph(entityManager))
+                .getResultList();
     }
 
     /**
      * {@inheritDoc}
      * <p>
+     * The user, cost and certificates of the order are copied onto the
+     * stored order, those left null are kept. The invoice lines of the
+     * stored order are kept too: an order is not repriced by an update, so
+     * the certificates and cost of an order with lines cannot be changed.
+     * The tag spending of the users of the order before and after the
+     * update is rebuilt from their orders.
+     * <p>
+     * When the order carries a version, the update is rejected unless the
+     * stored order is still at that version. The version is checked again
+     * by the update statement, so a concurrent update committed in between
+     * is not overwritten either.
      *
      * @param order the order to update
      * @return the updated order
-     * @throws PersistenceException if an error occurs during the update process
+     * @throws OrderNotFoundException  if the order does not exist
+     * @throws OptimisticLockException if the order is at another version
+     * @throws InvalidOrderException   if the order has lines and the update
+     *                                 changes its certificates or cost
+     * @throws PersistenceException    if an error occurs during the update process
      */
     @Override
     public Order update(
             final Order order) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            entityManager.getTransaction().begin();
-            Order mergedOrder = entityManager.merge(order);
-            entityManager.getTransaction().commit();
-            entityManager.refresh(mergedOrder);
-            return mergedOrder;
+        Order existing = entityManager.find(Order.class, order.getId());
+        if (existing == null) {
+            throw new OrderNotFoundException(
+                    String.format("Order with id %d not found", order.getId()));
+        }
+        if (order.getVersion() != null && !order.getVersion().equals(existing.getVersion())) {
+            throw new OptimisticLockException(String.format(
+                    "Order %d is at version %d, not %d",
+                    order.getId(), existing.getVersion(), order.getVersion()));
         }
+        Set<Long> certificateIds = order.getCertificates() == null
+                ? null
+                : order.getCertificates().stream().map(Certificate::getId).collect(Collectors.toSet());
+        if (!existing.getInvoices().isEmpty()) {
+            boolean repriced = order.getCost() != null
+                    && order.getCost().compareTo(existing.getCost()) != 0;
+            boolean reordered = certificateIds != null && !certificateIds.equals(existing.getCertificates()
+                    .stream()
+                    .map(Certificate::getId)
+                    .collect(Collectors.toSet()));
+            if (repriced || reordered) {
+                throw new InvalidOrderException(String.format(
+                        "Order %d has lines, its certificates and cost cannot be changed", order.getId()));
+            }
+        }
+        Set<Long> userIds = new HashSet<>();
+        userIds.add(existing.getUser().getId());
+        if (order.getUser() != null && order.getUser().getId() != null) {
+            existing.setUser(entityManager.getReference(User.class, order.getUser().getId()));
+            userIds.add(order.getUser().getId());
+        }
+        if (order.getCost() != null) {
+            existing.setCost(order.getCost());
+        }
+        if (certificateIds != null) {
+            existing.setCertificates(certificateIds
+                    .stream()
+                    .map(certificateId -> entityManager.find(Certificate.class, certificateId,
+                            FetchPlan.CERTIFICATE_DETAIL.hints(entityManager)))
+                    .collect(Collectors.toSet()));
+        }
+        entityManager.flush();
+        TagSpendLedger.rebuild(entityManager, userIds);
+        entityManager.detach(existing);
+        return entityManager.find(Order.class, existing.getId(),
+                FetchPlan.ORDER_WITH_LINES.hints(entityManager));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The spending is deleted and aggregated again from the order lines,
+     * the backfill of the spending of orders placed before it was kept.
+     *
+     * @return the number of tag spending rows written
+     */
     @Override
-    public Invoice saveInvoice(Invoice invoice) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityTransaction transaction = entityManager.getTransaction();
-            transaction.begin();
+    public int rebuildTagSpend() {
+        return TagSpendLedger.rebuildAll(entityManager);
+    }
 
-            User managedUser = entityManager.merge(invoice.getOrder().getUser());
-            invoice.getOrder().setUser(managedUser);
-            Set<Certificate> managedCertificates = invoice.getOrder().getCertificates().stream()
-                    .map(entityManager::merge)
-                    .collect(Collectors.toSet());
-            invoice.getOrder().setCertificates(managedCertificates);
-            Order managedOrder = entityManager.merge(invoice.getOrder());
-            invoice.setOrder(managedOrder);
-            entityManager.persist(invoice);
-            transaction.commit();
-            return invoice;
-        } catch (Exception e) {
-            throw new PersistenceException(e);
-        }
+    /**
+     * {@inheritDoc}
+     *
+     * @param userIds the IDs of the users
+     */
+    @Override
+    public void rebuildTagSpend(final Collection<Long> userIds) {
+        TagSpendLedger.rebuild(entityManager, userIds);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the IDs of the users with stale tag spending
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findUsersWithStaleTagSpend() {
+        return TagSpendLedger.findStaleUsers(entityManager);
     }
 }
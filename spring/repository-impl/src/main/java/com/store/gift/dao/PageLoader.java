@@ -0,0 +1,159 @@
+package com.store.gift.dao;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Order-preserving two-phase page loader.
+ * <p>
+ * Applying a fetch graph with collections to a limited query makes
+ * Hibernate paginate in memory, so pages are loaded in two phases:
+ * the first phase selects only the IDs of the page with the requested
+ * sort, offset and limit; the second phase fetches the entity graph
+ * for those IDs in bounded {@code IN} chunks and restores the order
+ * of the first phase.
+ */
+final class PageLoader {
+    /**
+     * The maximum number of IDs bound to a single {@code IN} list.
+     */
+    static final int CHUNK_SIZE = 500;
+
+    private PageLoader() {
+    }
+
+    /**
+     * Loads a page of entities with the given fetch graph.
+     *
+     * @param entityManager the entity manager
+     * @param type          the entity class
+     * @param pageable      the pagination information
+     * @param graph         the fetch graph applied in the second phase, or null
+     * @param idOf          the function returning the ID of an entity
+     * @param <T>           the entity type
+     * @return the entities of the page in the requested order
+     */
+    static <T> List<T> load(
+            final EntityManager entityManager,
+            final Class<T> type,
+            final Pageable pageable,
+            final EntityGraph<?> graph,
+            final Function<T, Long> idOf) {
+        return fetch(entityManager, type,
+                selectIds(entityManager, type, null, pageable),
+                graph, idOf);
+    }
+
+    /**
+     * Selects the IDs of one page, the first phase of the loader.
+     * <p>
+     * The ID is appended to the requested sort as a tie-breaker,
+     * so that pages are stable when sort values repeat.
+     *
+     * @param entityManager the entity manager
+     * @param type          the entity class
+     * @param filter        the restriction of the listing, or null
+     * @param pageable      the pagination information
+     * @param <T>           the entity type
+     * @return the IDs of the page in the requested order
+     */
+    static <T> List<Long> selectIds(
+            final EntityManager entityManager,
+            final Class<T> type,
+            final BiFunction<CriteriaBuilder, Root<T>, Predicate> filter,
+            final Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(root.get(Queries.ID));
+        if (filter != null) {
+            query.where(filter.apply(builder, root));
+        }
+        query.orderBy(orders(builder, root, pageable));
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    /**
+     * Creates the order of a page, the requested sort followed
+     * by the ID as a tie-breaker unless the sort includes it.
+     *
+     * @param builder  the criteria builder
+     * @param root     the root of the query
+     * @param pageable the pagination information
+     * @return the order of the page
+     */
+    static List<jakarta.persistence.criteria.Order> orders(
+            final CriteriaBuilder builder,
+            final Root<?> root,
+            final Pageable pageable) {
+        List<jakarta.persistence.criteria.Order> orders = new ArrayList<>(
+                pageable.getSort().stream()
+                        .map(order -> order.getDirection().equals(Sort.Direction.ASC)
+                                ? builder.asc(root.get(order.getProperty()))
+                                : builder.desc(root.get(order.getProperty())))
+                        .toList());
+        if (pageable.getSort().getOrderFor(Queries.ID) == null) {
+            orders.add(builder.asc(root.get(Queries.ID)));
+        }
+        return orders;
+    }
+
+    /**
+     * Fetches the entities with the given IDs, the second phase of the loader.
+     * <p>
+     * The IDs are bound in chunks of {@link #CHUNK_SIZE}, and the result
+     * follows the order of the given IDs; IDs without an entity are skipped.
+     *
+     * @param entityManager the entity manager
+     * @param type          the entity class
+     * @param ids           the IDs in the requested order
+     * @param graph         the fetch graph, or null
+     * @param idOf          the function returning the ID of an entity
+     * @param <T>           the entity type
+     * @return the entities in the order of the IDs
+     */
+    static <T> List<T> fetch(
+            final EntityManager entityManager,
+            final Class<T> type,
+            final List<Long> ids,
+            final EntityGraph<?> graph,
+            final Function<T, Long> idOf) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String jpql = String.format(Queries.SELECT_BY_IDS, type.getSimpleName());
+        Map<Long, T> byId = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            TypedQuery<T> query = entityManager.createQuery(jpql, type)
+                    .setParameter("ids", chunk);
+            if (graph != null) {
+                query.setHint(Queries.FETCH_GRAPH, graph);
+            }
+            query.getResultList().forEach(entity -> byId.putIfAbsent(idOf.apply(entity), entity));
+        }
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+}
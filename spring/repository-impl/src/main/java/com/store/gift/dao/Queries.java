@@ -1,5 +1,7 @@
 package com.store.gift.dao;
 
+import java.util.List;
+
 /**
  * Contains constant strings for SQL queries.
  */
@@ -41,10 +43,23 @@ public final class Queries {
      * Constant representing the "user" field.
      */
     public static final String USER = "user";
+    /**
+     * The number of inserts the persistence context is flushed after,
+     * matching the JDBC batch size.
+     */
+    public static final int BATCH_SIZE = 50;
     /**
      * Constant for the fetch graph hint used in entity manager queries.
      */
     public static final String FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+    /**
+     * Constant for the hint keeping the results of a query in the query cache.
+     */
+    public static final String CACHEABLE = "org.hibernate.cacheable";
+    /**
+     * Constant for the hint setting the number of rows fetched per round trip.
+     */
+    public static final String FETCH_SIZE = "org.hibernate.fetchSize";
     /**
      * SQL query to select all certificates.
      */
@@ -56,17 +71,90 @@ public final class Queries {
     public static final String SELECT_BY_NAME = SELECT_ALL
             + " WHERE c.name = :name";
 
+    /**
+     * JPQL query to select the certificate names among a list of names.
+     */
+    public static final String SELECT_NAMES_IN = "SELECT c.name FROM Certificate c WHERE c.name IN :names";
+
+    /**
+     * JPQL query to select the IDs of all certificates.
+     */
+    public static final String SELECT_CERTIFICATE_IDS = "SELECT c.id FROM Certificate c";
+
+    /**
+     * JPQL query to select the version and the last update date of a certificate.
+     */
+    public static final String SELECT_CERTIFICATE_REVISION = "SELECT c.version, c.lastUpdateDate "
+            + "FROM Certificate c WHERE c.id = :id";
+
+    /**
+     * JPQL query to select the aggregates changing with every change of the catalog:
+     * the count, the sum of versions, the last update date and the highest ID of the
+     * certificates, and the count and the highest ID of the tags.
+     */
+    public static final String SELECT_CATALOG_REVISION = "SELECT COUNT(c), COALESCE(SUM(c.version), 0), "
+            + "MAX(c.lastUpdateDate), COALESCE(MAX(c.id), 0), "
+            + "(SELECT COUNT(t) FROM Tag t), (SELECT COALESCE(MAX(t.id), 0) FROM Tag t) "
+            + "FROM Certificate c";
+
+    /**
+     * JPQL query to select the columns of all the certificates with the name of one
+     * of their tags per row, or none for an untagged certificate, ordered by certificate.
+     */
+    public static final String SELECT_EXPORT_ROWS = "SELECT c.id, c.name, c.description, "
+            + "c.shortDescription, c.company, c.price, c.duration, c.path, "
+            + "c.createDate, c.lastUpdateDate, c.version, t.name "
+            + "FROM Certificate c LEFT JOIN c.tags t ORDER BY c.id, t.name";
+
+    /**
+     * JPQL query to select the certificate IDs with the names of their tags.
+     */
+    public static final String SELECT_CERTIFICATE_TAG_NAMES = "SELECT c.id, t.name FROM Certificate c JOIN c.tags t";
+
+    /**
+     * JPQL query to select the names of the tags of the certificates with the given IDs.
+     */
+    public static final String SELECT_TAG_NAMES_BY_CERTIFICATE_IDS = SELECT_CERTIFICATE_TAG_NAMES
+            + " WHERE c.id IN :ids ORDER BY t.name";
+
+    /**
+     * The attributes of a certificate selected for the catalog listing, in selection order.
+     */
+    public static final List<String> LISTING_ATTRIBUTES = List.of(ID, NAME, DESCRIPTION,
+            "price", "duration", "createDate", "lastUpdateDate", "path");
+
+    /**
+     * JPQL query to select the text fields of the certificates following an ID.
+     */
+    public static final String SELECT_TEXT_AFTER_ID = "SELECT c.id, c.name, c.description "
+            + "FROM Certificate c WHERE c.id > :id ORDER BY c.id";
+
     /**
      * SQL query to select certificates by user ID.
      */
     public static final String SELECT_CERTIFICATES_BY_USER_ID = SELECT_ALL
             + " JOIN c.orders o JOIN o.user u WHERE u.id = :id";
 
+    /**
+     * JPQL template to count the entities of the formatted entity name.
+     */
+    public static final String COUNT_ALL = "SELECT COUNT(e) FROM %s e";
+
+    /**
+     * JPQL query to count the orders of a user by the user ID.
+     */
+    public static final String COUNT_ORDERS_BY_USER_ID = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :id";
+
     /**
      * SQL query to select certificates by a list of IDs.
      */
     public static final String SELECT_ALL_BY_IDS = SELECT_ALL + " WHERE c.id IN :ids";
 
+    /**
+     * JPQL template to select entities of the formatted entity name by a list of IDs.
+     */
+    public static final String SELECT_BY_IDS = "SELECT e FROM %s e WHERE e.id IN :ids";
+
     /**
      * SQL query to select certificates by order ID.
      */
@@ -76,11 +164,6 @@ public final class Queries {
             + "JOIN FETCH o.user "
             + "WHERE o.id = :orderId";
 
-    /**
-     * SQL query to select tags by name.
-     */
-    public static final String SELECT_TAGS_BY_NAME = "SELECT t FROM Tag t WHERE t.name = :name";
-
     /**
      * SQL query to select tags by certificate ID.
      */
@@ -100,14 +183,29 @@ public final class Queries {
      * SQL query to select a user by name.
      */
     public static final String SELECT_USER_BY_NAME = "SELECT u FROM User u WHERE u.username = :name";
+    /**
+     * SQL query to select tags by name.
+     */
+    public static final String SELECT_TAGS_BY_NAME = "SELECT t FROM Tag t WHERE t.name = :name";
     /**
      * SQL query to select tags by their names.
      */
     public static final String SELECT_TAG_BY_NAMES = "SELECT t FROM Tag t WHERE t.name IN :names";
+    /**
+     * SQL statement to insert the tags named by an array parameter in name order,
+     * skipping the names that already exist.
+     */
+    public static final String INSERT_TAGS = "INSERT INTO tag (id, name) "
+            + "SELECT nextval('tag_id_seq'), name FROM unnest(:names) AS names(name) ORDER BY name "
+            + "ON CONFLICT DO NOTHING";
     /**
      * SQL query to select orders by their certificate ids.
      */
     public static final String SELECT_ORDER_BY_IDS = "SELECT o FROM Order o WHERE o.id IN :orderIds";
+    /**
+     * SQL query to delete the invoice lines of a certificate by certificate id.
+     */
+    public static final String DELETE_INVOICES_BY_CERTIFICATE = "DELETE FROM invoices WHERE certificate_id = :id";
     /**
      * SQL query to delete an order certificate by certificate id.
      */
@@ -128,6 +226,11 @@ public final class Queries {
      * SQL query to delete a tag by its id.
      */
     public static final String DELETE_TAG = "DELETE FROM Tag t WHERE t.id = :id";
+    /**
+     * SQL query for deleting the invoice lines of the orders of a user by user ID.
+     */
+    public static final String DELETE_INVOICES_BY_USER = "DELETE FROM invoices "
+            + "WHERE order_id IN (SELECT order_id FROM orders WHERE user_id = :id)";
     /**
      * SQL query for deleting orders by user ID.
      */
@@ -140,4 +243,186 @@ public final class Queries {
      * SQL query for deleting users by user ID.
      */
     public static final String DELETE_USER = "DELETE FROM users WHERE user_id = :id";
+    /**
+     * JPQL query to select the IDs of the certificates among a list of IDs.
+     */
+    public static final String SELECT_CERTIFICATE_IDS_IN = SELECT_CERTIFICATE_IDS + " WHERE c.id IN :ids";
+    /**
+     * SQL query to select the IDs of the users who ordered any of the certificates,
+     * soft-deleted certificates included.
+     */
+    public static final String SELECT_USER_IDS_BY_CERTIFICATE_IDS = "SELECT DISTINCT o.user_id FROM orders o "
+            + "JOIN order_certificate oc ON oc.order_id = o.order_id WHERE oc.certificate_id IN (:ids)";
+    /**
+     * SQL query to delete the invoice lines of certificates by a list of certificate IDs.
+     */
+    public static final String DELETE_INVOICES_BY_CERTIFICATES = "DELETE FROM invoices WHERE certificate_id IN (:ids)";
+    /**
+     * SQL query to delete the order lines of certificates by a list of certificate IDs.
+     */
+    public static final String DELETE_ORDER_CERTIFICATES = "DELETE FROM order_certificate WHERE certificate_id IN (:ids)";
+    /**
+     * SQL query to delete the tags of certificates by a list of certificate IDs.
+     */
+    public static final String DELETE_CERTIFICATE_TAGS = "DELETE FROM gift_certificate_tag "
+            + "WHERE gift_certificate_id IN (:ids)";
+    /**
+     * SQL query to delete certificates by a list of IDs.
+     */
+    public static final String DELETE_CERTIFICATES = "DELETE FROM gift_certificates WHERE id IN (:ids)";
+    /**
+     * JPQL query to flag certificates as deleted by a list of IDs.
+     */
+    public static final String SOFT_DELETE_CERTIFICATES = "UPDATE Certificate c SET c.deleted = true "
+            + "WHERE c.id IN :ids";
+    /**
+     * SQL query to select the IDs of the soft-deleted certificates, the oldest first.
+     */
+    public static final String SELECT_DELETED_CERTIFICATE_IDS = "SELECT id FROM gift_certificates "
+            + "WHERE deleted = true ORDER BY id";
+    /**
+     * JPQL query to select the IDs and names of the tags among a list of IDs.
+     */
+    public static final String SELECT_TAG_NAMES_IN = "SELECT t.id, t.name FROM Tag t WHERE t.id IN :ids";
+    /**
+     * SQL query to delete the certificate tags by a list of tag IDs.
+     */
+    public static final String DELETE_CT_BY_TAG_IDS = "DELETE FROM gift_certificate_tag WHERE tag_id IN (:ids)";
+    /**
+     * SQL query for deleting the spending on tags by a list of tag IDs.
+     */
+    public static final String DELETE_TAG_SPEND_BY_TAGS = "DELETE FROM tag_spend WHERE tag_id IN (:ids)";
+    /**
+     * JPQL query to delete tags by a list of IDs.
+     */
+    public static final String DELETE_TAGS = "DELETE FROM Tag t WHERE t.id IN :ids";
+    /**
+     * JPQL query to select the IDs of the users among a list of IDs.
+     */
+    public static final String SELECT_USER_IDS_IN = "SELECT u.id FROM User u WHERE u.id IN :ids";
+    /**
+     * SQL query for deleting the invoice lines of the orders of users by a list of user IDs.
+     */
+    public static final String DELETE_INVOICES_BY_USERS = "DELETE FROM invoices "
+            + "WHERE order_id IN (SELECT order_id FROM orders WHERE user_id IN (:ids))";
+    /**
+     * SQL query for deleting the order lines of the orders of users by a list of user IDs.
+     */
+    public static final String DELETE_ORDER_CERTIFICATES_BY_USERS = "DELETE FROM order_certificate "
+            + "WHERE order_id IN (SELECT order_id FROM orders WHERE user_id IN (:ids))";
+    /**
+     * SQL query for deleting orders by a list of user IDs.
+     */
+    public static final String DELETE_ORDERS_BY_USERS = "DELETE FROM orders WHERE user_id IN (:ids)";
+    /**
+     * SQL query for deleting tokens by a list of user IDs.
+     */
+    public static final String DELETE_TOKENS_BY_USERS = "DELETE FROM tokens WHERE user_id IN (:ids)";
+    /**
+     * SQL query for deleting users by a list of user IDs.
+     */
+    public static final String DELETE_USERS = "DELETE FROM users WHERE user_id IN (:ids)";
+    /**
+     * JPQL query to flag users as deleted by a list of IDs.
+     */
+    public static final String SOFT_DELETE_USERS = "UPDATE User u SET u.deleted = true WHERE u.id IN :ids";
+    /**
+     * SQL query to select the IDs of the soft-deleted users, the oldest first.
+     */
+    public static final String SELECT_DELETED_USER_IDS = "SELECT user_id FROM users "
+            + "WHERE deleted = true ORDER BY user_id";
+    /**
+     * JPQL query to select the tags of a user by spending, the highest first.
+     */
+    public static final String SELECT_MOST_USED_TAG = "SELECT s.tag FROM TagSpend s "
+            + "WHERE s.user.id = :id ORDER BY s.cost DESC";
+    /**
+     * JPQL query to select the IDs of the users who ordered a certificate.
+     */
+    public static final String SELECT_USER_IDS_BY_CERTIFICATE_ID = "SELECT DISTINCT o.user.id "
+            + "FROM Order o JOIN o.certificates c WHERE c.id = :id";
+    /**
+     * SQL query to add lines and cost to the spending of a user on a tag.
+     */
+    public static final String ADD_TAG_SPEND = "UPDATE tag_spend "
+            + "SET line_count = line_count + :lines, cost = cost + :cost "
+            + "WHERE user_id = :id AND tag_id = :tagId";
+    /**
+     * SQL statement to insert the spending of a user on a tag,
+     * skipping it when a concurrent order has inserted it first.
+     */
+    public static final String INSERT_TAG_SPEND_ROW = "INSERT INTO tag_spend (user_id, tag_id, line_count, cost) "
+            + "VALUES (:id, :tagId, :lines, :cost) ON CONFLICT DO NOTHING";
+    /**
+     * JPQL query to delete the spending rows of a user left without lines.
+     */
+    public static final String DELETE_EMPTY_TAG_SPEND = "DELETE FROM TagSpend s "
+            + "WHERE s.user.id = :id AND s.lines <= 0";
+    /**
+     * SQL query for deleting the tag spending of a user by user ID.
+     */
+    public static final String DELETE_TAG_SPEND_BY_USER = "DELETE FROM tag_spend WHERE user_id = :id";
+    /**
+     * SQL query for deleting the tag spending of users by a list of user IDs.
+     */
+    public static final String DELETE_TAG_SPEND_BY_USERS = "DELETE FROM tag_spend WHERE user_id IN (:ids)";
+    /**
+     * SQL query for deleting the spending on a tag by tag ID.
+     */
+    public static final String DELETE_TAG_SPEND_BY_TAG = "DELETE FROM tag_spend WHERE tag_id = :id";
+    /**
+     * SQL query for deleting all tag spending.
+     */
+    public static final String DELETE_ALL_TAG_SPEND = "DELETE FROM tag_spend";
+    /**
+     * SQL query selecting the amount of every order line per tag of its
+     * certificate: the quantity times the unit price of an invoice line,
+     * or the cost of the order for an order placed without invoice lines.
+     */
+    public static final String SELECT_TAG_SPEND_LINES = "SELECT o.user_id, ct.tag_id, "
+            + "i.quantity * i.unit_price AS amount FROM orders o "
+            + "JOIN invoices i ON i.order_id = o.order_id "
+            + "JOIN gift_certificate_tag ct ON ct.gift_certificate_id = i.certificate_id "
+            + "UNION ALL SELECT o.user_id, ct.tag_id, o.cost FROM orders o "
+            + "JOIN order_certificate oc ON oc.order_id = o.order_id "
+            + "JOIN gift_certificate_tag ct ON ct.gift_certificate_id = oc.certificate_id "
+            + "WHERE NOT EXISTS (SELECT 1 FROM invoices i WHERE i.order_id = o.order_id)";
+    /**
+     * SQL query aggregating the tag spending of users from their order lines.
+     */
+    public static final String AGGREGATE_TAG_SPEND = "SELECT user_id, tag_id, "
+            + "COUNT(*) AS line_count, SUM(amount) AS cost FROM ("
+            + SELECT_TAG_SPEND_LINES + ") spend";
+    /**
+     * SQL query to insert the tag spending of all users from their order lines.
+     */
+    public static final String INSERT_TAG_SPEND = "INSERT INTO tag_spend (user_id, tag_id, line_count, cost) "
+            + AGGREGATE_TAG_SPEND + " GROUP BY user_id, tag_id";
+    /**
+     * SQL query to insert the tag spending of users by a list of user IDs.
+     */
+    public static final String INSERT_TAG_SPEND_BY_USERS = "INSERT INTO tag_spend (user_id, tag_id, line_count, cost) "
+            + AGGREGATE_TAG_SPEND + " WHERE user_id IN (:ids) GROUP BY user_id, tag_id";
+    /**
+     * SQL query to select the IDs of the users whose tag spending
+     * differs from the spending aggregated from their order lines.
+     */
+    public static final String SELECT_STALE_TAG_SPEND_USERS = "SELECT user_id FROM ("
+            + "(" + AGGREGATE_TAG_SPEND + " GROUP BY user_id, tag_id) EXCEPT "
+            + "(SELECT user_id, tag_id, line_count, cost FROM tag_spend)) added "
+            + "UNION SELECT user_id FROM ("
+            + "(SELECT user_id, tag_id, line_count, cost FROM tag_spend) EXCEPT "
+            + "(" + AGGREGATE_TAG_SPEND + " GROUP BY user_id, tag_id)) removed";
+    /**
+     * JPQL query to select the order lines of the orders placed within a range
+     * of dates, the lines of an order following each other.
+     */
+    public static final String SELECT_SALES_LINES = "SELECT o.id, o.orderDate, o.cost, c.id, c.price "
+            + "FROM Order o LEFT JOIN o.certificates c "
+            + "WHERE o.orderDate >= :from AND o.orderDate < :to ORDER BY o.id";
+    /**
+     * JPQL query to select the names of the certificates with the given IDs.
+     */
+    public static final String SELECT_CERTIFICATE_NAMES_BY_IDS = "SELECT c.id, c.name FROM Certificate c "
+            + "WHERE c.id IN :ids";
 }
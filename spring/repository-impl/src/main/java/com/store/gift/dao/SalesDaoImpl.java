@@ -0,0 +1,121 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.SalesLine;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * The implementation of the SalesDao interface.
+ * <p>
+ * The order lines are read as scalar rows streamed from a cursor, so that
+ * ranges of any size are scanned without building the entity graphs of
+ * the orders. The rows are fetched from the database in batches of
+ * {@link #FETCH_SIZE} rows.
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class SalesDaoImpl implements SalesDao {
+    /**
+     * The number of rows fetched per round trip while streaming.
+     */
+    private static final int FETCH_SIZE = 1000;
+    /**
+     * The maximum number of IDs bound to one IN list.
+     */
+    private static final int IDS_PER_QUERY = 1000;
+    /**
+     * The shared, transaction-scoped entity manager.
+     */
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the stream of the order lines
+     */
+    @Override
+    public Stream<SalesLine> streamLines(
+            final LocalDateTime from,
+            final LocalDateTime to) {
+        return entityManager.createQuery(Queries.SELECT_SALES_LINES, Object[].class)
+                .setParameter("from", Timestamp.valueOf(from))
+                .setParameter("to", Timestamp.valueOf(to))
+                .setHint(Queries.FETCH_SIZE, FETCH_SIZE)
+                .getResultStream()
+                .map(row -> new SalesLine(
+                        (Long) row[0],
+                        (Timestamp) row[1],
+                        (BigDecimal) row[2],
+                        (Long) row[3],
+                        (BigDecimal) row[4]));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param certificateIds the IDs of the certificates
+     * @return the names by certificate ID
+     */
+    @Override
+    public Map<Long, String> findCertificateNames(
+            final Collection<Long> certificateIds) {
+        Map<Long, String> names = new HashMap<>();
+        select(Queries.SELECT_CERTIFICATE_NAMES_BY_IDS, certificateIds,
+                (id, name) -> names.put(id, name));
+        return names;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param certificateIds the IDs of the certificates
+     * @return the tag names by certificate ID
+     */
+    @Override
+    public Map<Long, List<String>> findTagNames(
+            final Collection<Long> certificateIds) {
+        Map<Long, List<String>> names = new HashMap<>();
+        select(Queries.SELECT_TAG_NAMES_BY_CERTIFICATE_IDS, certificateIds,
+                (id, name) -> names.computeIfAbsent(id, key -> new ArrayList<>()).add(name));
+        return names;
+    }
+
+    /**
+     * Selects the names of a query by certificate ID,
+     * binding at most {@link #IDS_PER_QUERY} IDs per query.
+     *
+     * @param query          the query selecting an ID and a name
+     * @param certificateIds the IDs of the certificates
+     * @param consumer       the consumer of the IDs and names
+     */
+    private void select(
+            final String query,
+            final Collection<Long> certificateIds,
+            final BiConsumer<Long, String> consumer) {
+        List<Long> ids = List.copyOf(certificateIds);
+        for (int start = 0; start < ids.size(); start += IDS_PER_QUERY) {
+            entityManager.createQuery(query, Object[].class)
+                    .setParameter("ids", ids.subList(start, Math.min(ids.size(), start + IDS_PER_QUERY)))
+                    .getResultList()
+                    .forEach(row -> consumer.accept((Long) row[0], (String) row[1]));
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Criteria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the certificates of every tag.
+ * <p>
+ * The IDs of the certificates of a tag are kept in a compressed bitmap,
+ * so tag filters are answered with bitmap intersections, unions and
+ * differences instead of joins on {@code gift_certificate_tag}, and the
+ * matching IDs are ordered and counted without duplicates.
+ * <p>
+ * The index is loaded from the database on first use and then kept up
+ * to date by the DAOs; their changes are applied once the current
+ * transaction, if any, has committed. Changes made before the index
+ * is loaded are skipped, the load reads them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TagBitmapIndex {
+    /**
+     * The entity manager factory used for loading the index.
+     */
+    @PersistenceUnit
+    private final EntityManagerFactory factory;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Roaring64NavigableMap> tags = new HashMap<>();
+    private final Roaring64NavigableMap certificates = new Roaring64NavigableMap();
+    private volatile boolean loaded;
+
+    /**
+     * Selects the IDs of the certificates matching the tag filters.
+     * <p>
+     * Certificates match when they have all of the tag names if
+     * {@link Criteria#isAllTags()} is set, or any of them otherwise, and
+     * none of the excluded tag names. Without tag names every certificate
+     * not having an excluded tag matches.
+     *
+     * @param criteria the tag filters
+     * @return a new bitmap of the matching IDs
+     */
+    public Roaring64NavigableMap select(final Criteria criteria) {
+        load();
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            List<String> names = criteria.getTagNames();
+            if (names == null || names.isEmpty()) {
+                result.or(certificates);
+            } else if (criteria.isAllTags()) {
+                result.or(bitmap(names.get(0)));
+                names.subList(1, names.size())
+                        .forEach(name -> result.and(bitmap(name)));
+            } else {
+                names.forEach(name -> result.or(bitmap(name)));
+            }
+            if (criteria.getExcludedTagNames() != null) {
+                criteria.getExcludedTagNames()
+                        .forEach(name -> result.andNot(bitmap(name)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Selects one page of the IDs of the certificates matching the tag filters.
+     * <p>
+     * The IDs are ordered ascending, or descending if the page is sorted
+     * in descending order; the page is taken by rank from the bitmap.
+     *
+     * @param criteria the tag filters
+     * @param pageable the page, sorted by ID
+     * @return the IDs of the page in order
+     */
+    public List<Long> page(
+            final Criteria criteria,
+            final Pageable pageable) {
+        Roaring64NavigableMap ids = select(criteria);
+        long total = ids.getLongCardinality();
+        boolean descending = pageable.getSort().stream()
+                .anyMatch(Sort.Order::isDescending);
+        List<Long> page = new ArrayList<>(pageable.getPageSize());
+        for (long i = pageable.getOffset();
+             i < total && page.size() < pageable.getPageSize(); i++) {
+            page.add(ids.select(descending ? total - 1 - i : i));
+        }
+        return page;
+    }
+
+    /**
+     * Replaces the tags of a certificate.
+     *
+     * @param id       the ID of the certificate
+     * @param tagNames the names of all tags of the certificate
+     */
+    public void put(
+            final Long id,
+            final Collection<String> tagNames) {
+        apply(() -> {
+            tags.values().forEach(bitmap -> bitmap.removeLong(id));
+            addTags(id, tagNames);
+        });
+    }
+
+    /**
+     * Adds a new certificate with its tags.
+     *
+     * @param id       the ID of the certificate
+     * @param tagNames the names of the tags of the certificate
+     */
+    public void add(
+            final Long id,
+            final Collection<String> tagNames) {
+        apply(() -> addTags(id, tagNames));
+    }
+
+    /**
+     * Removes a deleted certificate.
+     *
+     * @param id the ID of the certificate
+     */
+    public void remove(final Long id) {
+        apply(() -> {
+            certificates.removeLong(id);
+            tags.values().forEach(bitmap -> bitmap.removeLong(id));
+        });
+    }
+
+    /**
+     * Removes a deleted tag.
+     *
+     * @param name the name of the tag
+     */
+    public void removeTag(final String name) {
+        apply(() -> tags.remove(name));
+    }
+
+    /**
+     * Adds a certificate to the bitmaps of its tags.
+     * Must be called with the write lock held.
+     *
+     * @param id       the ID of the certificate
+     * @param tagNames the names of the tags of the certificate
+     */
+    private void addTags(
+            final Long id,
+            final Collection<String> tagNames) {
+        certificates.addLong(id);
+        tagNames.forEach(name -> tags
+                .computeIfAbsent(name, key -> new Roaring64NavigableMap())
+                .addLong(id));
+    }
+
+    /**
+     * Returns the bitmap of a tag. Must be called with a lock held.
+     *
+     * @param name the name of the tag
+     * @return the bitmap, empty if the tag has no certificates
+     */
+    private Roaring64NavigableMap bitmap(final String name) {
+        return tags.getOrDefault(name, new Roaring64NavigableMap());
+    }
+
+    /**
+     * Applies a change under the write lock if the index is loaded,
+     * once the current transaction, if any, has committed.
+     *
+     * @param change the change
+     */
+    private void apply(final Runnable change) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    change.run();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Runs the action after the current transaction commits,
+     * or at once when no transaction is active.
+     *
+     * @param action the action
+     */
+    private static void afterCommit(final Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            action.run();
+                        }
+                    });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Loads the tags of all certificates unless the index is loaded.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try (EntityManager entityManager = factory.createEntityManager()) {
+            if (loaded) {
+                return;
+            }
+            entityManager.createQuery(Queries.SELECT_CERTIFICATE_IDS, Long.class)
+                    .getResultStream()
+                    .forEach(certificates::addLong);
+            entityManager.createQuery(Queries.SELECT_CERTIFICATE_TAG_NAMES, Object[].class)
+                    .getResultStream()
+                    .forEach(row -> tags
+                            .computeIfAbsent((String) row[1], key -> new Roaring64NavigableMap())
+                            .addLong((Long) row[0]));
+            certificates.runOptimize();
+            tags.values().forEach(Roaring64NavigableMap::runOptimize);
+            loaded = true;
+            log.info("Indexed {} certificates of {} tags",
+                    certificates.getLongCardinality(), tags.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
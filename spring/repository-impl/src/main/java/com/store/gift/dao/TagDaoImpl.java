@@ -1,12 +1,13 @@
 package com.store.gift.dao;
 
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import com.store.gift.entity.Tag;
+import com.store.gift.entity.TagSpend;
 import com.store.gift.exception.CertificateNotFoundException;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceException;
-import jakarta.persistence.PersistenceUnit;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Order;
@@ -15,7 +16,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -28,10 +32,11 @@ import static java.util.stream.Collectors.toSet;
  * This class provides the concrete implementation
  * for accessing and manipulating tags in the database.
  * <p>
- * It utilizes the EntityManagerFactory and EntityManager
- * to interact with the database.
+ * It uses the shared, transaction-scoped EntityManager, so its methods
+ * join the transaction of the calling service and run on its connection.
  */
 @Repository
+@Transactional
 @RequiredArgsConstructor
 public class TagDaoImpl implements TagDao {
     /**
@@ -39,10 +44,14 @@ public class TagDaoImpl implements TagDao {
      */
     public static final String TAG_NOT_FOUND_WITH_ID = "Tag not found with ID: ";
     /**
-     * The entity manager factory used for obtaining the entity manager.
+     * The entity manager of the current transaction.
      */
-    @PersistenceUnit
-    private final EntityManagerFactory factory;
+    @PersistenceContext
+    private final EntityManager entityManager;
+    /**
+     * The in-memory index of the certificates of every tag.
+     */
+    private final TagBitmapIndex tagIndex;
 
     /**
      * {@inheritDoc}
@@ -53,6 +62,7 @@ public class TagDaoImpl implements TagDao {
      * @return an {@link Optional} containing the tag entity, or empty if not found
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Tag> getById(final Long id) {
         try {
             return Optional.ofNullable(findById(id));
@@ -64,26 +74,25 @@ public class TagDaoImpl implements TagDao {
     /**
      * {@inheritDoc}
      * <p>
-     * Retrieves a tag by its name.
+     * Retrieves a tag by its name. The result is kept in the query cache
+     * until the tags table changes.
      *
      * @param name the name of the tag
      * @return an {@link Optional} containing the tag entity, or empty if not found
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Tag> findByUsername(
             final String name) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Tag> query = builder.createQuery(Tag.class);
-            query.where(builder.equal(query.from(Tag.class).get(Queries.NAME), name));
-            List<Tag> tags = entityManager
-                    .createQuery(query)
-                    .setMaxResults(1)
-                    .getResultList();
-            return tags.isEmpty()
-                    ? Optional.empty()
-                    : Optional.of(tags.get(0));
-        }
+        List<Tag> tags = entityManager
+                .createQuery(Queries.SELECT_TAGS_BY_NAME, Tag.class)
+                .setParameter(Queries.NAME, name)
+                .setMaxResults(1)
+                .setHint(Queries.CACHEABLE, true)
+                .getResultList();
+        return tags.isEmpty()
+                ? Optional.empty()
+                : Optional.of(tags.get(0));
     }
 
     /**
@@ -95,27 +104,60 @@ public class TagDaoImpl implements TagDao {
      * @return a list of tag entities
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Tag> getAllBy(final Pageable pageable) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Tag> query = builder.createQuery(Tag.class);
-            Root<Tag> root = query.from(Tag.class);
-            query.select(root);
-
-            if (pageable.getSort().isSorted()) {
-                List<Order> orders = pageable.getSort().stream()
-                        .map(order -> order.getDirection().equals(Sort.Direction.ASC)
-                                ? builder.asc(root.get(order.getProperty()))
-                                : builder.desc(root.get(order.getProperty())))
-                        .toList();
-                query.orderBy(orders);
-            }
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tag> query = builder.createQuery(Tag.class);
+        Root<Tag> root = query.from(Tag.class);
+        query.select(root);
 
-            return entityManager.createQuery(query)
-                    .setMaxResults(pageable.getPageSize())
-                    .setFirstResult(pageable.getPageNumber() * pageable.getPageSize())
-                    .getResultList();
+        if (pageable.getSort().isSorted()) {
+            List<Order> orders = pageable.getSort().stream()
+                    .map(order -> order.getDirection().equals(Sort.Direction.ASC)
+                            ? builder.asc(root.get(order.getProperty()))
+                            : builder.desc(root.get(order.getProperty())))
+                    .toList();
+            query.orderBy(orders);
         }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(pageable.getPageSize())
+                .setFirstResult(pageable.getPageNumber() * pageable.getPageSize())
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Retrieves tags with keyset pagination,
+     * seeking on the sort property and the ID.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the pagination information
+     * @return a page of tag entities with the adjacent cursors
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Tag> getAllBy(
+            final Cursor cursor,
+            final Pageable pageable) {
+        return Keyset.select(entityManager, Tag.class, cursor, pageable,
+                null, Tag::getId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Counts all tags.
+     *
+     * @return the number of tags
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return entityManager.createQuery(
+                        String.format(Queries.COUNT_ALL, "Tag"), Long.class)
+                .getSingleResult();
     }
 
     /**
@@ -128,21 +170,12 @@ public class TagDaoImpl implements TagDao {
      */
     @Override
     public Tag save(final Tag tag) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            EntityTransaction transaction =
-                    entityManager.getTransaction();
-            try {
-                transaction.begin();
-                entityManager.persist(tag);
-                transaction.commit();
-                return tag;
-            } catch (Exception e) {
-                if (transaction.isActive()) {
-                    transaction.rollback();
-                }
-                throw new PersistenceException(e.getMessage());
-            }
+        try {
+            entityManager.persist(tag);
+            entityManager.flush();
+            return tag;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage());
         }
     }
 
@@ -155,44 +188,80 @@ public class TagDaoImpl implements TagDao {
      * @return the found tag entity, or null if not found
      */
     @Override
+    @Transactional(readOnly = true)
     public Tag findById(final Long id) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-            return entityManager.find(Tag.class, id);
-        }
+        return entityManager.find(Tag.class, id);
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * Deletes a tag by its ID.
+     * Deletes a tag by its ID, with the spending of users on it.
      *
      * @param id the ID of the tag to delete
      * @throws PersistenceException if the tag is not found
      */
     @Override
     public void delete(final Long id) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                transaction.begin();
-                if (entityManager.find(Tag.class, id) == null) {
-                    throw new CertificateNotFoundException(
-                            TAG_NOT_FOUND_WITH_ID + id);
-                }
-                entityManager.createNativeQuery(Queries.DELETE_CT_BY_TAG_ID)
-                        .setParameter(Queries.ID, id)
-                        .executeUpdate();
-                entityManager.createQuery(Queries.DELETE_TAG)
-                        .setParameter(Queries.ID, id)
-                        .executeUpdate();
-                transaction.commit();
-            } catch (Exception e) {
-                if (transaction.isActive()) {
-                    transaction.rollback();
-                }
-                throw new PersistenceException(e.getMessage(), e);
+        try {
+            Tag tag = entityManager.find(Tag.class, id);
+            if (tag == null) {
+                throw new CertificateNotFoundException(
+                        TAG_NOT_FOUND_WITH_ID + id);
+            }
+            NativeQueries.update(entityManager, Queries.DELETE_CT_BY_TAG_ID, Tag.class)
+                    .setParameter(Queries.ID, id)
+                    .executeUpdate();
+            NativeQueries.update(entityManager, Queries.DELETE_TAG_SPEND_BY_TAG, TagSpend.class)
+                    .setParameter(Queries.ID, id)
+                    .executeUpdate();
+            entityManager.createQuery(Queries.DELETE_TAG)
+                    .setParameter(Queries.ID, id)
+                    .executeUpdate();
+            tagIndex.removeTag(tag.getName());
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the IDs and names of the tags are selected,
+     * the names being removed from the tag index.
+     *
+     * @param ids the IDs of the tags to delete
+     * @return the IDs of the tags found and deleted
+     */
+    @Override
+    public Set<Long> deleteAll(final Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            List<Object[]> tags = entityManager
+                    .createQuery(Queries.SELECT_TAG_NAMES_IN, Object[].class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            Set<Long> existing = tags.stream()
+                    .map(row -> (Long) row[0])
+                    .collect(toSet());
+            if (existing.isEmpty()) {
+                return existing;
             }
+            NativeQueries.update(entityManager, Queries.DELETE_CT_BY_TAG_IDS, Tag.class)
+                    .setParameter("ids", existing)
+                    .executeUpdate();
+            NativeQueries.update(entityManager, Queries.DELETE_TAG_SPEND_BY_TAGS, TagSpend.class)
+                    .setParameter("ids", existing)
+                    .executeUpdate();
+            entityManager.createQuery(Queries.DELETE_TAGS)
+                    .setParameter("ids", existing)
+                    .executeUpdate();
+            tags.forEach(row -> tagIndex.removeTag((String) row[1]));
+            return existing;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
         }
     }
 
@@ -200,6 +269,9 @@ public class TagDaoImpl implements TagDao {
      * {@inheritDoc}
      * <p>
      * Saves a set of tags.
+     * <p>
+     * Tags that already exist are selected with one query
+     * and the missing tags are inserted with a single statement.
      *
      * @param tags the set of tags to save
      * @return the saved tags
@@ -207,8 +279,8 @@ public class TagDaoImpl implements TagDao {
     @Override
     public Set<Tag> saveAll(
             final Set<Tag> tags) {
-        return tags.stream()
-                .map(this::save)
-                .collect(toSet());
+        return new HashSet<>(TagResolver.resolve(entityManager,
+                        tags.stream().map(Tag::getName).collect(toSet()))
+                .values());
     }
 }
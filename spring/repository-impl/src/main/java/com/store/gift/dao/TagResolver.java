@@ -0,0 +1,93 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Tag;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Set-based resolve-or-create step of tags by name.
+ * <p>
+ * Existing tags are selected with one {@code IN} query; the missing tags
+ * are inserted with one statement in the transaction of the caller, on its
+ * connection, which skips the names a concurrent save has inserted first,
+ * and are then selected again. No second connection is taken from the pool,
+ * so concurrent saves cannot exhaust it waiting for each other.
+ * <p>
+ * The names are inserted in sorted order, so that two saves waiting on each
+ * other's uncommitted names always lock them in the same order.
+ */
+final class TagResolver {
+
+    private TagResolver() {
+    }
+
+    /**
+     * Resolves the tags with the given names, creating the missing ones.
+     *
+     * @param entityManager the entity manager the tags are resolved in
+     * @param names         the names of the tags
+     * @return the tags managed by the entity manager by name
+     * @throws PersistenceException if the tags cannot be created
+     */
+    static Map<String, Tag> resolve(
+            final EntityManager entityManager,
+            final Collection<String> names) {
+        Set<String> wanted = new HashSet<>(names);
+        wanted.remove(null);
+        Map<String, Tag> tags = select(entityManager, wanted);
+        if (tags.size() < wanted.size()) {
+            Set<String> missing = new TreeSet<>(wanted);
+            missing.removeAll(tags.keySet());
+            insert(entityManager, missing);
+            tags.putAll(select(entityManager, missing));
+            if (tags.size() < wanted.size()) {
+                missing.removeAll(tags.keySet());
+                throw new PersistenceException("Could not create tags " + missing);
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Selects the tags with the given names.
+     *
+     * @param entityManager the entity manager
+     * @param names         the names of the tags
+     * @return the existing tags by name
+     */
+    private static Map<String, Tag> select(
+            final EntityManager entityManager,
+            final Set<String> names) {
+        Map<String, Tag> tags = new HashMap<>();
+        if (!names.isEmpty()) {
+            entityManager.createQuery(Queries.SELECT_TAG_BY_NAMES, Tag.class)
+                    .setParameter("names", names)
+                    .getResultList()
+                    .forEach(tag -> tags.put(tag.getName(), tag));
+        }
+        return tags;
+    }
+
+    /**
+     * Inserts the tags with the given names that do not exist yet.
+     * The names are bound as one array, so the statement is the same
+     * for any number of names.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @param names         the names of the tags
+     */
+    private static void insert(
+            final EntityManager entityManager,
+            final Set<String> names) {
+        NativeQueries.update(entityManager, Queries.INSERT_TAGS, Tag.class)
+                .setParameter("names", names.toArray(String[]::new))
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,192 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Invoice;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.Tag;
+import com.store.gift.entity.TagSpend;
+import jakarta.persistence.EntityManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintenance of the per-user tag spending of {@link TagSpend}.
+ * <p>
+ * Placing or deleting an order adds or subtracts its lines tag by tag in
+ * the transaction of the order. Changes reaching the orders of other users,
+ * such as the tags of an ordered certificate, rebuild their spending instead.
+ */
+final class TagSpendLedger {
+    private TagSpendLedger() {
+    }
+
+    /**
+     * Adds the lines of a placed order to the spending of its user.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @param order         the order with its certificates and their tags
+     */
+    static void add(
+            final EntityManager entityManager,
+            final Order order) {
+        apply(entityManager, order, 1);
+    }
+
+    /**
+     * Subtracts the lines of a deleted order from the spending of its user.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @param order         the order with its certificates and their tags
+     */
+    static void subtract(
+            final EntityManager entityManager,
+            final Order order) {
+        apply(entityManager, order, -1);
+        entityManager.createQuery(Queries.DELETE_EMPTY_TAG_SPEND)
+                .setParameter(Queries.ID, order.getUser().getId())
+                .executeUpdate();
+    }
+
+    /**
+     * Adds the lines of an order to the spending of its user. An invoice
+     * line spends its quantity times its unit price on the tags of its
+     * certificate; an order without lines spends its cost on the tags of
+     * each of its certificates.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @param order         the order with its lines or certificates
+     * @param sign          1 to add the lines, -1 to subtract them
+     */
+    private static void apply(
+            final EntityManager entityManager,
+            final Order order,
+            final int sign) {
+        Map<Long, Long> lines = new HashMap<>();
+        Map<Long, BigDecimal> amounts = new HashMap<>();
+        if (order.getInvoices().isEmpty()) {
+            for (Certificate certificate : order.getCertificates()) {
+                spend(lines, amounts, certificate, order.getCost());
+            }
+        } else {
+            for (Invoice line : order.getInvoices()) {
+                spend(lines, amounts, line.getCertificate(),
+                        line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+            }
+        }
+        Long userId = order.getUser().getId();
+        lines.forEach((tagId, count) -> {
+            long delta = sign * count;
+            BigDecimal cost = sign < 0 ? amounts.get(tagId).negate() : amounts.get(tagId);
+            if (write(entityManager, Queries.ADD_TAG_SPEND, userId, tagId, delta, cost) == 0
+                    && delta > 0
+                    && write(entityManager, Queries.INSERT_TAG_SPEND_ROW, userId, tagId, delta, cost) == 0) {
+                write(entityManager, Queries.ADD_TAG_SPEND, userId, tagId, delta, cost);
+            }
+        });
+    }
+
+    /**
+     * Adds to or inserts the spending of a user on a tag. A first spending
+     * inserted by a concurrent order is skipped by the insert, which waits
+     * for that order to commit, and is then added to.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @param statement     the update or insert statement
+     * @param userId        the ID of the user
+     * @param tagId         the ID of the tag
+     * @param lines         the number of lines to add
+     * @param cost          the amount to add
+     * @return the number of rows written
+     */
+    private static int write(
+            final EntityManager entityManager,
+            final String statement,
+            final Long userId,
+            final Long tagId,
+            final long lines,
+            final BigDecimal cost) {
+        return NativeQueries.update(entityManager, statement, TagSpend.class)
+                .setParameter("lines", lines)
+                .setParameter("cost", cost)
+                .setParameter(Queries.ID, userId)
+                .setParameter("tagId", tagId)
+                .executeUpdate();
+    }
+
+    private static void spend(
+            final Map<Long, Long> lines,
+            final Map<Long, BigDecimal> amounts,
+            final Certificate certificate,
+            final BigDecimal amount) {
+        for (Tag tag : certificate.getTags()) {
+            lines.merge(tag.getId(), 1L, Long::sum);
+            amounts.merge(tag.getId(), amount, BigDecimal::add);
+        }
+    }
+
+    /**
+     * Returns the IDs of the users who ordered a certificate,
+     * whose spending changes with the tags of the certificate.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @param certificateId the ID of the certificate
+     * @return the IDs of the users
+     */
+    static List<Long> usersOf(
+            final EntityManager entityManager,
+            final Long certificateId) {
+        return entityManager.createQuery(Queries.SELECT_USER_IDS_BY_CERTIFICATE_ID, Long.class)
+                .setParameter(Queries.ID, certificateId)
+                .getResultList();
+    }
+
+    /**
+     * Rebuilds the spending of the users from their flushed order lines.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @param userIds       the IDs of the users
+     */
+    static void rebuild(
+            final EntityManager entityManager,
+            final Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        NativeQueries.update(entityManager, Queries.DELETE_TAG_SPEND_BY_USERS, TagSpend.class)
+                .setParameter("ids", userIds)
+                .executeUpdate();
+        NativeQueries.update(entityManager, Queries.INSERT_TAG_SPEND_BY_USERS, TagSpend.class)
+                .setParameter("ids", userIds)
+                .executeUpdate();
+    }
+
+    /**
+     * Rebuilds the spending of all users from their flushed order lines.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @return the number of spending rows written
+     */
+    static int rebuildAll(final EntityManager entityManager) {
+        NativeQueries.update(entityManager, Queries.DELETE_ALL_TAG_SPEND, TagSpend.class).executeUpdate();
+        return NativeQueries.update(entityManager, Queries.INSERT_TAG_SPEND, TagSpend.class).executeUpdate();
+    }
+
+    /**
+     * Returns the IDs of the users whose spending differs
+     * from the spending aggregated from their order lines.
+     *
+     * @param entityManager the entity manager of the transaction
+     * @return the IDs of the users
+     */
+    static List<Long> findStaleUsers(final EntityManager entityManager) {
+        List<?> rows = entityManager.createNativeQuery(Queries.SELECT_STALE_TAG_SPEND_USERS)
+                .getResultList();
+        return rows.stream()
+                .map(row -> ((Number) row).longValue())
+                .toList();
+    }
+}
@@ -1,19 +1,20 @@
 package com.store.gift.dao;
 
 
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
+import com.store.gift.entity.Invoice;
 import com.store.gift.entity.Order;
 import com.store.gift.entity.Role;
 import com.store.gift.entity.RoleType;
+import com.store.gift.entity.TagSpend;
+import com.store.gift.entity.Token;
 import com.store.gift.entity.User;
 import com.store.gift.exception.RoleNotFoundException;
 import com.store.gift.exception.UserAlreadyExistsException;
-import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceException;
-import jakarta.persistence.PersistenceUnit;
-import jakarta.persistence.Subgraph;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.CriteriaUpdate;
@@ -21,13 +22,16 @@ import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * The implementation of the UserDao interface.
@@ -35,99 +39,110 @@ import java.util.Optional;
  * This class provides the concrete implementation
  * for accessing and manipulating users in the database.
  * <p>
- * It utilizes the EntityManagerFactory and EntityManager
- * to interact with the database.
+ * It uses the shared, transaction-scoped EntityManager, so its methods
+ * join the transaction of the calling service and run on its connection.
  */
 @Slf4j
 @Repository
+@Transactional
 @RequiredArgsConstructor
 public class UserDaoImpl implements UserDao {
     /**
-     * The entity manager factory used for obtaining the entity manager.
+     * The entity manager of the current transaction.
      */
-    @PersistenceUnit
-    private final EntityManagerFactory factory;
+    @PersistenceContext
+    private final EntityManager entityManager;
 
     /**
      * {@inheritDoc}
      * <p>
      * Retrieves all users with pagination.
+     * The IDs of the page are selected first with the requested sort,
+     * then the users with their orders and role are fetched in that order.
      *
      * @param pageable the pagination information
      * @return a list of user entities
      */
     @Override
+    @Transactional(readOnly = true)
     public List<User> getAllBy(final Pageable pageable) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<User> query = builder.createQuery(User.class);
-            Root<User> root = query.from(User.class);
-
-            EntityGraph<User> graph = getUserEntityGraph(entityManager);
-            query.select(root);
+        return PageLoader.load(entityManager, User.class, pageable,
+                FetchPlan.USER_DETAIL.graph(entityManager), User::getId);
+    }
 
-            if (pageable.getSort().isSorted()) {
-                List<jakarta.persistence.criteria.Order> orders = pageable.getSort()
-                        .stream()
-                        .map(order -> order.getDirection().equals(Sort.Direction.ASC)
-                                ? builder.asc(root.get(order.getProperty()))
-                                : builder.desc(root.get(order.getProperty())))
-                        .toList();
-                query.orderBy(orders);
-            }
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Retrieves users with keyset pagination,
+     * seeking on the sort property and the ID.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the pagination information
+     * @return a page of user entities with the adjacent cursors
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<User> getAllBy(
+            final Cursor cursor,
+            final Pageable pageable) {
+        return Keyset.select(entityManager, User.class, cursor, pageable,
+                FetchPlan.USER_DETAIL.graph(entityManager), User::getId);
+    }
 
-            return entityManager.createQuery(query)
-                    .setHint(Queries.FETCH_GRAPH, graph)
-                    .setFirstResult(pageable.getPageNumber()
-                            * pageable.getPageSize())
-                    .setMaxResults(pageable.getPageSize())
-                    .getResultList();
-        }
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Counts all users.
+     *
+     * @return the number of users
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return entityManager.createQuery(
+                        String.format(Queries.COUNT_ALL, "User"), Long.class)
+                .getSingleResult();
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * Retrieves a user by its ID.
+     * Retrieves a user by its ID, unless the user is soft-deleted.
      *
      * @param id the ID of the user
      * @return an {@link Optional} containing the user entity,
      * or empty if not found
      */
+    @Transactional(readOnly = true)
     public Optional<User> getById(final Long id) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityGraph<User> graph = entityManager.createEntityGraph(User.class);
-            graph.addSubgraph("role");
-            graph.addSubgraph("orders");
-            Map<String, Object> hints = new HashMap<>();
-            hints.put(Queries.FETCH_GRAPH, graph);
-            User user = entityManager.find(User.class, id, hints);
-            return Optional.ofNullable(user);
-        }
+        return Optional.ofNullable(entityManager.find(User.class, id,
+                        FetchPlan.USER_DETAIL.hints(entityManager)))
+                .filter(user -> !user.isDeleted());
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * Retrieves a user by its name.
+     * Retrieves a user by its name. The result is kept in the query cache
+     * until the users table changes.
      *
      * @param name the name of the user
      * @return an {@link Optional} containing the user entity,
      * or empty if not found
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<User> findByUsername(final String name) {
-        try (EntityManager entityManager =
-                     factory.createEntityManager()) {
-
-            List<User> users = entityManager
-                    .createQuery(Queries.SELECT_USER_BY_NAME, User.class)
-                    .setParameter(Queries.NAME, name)
-                    .getResultList();
-            return users.isEmpty()
-                    ? Optional.empty()
-                    : Optional.of(users.get(0));
-        }
+        List<User> users = entityManager
+                .createQuery(Queries.SELECT_USER_BY_NAME, User.class)
+                .setParameter(Queries.NAME, name)
+                .setHint(Queries.FETCH_GRAPH,
+                        FetchPlan.AUTH_PRINCIPAL.graph(entityManager))
+                .setHint(Queries.CACHEABLE, true)
+                .getResultList();
+        return users.isEmpty()
+                ? Optional.empty()
+                : Optional.of(users.get(0));
     }
 
     /**
@@ -141,64 +156,163 @@ public class UserDaoImpl implements UserDao {
      */
     @Override
     public User save(final User user) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                transaction.begin();
-                boolean empty = entityManager
-                        .createQuery(Queries.SELECT_USER_BY_NAME, User.class)
-                        .setParameter(Queries.NAME, user.getUsername())
-                        .getResultList().isEmpty();
-                if (!empty) {
-                    throw new UserAlreadyExistsException("User is Already Exists");
-                }
-                entityManager.persist(user);
-                transaction.commit();
-                return user;
-            } catch (Exception e) {
-                if (transaction.isActive()) {
-                    transaction.rollback();
-                }
-                throw new PersistenceException(e.getMessage(), e);
+        try {
+            boolean empty = entityManager
+                    .createQuery(Queries.SELECT_USER_BY_NAME, User.class)
+                    .setParameter(Queries.NAME, user.getUsername())
+                    .getResultList().isEmpty();
+            if (!empty) {
+                throw new UserAlreadyExistsException("User is Already Exists");
             }
+            entityManager.persist(user);
+            entityManager.flush();
+            return user;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
         }
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * Deletes a user by its ID.
+     * Deletes a user by its ID, with the orders and tag spending of the user.
      *
      * @param id the ID of the user to delete
      * @throws PersistenceException if an error occurs during the deletion
      */
     @Override
     public void delete(final Long id) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                transaction.begin();
-                entityManager.createNativeQuery(Queries.DELETE_ORDER)
-                        .setParameter("id", id)
-                        .executeUpdate();
+        try {
+            NativeQueries.update(entityManager, Queries.DELETE_TAG_SPEND_BY_USER, TagSpend.class)
+                    .setParameter("id", id)
+                    .executeUpdate();
+            NativeQueries.update(entityManager, Queries.DELETE_INVOICES_BY_USER, Invoice.class)
+                    .setParameter("id", id)
+                    .executeUpdate();
+            NativeQueries.update(entityManager, Queries.DELETE_ORDER, Order.class)
+                    .setParameter("id", id)
+                    .executeUpdate();
 
-                entityManager.createNativeQuery(Queries.DELETE_TOKEN)
-                        .setParameter("id", id)
-                        .executeUpdate();
-                entityManager.createNativeQuery(Queries.DELETE_USER)
-                        .setParameter("id", id)
-                        .executeUpdate();
+            NativeQueries.update(entityManager, Queries.DELETE_TOKEN, Token.class)
+                    .setParameter("id", id)
+                    .executeUpdate();
+            NativeQueries.update(entityManager, Queries.DELETE_USER, User.class)
+                    .setParameter("id", id)
+                    .executeUpdate();
+
+            entityManager.flush();
+        } catch (Exception e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param ids the IDs of the users to delete
+     * @return the IDs of the users found and deleted
+     * @throws PersistenceException if an error occurs during the deletion
+     */
+    @Override
+    public Set<Long> deleteAll(final Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            Set<Long> existing = findExistingIds(ids);
+            hardDelete(existing);
+            return existing;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
+        }
+    }
 
-                transaction.commit();
-            } catch (Exception e) {
-                if (transaction.isActive()) {
-                    transaction.rollback();
-                }
-                throw new PersistenceException(e);
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The users are flagged with one update. Their orders, tokens and
+     * tag spending stay until they are purged.
+     *
+     * @param ids the IDs of the users to delete
+     * @return the IDs of the users found and flagged
+     * @throws PersistenceException if an error occurs during the update
+     */
+    @Override
+    public Set<Long> softDeleteAll(final Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            Set<Long> existing = findExistingIds(ids);
+            if (!existing.isEmpty()) {
+                entityManager.createQuery(Queries.SOFT_DELETE_USERS)
+                        .setParameter("ids", existing)
+                        .executeUpdate();
             }
+            return existing;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The flagged IDs are selected with a native query, as the soft-deleted
+     * users are filtered out of the entity queries, and deleted with
+     * the statements of {@link #deleteAll(Collection)}.
+     *
+     * @param limit the maximum number of users to purge
+     * @return the IDs of the purged users
+     * @throws PersistenceException if an error occurs during the deletion
+     */
+    @Override
+    public Set<Long> purgeDeleted(final int limit) {
+        try {
+            List<?> rows = entityManager
+                    .createNativeQuery(Queries.SELECT_DELETED_USER_IDS)
+                    .setMaxResults(limit)
+                    .getResultList();
+            Set<Long> deleted = rows.stream()
+                    .map(row -> ((Number) row).longValue())
+                    .collect(Collectors.toSet());
+            hardDelete(deleted);
+            return deleted;
+        } catch (Exception e) {
+            throw new PersistenceException(e.getMessage(), e);
         }
     }
 
+    private Set<Long> findExistingIds(final Collection<Long> ids) {
+        return new HashSet<>(entityManager
+                .createQuery(Queries.SELECT_USER_IDS_IN, Long.class)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    /**
+     * Deletes the users, the invoice and order lines of their orders before the orders.
+     *
+     * @param ids the IDs of the users
+     */
+    private void hardDelete(final Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Class<?>> query : List.<Map.Entry<String, Class<?>>>of(
+                Map.entry(Queries.DELETE_TAG_SPEND_BY_USERS, TagSpend.class),
+                Map.entry(Queries.DELETE_INVOICES_BY_USERS, Invoice.class),
+                Map.entry(Queries.DELETE_ORDER_CERTIFICATES_BY_USERS, Order.class),
+                Map.entry(Queries.DELETE_ORDERS_BY_USERS, Order.class),
+                Map.entry(Queries.DELETE_TOKENS_BY_USERS, Token.class),
+                Map.entry(Queries.DELETE_USERS, User.class))) {
+            NativeQueries.update(entityManager, query.getKey(), query.getValue())
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        entityManager.flush();
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -207,47 +321,40 @@ public class UserDaoImpl implements UserDao {
      */
     @Override
     public User update(final User user) {
-        try (EntityManager entityManager = factory.createEntityManager()) {
-            EntityTransaction transaction = entityManager.getTransaction();
-            transaction.begin();
-            try {
-                CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-                CriteriaUpdate<User> update = builder.createCriteriaUpdate(User.class);
-                Root<User> root = update.from(User.class);
+        try {
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaUpdate<User> update = builder.createCriteriaUpdate(User.class);
+            Root<User> root = update.from(User.class);
 
-                if (user.getUsername() != null) {
-                    update.set(root.get("username"), user.getUsername());
-                }
-                if (user.getEmail() != null) {
-                    update.set(root.get("email"), user.getEmail());
-                }
-                if (user.getPassword() != null) {
-                    update.set(root.get("password"), user.getPassword());
-                }
-                if (user.getRole() != null && user.getRole().getPermission() != null) {
-                    Role existingRole = findRoleByPermission(
-                            entityManager, user.getRole().getPermission())
-                            .orElseThrow(() -> new RoleNotFoundException(
-                                    "Role not found with permission "
-                                            + user.getRole().getPermission()));
-                    user.setRole(existingRole);
-                    update.set(root.get("role"), user.getRole());
-                }
+            if (user.getUsername() != null) {
+                update.set(root.get("username"), user.getUsername());
+            }
+            if (user.getEmail() != null) {
+                update.set(root.get("email"), user.getEmail());
+            }
+            if (user.getPassword() != null) {
+                update.set(root.get("password"), user.getPassword());
+            }
+            if (user.getRole() != null && user.getRole().getPermission() != null) {
+                Role existingRole = findRoleByPermission(
+                        entityManager, user.getRole().getPermission())
+                        .orElseThrow(() -> new RoleNotFoundException(
+                                "Role not found with permission "
+                                        + user.getRole().getPermission()));
+                user.setRole(existingRole);
+                update.set(root.get("role"), user.getRole());
+            }
 
-                update.where(builder.equal(root.get("id"), user.getId()));
+            update.where(builder.equal(root.get("id"), user.getId()));
 
-                entityManager.createQuery(update)
-                        .setHint(Queries.FETCH_GRAPH, getUserEntityGraph(entityManager))
-                        .executeUpdate();
-                transaction.commit();
+            entityManager.createQuery(update).executeUpdate();
+            entityManager.flush();
+            entityManager.clear();
 
-                return entityManager.find(User.class, user.getId());
-            } catch (Exception e) {
-                if (transaction.isActive()) {
-                    transaction.rollback();
-                }
-                throw new PersistenceException(e);
-            }
+            return entityManager.find(User.class, user.getId(),
+                    FetchPlan.USER_DETAIL.hints(entityManager));
+        } catch (Exception e) {
+            throw new PersistenceException(e);
         }
     }
 
@@ -272,22 +379,4 @@ public class UserDaoImpl implements UserDao {
                 ? Optional.empty()
                 : Optional.of(roles.get(0));
     }
-
-    /**
-     * Retrieves the entity graph for the User entity.
-     * This method creates and configures an entity graph for the User entity.
-     *
-     * @param entityManager the entity manager
-     * @return the entity graph for the User entity
-     */
-    private static EntityGraph<User> getUserEntityGraph(
-            EntityManager entityManager) {
-        EntityGraph<User> graph = entityManager.createEntityGraph(User.class);
-        graph.addAttributeNodes(Queries.ORDERS, "role", "tokens");
-        Subgraph<Order> orderSubgraph = graph.addSubgraph(Queries.ORDERS);
-        orderSubgraph.addAttributeNodes(Queries.CERTIFICATES);
-        orderSubgraph.addSubgraph(Queries.CERTIFICATES).addAttributeNodes(Queries.TAGS);
-        graph.addSubgraph("role").addAttributeNodes("authorities");
-        return graph;
-    }
 }
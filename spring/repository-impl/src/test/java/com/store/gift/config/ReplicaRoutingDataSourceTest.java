@@ -0,0 +1,128 @@
+package com.store.gift.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaRoutingDataSourceTest {
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    private String user = "alice";
+    private ReplicaRoutingDataSource dataSource;
+    private TransactionTemplate transactions;
+    private TransactionTemplate readOnly;
+    private JdbcTemplate jdbc;
+
+    /**
+     * Creates a pool over a new in-memory database naming itself.
+     *
+     * @param name the name the database answers with
+     * @return the pool
+     */
+    private static HikariDataSource database(final String name) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + name + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(2);
+        HikariDataSource pool = new HikariDataSource(config);
+        JdbcTemplate template = new JdbcTemplate(pool);
+        template.execute("CREATE TABLE node (name VARCHAR(20))");
+        template.update("INSERT INTO node VALUES (?)", name);
+        return pool;
+    }
+
+    private void route(
+            final ReplicaSelection selection,
+            final Duration readYourWrites,
+            final HikariDataSource... replicas) {
+        dataSource = new ReplicaRoutingDataSource(database(ReplicaRoutingDataSource.PRIMARY),
+                List.of(replicas), selection, HOUR, readYourWrites, () -> Optional.ofNullable(user));
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly = new TransactionTemplate(transactions.getTransactionManager());
+        readOnly.setReadOnly(true);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    private String node(final TransactionTemplate template) {
+        return template.execute(status -> jdbc.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @AfterEach
+    void close() {
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("Given a replica, when transactions run, then read-only ones read the replica and the others the primary")
+    void testReadOnlyTransactionsReadTheReplica() {
+        route(ReplicaSelection.ROUND_ROBIN, Duration.ZERO, database("replica"));
+        assertEquals("replica", node(readOnly));
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, node(transactions));
+        assertEquals(ReplicaRoutingDataSource.PRIMARY,
+                jdbc.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    @DisplayName("Given two replicas, when read-only transactions run, then they take turns")
+    void testRoundRobin() {
+        route(ReplicaSelection.ROUND_ROBIN, Duration.ZERO, database("first"), database("second"));
+        assertEquals(List.of("first", "second", "first"),
+                List.of(node(readOnly), node(readOnly), node(readOnly)));
+    }
+
+    @Test
+    @DisplayName("Given a busy replica, when a read-only transaction runs, then the least loaded replica serves it")
+    void testLeastLoaded() throws Exception {
+        HikariDataSource busy = database("busy");
+        route(ReplicaSelection.LEAST_LOADED, Duration.ZERO, busy, database("idle"));
+        try (Connection ignored = busy.getConnection()) {
+            assertEquals("idle", node(readOnly));
+        }
+    }
+
+    @Test
+    @DisplayName("Given an unhealthy replica, when the health check runs, then reads skip it until it recovers")
+    void testHealthCheck() {
+        HikariDataSource broken = database("broken");
+        route(ReplicaSelection.ROUND_ROBIN, Duration.ZERO, broken);
+        broken.close();
+        dataSource.checkHealth();
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, node(readOnly));
+    }
+
+    @Test
+    @DisplayName("Given a user who wrote, when the user reads within the window, then the primary serves the read")
+    void testReadYourWrites() {
+        route(ReplicaSelection.ROUND_ROBIN, HOUR, database("replica"));
+        transactions.executeWithoutResult(status -> jdbc.update("UPDATE node SET name = name"));
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, node(readOnly));
+        user = "bob";
+        assertEquals("replica", node(readOnly));
+        user = null;
+        assertEquals("replica", node(readOnly));
+    }
+
+    @Test
+    @DisplayName("Given a write that rolled back, when the user reads, then the replica serves the read")
+    void testRolledBackWriteIsNotRemembered() {
+        route(ReplicaSelection.ROUND_ROBIN, HOUR, database("replica"));
+        transactions.executeWithoutResult(status -> {
+            jdbc.update("UPDATE node SET name = name");
+            status.setRollbackOnly();
+        });
+        assertEquals("replica", node(readOnly));
+    }
+}
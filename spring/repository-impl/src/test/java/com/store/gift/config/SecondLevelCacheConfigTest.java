@@ -0,0 +1,49 @@
+package com.store.gift.config;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Role;
+import com.store.gift.entity.Tag;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.xml.XmlConfiguration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecondLevelCacheConfigTest {
+    private final Map<String, CacheConfiguration<?, ?>> regions =
+            new XmlConfiguration(getClass().getResource("/ehcache.xml")).getCacheConfigurations();
+
+    @ParameterizedTest
+    @DisplayName("Given the cache configuration, when a region is looked up, then it is bounded on the heap")
+    @ValueSource(strings = {
+            "com.store.gift.entity.Tag",
+            "com.store.gift.entity.Role",
+            "com.store.gift.entity.Role.authorities",
+            "com.store.gift.entity.Certificate",
+            "com.store.gift.entity.Certificate.tags",
+            "default-query-results-region",
+            "default-update-timestamps-region"})
+    void testRegionIsBounded(String name) {
+        CacheConfiguration<?, ?> region = regions.get(name);
+        assertNotNull(region, name);
+        SizedResourcePool heap = region.getResourcePools().getPoolForResource(ResourceType.Core.HEAP);
+        assertEquals(EntryUnit.ENTRIES, heap.getUnit(), name);
+        assertTrue(heap.getSize() > 0, name);
+    }
+
+    @ParameterizedTest
+    @DisplayName("Given a cached entity, when its region name is derived, then the configuration has it")
+    @ValueSource(classes = {Tag.class, Role.class, Certificate.class})
+    void testEntityRegions(Class<?> entity) {
+        assertNotNull(regions.get(entity.getName()), entity.getName());
+    }
+}
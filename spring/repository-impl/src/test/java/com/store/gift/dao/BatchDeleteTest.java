@@ -0,0 +1,67 @@
+package com.store.gift.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deletes certificates, tags and users by lists of IDs on an in-memory database.
+ */
+class BatchDeleteTest extends SeedData {
+    private static final long MISSING = 999_999L;
+
+    private CertificateDao certificateDao;
+    private TagDao tagDao;
+    private UserDao userDao;
+
+    @BeforeEach
+    void setUp() {
+        TagBitmapIndex tagIndex = new TagBitmapIndex(factory);
+        certificateDao = new CertificateDaoImpl(entityManager, tagIndex);
+        tagDao = new TagDaoImpl(entityManager, tagIndex);
+        userDao = new UserDaoImpl(entityManager);
+        place(aliceId, BigDecimal.TEN, massage, ski);
+        place(bobId, BigDecimal.TEN, ski);
+    }
+
+    @Test
+    @DisplayName("Given ordered certificates, when deleted by IDs, then their lines go and the spending is rebuilt")
+    void testDeleteCertificates() {
+        Set<Long> deleted = transactions.execute(status -> certificateDao.deleteAll(
+                List.of(massage.getId(), ski.getId(), MISSING)));
+        assertEquals(Set.of(massage.getId(), ski.getId()), deleted);
+        assertEquals(0, count("Certificate"));
+        assertEquals(2, count("Order"));
+        assertEquals(0, count("TagSpend"));
+        assertTrue(transactions.execute(status -> orderDao.findUsersWithStaleTagSpend()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given tags of certificates, when deleted by IDs, then the certificates stay without them")
+    void testDeleteTags() {
+        Set<Long> deleted = transactions.execute(status -> tagDao.deleteAll(List.of(winter.getId(), MISSING)));
+        assertEquals(Set.of(winter.getId()), deleted);
+        assertEquals(1, count("Tag"));
+        assertEquals(2, count("Certificate"));
+        assertTrue(transactions.execute(status -> orderDao.findUsersWithStaleTagSpend()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given users with orders, when deleted by IDs, then their orders and spending go")
+    void testDeleteUsers() {
+        Set<Long> deleted = transactions.execute(status -> userDao.deleteAll(List.of(aliceId, MISSING)));
+        assertEquals(Set.of(aliceId), deleted);
+        assertEquals(1, count("User"));
+        assertEquals(1, count("Order"));
+        assertTrue(transactions.execute(status -> orderDao.findUsersWithStaleTagSpend()).isEmpty());
+        assertEquals(Set.of(), transactions.execute(status -> userDao.deleteAll(List.of(aliceId))));
+        assertEquals(Set.of(bobId), transactions.execute(status -> userDao.deleteAll(List.of(bobId))));
+    }
+}
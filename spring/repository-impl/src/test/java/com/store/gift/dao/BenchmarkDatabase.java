@@ -0,0 +1,227 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Tag;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * In-memory H2 database for the opt-in benchmarks of the repository layer.
+ * <p>
+ * Benchmarks run only with {@code -Dbenchmark=true}, they are plain
+ * JUnit tests timing warmed-up iterations with {@link System#nanoTime()}.
+ * The query-count tests of the fetch plans use the same database
+ * and run with every build.
+ */
+final class BenchmarkDatabase {
+    /**
+     * The system property enabling the benchmarks.
+     */
+    static final String ENABLED = "benchmark";
+
+    /**
+     * Hibernate properties drawing one sequence value per row
+     * and sending every insert on its own.
+     */
+    static final Map<String, String> PER_ROW = Map.of(
+            "hibernate.id.optimizer.pooled.preferred", "none",
+            "hibernate.jdbc.batch_size", "0");
+
+    /**
+     * Hibernate properties allocating IDs in pooled-lo blocks
+     * and sending ordered inserts and updates in JDBC batches.
+     */
+    static final Map<String, String> BATCHED = Map.of(
+            "hibernate.id.optimizer.pooled.preferred", "pooled-lo",
+            "hibernate.jdbc.batch_size", String.valueOf(Queries.BATCH_SIZE),
+            "hibernate.order_inserts", "true",
+            "hibernate.order_updates", "true");
+
+    /**
+     * The number of certificates seeded per transaction.
+     */
+    private static final int SEED_BATCH = 500;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Creates an entity manager factory over a new in-memory database
+     * with the schema generated from the entities.
+     *
+     * @param name       the name of the database
+     * @param properties additional Hibernate properties
+     * @return the entity manager factory
+     */
+    static EntityManagerFactory create(
+            final String name,
+            final Map<String, String> properties) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url(name), "sa", "");
+        dataSource.setDriverClassName("org.h2.Driver");
+        return create(dataSource, properties);
+    }
+
+    /**
+     * Creates an entity manager factory over the given data source
+     * with the schema generated from the entities.
+     *
+     * @param dataSource the data source, such as a pool over {@link #url}
+     * @param properties additional Hibernate properties
+     * @return the entity manager factory
+     */
+    static EntityManagerFactory create(
+            final DataSource dataSource,
+            final Map<String, String> properties) {
+        Properties jpaProperties = new Properties();
+        jpaProperties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        jpaProperties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        jpaProperties.setProperty("hibernate.default_batch_fetch_size", "16");
+        jpaProperties.putAll(properties);
+        LocalContainerEntityManagerFactoryBean factoryBean =
+                new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.store.gift.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaProperties(jpaProperties);
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    /**
+     * Returns the URL of an in-memory database in the PostgreSQL
+     * compatibility mode the application runs H2 in.
+     *
+     * @param name the name of the database
+     * @return the JDBC URL
+     */
+    static String url(final String name) {
+        return "jdbc:h2:mem:" + name + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Seeds the catalog of a benchmark: the tags {@code tag0} onwards and
+     * the certificates, each with three tags, the given first one and the
+     * ones 7 and 14 places after its own index, in transactions of
+     * {@value #SEED_BATCH} certificates.
+     *
+     * @param factory      the entity manager factory
+     * @param certificates the number of certificates
+     * @param tags         the number of tags
+     * @param name         the name of the certificate of an index
+     * @param firstTag     the index of the first tag of the certificate of an index
+     */
+    static void seedCatalog(
+            final EntityManagerFactory factory,
+            final int certificates,
+            final int tags,
+            final IntFunction<String> name,
+            final IntUnaryOperator firstTag) {
+        List<Tag> seeded = new ArrayList<>();
+        inTransaction(factory, entityManager -> {
+            for (int i = 0; i < tags; i++) {
+                Tag tag = Tag.builder().name("tag" + i).build();
+                entityManager.persist(tag);
+                seeded.add(tag);
+            }
+        });
+        for (int from = 0; from < certificates; from += SEED_BATCH) {
+            int start = from;
+            inTransaction(factory, entityManager -> {
+                for (int i = start; i < Math.min(start + SEED_BATCH, certificates); i++) {
+                    Certificate certificate = Certificate.builder()
+                            .name(name.apply(i))
+                            .description("description" + i)
+                            .price(BigDecimal.valueOf(i % 100 + 1))
+                            .duration(i % 30 + 1)
+                            .build();
+                    certificate.addTag(entityManager.merge(seeded.get(firstTag.applyAsInt(i))));
+                    for (int t = 1; t < 3; t++) {
+                        certificate.addTag(entityManager.merge(seeded.get((i + t * 7) % tags)));
+                    }
+                    entityManager.persist(certificate);
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs the work in a transaction of a new entity manager.
+     *
+     * @param factory the entity manager factory
+     * @param work    the work to run
+     */
+    static void inTransaction(
+            final EntityManagerFactory factory,
+            final Consumer<EntityManager> work) {
+        try (EntityManager entityManager = factory.createEntityManager()) {
+            EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+            work.accept(entityManager);
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Creates the shared entity manager the DAOs are given by the application.
+     * It joins the transactions of {@link #transactions}, and outside of them
+     * every call runs in an entity manager of its own.
+     *
+     * @param factory the entity manager factory
+     * @return the shared entity manager
+     */
+    static EntityManager shared(final EntityManagerFactory factory) {
+        return SharedEntityManagerCreator.createSharedEntityManager(factory);
+    }
+
+    /**
+     * Creates a template running work in a transaction of the JPA
+     * transaction manager, as the services do with their annotations.
+     *
+     * @param factory the entity manager factory
+     * @return the transaction template
+     */
+    static TransactionTemplate transactions(final EntityManagerFactory factory) {
+        return new TransactionTemplate(new JpaTransactionManager(factory));
+    }
+
+    /**
+     * Measures the average time of the task after warm-up iterations.
+     *
+     * @param warmups    the number of unmeasured iterations
+     * @param iterations the number of measured iterations
+     * @param task       the task to measure
+     * @param <T>        the result type
+     * @return the average time of one iteration in microseconds
+     */
+    static <T> long measure(
+            final int warmups,
+            final int iterations,
+            final Supplier<T> task) {
+        for (int i = 0; i < warmups; i++) {
+            task.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.get();
+        }
+        return (System.nanoTime() - start) / iterations / 1_000;
+    }
+}
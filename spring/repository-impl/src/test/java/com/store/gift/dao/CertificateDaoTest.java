@@ -1,14 +1,14 @@
 package com.store.gift.dao;
 
+import com.store.gift.dto.CertificateSlimDto;
 import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Criteria;
 import com.store.gift.entity.Tag;
 import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.PersistenceException;
 import jakarta.persistence.Query;
-import jakarta.persistence.Subgraph;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -27,6 +27,7 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -43,11 +44,14 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -55,9 +59,9 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class CertificateDaoTest {
     @Mock
-    private EntityManagerFactory factory;
+    private TagBitmapIndex tagIndex;
     @Mock
-    private EntityTransaction transaction;
+    private Query insertTagsQuery;
     @Mock
     private EntityManager entityManager;
     @Mock
@@ -73,8 +77,6 @@ class CertificateDaoTest {
     @Mock
     private TypedQuery<Tag> tagDtoTypedQuery;
     @Mock
-    private Subgraph<Object> subgraph;
-    @Mock
     private TypedQuery<Long> query;
     @Mock
     private CriteriaBuilder criteriaBuilder;
@@ -85,7 +87,15 @@ class CertificateDaoTest {
     @Mock
     private CriteriaQuery<Certificate> criteriaQuery;
     @Mock
+    private CriteriaQuery<Long> idCriteriaQuery;
+    @Mock
     private Path<Object> tagNamePath;
+    @Mock
+    private CriteriaQuery<Object[]> listingCriteriaQuery;
+    @Mock
+    private TypedQuery<Object[]> rowQuery;
+    @Mock
+    private TypedQuery<Object[]> tagNameQuery;
     private CertificateDao certificateDao;
     private final Long id = 1L;
     private final Certificate certificate = Certificate.builder().id(id).build();
@@ -93,18 +103,15 @@ class CertificateDaoTest {
 
     @BeforeEach
     void setUp() {
-        certificateDao = new CertificateDaoImpl(factory);
+        certificateDao = new CertificateDaoImpl(entityManager, tagIndex);
         expectedTags.add(Tag.builder().id(id).name("Tag").build());
         expectedTags.add(Tag.builder().id(id + 2).name("namespace").build());
-        when(factory.createEntityManager()).thenReturn(entityManager);
-        when(entityManager.getTransaction()).thenReturn(transaction);
         when(entityManager.createEntityGraph(Certificate.class)).thenReturn(graph);
         when(entityManager.createQuery(anyString(), eq(Tag.class))).thenReturn(tagTypedQuery);
         when(tagTypedQuery.setParameter(anyString(), any())).thenReturn(tagTypedQuery);
 //        when(criteriaBuilder.createQuery(Certificate.class)).thenReturn(criteriaQuery);
         when(entityManager.getCriteriaBuilder()).thenReturn(criteriaBuilder);
         when(criteriaQuery.from(Certificate.class)).thenReturn(root);
-        when(factory.createEntityManager()).thenReturn(entityManager);
     }
 
 //    @Test
@@ -144,33 +151,68 @@ class CertificateDaoTest {
     @Test
     @DisplayName("Given a pageable request, when getAllBy is called, then it should return a list of certificates based on the pagination parameters")
     void testGetAllBy() {
-        int pageSize = 10;
-        int pageNumber = 0;
-        Pageable pageable = PageRequest.of(pageNumber, pageSize);
-        List<Long> certificateIds = new ArrayList<>();
-        certificateIds.add(1L);
-        certificateIds.add(2L);
-        when(entityManager.createQuery(anyString(), eq(Long.class))).thenReturn(query);
-        when(query.setHint(eq(Queries.FETCH_GRAPH), any(EntityGraph.class))).thenReturn(query);
+        Pageable pageable = PageRequest.of(0, 10);
+        Certificate first = Certificate.builder().id(1L).build();
+        Certificate second = Certificate.builder().id(2L).build();
+        List<Long> certificateIds = Arrays.asList(2L, 1L);
+        when(criteriaBuilder.createQuery(Long.class)).thenReturn(idCriteriaQuery);
+        when(idCriteriaQuery.from(Certificate.class)).thenReturn(root);
+        when(entityManager.createQuery(idCriteriaQuery)).thenReturn(query);
         when(query.setFirstResult(anyInt())).thenReturn(query);
         when(query.setMaxResults(anyInt())).thenReturn(query);
         when(query.getResultList()).thenReturn(certificateIds);
 
         when(entityManager.createQuery(anyString(), eq(Certificate.class))).thenReturn(typedQuery);
-        when(typedQuery.setHint(eq(Queries.FETCH_GRAPH), any(EntityGraph.class))).thenReturn(typedQuery);
         when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
-        when(typedQuery.getResultList()).thenReturn(Arrays.asList(certificate, certificate));
+        when(typedQuery.getResultList()).thenReturn(Arrays.asList(first, second));
         List<Certificate> result = certificateDao.getAllBy(pageable);
-        assertEquals(2, result.size());
-        assertEquals(certificate, result.get(0));
-        assertEquals(certificate, result.get(1));
+        assertEquals(Arrays.asList(second, first), result);
+        verify(typedQuery).setParameter("ids", certificateIds);
+        verify(typedQuery).setHint(Queries.FETCH_GRAPH, graph);
+        verify(graph).addAttributeNodes(Queries.TAGS);
+    }
+
+    @Test
+    @DisplayName("Given a pageable request, when findListingBy is called, then the listing columns are read with the tag names of the page")
+    void testFindListingBy() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(Queries.NAME));
+        when(criteriaBuilder.createQuery(Object[].class)).thenReturn(listingCriteriaQuery);
+        when(listingCriteriaQuery.from(Certificate.class)).thenReturn(root);
+        when(listingCriteriaQuery.multiselect(anyList())).thenReturn(listingCriteriaQuery);
+        when(listingCriteriaQuery.orderBy(anyList())).thenReturn(listingCriteriaQuery);
+        when(entityManager.createQuery(listingCriteriaQuery)).thenReturn(rowQuery);
+        when(rowQuery.setFirstResult(anyInt())).thenReturn(rowQuery);
+        when(rowQuery.setMaxResults(anyInt())).thenReturn(rowQuery);
+        when(rowQuery.getResultList()).thenReturn(Arrays.asList(
+                new Object[]{2L, "Ski", "Ski pass", BigDecimal.TEN, 30, null, null, null},
+                new Object[]{1L, "Spa", "Spa day", BigDecimal.ONE, 10, null, null, null}));
+        when(entityManager.createQuery(Queries.SELECT_TAG_NAMES_BY_CERTIFICATE_IDS, Object[].class))
+                .thenReturn(tagNameQuery);
+        when(tagNameQuery.setParameter("ids", Arrays.asList(2L, 1L))).thenReturn(tagNameQuery);
+        when(tagNameQuery.getResultList()).thenReturn(Arrays.asList(
+                new Object[]{2L, "snow"}, new Object[]{2L, "winter"}));
+        List<CertificateSlimDto> result = certificateDao.findListingBy(pageable);
+        assertEquals(Arrays.asList(2L, 1L), result.stream().map(CertificateSlimDto::getId).toList());
+        assertEquals(Arrays.asList("snow", "winter"), result.get(0).getTagNames());
+        assertEquals(Collections.emptyList(), result.get(1).getTagNames());
+        verify(rowQuery).setFirstResult(0);
+        verify(rowQuery).setMaxResults(10);
+        verify(entityManager, never()).createQuery(anyString(), eq(Certificate.class));
+    }
+
+    @Test
+    @DisplayName("Given a sort by a column the listing does not read, when findListingBy is called with a cursor, then it is rejected")
+    void testFindListingByCursorRejectsSort() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("company"));
+        assertThrows(IllegalArgumentException.class,
+                () -> certificateDao.findListingBy(null, pageable));
+        verify(entityManager, never()).getCriteriaBuilder();
     }
 
     @Test
     void testFindAllByOrderId() {
         List<Certificate> expectedCertificates = Arrays.asList(certificate, certificate);
         when(entityManager.createEntityGraph(Certificate.class)).thenReturn(graph);
-        when(graph.addSubgraph(Queries.ORDERS)).thenReturn(subgraph);
         when(entityManager.createQuery(Queries.SELECT_CERTIFICATES_BY_ORDER_ID, Certificate.class)).thenReturn(typedQuery);
         when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
         when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
@@ -179,7 +221,6 @@ class CertificateDaoTest {
         assertEquals(new HashSet<>(expectedCertificates), actualCertificates);
         verify(entityManager).createQuery(Queries.SELECT_CERTIFICATES_BY_ORDER_ID, Certificate.class);
         verify(graph).addAttributeNodes(Queries.TAGS);
-        verify(subgraph).addAttributeNodes(Queries.USER);
         verify(typedQuery).setParameter("orderId", id);
     }
 
@@ -189,7 +230,7 @@ class CertificateDaoTest {
         when(entityManager.find(eq(Certificate.class), eq(id), anyMap())).thenReturn(certificate);
         Certificate actualCertificate = certificateDao.findById(id);
         assertEquals(certificate, actualCertificate);
-        verify(entityManager).close();
+        verify(entityManager, never()).close();
     }
 
     @DisplayName("Test update Certificate")
@@ -204,17 +245,24 @@ class CertificateDaoTest {
         Certificate existed = getCertificate(id, "oldName", "oldDescription", BigDecimal.ONE, 10);
         when(entityManager.getReference(Certificate.class, id)).thenReturn(existed);
         when(entityManager.createEntityGraph(Certificate.class)).thenReturn(graph);
-        when(graph.addSubgraph(Queries.ORDERS)).thenReturn(subgraph);
         when(entityManager.find(eq(Certificate.class), eq(id), anyMap())).thenReturn(certificate);
+        when(entityManager.createQuery(Queries.SELECT_USER_IDS_BY_CERTIFICATE_ID, Long.class)).thenReturn(query);
+        when(query.setParameter(Queries.ID, id)).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(7L));
+        when(entityManager.createNativeQuery(anyString())).thenReturn(deleteOrderQuery);
+        when(deleteOrderQuery.setParameter(anyString(), any())).thenReturn(deleteOrderQuery);
         Certificate actualCertificate = certificateDao.update(certificate);
         assertEquals(certificate.getName(), actualCertificate.getName());
         assertEquals(certificate.getDescription(), actualCertificate.getDescription());
         assertEquals(certificate.getPrice(), actualCertificate.getPrice());
         assertEquals(certificate.getDuration(), actualCertificate.getDuration());
-        verify(entityManager).getTransaction();
-        verify(transaction).begin();
+        verify(entityManager, never()).getTransaction();
         verify(entityManager).find(eq(Certificate.class), eq(id), anyMap());
-        verify(transaction).commit();
+        verify(entityManager).flush();
+        verify(tagIndex).put(id, List.of());
+        verify(entityManager).createNativeQuery(Queries.DELETE_TAG_SPEND_BY_USERS);
+        verify(entityManager).createNativeQuery(Queries.INSERT_TAG_SPEND_BY_USERS);
+        verify(deleteOrderQuery, times(2)).setParameter("ids", List.of(7L));
     }
 
     @DisplayName("Test find certificate by ID")
@@ -251,18 +299,50 @@ class CertificateDaoTest {
         Set<Tag> tags = new HashSet<>();
         tags.add(tag);
         certificate.setTags(tags);
-        when(entityManager.createQuery(Queries.SELECT_TAGS_BY_NAME, Tag.class)).thenReturn(tagTypedQuery);
-        when(tagTypedQuery.setParameter("name", tag.getName())).thenReturn(tagTypedQuery);
+        when(entityManager.createQuery(Queries.SELECT_TAG_BY_NAMES, Tag.class)).thenReturn(tagTypedQuery);
+        when(tagTypedQuery.setParameter("names", Set.of(tag.getName()))).thenReturn(tagTypedQuery);
         when(tagTypedQuery.getResultList()).thenReturn(Collections.singletonList(tag));
         Certificate actualCertificate = certificateDao.save(certificate);
         assertEquals(certificate, actualCertificate);
-        verify(entityManager).getTransaction();
-        verify(transaction).begin();
-        verify(entityManager).createQuery(Queries.SELECT_TAGS_BY_NAME, Tag.class);
-        verify(tagTypedQuery).setParameter("name", tag.getName());
+        verify(entityManager, never()).getTransaction();
+        verify(entityManager).createQuery(Queries.SELECT_TAG_BY_NAMES, Tag.class);
+        verify(tagTypedQuery).setParameter("names", Set.of(tag.getName()));
         verify(tagTypedQuery).getResultList();
         verify(entityManager).persist(certificate);
-        verify(transaction).commit();
+        verify(entityManager).flush();
+    }
+
+    @Test
+    @DisplayName("Save certificates in batches with tags resolved at once")
+    void testSaveAll() {
+        Tag existing = Tag.builder().id(7L).name("Seasonal").build();
+        List<Certificate> certificates = new ArrayList<>();
+        for (long i = 0; i < Queries.BATCH_SIZE + 1; i++) {
+            Certificate batched = Certificate.builder().id(i).name("Certificate " + i).build();
+            batched.addTag(Tag.builder().name("Seasonal").build());
+            batched.addTag(Tag.builder().name("New").build());
+            certificates.add(batched);
+        }
+        when(entityManager.createQuery(Queries.SELECT_TAG_BY_NAMES, Tag.class)).thenReturn(tagTypedQuery);
+        Tag created = Tag.builder().id(8L).name("New").build();
+        when(tagTypedQuery.getResultList()).thenReturn(Collections.singletonList(existing),
+                Collections.singletonList(created));
+        when(entityManager.getReference(eq(Tag.class), any())).thenReturn(existing);
+        when(entityManager.createNativeQuery(Queries.INSERT_TAGS)).thenReturn(insertTagsQuery);
+        when(insertTagsQuery.setParameter(eq("names"), any())).thenReturn(insertTagsQuery);
+
+        assertEquals(certificates, certificateDao.saveAll(certificates));
+        verify(entityManager, times(2)).createQuery(Queries.SELECT_TAG_BY_NAMES, Tag.class);
+        verify(tagTypedQuery).setParameter("names", Set.of("Seasonal", "New"));
+        verify(tagTypedQuery).setParameter("names", Set.of("New"));
+        verify(insertTagsQuery).setParameter("names", new String[]{"New"});
+        verify(insertTagsQuery).executeUpdate();
+        verify(entityManager, never()).persist(Tag.builder().name("New").build());
+        verify(entityManager, times(2)).flush();
+        verify(entityManager).clear();
+        assertTrue(certificates.get(0).getTags().contains(existing));
+        assertTrue(certificates.get(0).getTags().contains(created));
+        verify(tagIndex).add(0L, Set.of("Seasonal", "New"));
     }
 
     @DisplayName("Get certificates by user ID")
@@ -280,7 +360,6 @@ class CertificateDaoTest {
         when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(expectedCertificates);
         certificateDao.findAllByIds(certificateIds);
-        verify(factory).createEntityManager();
         verify(entityManager).createEntityGraph(Certificate.class);
         verify(entityManager).createQuery(anyString(), eq(Certificate.class));
         verify(typedQuery).setParameter(anyString(), anySet());
@@ -288,28 +367,37 @@ class CertificateDaoTest {
         verify(typedQuery).getResultList();
     }
 
+    @Test
+    @DisplayName("Given a certificate at another version, when updated, then the update is rejected unchanged")
+    void testUpdateCertificateAtAnotherVersion() {
+        Certificate stored = getCertificate(id, "Winter", "Season 1", BigDecimal.ONE, 10);
+        stored.setVersion(3L);
+        when(entityManager.createEntityGraph(Certificate.class)).thenReturn(graph);
+        when(entityManager.find(eq(Certificate.class), eq(id), anyMap())).thenReturn(stored);
+        Certificate stale = getCertificate(id, "Winter", "Season 1", BigDecimal.TEN, 10);
+        stale.setVersion(2L);
+        assertThrows(OptimisticLockException.class, () -> certificateDao.update(stale));
+        assertEquals(BigDecimal.ONE, stored.getPrice());
+        verify(entityManager, never()).flush();
+        verify(tagIndex, never()).put(any(), any());
+    }
+
     @Test
     @DisplayName("Test update Certificate not found and verify rollback transaction")
     void testUpdateCertificateRollback() {
         when(entityManager.find(Certificate.class, id)).thenReturn(null);
-        when(transaction.isActive()).thenReturn(true);
         assertThrows(PersistenceException.class, () -> certificateDao.update(certificate));
-        verify(entityManager).getTransaction();
-        verify(transaction).begin();
-        verify(transaction).rollback();
-        verify(entityManager).close();
+        verify(entityManager, never()).flush();
+        verify(tagIndex, never()).put(any(), any());
     }
 
     @Test
     @DisplayName("Test save Entity not found")
     void testSaveCertificateNotFound() {
-        when(transaction.isActive()).thenReturn(true);
-        doThrow(new RuntimeException("Error")).when(transaction).commit();
+        doThrow(new RuntimeException("Error")).when(entityManager).flush();
         assertThrows(PersistenceException.class, () -> certificateDao.save(certificate));
-        verify(entityManager).getTransaction();
-        verify(transaction).begin();
-        verify(transaction).rollback();
-        verify(entityManager).close();
+        verify(entityManager).persist(certificate);
+        verify(tagIndex, never()).add(any(), any());
     }
 
     @Test
@@ -317,20 +405,49 @@ class CertificateDaoTest {
     void testDeleteCertificate() {
         when(entityManager.createEntityGraph(Certificate.class)).thenReturn(graph);
         when(entityManager.find(eq(Certificate.class), eq(id), anyMap())).thenReturn(certificate);
+        when(entityManager.createNativeQuery(Queries.DELETE_INVOICES_BY_CERTIFICATE)).thenReturn(deleteOrderQuery);
         when(entityManager.createNativeQuery(Queries.DELETE_ORDER_CERTIFICATE)).thenReturn(deleteOrderQuery);
         when(deleteOrderQuery.setParameter("id", id)).thenReturn(deleteOrderQuery);
         when(entityManager.createNativeQuery(Queries.DELETE_CERTIFICATE)).thenReturn(deleteTokenQuery);
         when(deleteTokenQuery.setParameter("id", id)).thenReturn(deleteTokenQuery);
         when(entityManager.createNativeQuery(Queries.DELETE_CERTIFICATE_TAG)).thenReturn(deleteTokenQuery);
         when(deleteTokenQuery.setParameter("id", id)).thenReturn(deleteTokenQuery);
+        when(entityManager.createQuery(Queries.SELECT_USER_IDS_BY_CERTIFICATE_ID, Long.class)).thenReturn(query);
+        when(query.setParameter(Queries.ID, id)).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(7L));
+        when(entityManager.createNativeQuery(Queries.DELETE_TAG_SPEND_BY_USERS)).thenReturn(deleteTokenQuery);
+        when(entityManager.createNativeQuery(Queries.INSERT_TAG_SPEND_BY_USERS)).thenReturn(deleteTokenQuery);
+        when(deleteTokenQuery.setParameter("ids", List.of(7L))).thenReturn(deleteTokenQuery);
         certificateDao.delete(id);
-        verify(transaction).begin();
+        verify(entityManager).createNativeQuery(Queries.DELETE_INVOICES_BY_CERTIFICATE);
         verify(entityManager).createNativeQuery(Queries.DELETE_ORDER_CERTIFICATE);
         verify(entityManager).createNativeQuery(Queries.DELETE_CERTIFICATE_TAG);
         verify(entityManager).createNativeQuery(Queries.DELETE_CERTIFICATE);
-        verify(deleteOrderQuery).setParameter("id", id);
-        verify(deleteOrderQuery).executeUpdate();
-        verify(transaction).commit();
+        verify(deleteOrderQuery, times(2)).setParameter("id", id);
+        verify(deleteOrderQuery, times(2)).executeUpdate();
+        verify(entityManager).flush();
+        verify(entityManager).createNativeQuery(Queries.INSERT_TAG_SPEND_BY_USERS);
+        verify(tagIndex).remove(id);
+    }
+
+    @Test
+    @DisplayName("Find certificates by tags sorted by ID from the tag bitmap index")
+    void testFindByTagsFromIndex() {
+        Criteria criteria = Criteria.builder()
+                .tagNames(List.of("Seasonal", "New"))
+                .allTags(true)
+                .build();
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("id").descending());
+        Certificate first = Certificate.builder().id(1L).build();
+        Certificate second = Certificate.builder().id(2L).build();
+        when(tagIndex.page(criteria, pageable)).thenReturn(List.of(2L, 1L));
+        when(entityManager.createQuery(anyString(), eq(Certificate.class))).thenReturn(typedQuery);
+        when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(first, second));
+
+        assertEquals(List.of(second, first), certificateDao.findByCriteria(criteria, pageable));
+        verify(tagIndex).page(criteria, pageable);
+        verify(entityManager, never()).getCriteriaBuilder();
     }
 
     @Test
@@ -352,6 +469,7 @@ class CertificateDaoTest {
     void testGetByNameCertificateNotFound(String name) {
         when(entityManager.createQuery(anyString(), eq(Certificate.class))).thenReturn(typedQuery);
         when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(Collections.emptyList());
         Optional<Certificate> result = certificateDao.findByUsername(name);
         assertFalse(result.isPresent());
@@ -371,10 +489,12 @@ class CertificateDaoTest {
         Certificate certificate = getCertificate(id, name, description, price, duration);
         when(entityManager.createQuery(anyString(), eq(Certificate.class))).thenReturn(typedQuery);
         when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(Collections.singletonList(certificate));
         Optional<Certificate> result = certificateDao.findByUsername(name);
         assertTrue(result.isPresent());
         assertEquals(certificate, result.get());
+        verify(graph).addAttributeNodes(Queries.TAGS);
         verify(entityManager).createQuery(anyString(), eq(Certificate.class));
         verify(typedQuery).setParameter(anyString(), any());
         verify(typedQuery).getResultList();
@@ -383,11 +503,10 @@ class CertificateDaoTest {
     @Test
     @DisplayName("Test delete Tag not found and verify rollback transaction and Throws Exception")
     void testDeleteThrowsException() {
-        when(transaction.isActive()).thenReturn(true);
         when(entityManager.find(Certificate.class, id)).thenReturn(null);
         doThrow(new RuntimeException("Error during remove")).when(entityManager).remove(any());
         assertThrows(PersistenceException.class, () -> certificateDao.delete(id));
-        verify(transaction).rollback();
+        verify(tagIndex, never()).remove(id);
     }
 
     @Test
@@ -436,7 +555,6 @@ class CertificateDaoTest {
         when(tagDtoTypedQuery.getResultList()).thenReturn(expectedTags);
         List<Tag> actualTags = certificateDao.findTagsByCertificateId(id);
         assertEquals(expectedTags, actualTags);
-        verify(factory).createEntityManager();
         verify(entityManager).createQuery(anyString(), eq(Tag.class));
         verify(tagDtoTypedQuery).setParameter(anyString(), any());
         verify(tagDtoTypedQuery).getResultList();
@@ -0,0 +1,47 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Streams the whole catalog from a forward-only cursor on an in-memory database.
+ */
+class CertificateExportTest extends SeedData {
+    private CertificateDao certificateDao;
+    private Certificate voucher;
+
+    @BeforeEach
+    void setUp() {
+        certificateDao = new CertificateDaoImpl(entityManager, new TagBitmapIndex(factory));
+        voucher = Certificate.builder().name("voucher").description("voucher")
+                .price(BigDecimal.ONE).duration(10).build();
+        BenchmarkDatabase.inTransaction(factory, seed -> seed.persist(voucher));
+    }
+
+    @Test
+    @DisplayName("Given certificates with and without tags, when streamed, then each is passed once with its tags")
+    void testStreamAll() {
+        transactions.execute(status -> certificateDao.softDeleteAll(List.of(massage.getId())));
+        List<Certificate> streamed = new ArrayList<>();
+
+        long count = transactions.execute(status -> certificateDao.streamAll(streamed::add));
+        assertEquals(2, count);
+        assertEquals(List.of(ski.getId(), voucher.getId()), streamed.stream().map(Certificate::getId).toList());
+        assertEquals(Set.of("spa", "winter"), streamed.get(0).getTags().stream()
+                .map(Tag::getName).collect(Collectors.toSet()));
+        assertEquals(Set.of(), streamed.get(1).getTags());
+        assertEquals("ski", streamed.get(0).getName());
+        assertEquals(0, BigDecimal.ONE.compareTo(streamed.get(0).getPrice()));
+    }
+}
@@ -0,0 +1,196 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Criteria;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.Role;
+import com.store.gift.entity.RoleType;
+import com.store.gift.entity.Tag;
+import com.store.gift.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Counts the statements of the reads behind every endpoint, including
+ * the associations the mappers render after the DAO returns.
+ * <p>
+ * Every read runs in a read-only transaction of the shared entity manager,
+ * as in the services. A read that loads an association outside its
+ * {@link FetchPlan} issues more statements, so N+1 regressions fail the build.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FetchPlanQueryCountTest {
+    private static final int USERS = 3;
+    private static final int ORDERS = 3;
+    private static final int CERTIFICATES = 6;
+
+    private final Pageable pageable = PageRequest.of(0, 10, Sort.by(Queries.ID));
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> orderIds = new ArrayList<>();
+    private final List<Long> certificateIds = new ArrayList<>();
+    private EntityManagerFactory factory;
+    private TransactionTemplate transactions;
+    private Statistics statistics;
+    private CertificateDao certificateDao;
+    private OrderDao orderDao;
+    private UserDao userDao;
+
+    @BeforeAll
+    void seed() {
+        factory = BenchmarkDatabase.create("fetch_plans", Map.of(
+                "hibernate.generate_statistics", "true",
+                "hibernate.cache.use_second_level_cache", "false",
+                "hibernate.cache.use_query_cache", "false"));
+        statistics = factory.unwrap(SessionFactory.class).getStatistics();
+        transactions = BenchmarkDatabase.transactions(factory);
+        transactions.setReadOnly(true);
+        EntityManager shared = BenchmarkDatabase.shared(factory);
+        certificateDao = new CertificateDaoImpl(shared, new TagBitmapIndex(factory));
+        orderDao = new OrderDaoImpl(shared);
+        userDao = new UserDaoImpl(shared);
+        BenchmarkDatabase.inTransaction(factory, entityManager -> {
+            Role role = Role.builder().permission(RoleType.USER).build();
+            entityManager.persist(role);
+            List<Tag> tags = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Tag tag = Tag.builder().name("tag" + i).build();
+                entityManager.persist(tag);
+                tags.add(tag);
+            }
+            List<Certificate> certificates = new ArrayList<>();
+            for (int i = 0; i < CERTIFICATES; i++) {
+                Certificate certificate = Certificate.builder()
+                        .name("certificate" + i)
+                        .description("description" + i)
+                        .price(BigDecimal.TEN)
+                        .duration(10)
+                        .build();
+                certificate.addTag(tags.get(i % tags.size()));
+                certificate.addTag(tags.get((i + 1) % tags.size()));
+                entityManager.persist(certificate);
+                certificates.add(certificate);
+                certificateIds.add(certificate.getId());
+            }
+            for (int u = 0; u < USERS; u++) {
+                User user = User.builder()
+                        .username("user" + u)
+                        .email("user" + u + "@gift.store")
+                        .password("password")
+                        .role(role)
+                        .build();
+                entityManager.persist(user);
+                userIds.add(user.getId());
+                for (int o = 0; o < ORDERS; o++) {
+                    Order order = Order.builder()
+                            .user(user)
+                            .cost(BigDecimal.TEN)
+                            .build();
+                    order.addCertificate(certificates.get((u + o) % CERTIFICATES));
+                    order.addCertificate(certificates.get((u + o + 1) % CERTIFICATES));
+                    user.getOrders().add(order);
+                    entityManager.persist(order);
+                    orderIds.add(order.getId());
+                }
+            }
+        });
+    }
+
+    @AfterAll
+    void close() {
+        factory.close();
+    }
+
+    /**
+     * Asserts the number of statements prepared by the read, which
+     * renders what it loaded as the mappers do, in one transaction.
+     *
+     * @param expected the expected number of statements
+     * @param read     the read
+     */
+    private void assertStatements(final long expected, final Runnable read) {
+        statistics.clear();
+        transactions.executeWithoutResult(status -> read.run());
+        assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+
+    private static void render(final Certificate certificate) {
+        certificate.getTags().forEach(Tag::getName);
+    }
+
+    private static void render(final Order order) {
+        assertFalse(order.getCertificates().isEmpty());
+        order.getCertificates().forEach(FetchPlanQueryCountTest::render);
+    }
+
+    private static void render(final User user) {
+        user.getRole().getPermission();
+        assertFalse(user.getOrders().isEmpty());
+        user.getOrders().forEach(FetchPlanQueryCountTest::render);
+    }
+
+    @Test
+    @DisplayName("Given certificate reads, when rendered with their tags, then each read runs a fixed number of statements")
+    void testCertificates() {
+        assertStatements(1, () -> render(certificateDao.findById(certificateIds.get(0))));
+        assertStatements(1, () -> certificateDao.findByUsername("certificate1")
+                .ifPresent(FetchPlanQueryCountTest::render));
+        assertStatements(2, () -> certificateDao.getAllBy(pageable)
+                .forEach(FetchPlanQueryCountTest::render));
+        assertStatements(2, () -> certificateDao.getAllBy(null, pageable).getContent()
+                .forEach(FetchPlanQueryCountTest::render));
+        assertStatements(2, () -> certificateDao.findListingBy(pageable));
+        assertStatements(1, () -> certificateDao.findByCriteria(
+                        Criteria.builder().name("certificate").build(), pageable)
+                .forEach(FetchPlanQueryCountTest::render));
+        assertStatements(1, () -> certificateDao.getCertificatesByUserId(userIds.get(0))
+                .forEach(FetchPlanQueryCountTest::render));
+    }
+
+    @Test
+    @DisplayName("Given order reads, when rendered with their lines, then each read runs a fixed number of statements")
+    void testOrders() {
+        assertStatements(1, () -> orderDao.getById(orderIds.get(0))
+                .ifPresent(FetchPlanQueryCountTest::render));
+        assertStatements(2, () -> orderDao.getAllBy(pageable)
+                .forEach(FetchPlanQueryCountTest::render));
+        assertStatements(2, () -> orderDao.getAllBy(null, pageable).getContent()
+                .forEach(FetchPlanQueryCountTest::render));
+        assertStatements(1, () -> orderDao.findOrdersByUserId(userIds.get(0), pageable)
+                .forEach(FetchPlanQueryCountTest::render));
+        assertStatements(1, () -> orderDao.getUserOrder(userIds.get(0), orderIds.get(0))
+                .ifPresent(FetchPlanQueryCountTest::render));
+    }
+
+    @Test
+    @DisplayName("Given user reads, when rendered with their role and orders, then each read runs a fixed number of statements")
+    void testUsers() {
+        assertStatements(1, () -> userDao.getById(userIds.get(0))
+                .ifPresent(FetchPlanQueryCountTest::render));
+        assertStatements(2, () -> userDao.getAllBy(pageable)
+                .forEach(FetchPlanQueryCountTest::render));
+        assertStatements(2, () -> userDao.getAllBy(null, pageable).getContent()
+                .forEach(FetchPlanQueryCountTest::render));
+        assertStatements(1, () -> userDao.findByUsername("user0")
+                .map(User::getRole)
+                .ifPresent(Role::getPermission));
+    }
+}
@@ -0,0 +1,98 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.Tag;
+import com.store.gift.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares inserts with a sequence round trip per row and no JDBC batching
+ * to pooled-lo ID allocation with ordered, batched inserts.
+ * <p>
+ * Run with {@code mvn -pl repository-impl test -Dbenchmark=true -Dtest=InsertBenchmarkTest}.
+ */
+@Slf4j
+@org.junit.jupiter.api.Tag("benchmark")
+@EnabledIfSystemProperty(named = BenchmarkDatabase.ENABLED, matches = "true")
+class InsertBenchmarkTest {
+    private static final int ROWS = 5_000;
+    private static final int TAGS = 20;
+
+    @ParameterizedTest
+    @DisplayName("Inserts per second of certificates with tags and orders with certificate links")
+    @CsvSource({
+            "per-row, false",
+            "batched, true"
+    })
+    void insert(String name, boolean batched) {
+        EntityManagerFactory factory = BenchmarkDatabase.create("insert_" + name.replace('-', '_'),
+                batched ? BenchmarkDatabase.BATCHED : BenchmarkDatabase.PER_ROW);
+        try {
+            CertificateDao certificateDao = new CertificateDaoImpl(BenchmarkDatabase.shared(factory),
+                    new TagBitmapIndex(factory));
+            List<Certificate> certificates = IntStream.range(0, ROWS)
+                    .mapToObj(i -> Certificate.builder()
+                            .name("certificate" + i)
+                            .description("description" + i)
+                            .price(BigDecimal.valueOf(i % 100 + 1))
+                            .duration(i % 30 + 1)
+                            .build()
+                            .addTag(Tag.builder().name("tag" + i % TAGS).build())
+                            .addTag(Tag.builder().name("tag" + (i + 7) % TAGS).build()))
+                    .toList();
+            long start = System.nanoTime();
+            BenchmarkDatabase.transactions(factory)
+                    .executeWithoutResult(status -> certificateDao.saveAll(certificates));
+            long certificateNanos = System.nanoTime() - start;
+
+            User user = User.builder().username("benchmark").email("benchmark@gift.store")
+                    .password("benchmark").build();
+            BenchmarkDatabase.inTransaction(factory, entityManager -> entityManager.persist(user));
+            start = System.nanoTime();
+            BenchmarkDatabase.inTransaction(factory, entityManager -> {
+                for (int i = 0; i < ROWS; i++) {
+                    Order order = Order.builder()
+                            .user(entityManager.getReference(User.class, user.getId()))
+                            .cost(BigDecimal.TEN)
+                            .certificates(new HashSet<>(List.of(
+                                    entityManager.getReference(Certificate.class,
+                                            certificates.get(i).getId()),
+                                    entityManager.getReference(Certificate.class,
+                                            certificates.get((i + 1) % ROWS).getId()))))
+                            .build();
+                    entityManager.persist(order);
+                    if ((i + 1) % Queries.BATCH_SIZE == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+            });
+            long orderNanos = System.nanoTime() - start;
+
+            log.info("{}: certificates with tags {}/s, orders with certificate links {}/s",
+                    name, perSecond(certificateNanos), perSecond(orderNanos));
+            BenchmarkDatabase.inTransaction(factory, entityManager -> assertEquals((long) ROWS,
+                    entityManager.createQuery(String.format(Queries.COUNT_ALL, "Order"), Long.class)
+                            .getSingleResult()));
+        } finally {
+            factory.close();
+        }
+    }
+
+    private static long perSecond(final long nanos) {
+        return ROWS * 1_000_000_000L / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,106 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
+import com.store.gift.entity.Tag;
+import com.store.gift.exception.InvalidCursorException;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetTest {
+
+    private final Pageable pageable = PageRequest.of(0, 2, Sort.by("name").ascending());
+
+    private List<Tag> tags(final long... ids) {
+        return LongStream.of(ids)
+                .mapToObj(id -> Tag.builder().id(id).name("tag" + id).build())
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Given no cursor, when the listing is resolved, then the first sort property of the pageable is used")
+    void testResolveFirstPage() {
+        Cursor cursor = Keyset.resolve(null, pageable);
+        assertEquals("name", cursor.getProperty());
+        assertTrue(cursor.isAscending());
+        assertNull(cursor.getId());
+        assertEquals("id", Keyset.resolve(null, PageRequest.of(0, 2)).getProperty());
+    }
+
+    @Test
+    @DisplayName("Given the first page with an extra row, when the page is built, then only the next cursor is set")
+    void testFirstPage() {
+        CursorPage<Tag> page = Keyset.page(tags(1, 2, 3), Keyset.resolve(null, pageable), pageable);
+        assertEquals(tags(1, 2), page.getContent());
+        assertEquals("tag2", page.getNext().getValue());
+        assertEquals(2L, page.getNext().getId());
+        assertFalse(page.getNext().isBackward());
+        assertNull(page.getPrevious());
+    }
+
+    @Test
+    @DisplayName("Given a forward cursor on the last page, when the page is built, then only the previous cursor is set")
+    void testLastPage() {
+        Cursor after = Cursor.builder().property("name").ascending(true).value("tag2").id(2L).build();
+        CursorPage<Tag> page = Keyset.page(tags(3), after, pageable);
+        assertEquals(tags(3), page.getContent());
+        assertNull(page.getNext());
+        assertEquals(3L, page.getPrevious().getId());
+        assertTrue(page.getPrevious().isBackward());
+    }
+
+    @Test
+    @DisplayName("Given a backward cursor, when the page is built, then rows are restored to listing order")
+    void testBackwardPage() {
+        Cursor before = Cursor.builder().property("name").ascending(true)
+                .value("tag5").id(5L).backward(true).build();
+        CursorPage<Tag> page = Keyset.page(tags(4, 3, 2), before, pageable);
+        assertEquals(tags(3, 4), page.getContent());
+        assertEquals(4L, page.getNext().getId());
+        assertEquals(3L, page.getPrevious().getId());
+    }
+
+    @Test
+    @DisplayName("Given no rows, when the page is built, then the page has no cursors")
+    void testEmptyPage() {
+        CursorPage<Tag> page = Keyset.page(List.of(), Keyset.resolve(null, pageable), pageable);
+        assertTrue(page.getContent().isEmpty());
+        assertNull(page.getNext());
+        assertNull(page.getPrevious());
+    }
+
+    @Test
+    @DisplayName("Given a cursor that does not fit the entity, when it is applied, then InvalidCursorException is thrown")
+    void testInvalidCursor() {
+        EntityManagerFactory factory = BenchmarkDatabase.create("keyset", Map.of());
+        try {
+            CriteriaBuilder builder = factory.getCriteriaBuilder();
+            Cursor unknown = Cursor.builder().property("colour").ascending(true).value("red").id(1L).build();
+            Cursor mistyped = Cursor.builder().property("price").ascending(true).value("cheap").id(1L).build();
+            for (Cursor cursor : List.of(unknown, mistyped)) {
+                CriteriaQuery<Certificate> query = builder.createQuery(Certificate.class);
+                assertThrows(InvalidCursorException.class,
+                        () -> Keyset.apply(builder, query, query.from(Certificate.class), cursor, List.of()));
+            }
+        } finally {
+            factory.close();
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package com.store.gift.dao;
 
 import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Invoice;
 import com.store.gift.entity.Order;
 import com.store.gift.entity.Tag;
+import com.store.gift.entity.TagSpend;
 import com.store.gift.entity.User;
+import com.store.gift.exception.InvalidOrderException;
 import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
 import jakarta.persistence.Subgraph;
 import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
@@ -34,14 +37,22 @@ import org.springframework.data.domain.Sort;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -60,16 +71,14 @@ class OrderDaoTest {
     @Mock
     TypedQuery<Tuple> tupleTypedQuery;
     @Mock
-    private EntityManagerFactory factory;
-    @Mock
-    private EntityTransaction transaction;
-    @Mock
     private EntityManager entityManager;
     @Mock
     private CriteriaQuery<Tuple> tupleCriteriaQuery;
     @Mock
     private TypedQuery<Order> typedQuery;
     @Mock
+    private TypedQuery<Long> countQuery;
+    @Mock
     private CriteriaBuilder builder;
     @Mock
     private CriteriaQuery<Order> query;
@@ -87,22 +96,29 @@ class OrderDaoTest {
     private Path<Object> userPath;
     @Mock
     private Path<Object> idPath;
+    @Mock
+    private Query spendQuery;
+    @Mock
+    private Query insertSpendQuery;
+    @Mock
+    private TypedQuery<Tag> tagQuery;
     private OrderDao orderDao;
 
     @BeforeEach
     void setUp() {
-        orderDao = new OrderDaoImpl(factory);
+        orderDao = new OrderDaoImpl(entityManager);
+        when(entityManager.createEntityGraph(Order.class)).thenReturn(graph);
+        when(entityManager.createEntityGraph(Certificate.class)).thenReturn(graph);
+        when(graph.addSubgraph(Queries.CERTIFICATES)).thenReturn(subgraph);
     }
 
     @Test
     void testGetById() {
-        when(factory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.createQuery(Queries.SELECT_ORDER_BY_ID, Order.class)).thenReturn(this.typedQuery);
         when(typedQuery.setParameter(Queries.ID, id)).thenReturn(this.typedQuery);
         when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(this.typedQuery);
         when(typedQuery.getResultStream()).thenReturn(Stream.of(order));
         when(typedQuery.setParameter(Queries.ID, id)).thenReturn(typedQuery);
-        when(entityManager.getEntityGraph("Order.certificates.tags")).thenReturn(graph);
         when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
         when(typedQuery.getResultStream()).thenReturn(Stream.of(order));
 
@@ -110,12 +126,12 @@ class OrderDaoTest {
 
         assertTrue(result.isPresent());
         assertEquals(order, result.get());
-        verify(factory).createEntityManager();
         verify(entityManager).createQuery(Queries.SELECT_ORDER_BY_ID, Order.class);
         verify(typedQuery).setParameter(Queries.ID, id);
         verify(typedQuery).setHint(Queries.FETCH_GRAPH, graph);
         verify(typedQuery).getResultStream();
-        verify(entityManager).getEntityGraph("Order.certificates.tags");
+        verify(entityManager).createEntityGraph(Order.class);
+        verify(subgraph).addAttributeNodes(Queries.TAGS);
         verify(typedQuery, times(1)).setParameter(Queries.ID, id);
         verify(typedQuery, times(1)).setHint(Queries.FETCH_GRAPH, graph);
         verify(typedQuery, times(1)).getResultStream();
@@ -123,12 +139,9 @@ class OrderDaoTest {
 
     @Test
     void testGetUserOrders() {
-        when(factory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.getCriteriaBuilder()).thenReturn(builder);
         when(builder.createQuery(Order.class)).thenReturn(query);
         when(query.from(Order.class)).thenReturn(root);
-        when(entityManager.createEntityGraph(Order.class)).thenReturn(graph);
-        when(graph.addSubgraph("certificate")).thenReturn(subgraph);
         when(query.where(builder.equal(root.get("user"), user))).thenReturn(query);
         when(entityManager.createQuery(query)).thenReturn(typedQuery);
         when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
@@ -137,12 +150,12 @@ class OrderDaoTest {
         when(typedQuery.getResultList()).thenReturn(expectedOrders);
         List<Order> result = orderDao.getUserOrders(user, pageable);
         assertEquals(expectedOrders, result);
-        verify(factory).createEntityManager();
         verify(entityManager).getCriteriaBuilder();
         verify(builder).createQuery(Order.class);
         verify(query).from(Order.class);
         verify(entityManager).createEntityGraph(Order.class);
-        verify(graph).addSubgraph("certificate");
+        verify(graph).addSubgraph(Queries.CERTIFICATES);
+        verify(subgraph).addAttributeNodes(Queries.TAGS);
         verify(query).where(builder.equal(root.get("user"), user));
         verify(entityManager).createQuery(query);
         verify(typedQuery).setHint(Queries.FETCH_GRAPH, graph);
@@ -154,26 +167,23 @@ class OrderDaoTest {
     @Test
     void testGetByName() {
         String username = "Pasha";
-        when(factory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.createQuery(Queries.SELECT_ORDER_BY_NAME, Order.class)).thenReturn(typedQuery);
         when(typedQuery.setParameter("username", username)).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(Collections.singletonList(order));
         Optional<Order> result = orderDao.findByUsername(username);
         assertTrue(result.isPresent());
         assertEquals(order, result.get());
+        verify(typedQuery).setHint(Queries.FETCH_GRAPH, graph);
     }
 
     @Test
     void testFindOrdersByUserId() {
-        when(entityManager.createEntityGraph(Order.class)).thenReturn(graph);
-        when(factory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.getCriteriaBuilder()).thenReturn(builder);
         when(builder.createQuery(Order.class)).thenReturn(query);
         when(query.from(Order.class)).thenReturn(root);
         when(root.get(Queries.USER)).thenReturn(userPath);
         when(query.select(root)).thenReturn(query);
         when(userPath.get(Queries.ID)).thenReturn(idPath);
-        when(graph.addSubgraph(Queries.CERTIFICATES)).thenReturn(subgraph);
         when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(expectedOrders);
         when(entityManager.createQuery(query)).thenReturn(typedQuery);
@@ -193,41 +203,137 @@ class OrderDaoTest {
 
     @Test
     void testUpdateOrder() {
-        when(factory.createEntityManager()).thenReturn(entityManager);
-        when(entityManager.getTransaction()).thenReturn(transaction);
-        when(entityManager.merge(order)).thenReturn(order);
-        Order updatedOrderDto = orderDao.update(order);
-        verify(factory).createEntityManager();
-        verify(transaction).begin();
-        verify(entityManager).merge(order);
-        verify(transaction).commit();
+        when(entityManager.find(Order.class, order.getId())).thenReturn(order);
+        when(entityManager.find(eq(Order.class), eq(order.getId()), anyMap())).thenReturn(order);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(spendQuery);
+        when(spendQuery.setParameter(anyString(), any())).thenReturn(spendQuery);
+        Order updatedOrderDto = orderDao.update(Order.builder().id(order.getId())
+                .version(order.getVersion())
+                .certificates(null)
+                .build());
+        verify(entityManager, never()).merge(any());
+        verify(entityManager).flush();
+        verify(entityManager).detach(order);
+        verify(entityManager).createNativeQuery(Queries.DELETE_TAG_SPEND_BY_USERS);
+        verify(entityManager).createNativeQuery(Queries.INSERT_TAG_SPEND_BY_USERS);
+        verify(spendQuery, times(2)).setParameter("ids", Set.of(user.getId()));
+        verify(entityManager).find(Order.class, order.getId(),
+                Collections.singletonMap(Queries.FETCH_GRAPH, graph));
         assertNotNull(updatedOrderDto);
     }
 
+    @Test
+    @DisplayName("Given an order at another version, when updated, then the update is rejected before the merge")
+    void testUpdateOrderAtAnotherVersion() {
+        Order stored = Order.builder().id(order.getId()).version(3L).build();
+        when(entityManager.find(Order.class, order.getId())).thenReturn(stored);
+        Order stale = Order.builder().id(order.getId()).version(2L).build();
+        assertThrows(OptimisticLockException.class, () -> orderDao.update(stale));
+        verify(entityManager, never()).merge(any());
+        verify(entityManager, never()).flush();
+    }
+
+    @Test
+    @DisplayName("Given an order with lines, when its certificates are changed, then the update is rejected before the flush")
+    void testUpdateOrderWithLines() {
+        Order stored = Order.builder().id(order.getId()).user(user).cost(BigDecimal.TEN)
+                .certificates(new HashSet<>(Set.of(certificate)))
+                .invoices(new LinkedHashSet<>(Set.of(Invoice.builder().certificate(certificate)
+                        .quantity(1L).unitPrice(BigDecimal.TEN).build())))
+                .build();
+        when(entityManager.find(Order.class, order.getId())).thenReturn(stored);
+        Order changed = Order.builder().id(order.getId()).certificates(new HashSet<>()).build();
+        assertThrows(InvalidOrderException.class, () -> orderDao.update(changed));
+        verify(entityManager, never()).flush();
+    }
+
     @Test
     @DisplayName("Test save order")
     void testSave() {
-        when(factory.createEntityManager()).thenReturn(entityManager);
-        when(entityManager.getTransaction()).thenReturn(transaction);
-        when(entityManager.find(User.class, user.getId())).thenReturn(user);
-        when(entityManager.find(Certificate.class, certificate.getId())).thenReturn(certificate);
+        when(entityManager.getReference(User.class, user.getId())).thenReturn(user);
+        when(entityManager.find(eq(Certificate.class), eq(certificate.getId()), anyMap()))
+                .thenReturn(certificate);
         Order savedOrder = orderDao.save(order);
         assertEquals(order, savedOrder);
-        verify(transaction).begin();
-        verify(transaction).commit();
+        verify(entityManager).find(Certificate.class, certificate.getId(),
+                Collections.singletonMap(Queries.FETCH_GRAPH, graph));
+        verify(entityManager).persist(order);
+        verify(entityManager).flush();
+    }
+
+    @Test
+    @DisplayName("Given a new tag of the user, when an order is saved, then a tag spending row is inserted")
+    void testSaveAddsTagSpend() {
+        Certificate tagged = taggedCertificate();
+        Order placed = Order.builder().user(user).cost(BigDecimal.TEN)
+                .certificates(Collections.singleton(tagged)).build();
+        when(entityManager.getReference(User.class, user.getId())).thenReturn(user);
+        when(entityManager.find(eq(Certificate.class), eq(tagged.getId()), anyMap())).thenReturn(tagged);
+        when(entityManager.createNativeQuery(Queries.ADD_TAG_SPEND)).thenReturn(spendQuery);
+        when(spendQuery.setParameter(anyString(), any())).thenReturn(spendQuery);
+        when(spendQuery.executeUpdate()).thenReturn(0);
+        when(entityManager.createNativeQuery(Queries.INSERT_TAG_SPEND_ROW)).thenReturn(insertSpendQuery);
+        when(insertSpendQuery.setParameter(anyString(), any())).thenReturn(insertSpendQuery);
+        when(insertSpendQuery.executeUpdate()).thenReturn(1);
+        orderDao.save(placed);
+        verify(insertSpendQuery).setParameter("lines", 1L);
+        verify(insertSpendQuery).setParameter("cost", BigDecimal.TEN);
+        verify(insertSpendQuery).setParameter("tagId", expectedTag.getId());
+        verify(insertSpendQuery).executeUpdate();
+        verify(spendQuery).executeUpdate();
+        verify(entityManager, never()).persist(any(TagSpend.class));
+    }
+
+    @Test
+    @DisplayName("Given an order, when it is deleted, then its lines are subtracted from the tag spending")
+    void testDeleteSubtractsTagSpend() {
+        Order placed = Order.builder().id(id).user(user).cost(BigDecimal.TEN)
+                .certificates(Collections.singleton(taggedCertificate())).build();
+        when(entityManager.find(eq(Order.class), eq(id), anyMap())).thenReturn(placed);
+        when(entityManager.createNativeQuery(Queries.ADD_TAG_SPEND)).thenReturn(spendQuery);
+        when(entityManager.createQuery(Queries.DELETE_EMPTY_TAG_SPEND)).thenReturn(spendQuery);
+        when(spendQuery.setParameter(anyString(), any())).thenReturn(spendQuery);
+        when(spendQuery.executeUpdate()).thenReturn(1);
+        orderDao.delete(id);
+        verify(spendQuery).setParameter("lines", -1L);
+        verify(spendQuery).setParameter("cost", BigDecimal.TEN.negate());
+        verify(spendQuery, times(2)).executeUpdate();
+        verify(entityManager, never()).createNativeQuery(Queries.INSERT_TAG_SPEND_ROW);
+        verify(entityManager).remove(placed);
+    }
+
+    @Test
+    @DisplayName("Given the tag spending of a user, when the most used tag is requested, then the top row is read")
+    void testGetMostUsedTag() {
+        when(entityManager.createQuery(Queries.SELECT_MOST_USED_TAG, Tag.class)).thenReturn(tagQuery);
+        when(tagQuery.setParameter(Queries.ID, id)).thenReturn(tagQuery);
+        when(tagQuery.setMaxResults(1)).thenReturn(tagQuery);
+        when(tagQuery.getResultStream()).thenReturn(Stream.of(expectedTag));
+        assertEquals(Optional.of(expectedTag), orderDao.getMostUsedTagBy(id));
+    }
+
+    private Certificate taggedCertificate() {
+        return Certificate.builder().id(id2).name("Spa").price(BigDecimal.TEN)
+                .tags(new HashSet<>(Set.of(expectedTag))).build();
     }
 
     @Test
     @DisplayName("Test save order and Rollback")
     void testSaveRollback() {
-        when(factory.createEntityManager()).thenReturn(entityManager);
-        when(entityManager.getTransaction()).thenReturn(transaction);
         when(entityManager.getReference(User.class, user.getId()))
                 .thenThrow(new IllegalArgumentException());
-        when(transaction.isActive()).thenReturn(true);
         assertThrows(PersistenceException.class, () -> orderDao.save(order));
-        verify(transaction).begin();
-        verify(transaction).rollback();
+        verify(entityManager, never()).persist(order);
+    }
+
+    @Test
+    @DisplayName("Test count the orders of a user")
+    void testCountUserOrders() {
+        when(entityManager.createQuery(Queries.COUNT_ORDERS_BY_USER_ID, Long.class)).thenReturn(countQuery);
+        when(countQuery.setParameter(Queries.ID, id)).thenReturn(countQuery);
+        when(countQuery.getSingleResult()).thenReturn(3L);
+        assertEquals(3L, orderDao.countUserOrders(id));
+        verify(countQuery).getSingleResult();
     }
 
     private final Long id = 1L;
@@ -0,0 +1,105 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Invoice;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.Tag;
+import com.store.gift.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Places orders of a thousand lines, inserting the invoice lines one
+ * statement at a time and then in JDBC batches with sequence IDs
+ * allocated in blocks.
+ * <p>
+ * Every order is placed in a transaction of its own through the DAO,
+ * as the order service does, with its certificate links and tag spending.
+ * <p>
+ * Run with {@code mvn -pl repository-impl test -Dbenchmark=true -Dtest=OrderLinesBenchmarkTest}.
+ */
+@Slf4j
+@org.junit.jupiter.api.Tag("benchmark")
+@EnabledIfSystemProperty(named = BenchmarkDatabase.ENABLED, matches = "true")
+class OrderLinesBenchmarkTest {
+    private static final int LINES = 1_000;
+    private static final int TAGS = 20;
+    private static final int WARMUPS = 3;
+    private static final int ORDERS = 20;
+
+    @ParameterizedTest
+    @DisplayName("Orders of a thousand lines placed per second")
+    @CsvSource({
+            "per-row, false",
+            "batched, true"
+    })
+    void place(String name, boolean batched) {
+        EntityManagerFactory factory = BenchmarkDatabase.create("order_lines_" + name.replace('-', '_'),
+                batched ? BenchmarkDatabase.BATCHED : BenchmarkDatabase.PER_ROW);
+        try {
+            TransactionTemplate transactions = BenchmarkDatabase.transactions(factory);
+            EntityManager entityManager = BenchmarkDatabase.shared(factory);
+            OrderDao orderDao = new OrderDaoImpl(entityManager);
+            User user = User.builder().username("benchmark").email("benchmark@gift.store")
+                    .password("benchmark").build();
+            List<Tag> tags = IntStream.range(0, TAGS)
+                    .mapToObj(i -> Tag.builder().name("tag" + i).build())
+                    .toList();
+            List<Certificate> certificates = IntStream.range(0, LINES)
+                    .mapToObj(i -> Certificate.builder()
+                            .name("certificate" + i)
+                            .description("description" + i)
+                            .price(new BigDecimal(i % 100 + ".99"))
+                            .duration(i % 30 + 1)
+                            .build()
+                            .addTag(tags.get(i % TAGS)))
+                    .toList();
+            BenchmarkDatabase.inTransaction(factory, manager -> {
+                manager.persist(user);
+                certificates.forEach(manager::persist);
+            });
+
+            long micros = BenchmarkDatabase.measure(WARMUPS, ORDERS, () -> transactions.execute(status -> {
+                Order order = Order.builder()
+                        .user(user)
+                        .certificates(new HashSet<>(certificates))
+                        .build();
+                List<Invoice> lines = new ArrayList<>(LINES);
+                BigDecimal cost = BigDecimal.ZERO;
+                for (int i = 0; i < LINES; i++) {
+                    Certificate certificate = certificates.get(i);
+                    lines.add(Invoice.builder().order(order).certificate(certificate)
+                            .quantity(i % 5 + 1L).unitPrice(certificate.getPrice()).build());
+                    cost = cost.add(certificate.getPrice().multiply(BigDecimal.valueOf(i % 5 + 1L)));
+                }
+                order.setInvoices(new LinkedHashSet<>(lines));
+                order.setCost(cost);
+                return orderDao.save(order);
+            }));
+
+            log.info("{}: orders of {} lines {}/s, {} lines/s, {} us per order",
+                    name, LINES, 1_000_000 / Math.max(micros, 1),
+                    LINES * 1_000_000L / Math.max(micros, 1), micros);
+            BenchmarkDatabase.inTransaction(factory, manager -> assertEquals((long) (WARMUPS + ORDERS) * LINES,
+                    manager.createQuery(String.format(Queries.COUNT_ALL, "Invoice"), Long.class)
+                            .getSingleResult()));
+        } finally {
+            factory.close();
+        }
+    }
+}
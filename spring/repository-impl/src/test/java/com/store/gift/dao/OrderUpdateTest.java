@@ -0,0 +1,78 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Invoice;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.Tag;
+import com.store.gift.entity.User;
+import com.store.gift.exception.InvalidOrderException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Updates orders placed with invoice lines on an in-memory database
+ * and checks that the lines survive the update.
+ */
+class OrderUpdateTest extends SeedData {
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        order = transactions.execute(status -> orderDao.save(Order.builder()
+                .user(User.builder().id(aliceId).build())
+                .cost(BigDecimal.valueOf(21))
+                .certificates(new HashSet<>(Set.of(massage, ski)))
+                .invoices(Set.of(
+                        Invoice.builder().certificate(massage).quantity(2L).unitPrice(BigDecimal.TEN).build(),
+                        Invoice.builder().certificate(ski).quantity(1L).unitPrice(BigDecimal.ONE).build()))
+                .build()));
+    }
+
+    private Order update(final Order changes) {
+        return transactions.execute(status -> orderDao.update(changes));
+    }
+
+    @Test
+    @DisplayName("Given an order with lines, when it is moved to another user, then its lines and spending move with it")
+    void testUpdateKeepsLines() {
+        Order updated = update(Order.builder().id(order.getId())
+                .user(User.builder().id(bobId).build())
+                .certificates(null)
+                .build());
+        assertEquals(2, updated.getInvoices().size());
+        assertEquals(2, updated.getCertificates().size());
+        assertEquals(0, BigDecimal.valueOf(21).compareTo(updated.getCost()));
+        assertEquals(2, count("Invoice"));
+        assertEquals(Optional.empty(), transactions.execute(status -> orderDao.getMostUsedTagBy(aliceId)));
+        assertEquals(Optional.of(spa.getId()), transactions.execute(status ->
+                orderDao.getMostUsedTagBy(bobId).map(Tag::getId)));
+        assertEquals(List.of(), transactions.execute(status -> orderDao.findUsersWithStaleTagSpend()));
+    }
+
+    @Test
+    @DisplayName("Given an order with lines, when its certificates or cost are changed, then the update is rejected")
+    void testUpdateRejectsRepricing() {
+        assertThrows(InvalidOrderException.class, () -> update(Order.builder().id(order.getId())
+                .certificates(new HashSet<>(Set.of(massage)))
+                .build()));
+        assertThrows(InvalidOrderException.class, () -> update(Order.builder().id(order.getId())
+                .certificates(null)
+                .cost(BigDecimal.ONE)
+                .build()));
+        assertEquals(2, count("Invoice"));
+        Order unchanged = update(Order.builder().id(order.getId())
+                .certificates(new HashSet<>(Set.of(massage, ski)))
+                .cost(new BigDecimal("21.00"))
+                .build());
+        assertEquals(2, unchanged.getInvoices().size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the legacy page loading, which selected an unordered set of IDs
+ * and fetched them with a single {@code IN} list, to the two-phase
+ * {@link PageLoader} on deep pages.
+ * <p>
+ * Run with {@code mvn -pl repository-impl test -Dbenchmark=true -Dtest=PageLoaderBenchmarkTest}.
+ */
+@Slf4j
+@org.junit.jupiter.api.Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = BenchmarkDatabase.ENABLED, matches = "true")
+class PageLoaderBenchmarkTest {
+    private static final int CERTIFICATES = 20_000;
+    private static final int TAGS = 50;
+
+    private EntityManagerFactory factory;
+
+    @BeforeAll
+    void seed() {
+        factory = BenchmarkDatabase.create("page_loader", Map.of());
+        BenchmarkDatabase.seedCatalog(factory, CERTIFICATES, TAGS, i -> "certificate" + i % 997, i -> i % TAGS);
+    }
+
+    @AfterAll
+    void close() {
+        factory.close();
+    }
+
+    @ParameterizedTest
+    @DisplayName("Legacy loading versus the two-phase loader on deep pages")
+    @CsvSource({
+            "0, 25",
+            "400, 25",
+            "790, 25",
+            "10, 1000"
+    })
+    void compare(int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("name").descending());
+        long legacy = BenchmarkDatabase.measure(5, 20, () -> legacy(pageable));
+        long loader = BenchmarkDatabase.measure(5, 20, () -> loader(pageable));
+        log.info("page={} size={} legacy={}us loader={}us", page, size, legacy, loader);
+
+        try (EntityManager entityManager = factory.createEntityManager()) {
+            List<Long> expected = PageLoader.selectIds(
+                    entityManager, Certificate.class, null, pageable);
+            assertEquals(expected, loader(pageable).stream()
+                    .map(Certificate::getId)
+                    .toList());
+        }
+    }
+
+    private List<Certificate> legacy(final Pageable pageable) {
+        try (EntityManager entityManager = factory.createEntityManager()) {
+            EntityGraph<Certificate> graph = entityManager.createEntityGraph(Certificate.class);
+            graph.addAttributeNodes(Queries.TAGS);
+            return entityManager.createQuery(Queries.SELECT_ALL_BY_IDS, Certificate.class)
+                    .setParameter("ids", new HashSet<>(entityManager
+                            .createQuery("SELECT c.id FROM Certificate c", Long.class)
+                            .setFirstResult((int) pageable.getOffset())
+                            .setMaxResults(pageable.getPageSize())
+                            .getResultList()))
+                    .setHint(Queries.FETCH_GRAPH, graph)
+                    .getResultList();
+        }
+    }
+
+    private List<Certificate> loader(final Pageable pageable) {
+        try (EntityManager entityManager = factory.createEntityManager()) {
+            EntityGraph<Certificate> graph = entityManager.createEntityGraph(Certificate.class);
+            graph.addAttributeNodes(Queries.TAGS);
+            return PageLoader.load(entityManager, Certificate.class,
+                    pageable, graph, Certificate::getId);
+        }
+    }
+}
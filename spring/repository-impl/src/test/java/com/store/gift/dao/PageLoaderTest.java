@@ -0,0 +1,88 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PageLoaderTest {
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private TypedQuery<Certificate> typedQuery;
+    @Mock
+    private EntityGraph<Certificate> graph;
+
+    private final String jpql = String.format(Queries.SELECT_BY_IDS, "Certificate");
+
+    @Test
+    @DisplayName("Given more IDs than a chunk, when fetched, then IN lists are chunked and the ID order is kept")
+    void testFetchChunksAndKeepsOrder() {
+        List<Long> ids = LongStream.rangeClosed(1, 1200)
+                .map(id -> 1201 - id)
+                .boxed()
+                .toList();
+        when(entityManager.createQuery(jpql, Certificate.class)).thenReturn(typedQuery);
+        List<List<Certificate>> chunks = new ArrayList<>();
+        when(typedQuery.setParameter(eq("ids"), anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> chunk = invocation.getArgument(1);
+            assertTrue(chunk.size() <= PageLoader.CHUNK_SIZE);
+            chunks.add(chunk.stream()
+                    .sorted()
+                    .map(id -> Certificate.builder().id(id).build())
+                    .toList());
+            return typedQuery;
+        });
+        when(typedQuery.getResultList()).thenAnswer(invocation -> chunks.get(chunks.size() - 1));
+
+        List<Certificate> result = PageLoader.fetch(
+                entityManager, Certificate.class, ids, graph, Certificate::getId);
+
+        assertEquals(ids, result.stream().map(Certificate::getId).toList());
+        verify(entityManager, times(3)).createQuery(jpql, Certificate.class);
+        verify(typedQuery, times(3)).setHint(Queries.FETCH_GRAPH, graph);
+    }
+
+    @Test
+    @DisplayName("Given IDs without entities, when fetched, then the missing IDs are skipped")
+    void testFetchSkipsMissing() {
+        Certificate certificate = Certificate.builder().id(2L).build();
+        when(entityManager.createQuery(jpql, Certificate.class)).thenReturn(typedQuery);
+        when(typedQuery.setParameter(eq("ids"), anyCollection())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(certificate));
+
+        List<Certificate> result = PageLoader.fetch(
+                entityManager, Certificate.class, List.of(3L, 2L, 1L), null, Certificate::getId);
+
+        assertEquals(List.of(certificate), result);
+        verify(typedQuery, never()).setHint(eq(Queries.FETCH_GRAPH), eq(graph));
+    }
+
+    @Test
+    @DisplayName("Given no IDs, when fetched, then no query is executed")
+    void testFetchEmpty() {
+        assertTrue(PageLoader.fetch(entityManager, Certificate.class,
+                List.of(), graph, Certificate::getId).isEmpty());
+        verify(entityManager, never()).createQuery(jpql, Certificate.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Tag;
+import jakarta.persistence.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs native statements next to a second-level cache on an in-memory
+ * database and checks that they evict only the regions of the tables
+ * they write.
+ */
+class QuerySpacesTest extends SeedData {
+    private CertificateDao certificateDao;
+    private UserDao userDao;
+    private Cache cache;
+
+    @Override
+    protected Map<String, String> properties() {
+        return Map.of(
+                "hibernate.cache.use_second_level_cache", "true",
+                "hibernate.cache.region.factory_class", "jcache",
+                "hibernate.javax.cache.missing_cache_strategy", "create");
+    }
+
+    @BeforeEach
+    void setUp() {
+        certificateDao = new CertificateDaoImpl(entityManager, new TagBitmapIndex(factory));
+        userDao = new UserDaoImpl(entityManager);
+        cache = factory.getCache();
+        place(aliceId, BigDecimal.TEN, massage);
+    }
+
+    private void load() {
+        BenchmarkDatabase.inTransaction(factory, reader -> {
+            reader.find(Certificate.class, massage.getId()).getTags().size();
+            reader.find(Tag.class, spa.getId());
+        });
+        assertCached();
+    }
+
+    private void assertCached() {
+        assertTrue(cache.contains(Certificate.class, massage.getId()));
+        assertTrue(cache.contains(Tag.class, spa.getId()));
+    }
+
+    @Test
+    @DisplayName("Given cached certificates and tags, when the tag spending is rebuilt, then they stay cached")
+    void testTagSpendRebuild() {
+        load();
+        transactions.executeWithoutResult(status -> orderDao.rebuildTagSpend(List.of(aliceId)));
+        assertCached();
+        transactions.executeWithoutResult(status -> orderDao.rebuildTagSpend());
+        assertCached();
+    }
+
+    @Test
+    @DisplayName("Given cached tags, when certificates are deleted, then the tags stay cached")
+    void testCertificateDelete() {
+        load();
+        transactions.executeWithoutResult(status -> certificateDao.deleteAll(List.of(ski.getId())));
+        assertTrue(cache.contains(Tag.class, spa.getId()));
+        transactions.executeWithoutResult(status -> certificateDao.delete(massage.getId()));
+        assertTrue(cache.contains(Tag.class, spa.getId()));
+    }
+
+    @Test
+    @DisplayName("Given cached certificates and tags, when users are deleted, then they stay cached")
+    void testUserDelete() {
+        load();
+        transactions.executeWithoutResult(status -> userDao.deleteAll(List.of(aliceId)));
+        assertCached();
+    }
+}
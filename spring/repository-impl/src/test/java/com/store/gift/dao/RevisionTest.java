@@ -0,0 +1,61 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Revision;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Reads the revisions of certificates and of the catalog on an in-memory database.
+ */
+class RevisionTest extends SeedData {
+    private CertificateDao certificateDao;
+    private TagDao tagDao;
+
+    @BeforeEach
+    void setUp() {
+        TagBitmapIndex tagIndex = new TagBitmapIndex(factory);
+        certificateDao = new CertificateDaoImpl(entityManager, tagIndex);
+        tagDao = new TagDaoImpl(entityManager, tagIndex);
+    }
+
+    private Revision catalog() {
+        return transactions.execute(status -> certificateDao.findCatalogRevision());
+    }
+
+    @Test
+    @DisplayName("Given an updated certificate, when its revision is read, then the tag follows its version")
+    void testCertificateRevision() {
+        Revision before = transactions.execute(status -> certificateDao.findRevision(massage.getId())).orElseThrow();
+        assertEquals("0", before.tag());
+        assertNotNull(before.lastModified());
+        Revision catalog = catalog();
+        transactions.execute(status -> certificateDao.update(Certificate.builder()
+                .id(massage.getId()).price(BigDecimal.ONE).tags(null).build()));
+        assertEquals("1", transactions.execute(status -> certificateDao.findRevision(massage.getId()))
+                .map(Revision::tag).orElseThrow());
+        assertNotEquals(catalog, catalog());
+        assertEquals(Optional.empty(), transactions.execute(status -> certificateDao.findRevision(999_999L)));
+    }
+
+    @Test
+    @DisplayName("Given deleted certificates and tags, when the catalog revision is read, then its tag changes")
+    void testCatalogRevision() {
+        Revision seeded = catalog();
+        assertEquals(seeded, catalog());
+        transactions.execute(status -> tagDao.deleteAll(List.of(spa.getId())));
+        Revision untagged = catalog();
+        assertNotEquals(seeded.tag(), untagged.tag());
+        transactions.execute(status -> certificateDao.softDeleteAll(List.of(massage.getId())));
+        assertNotEquals(untagged.tag(), catalog().tag());
+    }
+}
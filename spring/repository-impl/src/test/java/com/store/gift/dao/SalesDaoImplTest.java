@@ -0,0 +1,74 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.SalesLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Streams the order lines of a range of dates from an in-memory database.
+ */
+class SalesDaoImplTest extends SeedData {
+    private static final LocalDateTime NOON = LocalDateTime.of(2023, 5, 1, 12, 0);
+
+    private SalesDao salesDao;
+    private Long pairId;
+    private Long lateId;
+
+    @BeforeEach
+    void setUp() {
+        salesDao = new SalesDaoImpl(entityManager);
+        pairId = place(aliceId, BigDecimal.valueOf(11), massage, ski).getId();
+        lateId = place(aliceId, BigDecimal.ONE, ski).getId();
+        transactions.executeWithoutResult(status -> {
+            date(pairId, NOON);
+            date(lateId, NOON.plusDays(1));
+        });
+    }
+
+    private void date(final Long orderId, final LocalDateTime date) {
+        entityManager.createQuery("UPDATE Order o SET o.orderDate = :date WHERE o.id = :id")
+                .setParameter("date", Timestamp.valueOf(date))
+                .setParameter(Queries.ID, orderId)
+                .executeUpdate();
+    }
+
+    private List<SalesLine> lines(final LocalDateTime from, final LocalDateTime to) {
+        return transactions.execute(status -> {
+            try (Stream<SalesLine> lines = salesDao.streamLines(from, to)) {
+                return lines.toList();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Given orders on two days, when a range is streamed, then the lines of its orders follow each other")
+    void testStreamLines() {
+        List<SalesLine> day = lines(NOON.toLocalDate().atStartOfDay(), NOON.toLocalDate().plusDays(1).atStartOfDay());
+        assertEquals(2, day.size());
+        assertEquals(List.of(pairId, pairId), day.stream().map(SalesLine::orderId).toList());
+        assertEquals(List.of(massage.getId(), ski.getId()),
+                day.stream().map(SalesLine::certificateId).sorted().toList());
+        assertEquals(3, lines(NOON.minusDays(1), NOON.plusDays(2)).size());
+        assertEquals(List.of(lateId), lines(NOON.plusHours(1), NOON.plusDays(2)).stream()
+                .map(SalesLine::orderId).toList());
+    }
+
+    @Test
+    @DisplayName("Given certificates, when their names and tags are read, then they are keyed by certificate")
+    void testNames() {
+        assertEquals(Map.of(massage.getId(), "massage", ski.getId(), "ski"), transactions.execute(status ->
+                salesDao.findCertificateNames(List.of(massage.getId(), ski.getId()))));
+        assertEquals(Map.of(massage.getId(), List.of("spa"), ski.getId(), List.of("spa", "winter")),
+                transactions.execute(status -> salesDao.findTagNames(List.of(massage.getId(), ski.getId()))));
+    }
+}
@@ -0,0 +1,142 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Invoice;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.Tag;
+import com.store.gift.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The in-memory database of the DAO tests, seeded before each test with
+ * the users alice and bob, the tags spa and winter, and the certificates
+ * massage, tagged spa, and ski, tagged spa and winter.
+ */
+abstract class SeedData {
+    protected EntityManagerFactory factory;
+    protected TransactionTemplate transactions;
+    protected EntityManager entityManager;
+    protected OrderDao orderDao;
+    protected Long aliceId;
+    protected Long bobId;
+    protected Tag spa;
+    protected Tag winter;
+    protected Certificate massage;
+    protected Certificate ski;
+
+    /**
+     * Returns the additional Hibernate properties of the database.
+     *
+     * @return the properties, none by default
+     */
+    protected Map<String, String> properties() {
+        return Map.of();
+    }
+
+    @BeforeEach
+    void seedDatabase() {
+        factory = BenchmarkDatabase.create(getClass().getSimpleName() + "_" + UUID.randomUUID(), properties());
+        transactions = BenchmarkDatabase.transactions(factory);
+        entityManager = BenchmarkDatabase.shared(factory);
+        orderDao = new OrderDaoImpl(entityManager);
+        BenchmarkDatabase.inTransaction(factory, seed -> {
+            User alice = User.builder().username("alice").email("alice@gift.store").password("password").build();
+            User bob = User.builder().username("bob").email("bob@gift.store").password("password").build();
+            seed.persist(alice);
+            seed.persist(bob);
+            aliceId = alice.getId();
+            bobId = bob.getId();
+            spa = Tag.builder().name("spa").build();
+            winter = Tag.builder().name("winter").build();
+            seed.persist(spa);
+            seed.persist(winter);
+            massage = Certificate.builder().name("massage").description("massage")
+                    .price(BigDecimal.TEN).duration(10).build().addTag(spa);
+            ski = Certificate.builder().name("ski").description("ski")
+                    .price(BigDecimal.ONE).duration(10).build().addTag(spa).addTag(winter);
+            seed.persist(massage);
+            seed.persist(ski);
+        });
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        factory.close();
+    }
+
+    /**
+     * Places an order of the certificates without lines.
+     *
+     * @param userId       the ID of the user
+     * @param cost         the cost of the order
+     * @param certificates the ordered certificates
+     * @return the saved order
+     */
+    protected Order place(
+            final Long userId,
+            final BigDecimal cost,
+            final Certificate... certificates) {
+        return transactions.execute(status -> orderDao.save(Order.builder()
+                .user(User.builder().id(userId).build())
+                .cost(cost)
+                .certificates(new HashSet<>(Set.of(certificates)))
+                .build()));
+    }
+
+    /**
+     * Places an order with one line of each certificate at its price.
+     *
+     * @param userId       the ID of the user
+     * @param certificates the ordered certificates
+     * @return the saved order
+     */
+    protected Order placeWithLines(
+            final Long userId,
+            final Certificate... certificates) {
+        Order order = Order.builder()
+                .user(User.builder().id(userId).build())
+                .cost(BigDecimal.ZERO)
+                .certificates(new HashSet<>(Set.of(certificates)))
+                .build();
+        for (Certificate certificate : certificates) {
+            order.setCost(order.getCost().add(certificate.getPrice()));
+            order.getInvoices().add(Invoice.builder().order(order).certificate(certificate)
+                    .quantity(1L).unitPrice(certificate.getPrice()).build());
+        }
+        return transactions.execute(status -> orderDao.save(order));
+    }
+
+    /**
+     * Counts the visible entities of a type.
+     *
+     * @param entity the entity name
+     * @return the number of entities
+     */
+    protected long count(final String entity) {
+        return transactions.execute(status -> entityManager
+                .createQuery(String.format(Queries.COUNT_ALL, entity), Long.class)
+                .getSingleResult());
+    }
+
+    /**
+     * Counts the rows of a table, soft-deleted ones included.
+     *
+     * @param table the table name
+     * @return the number of rows
+     */
+    protected long rows(final String table) {
+        return transactions.execute(status -> ((Number) entityManager
+                .createNativeQuery("SELECT COUNT(*) FROM " + table)
+                .getSingleResult()).longValue());
+    }
+}
@@ -0,0 +1,74 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Flags certificates and users as deleted and purges them on an in-memory database.
+ */
+class SoftDeleteTest extends SeedData {
+    private static final long MISSING = 999_999L;
+
+    private CertificateDao certificateDao;
+    private UserDao userDao;
+
+    @BeforeEach
+    void setUp() {
+        certificateDao = new CertificateDaoImpl(entityManager, new TagBitmapIndex(factory));
+        userDao = new UserDaoImpl(entityManager);
+        placeWithLines(aliceId, massage, ski);
+        placeWithLines(bobId, ski);
+    }
+
+    @Test
+    @DisplayName("Given soft-deleted certificates, when read, then they are filtered out until purged with their lines")
+    void testSoftDeleteAndPurgeCertificates() {
+        Set<Long> flagged = transactions.execute(status -> certificateDao.softDeleteAll(
+                List.of(massage.getId(), MISSING)));
+        assertEquals(Set.of(massage.getId()), flagged);
+        assertEquals(1, count("Certificate"));
+        assertEquals(Optional.empty(), transactions.execute(status -> certificateDao.getById(massage.getId())));
+        assertEquals(List.of(ski.getId()), transactions.execute(status -> certificateDao
+                .getAllBy(PageRequest.of(0, 10)).stream().map(Certificate::getId).toList()));
+        assertEquals(Set.of(), transactions.execute(status -> certificateDao.softDeleteAll(
+                List.of(massage.getId()))));
+        assertEquals(3, rows("order_certificate"));
+        assertEquals(3, rows("invoices"));
+
+        assertEquals(Set.of(massage.getId()), transactions.execute(status -> certificateDao.purgeDeleted(10)));
+        assertEquals(1, rows("gift_certificates"));
+        assertEquals(2, rows("order_certificate"));
+        assertEquals(2, rows("invoices"));
+        assertTrue(transactions.execute(status -> orderDao.findUsersWithStaleTagSpend()).isEmpty());
+        assertEquals(Set.of(), transactions.execute(status -> certificateDao.purgeDeleted(10)));
+    }
+
+    @Test
+    @DisplayName("Given soft-deleted users, when read, then they are filtered out until purged in batches")
+    void testSoftDeleteAndPurgeUsers() {
+        assertEquals(Set.of(aliceId, bobId), transactions.execute(status -> userDao.softDeleteAll(
+                List.of(aliceId, bobId))));
+        assertEquals(0, count("User"));
+        assertEquals(Optional.empty(), transactions.execute(status -> userDao.getById(aliceId)));
+        assertEquals(Optional.empty(), transactions.execute(status -> userDao.findByUsername("alice")));
+        assertEquals(2, rows("orders"));
+
+        assertEquals(1, transactions.execute(status -> userDao.purgeDeleted(1)).size());
+        assertEquals(1, rows("users"));
+        assertEquals(1, transactions.execute(status -> userDao.purgeDeleted(1)).size());
+        assertEquals(0, rows("users"));
+        assertEquals(0, rows("orders"));
+        assertEquals(0, rows("invoices"));
+        assertEquals(0, rows("tag_spend"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Criteria;
+import com.store.gift.entity.Tag;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the legacy tag search, which joined {@code gift_certificate_tag}
+ * and filtered the tag names with {@code IN}, to the pages selected from
+ * the {@link TagBitmapIndex}.
+ * <p>
+ * Run with {@code mvn -pl repository-impl test -Dbenchmark=true -Dtest=TagBitmapBenchmarkTest}.
+ */
+@Slf4j
+@org.junit.jupiter.api.Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = BenchmarkDatabase.ENABLED, matches = "true")
+class TagBitmapBenchmarkTest {
+    private static final int CERTIFICATES = 20_000;
+    private static final int TAGS = 50;
+
+    private EntityManagerFactory factory;
+    private CertificateDao certificateDao;
+
+    @BeforeAll
+    void seed() {
+        factory = BenchmarkDatabase.create("tag_bitmap", Map.of());
+        certificateDao = new CertificateDaoImpl(BenchmarkDatabase.shared(factory),
+                new TagBitmapIndex(factory));
+        BenchmarkDatabase.seedCatalog(factory, CERTIFICATES, TAGS, i -> "certificate" + i, i -> 0);
+    }
+
+    @AfterAll
+    void close() {
+        factory.close();
+    }
+
+    @ParameterizedTest
+    @DisplayName("Legacy join query versus the tag bitmap index")
+    @CsvSource({
+            "tag0, 0, 25",
+            "tag0, 400, 25",
+            "tag3|tag4|tag5, 0, 25",
+            "tag3|tag4|tag5, 100, 25"
+    })
+    void compare(String names, int page, int size) {
+        List<String> tagNames = Arrays.asList(names.split("\\|"));
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Queries.ID));
+        Criteria criteria = Criteria.builder().tagNames(tagNames).build();
+        long legacy = BenchmarkDatabase.measure(5, 20, () -> legacy(tagNames, pageable));
+        long bitmap = BenchmarkDatabase.measure(5, 20, () -> certificateDao.findByCriteria(criteria, pageable));
+        log.info("tags={} page={} size={} legacy={}us bitmap={}us", names, page, size, legacy, bitmap);
+
+        try (EntityManager entityManager = factory.createEntityManager()) {
+            List<Long> expected = entityManager.createQuery("SELECT DISTINCT c.id FROM Certificate c "
+                            + "JOIN c.tags t WHERE t.name IN :names ORDER BY c.id", Long.class)
+                    .setParameter("names", tagNames)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(size)
+                    .getResultList();
+            assertEquals(expected, certificateDao.findByCriteria(criteria, pageable).stream()
+                    .map(Certificate::getId)
+                    .toList());
+        }
+    }
+
+    private List<Certificate> legacy(
+            final List<String> tagNames,
+            final Pageable pageable) {
+        try (EntityManager entityManager = factory.createEntityManager()) {
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Certificate> query = builder.createQuery(Certificate.class);
+            Root<Certificate> root = query.from(Certificate.class);
+            Join<Certificate, Tag> tagJoin = root.join(Queries.TAGS, JoinType.INNER);
+            query.select(root)
+                    .where(tagJoin.get(Queries.NAME).in(tagNames))
+                    .orderBy(builder.asc(root.get(Queries.ID)));
+            EntityGraph<Certificate> graph = entityManager.createEntityGraph(Certificate.class);
+            graph.addAttributeNodes(Queries.TAGS);
+            return entityManager.createQuery(query)
+                    .setHint(Queries.FETCH_GRAPH, graph)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .getResultList();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Criteria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TagBitmapIndexTest {
+    @Mock
+    private EntityManagerFactory factory;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private TypedQuery<Long> idQuery;
+    @Mock
+    private TypedQuery<Object[]> tagQuery;
+    private TagBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TagBitmapIndex(factory);
+        when(factory.createEntityManager()).thenReturn(entityManager);
+        when(entityManager.createQuery(Queries.SELECT_CERTIFICATE_IDS, Long.class)).thenReturn(idQuery);
+        when(entityManager.createQuery(Queries.SELECT_CERTIFICATE_TAG_NAMES, Object[].class)).thenReturn(tagQuery);
+        when(idQuery.getResultStream()).thenReturn(Stream.of(1L, 2L, 3L, 4L));
+        when(tagQuery.getResultStream()).thenReturn(Stream.of(
+                new Object[]{1L, "winter"}, new Object[]{1L, "spa"},
+                new Object[]{2L, "winter"}, new Object[]{2L, "ski"},
+                new Object[]{3L, "spa"}));
+    }
+
+    private List<Long> ids(final Criteria criteria) {
+        return index.page(criteria, PageRequest.of(0, 10));
+    }
+
+    @Test
+    @DisplayName("Given tag names, when any or all are required, then the union or the intersection matches")
+    void testAnyAndAll() {
+        assertEquals(List.of(1L, 2L, 3L), ids(Criteria.builder()
+                .tagNames(List.of("winter", "spa")).build()));
+        assertEquals(List.of(1L), ids(Criteria.builder()
+                .tagNames(List.of("winter", "spa")).allTags(true).build()));
+        assertEquals(List.of(), ids(Criteria.builder()
+                .tagNames(List.of("winter", "unknown")).allTags(true).build()));
+    }
+
+    @Test
+    @DisplayName("Given excluded tag names, when selected, then certificates with them do not match")
+    void testExcluded() {
+        assertEquals(List.of(2L), ids(Criteria.builder()
+                .tagNames(List.of("winter")).excludedTagNames(List.of("spa")).build()));
+        assertEquals(List.of(2L, 4L), ids(Criteria.builder()
+                .excludedTagNames(List.of("spa")).build()));
+    }
+
+    @Test
+    @DisplayName("Given a page, when selected, then the IDs are taken by rank in the sort direction")
+    void testPage() {
+        Criteria criteria = Criteria.builder().excludedTagNames(List.of("ski")).build();
+        assertEquals(List.of(4L), index.page(criteria, PageRequest.of(1, 2)));
+        assertEquals(List.of(4L, 3L), index.page(criteria,
+                PageRequest.of(0, 2, Sort.by("id").descending())));
+        assertEquals(List.of(), index.page(criteria, PageRequest.of(2, 2)));
+    }
+
+    @Test
+    @DisplayName("Given a loaded index, when certificates and tags change, then the bitmaps are updated")
+    void testUpdates() {
+        Criteria spa = Criteria.builder().tagNames(List.of("spa")).build();
+        assertEquals(List.of(1L, 3L), ids(spa));
+
+        index.add(5L, Set.of("spa"));
+        index.put(1L, Set.of("ski"));
+        index.remove(3L);
+        assertEquals(List.of(5L), ids(spa));
+        assertEquals(List.of(1L, 2L), ids(Criteria.builder().tagNames(List.of("ski")).build()));
+
+        index.removeTag("ski");
+        assertEquals(List.of(), ids(Criteria.builder().tagNames(List.of("ski")).build()));
+        assertEquals(List.of(1L, 2L, 4L, 5L), ids(Criteria.builder().build()));
+        verify(factory, times(1)).createEntityManager();
+    }
+}
@@ -3,14 +3,11 @@ package com.store.gift.dao;
 import com.store.gift.entity.Tag;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.PersistenceException;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -18,7 +15,6 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
@@ -35,7 +31,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -49,12 +46,8 @@ class TagDaoTest {
     @Mock
     Query query;
     @Mock
-    private EntityManagerFactory entityManagerFactory;
-    @Mock
     private EntityManager entityManager;
     @Mock
-    private EntityTransaction entityTransaction;
-    @Mock
     private CriteriaQuery<Tag> criteriaQuery;
     @Mock
     private Root<Tag> root;
@@ -63,6 +56,8 @@ class TagDaoTest {
     @Mock
     CriteriaBuilder builder;
     @Mock
+    private TagBitmapIndex tagIndex;
+    @Mock
     private TagDao tagDao;
     private final Pageable pageable = PageRequest.of(0, 25, Sort.by("name").ascending());
     private final Long id = 1L;
@@ -75,8 +70,7 @@ class TagDaoTest {
         criteriaQuery = mock(CriteriaQuery.class);
         typedQuery = mock(TypedQuery.class);
         builder = mock(CriteriaBuilder.class);
-        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
-        tagDao = new TagDaoImpl(entityManagerFactory);
+        tagDao = new TagDaoImpl(entityManager, tagIndex);
     }
 
     @Test
@@ -84,12 +78,49 @@ class TagDaoTest {
     void testSaveAll() {
         Set<Tag> tagsToSave = new HashSet<>();
         tagsToSave.add(tag);
-        when(entityManager.getTransaction()).thenReturn(entityTransaction);
+        when(entityManager.createQuery(Queries.SELECT_TAG_BY_NAMES, Tag.class)).thenReturn(typedQuery);
+        when(typedQuery.setParameter("names", Set.of(tagName))).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(), List.of(tag));
+        when(entityManager.createNativeQuery(Queries.INSERT_TAGS)).thenReturn(query);
+        when(query.setParameter(eq("names"), any())).thenReturn(query);
         Set<Tag> savedTags = tagDao.saveAll(tagsToSave);
-        verify(entityManager).persist(tag);
+        verify(query).setParameter("names", new String[]{tagName});
+        verify(query).executeUpdate();
+        verify(entityManager, never()).persist(any(Tag.class));
+        verify(entityManager, never()).getTransaction();
         assertEquals(tagsToSave, savedTags);
     }
 
+    @Test
+    @DisplayName("Given a tag created concurrently, when saveAll is called, then the insert skips it and the committed tag is selected")
+    void testSaveAllConcurrentInsert() {
+        Tag other = Tag.builder().id(2L).name("Summer").build();
+        when(entityManager.createQuery(Queries.SELECT_TAG_BY_NAMES, Tag.class)).thenReturn(typedQuery);
+        when(typedQuery.setParameter("names", Set.of(tagName, "Summer"))).thenReturn(typedQuery);
+        when(typedQuery.setParameter("names", Set.of(tagName))).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(other), List.of(tag));
+        when(entityManager.createNativeQuery(Queries.INSERT_TAGS)).thenReturn(query);
+        when(query.setParameter(eq("names"), any())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(0);
+
+        Set<Tag> savedTags = tagDao.saveAll(Set.of(Tag.builder().name(tagName).build(), other));
+
+        assertEquals(Set.of(tag, other), savedTags);
+        verify(query).setParameter("names", new String[]{tagName});
+    }
+
+    @Test
+    @DisplayName("Given a tag that cannot be inserted, when saveAll is called, then PersistenceException is thrown")
+    void testSaveAllMissingAfterInsert() {
+        when(entityManager.createQuery(Queries.SELECT_TAG_BY_NAMES, Tag.class)).thenReturn(typedQuery);
+        when(typedQuery.setParameter("names", Set.of(tagName))).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of());
+        when(entityManager.createNativeQuery(Queries.INSERT_TAGS)).thenReturn(query);
+        when(query.setParameter(eq("names"), any())).thenReturn(query);
+
+        assertThrows(PersistenceException.class, () -> tagDao.saveAll(Set.of(tag)));
+    }
+
     @Test
     @DisplayName("Test get All By Test")
     void getAllByTest() {
@@ -115,12 +146,11 @@ class TagDaoTest {
     @DisplayName("Test save method")
     void testSave(Long id, String name) {
         Tag tag = Tag.builder().id(id).name(name).build();
-        when(entityManager.getTransaction()).thenReturn(entityTransaction);
         Tag result = tagDao.save(tag);
         assertEquals(tag, result);
         verify(entityManager).persist(tag);
-        verify(entityTransaction).commit();
-        verify(entityManager).close();
+        verify(entityManager).flush();
+        verify(entityManager, never()).getTransaction();
     }
 
     @ParameterizedTest
@@ -134,26 +164,19 @@ class TagDaoTest {
     void testGetByName(Long id, String name) {
         Tag tag = Tag.builder().id(id).name(name).build();
         List<Tag> tags = singletonList(tag);
-        when(entityManager.getCriteriaBuilder()).thenReturn(builder);
-        when(entityManager.createQuery(criteriaQuery)).thenReturn(typedQuery);
-        when(criteriaQuery.from(Tag.class)).thenReturn(root);
-        when(builder.createQuery(Tag.class)).thenReturn(criteriaQuery);
-        when(builder.equal(root.get("name"), name)).thenReturn(mock(Predicate.class));
+        when(entityManager.createQuery(Queries.SELECT_TAGS_BY_NAME, Tag.class)).thenReturn(typedQuery);
+        when(typedQuery.setParameter(Queries.NAME, name)).thenReturn(typedQuery);
         when(typedQuery.setMaxResults(1)).thenReturn(typedQuery);
+        when(typedQuery.setHint(Queries.CACHEABLE, true)).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(tags);
         Optional<Tag> result = tagDao.findByUsername(name);
         assertTrue(result.isPresent());
         assertEquals(tag, result.get());
 
-        verify(entityManager).getCriteriaBuilder();
-        verify(entityManager).createQuery(criteriaQuery);
-        verify(builder).createQuery(Tag.class);
-        verify(builder).equal(root.get("name"), name);
-
-        ArgumentCaptor<Predicate> predicateCaptor = ArgumentCaptor.forClass(Predicate.class);
-        verify(criteriaQuery).where(predicateCaptor.capture());
-        verify(criteriaQuery).from(Tag.class);
+        verify(entityManager).createQuery(Queries.SELECT_TAGS_BY_NAME, Tag.class);
+        verify(typedQuery).setParameter(Queries.NAME, name);
         verify(typedQuery).setMaxResults(1);
+        verify(typedQuery).setHint(Queries.CACHEABLE, true);
         verify(typedQuery).getResultList();
     }
 
@@ -210,14 +233,9 @@ class TagDaoTest {
     @DisplayName("Test save method with existing tag")
     void testSaveWithExistingTag(Long id, String name) {
         Tag tag = Tag.builder().id(id).name(name).build();
-        EntityManager entityManager = mock(EntityManager.class);
-        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
-        when(entityManager.getTransaction()).thenReturn(entityTransaction);
         doThrow(EntityExistsException.class).when(entityManager).persist(tag);
         assertThrows(PersistenceException.class, () -> tagDao.save(tag));
-        verify(entityTransaction).begin();
-        verify(entityTransaction, never()).commit();
-        verify(entityManager).close();
+        verify(entityManager, never()).flush();
     }
 
 //    @DisplayName("Test getAll method")
@@ -272,65 +290,46 @@ class TagDaoTest {
     @DisplayName("Test delete method with valid ID")
     void testDeleteWithValidId(Long id) {
         Query nativeQuery = mock(Query.class);
-        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.find(Tag.class, id)).thenReturn(tag);
-        when(entityManager.getTransaction()).thenReturn(entityTransaction);
         when(entityManager.createNativeQuery(Queries.DELETE_CT_BY_TAG_ID)).thenReturn(nativeQuery);
+        when(entityManager.createNativeQuery(Queries.DELETE_TAG_SPEND_BY_TAG)).thenReturn(nativeQuery);
         when(entityManager.createQuery(Queries.DELETE_TAG)).thenReturn(query);
         when(nativeQuery.setParameter(Queries.ID, id)).thenReturn(nativeQuery);
         when(query.setParameter(Queries.ID, id)).thenReturn(query);
         tagDao.delete(id);
-        verify(nativeQuery, times(1)).executeUpdate();
+        verify(nativeQuery, times(2)).executeUpdate();
         verify(query, times(1)).executeUpdate();
-        verify(entityTransaction, times(1)).begin();
-        verify(entityTransaction, times(1)).commit();
+        verify(tagIndex).removeTag(tagName);
     }
 
     @Test
     @DisplayName("Test delete method with throws Persistence Exception")
     void testDeleteThrowsPersistenceException() {
-        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
-        when(entityManager.getTransaction()).thenReturn(entityTransaction);
         when(entityManager.find(Tag.class, id)).thenReturn(tag);
-        when(entityTransaction.isActive()).thenReturn(true);
-        doNothing().when(entityTransaction).begin();
-        doNothing().when(entityTransaction).rollback();
         assertThrows(PersistenceException.class, () -> tagDao.delete(id));
-        verify(entityTransaction).begin();
-        verify(entityTransaction).rollback();
-        verify(entityManager).getTransaction();
-        verify(entityManager).close();
+        verify(tagIndex, never()).removeTag(tagName);
     }
     @Test
     @DisplayName("Test delete method with invalid ID and throws PersistenceException")
     void testDeleteWithInvalidId() {
-        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
-        when(entityManager.getTransaction()).thenReturn(entityTransaction);
         when(entityManager.find(Tag.class, id)).thenReturn(null);
-        when(entityTransaction.isActive()).thenReturn(true);
         assertThrows(PersistenceException.class, () -> tagDao.delete(id));
-        verify(entityTransaction, times(1)).begin();
-        verify(entityTransaction, times(1)).rollback();
-        verify(entityManager, times(1)).close();
+        verify(entityManager, never()).createNativeQuery(Queries.DELETE_CT_BY_TAG_ID);
+        verify(tagIndex, never()).removeTag(tagName);
     }
 
     @Test
     @DisplayName("Test save method with throws Persistence Exception")
     void testSaveException() {
-        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
-        when(entityManager.getTransaction()).thenReturn(entityTransaction);
-        when(entityTransaction.isActive()).thenReturn(true);
         doThrow(new RuntimeException("Error during persist")).when(entityManager).persist(tag);
         PersistenceException exception = assertThrows(PersistenceException.class, () -> tagDao.save(tag));
         assertEquals("Error during persist", exception.getMessage());
-        verify(entityTransaction).rollback();
-        verify(entityManager).close();
+        verify(entityManager, never()).flush();
     }
 
     @Test
     @DisplayName("Test Get By Id method Success")
     void testGetById() {
-        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.find(Tag.class, id)).thenReturn(tag);
         Optional<Tag> result = tagDao.getById(id);
         assertTrue(result.isPresent());
@@ -340,7 +339,6 @@ class TagDaoTest {
     @Test
     @DisplayName("Test Get By Id method with throws Runtime Exception")
     void testGetByIdException() {
-        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.find(Tag.class, id)).thenThrow(new RuntimeException("Error during find"));
         Optional<Tag> result = tagDao.getById(id);
         assertFalse(result.isPresent());
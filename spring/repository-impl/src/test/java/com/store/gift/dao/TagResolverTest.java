@@ -0,0 +1,94 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Tag;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Saves certificates with the same new tags from more threads than the
+ * pool has connections, each in a transaction of its own, and checks
+ * that every save completes and every tag is created once.
+ */
+class TagResolverTest {
+    private static final int CONNECTIONS = 2;
+    private static final int SAVES = 8;
+    private static final List<String> SHARED = List.of("winter", "spa", "gift");
+
+    private HikariDataSource dataSource;
+    private EntityManagerFactory factory;
+    private TransactionTemplate transactions;
+    private CertificateDao certificateDao;
+
+    @BeforeEach
+    void open() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(BenchmarkDatabase.url("tag_resolver_" + UUID.randomUUID().toString().replace('-', '_')));
+        config.setUsername("sa");
+        config.setMaximumPoolSize(CONNECTIONS);
+        config.setConnectionTimeout(2_000);
+        dataSource = new HikariDataSource(config);
+        factory = BenchmarkDatabase.create(dataSource, Map.of());
+        transactions = BenchmarkDatabase.transactions(factory);
+        certificateDao = new CertificateDaoImpl(BenchmarkDatabase.shared(factory), new TagBitmapIndex(factory));
+    }
+
+    @AfterEach
+    void close() {
+        factory.close();
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("Given concurrent saves with the same new tags, when the pool is smaller than the saves, then every save completes and every tag is created once")
+    void testConcurrentSavesOnSmallPool() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(SAVES);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Certificate>> saves = new ArrayList<>();
+            for (int i = 0; i < SAVES; i++) {
+                Certificate certificate = Certificate.builder().name("certificate" + i)
+                        .description("description" + i).price(BigDecimal.TEN).duration(10).build();
+                SHARED.forEach(name -> certificate.addTag(Tag.builder().name(name).build()));
+                certificate.addTag(Tag.builder().name("own" + i).build());
+                saves.add(executor.submit(() -> {
+                    start.await();
+                    return transactions.execute(status -> certificateDao.save(certificate));
+                }));
+            }
+            start.countDown();
+            for (Future<Certificate> save : saves) {
+                assertEquals(SHARED.size() + 1, save.get(30, TimeUnit.SECONDS).getTags().size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        BenchmarkDatabase.inTransaction(factory, entityManager -> {
+            assertEquals((long) SHARED.size() + SAVES, entityManager
+                    .createQuery(String.format(Queries.COUNT_ALL, "Tag"), Long.class)
+                    .getSingleResult());
+            assertEquals((long) SAVES * (SHARED.size() + 1), ((Number) entityManager
+                    .createNativeQuery("SELECT COUNT(*) FROM gift_certificate_tag")
+                    .getSingleResult()).longValue());
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Invoice;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.Tag;
+import com.store.gift.entity.TagSpend;
+import com.store.gift.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keeps the tag spending of users in step with their orders
+ * on an in-memory database.
+ */
+class TagSpendLedgerTest extends SeedData {
+
+    private Optional<Tag> mostUsed() {
+        return transactions.execute(status -> orderDao.getMostUsedTagBy(aliceId));
+    }
+
+    private List<Long> stale() {
+        return transactions.execute(status -> orderDao.findUsersWithStaleTagSpend());
+    }
+
+    @Test
+    @DisplayName("Given placed and deleted orders, when the most used tag is read, then it follows the spending")
+    void testSaveAndDelete() {
+        place(aliceId, BigDecimal.valueOf(5), ski);
+        place(aliceId, BigDecimal.valueOf(3), ski);
+        assertEquals(Optional.of(spa.getId()), mostUsed().map(Tag::getId));
+        Order massageOrder = place(aliceId, BigDecimal.valueOf(100), massage);
+        assertEquals(List.of(), stale());
+        transactions.executeWithoutResult(status -> orderDao.delete(massageOrder.getId()));
+        assertEquals(List.of(), stale());
+        assertEquals(2, count("TagSpend"));
+    }
+
+    @Test
+    @DisplayName("Given orders written around the DAO, when checked and backfilled, then the spending is consistent")
+    void testCheckAndBackfill() {
+        place(aliceId, BigDecimal.valueOf(5), ski);
+        transactions.executeWithoutResult(status -> entityManager
+                .createNativeQuery("UPDATE tag_spend SET cost = cost + 1 WHERE tag_id = :id")
+                .setParameter(Queries.ID, winter.getId())
+                .executeUpdate());
+        assertEquals(List.of(aliceId), stale());
+        transactions.executeWithoutResult(status -> orderDao.rebuildTagSpend(List.of(aliceId)));
+        assertTrue(stale().isEmpty());
+        int written = transactions.execute(status -> orderDao.rebuildTagSpend());
+        assertEquals(2, written);
+        assertTrue(stale().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given an order with lines, when it is placed and deleted, then the spending follows the line amounts")
+    void testLines() {
+        Order order = transactions.execute(status -> orderDao.save(Order.builder()
+                .user(User.builder().id(aliceId).build())
+                .cost(BigDecimal.valueOf(21))
+                .certificates(new HashSet<>(Set.of(massage, ski)))
+                .invoices(Set.of(
+                        Invoice.builder().certificate(massage).quantity(2L).unitPrice(BigDecimal.TEN).build(),
+                        Invoice.builder().certificate(ski).quantity(1L).unitPrice(BigDecimal.ONE).build()))
+                .build()));
+        assertEquals(Map.of(spa.getId(), BigDecimal.valueOf(21), winter.getId(), BigDecimal.ONE), spending());
+        assertEquals(List.of(), stale());
+        transactions.executeWithoutResult(status -> orderDao.rebuildTagSpend());
+        assertEquals(Map.of(spa.getId(), BigDecimal.valueOf(21), winter.getId(), BigDecimal.ONE), spending());
+        transactions.executeWithoutResult(status -> orderDao.delete(order.getId()));
+        assertEquals(Map.of(), spending());
+        assertEquals(List.of(), stale());
+    }
+
+    @Test
+    @DisplayName("Given concurrent first orders of a user, when they are placed, then every order is spent once")
+    void testConcurrentFirstSpend() throws Exception {
+        int orders = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(orders);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Order>> placed = new ArrayList<>();
+            for (int i = 0; i < orders; i++) {
+                placed.add(executor.submit(() -> {
+                    start.await();
+                    return place(aliceId, BigDecimal.ONE, ski);
+                }));
+            }
+            start.countDown();
+            for (Future<Order> order : placed) {
+                order.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(Map.of(spa.getId(), BigDecimal.valueOf(orders), winter.getId(), BigDecimal.valueOf(orders)),
+                spending());
+        assertEquals(List.of(), stale());
+    }
+
+    private Map<Long, BigDecimal> spending() {
+        return transactions.execute(status -> entityManager
+                .createQuery("SELECT s FROM TagSpend s", TagSpend.class)
+                .getResultStream()
+                .collect(Collectors.toMap(spend -> spend.getTag().getId(),
+                        spend -> spend.getCost().stripTrailingZeros())));
+    }
+}
@@ -0,0 +1,181 @@
+package com.store.gift.dao;
+
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.Tag;
+import com.store.gift.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares placing an order the legacy way, where the user lookup, the
+ * certificate lookup and the insert each opened an entity manager and a
+ * transaction of their own, to the DAOs sharing the one transaction and
+ * connection of the service method.
+ * <p>
+ * Run with {@code mvn -pl repository-impl test -Dbenchmark=true -Dtest=TransactionScopeBenchmarkTest}.
+ */
+@Slf4j
+@org.junit.jupiter.api.Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = BenchmarkDatabase.ENABLED, matches = "true")
+class TransactionScopeBenchmarkTest {
+    private static final int CERTIFICATES = 200;
+    private static final int ORDERS = 2_000;
+    private static final String USERNAME = "benchmark";
+
+    private final List<Long> certificateIds = new ArrayList<>();
+    private EntityManagerFactory factory;
+    private Statistics statistics;
+    private TransactionTemplate transactions;
+    private UserDao userDao;
+    private CertificateDao certificateDao;
+    private OrderDao orderDao;
+
+    @BeforeAll
+    void seed() {
+        factory = BenchmarkDatabase.create("transaction_scope", Map.of(
+                "hibernate.generate_statistics", "true"));
+        statistics = factory.unwrap(SessionFactory.class).getStatistics();
+        transactions = BenchmarkDatabase.transactions(factory);
+        EntityManager shared = BenchmarkDatabase.shared(factory);
+        userDao = new UserDaoImpl(shared);
+        certificateDao = new CertificateDaoImpl(shared, new TagBitmapIndex(factory));
+        orderDao = new OrderDaoImpl(shared);
+        BenchmarkDatabase.inTransaction(factory, entityManager -> {
+            entityManager.persist(User.builder().username(USERNAME)
+                    .email("benchmark@gift.store").password("benchmark").build());
+            Tag tag = Tag.builder().name("tag").build();
+            entityManager.persist(tag);
+            for (int i = 0; i < CERTIFICATES; i++) {
+                Certificate certificate = Certificate.builder()
+                        .name("certificate" + i)
+                        .description("description" + i)
+                        .price(BigDecimal.valueOf(i % 100 + 1))
+                        .duration(i % 30 + 1)
+                        .build()
+                        .addTag(tag);
+                entityManager.persist(certificate);
+                certificateIds.add(certificate.getId());
+            }
+        });
+    }
+
+    @AfterAll
+    void close() {
+        factory.close();
+    }
+
+    @Test
+    @DisplayName("Orders per second with a transaction per DAO call versus one transaction per service call")
+    void compare() {
+        long legacy = run("legacy", this::legacy);
+        long shared = run("shared", this::shared);
+        log.info("orders legacy={}/s shared={}/s", legacy, shared);
+        BenchmarkDatabase.inTransaction(factory, entityManager -> assertEquals(2L * ORDERS,
+                entityManager.createQuery(String.format(Queries.COUNT_ALL, "Order"), Long.class)
+                        .getSingleResult()));
+    }
+
+    /**
+     * Places the orders and logs the connections and transactions of one order.
+     *
+     * @param name  the name of the variant
+     * @param place the variant placing the order with the given certificate IDs
+     * @return the orders placed per second
+     */
+    private long run(
+            final String name,
+            final Consumer<Set<Long>> place) {
+        statistics.clear();
+        place.accept(ids(0));
+        log.info("{}: {} connections and {} transactions per order", name,
+                statistics.getConnectCount(), statistics.getTransactionCount());
+        long start = System.nanoTime();
+        for (int i = 1; i < ORDERS; i++) {
+            place.accept(ids(i));
+        }
+        return (ORDERS - 1) * 1_000_000_000L / Math.max(System.nanoTime() - start, 1);
+    }
+
+    private Set<Long> ids(final int order) {
+        return Set.of(certificateIds.get(order % CERTIFICATES),
+                certificateIds.get((order + 1) % CERTIFICATES));
+    }
+
+    /**
+     * Places an order as the DAOs did before they shared the transaction.
+     *
+     * @param ids the IDs of the certificates
+     */
+    private void legacy(final Set<Long> ids) {
+        User user;
+        try (EntityManager entityManager = factory.createEntityManager()) {
+            user = entityManager.createQuery(Queries.SELECT_USER_BY_NAME, User.class)
+                    .setParameter(Queries.NAME, USERNAME)
+                    .setHint(Queries.FETCH_GRAPH, FetchPlan.AUTH_PRINCIPAL.graph(entityManager))
+                    .getSingleResult();
+        }
+        List<Certificate> certificates;
+        try (EntityManager entityManager = factory.createEntityManager()) {
+            certificates = entityManager.createQuery(Queries.SELECT_ALL_BY_IDS, Certificate.class)
+                    .setParameter("ids", ids)
+                    .setHint(Queries.FETCH_GRAPH, FetchPlan.CERTIFICATE_DETAIL.graph(entityManager))
+                    .getResultList();
+        }
+        Order order = order(user, certificates);
+        BenchmarkDatabase.inTransaction(factory, entityManager -> {
+            order.setUser(entityManager.getReference(User.class, order.getUser().getId()));
+            order.setCertificates(order.getCertificates().stream()
+                    .map(certificate -> entityManager.find(Certificate.class, certificate.getId(),
+                            FetchPlan.CERTIFICATE_DETAIL.hints(entityManager)))
+                    .collect(Collectors.toSet()));
+            entityManager.persist(order);
+        });
+    }
+
+    /**
+     * Places an order as {@code OrderServiceImpl.save} does now.
+     *
+     * @param ids the IDs of the certificates
+     */
+    private void shared(final Set<Long> ids) {
+        transactions.executeWithoutResult(status -> {
+            User user = userDao.findByUsername(USERNAME).orElseThrow();
+            orderDao.save(order(user, certificateDao.findAllByIds(ids)));
+        });
+    }
+
+    private static Order order(
+            final User user,
+            final List<Certificate> certificates) {
+        return Order.builder()
+                .user(user)
+                .certificates(new HashSet<>(certificates))
+                .cost(certificates.stream()
+                        .map(Certificate::getPrice)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .build();
+    }
+}
@@ -7,8 +7,6 @@ import com.store.gift.entity.RoleType;
 import com.store.gift.entity.User;
 import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.PersistenceException;
 import jakarta.persistence.Query;
 import jakarta.persistence.Subgraph;
@@ -40,10 +38,9 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -53,10 +50,6 @@ class UserDaoImplTest {
     private CriteriaQuery<Role> roleCriteriaQuery;
     private UserDaoImpl userDao;
     @Mock
-    private EntityManagerFactory factory;
-    @Mock
-    private EntityTransaction transaction;
-    @Mock
     private EntityManager entityManager;
     @Mock
     private TypedQuery<User> typedQuery;
@@ -65,12 +58,14 @@ class UserDaoImplTest {
     @Mock
     private CriteriaQuery<User> criteriaQuery;
     @Mock
+    private CriteriaQuery<Long> idCriteriaQuery;
+    @Mock
+    private TypedQuery<Long> idTypedQuery;
+    @Mock
     Subgraph<Order> orderGraph;
     @Mock
     Subgraph<Certificate> certificateGraph;
     @Mock
-    Subgraph<Role> roleGraph;
-    @Mock
     private Root<User> root;
     @Mock
     private EntityGraph<User> graph;
@@ -92,14 +87,14 @@ class UserDaoImplTest {
 
     @BeforeEach
     void setUp() {
-        userDao = new UserDaoImpl(factory);
-        when(factory.createEntityManager()).thenReturn(entityManager);
+        userDao = new UserDaoImpl(entityManager);
     }
 
     @Test
     @DisplayName("Given an ID, when delete method is called, then the user with the given ID is deleted from the database")
     void testDeleteUserById() {
-        when(entityManager.getTransaction()).thenReturn(transaction);
+        when(entityManager.createNativeQuery(Queries.DELETE_TAG_SPEND_BY_USER)).thenReturn(deleteOrderQuery);
+        when(entityManager.createNativeQuery(Queries.DELETE_INVOICES_BY_USER)).thenReturn(deleteOrderQuery);
         when(entityManager.createNativeQuery(Queries.DELETE_ORDER)).thenReturn(deleteOrderQuery);
         when(deleteOrderQuery.setParameter("id", id)).thenReturn(deleteOrderQuery);
         when(entityManager.createNativeQuery(Queries.DELETE_TOKEN)).thenReturn(deleteTokenQuery);
@@ -107,20 +102,18 @@ class UserDaoImplTest {
         when(entityManager.createNativeQuery(Queries.DELETE_USER)).thenReturn(deleteUserQuery);
         when(deleteUserQuery.setParameter("id", id)).thenReturn(deleteUserQuery);
         userDao.delete(id);
-        verify(transaction).begin();
-        verify(deleteOrderQuery).executeUpdate();
+        verify(deleteOrderQuery, times(3)).executeUpdate();
         verify(deleteTokenQuery).executeUpdate();
         verify(deleteUserQuery).executeUpdate();
-        verify(transaction).commit();
-        verify(entityManager).close();
+        verify(entityManager).flush();
     }
 
     @Test
     @DisplayName("Given an ID, when delete method is called and an error occurs, then a PersistenceException is thrown")
     void testDeleteWithPersistenceException() {
-        when(entityManager.getTransaction()).thenReturn(transaction);
-        doThrow(new RuntimeException()).when(transaction).begin();
+        when(entityManager.createNativeQuery(Queries.DELETE_TAG_SPEND_BY_USER)).thenThrow(new RuntimeException());
         assertThrows(PersistenceException.class, () -> userDao.delete(1L));
+        verify(entityManager, never()).flush();
     }
 
     @ParameterizedTest
@@ -134,34 +127,28 @@ class UserDaoImplTest {
     void testGetAllUsers(Long id1, String username, String password, String email1, String email2) {
         List<User> users = Arrays.asList(getUser(id1, username, password, email1),
                 getUser(id1 + 10, username, password, email2));
-        when(factory.createEntityManager()).thenReturn(entityManager);
-        when(criteriaBuilder.createQuery(User.class)).thenReturn(criteriaQuery);
-        when(criteriaQuery.from(User.class)).thenReturn(root);
-        when(entityManager.getCriteriaBuilder()).thenReturn(criteriaBuilder);
+        List<Long> ids = Arrays.asList(id1 + 10, id1);
         when(entityManager.createEntityGraph(User.class)).thenReturn(graph);
-        when(entityManager.createQuery(criteriaQuery)).thenReturn(typedQuery);
-        when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
-        when(typedQuery.setFirstResult(0)).thenReturn(typedQuery);
-        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
-        when(typedQuery.getResultList()).thenReturn(users);
-        doNothing().when(orderGraph).addAttributeNodes("certificates");
-        doNothing().when(certificateGraph).addAttributeNodes("tags");
-        doNothing().when(roleGraph).addAttributeNodes("authorities");
         doReturn(orderGraph).when(graph).addSubgraph("orders");
         doReturn(certificateGraph).when(orderGraph).addSubgraph("certificates");
-        doReturn(roleGraph).when(graph).addSubgraph("role");
+        when(entityManager.getCriteriaBuilder()).thenReturn(criteriaBuilder);
+        when(criteriaBuilder.createQuery(Long.class)).thenReturn(idCriteriaQuery);
+        when(idCriteriaQuery.from(User.class)).thenReturn(root);
+        when(entityManager.createQuery(idCriteriaQuery)).thenReturn(idTypedQuery);
+        when(idTypedQuery.setFirstResult(0)).thenReturn(idTypedQuery);
+        when(idTypedQuery.setMaxResults(anyInt())).thenReturn(idTypedQuery);
+        when(idTypedQuery.getResultList()).thenReturn(ids);
+        when(entityManager.createQuery(String.format(Queries.SELECT_BY_IDS, "User"), User.class))
+                .thenReturn(typedQuery);
+        when(typedQuery.setParameter("ids", ids)).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(users);
         List<User> result = userDao.getAllBy(pageable);
-        assertEquals(users, result);
-        verify(factory).createEntityManager();
-        verify(entityManager).getCriteriaBuilder();
-        verify(criteriaBuilder).createQuery(User.class);
-        verify(criteriaQuery).from(User.class);
-        verify(entityManager).createEntityGraph(User.class);
-        verify(criteriaQuery).select(root);
-        verify(entityManager).createQuery(criteriaQuery);
+        assertEquals(Arrays.asList(users.get(1), users.get(0)), result);
+        verify(criteriaBuilder).createQuery(Long.class);
+        verify(idCriteriaQuery).from(User.class);
+        verify(graph).addAttributeNodes("role");
+        verify(certificateGraph).addAttributeNodes("tags");
         verify(typedQuery).setHint(Queries.FETCH_GRAPH, graph);
-        verify(typedQuery).getResultList();
-        verify(entityManager).close();
     }
 
     @ParameterizedTest
@@ -174,96 +161,86 @@ class UserDaoImplTest {
             "5, Ava, Leo, Ava-Leo@gmail.com"})
     void testGetByName(Long userId, String firstName, String password, String email) {
         User user = getUser(userId, firstName, password, email);
-        when(factory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.createQuery(Queries.SELECT_USER_BY_NAME, User.class)).thenReturn(typedQuery);
         when(typedQuery.setParameter("name", user.getUsername())).thenReturn(typedQuery);
+        when(entityManager.createEntityGraph(User.class)).thenReturn(graph);
+        when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
+        when(typedQuery.setHint(Queries.CACHEABLE, true)).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(Collections.singletonList(user));
         Optional<User> result = userDao.findByUsername(user.getUsername());
         assertTrue(result.isPresent());
         assertEquals(user, result.get());
         verify(entityManager).createQuery(Queries.SELECT_USER_BY_NAME, User.class);
         verify(typedQuery).setParameter("name", user.getUsername());
+        verify(graph).addAttributeNodes("role");
+        verify(typedQuery).setHint(Queries.CACHEABLE, true);
         verify(typedQuery).getResultList();
-        verify(entityManager).close();
     }
 
     @Test
     @DisplayName("Given a name, when getUserByName method is called and no user is found, then an empty Optional is returned")
     void testGetByNameNoUserFound() {
         String name = "User";
-        when(factory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.createQuery(Queries.SELECT_USER_BY_NAME, User.class)).thenReturn(typedQuery);
         when(typedQuery.setParameter("name", name)).thenReturn(typedQuery);
+        when(entityManager.createEntityGraph(User.class)).thenReturn(graph);
+        when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
+        when(typedQuery.setHint(Queries.CACHEABLE, true)).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(Collections.emptyList());
         Optional<User> result = userDao.findByUsername(name);
         assertFalse(result.isPresent());
         verify(entityManager).createQuery(Queries.SELECT_USER_BY_NAME, User.class);
         verify(typedQuery).setParameter("name", name);
+        verify(typedQuery).setHint(Queries.CACHEABLE, true);
         verify(typedQuery).getResultList();
-        verify(entityManager).close();
     }
 
     @Test
     @DisplayName("Given a user entity, when save method is called, then the user is persisted to the database")
     void testSaveUser() {
-        when(entityManager.getTransaction()).thenReturn(transaction);
         when(entityManager.createQuery(Queries.SELECT_USER_BY_NAME, User.class)).thenReturn(typedQuery);
         when(typedQuery.setParameter("name", user.getUsername())).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(Collections.emptyList());
         User savedUser = userDao.save(user);
         assertEquals(user, savedUser);
         verify(entityManager).createQuery(Queries.SELECT_USER_BY_NAME, User.class);
-        verify(entityManager).getTransaction();
-        verify(transaction).begin();
         verify(typedQuery).setParameter("name", user.getUsername());
         verify(typedQuery).getResultList();
         verify(entityManager).persist(user);
-        verify(transaction).commit();
+        verify(entityManager).flush();
     }
 
     @Test
     @DisplayName("Given a user entity, when save method is called and an error occurs, then a PersistenceException is thrown")
     void testSaveWithUserAlreadyExistsException() {
-        when(entityManager.getTransaction()).thenReturn(transaction);
         when(entityManager.createQuery(Queries.SELECT_USER_BY_NAME, User.class)).thenReturn(typedQuery);
         when(typedQuery.setParameter("name", user.getUsername())).thenReturn(typedQuery);
         when(typedQuery.getResultList()).thenReturn(Collections.singletonList(user));
-        when(transaction.isActive()).thenReturn(true);
         assertThrows(PersistenceException.class, () -> userDao.save(user));
-        verify(entityManager).getTransaction();
-        verify(transaction).begin();
         verify(entityManager).createQuery(Queries.SELECT_USER_BY_NAME, User.class);
         verify(typedQuery).setParameter("name", user.getUsername());
         verify(typedQuery).getResultList();
-        verify(transaction).rollback();
-        verify(entityManager).close();
+        verify(entityManager, never()).persist(user);
     }
 
     @Test
     @DisplayName("Given a user entity, when update method is called, then the user is updated in the database")
     void testUpdate() {
-        when(entityManager.getTransaction()).thenReturn(transaction);
         when(entityManager.getCriteriaBuilder()).thenReturn(criteriaBuilder);
         when(criteriaBuilder.createCriteriaUpdate(User.class)).thenReturn(criteriaUpdate);
         when(criteriaUpdate.from(User.class)).thenReturn(root);
         when(entityManager.createEntityGraph(User.class)).thenReturn(graph);
         when(entityManager.createQuery(criteriaUpdate)).thenReturn(typedQuery);
-        when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
-        when(entityManager.find(User.class, id)).thenReturn(mock(User.class));
-        when(entityManager.find(User.class, id)).thenAnswer(invocation -> user);
-        doNothing().when(orderGraph).addAttributeNodes(Queries.CERTIFICATES);
-        doNothing().when(certificateGraph).addAttributeNodes("tags");
-        doNothing().when(roleGraph).addAttributeNodes("authorities");
+        when(entityManager.find(User.class, id, Collections.singletonMap(Queries.FETCH_GRAPH, graph)))
+                .thenAnswer(invocation -> user);
         doReturn(orderGraph).when(graph).addSubgraph("orders");
         doReturn(certificateGraph).when(orderGraph).addSubgraph(Queries.CERTIFICATES);
-        doReturn(roleGraph).when(graph).addSubgraph("role");
         User updatedUser = userDao.update(user);
         assertNotNull(updatedUser);
         assertEquals(user.getId(), updatedUser.getId());
         assertEquals(user.getUsername(), updatedUser.getUsername());
         assertEquals(user.getEmail(), updatedUser.getEmail());
         assertEquals(user.getPassword(), updatedUser.getPassword());
-        verify(factory).createEntityManager();
         verify(entityManager).getCriteriaBuilder();
         verify(criteriaBuilder).createCriteriaUpdate(User.class);
         verify(criteriaUpdate).from(User.class);
@@ -272,15 +249,14 @@ class UserDaoImplTest {
         verify(criteriaUpdate).set(root.get("password"), user.getPassword());
         verify(entityManager).createEntityGraph(User.class);
         verify(entityManager).createQuery(criteriaUpdate);
-        verify(typedQuery).setHint(Queries.FETCH_GRAPH, graph);
         verify(typedQuery).executeUpdate();
-        verify(entityManager).find(User.class, 1L);
+        verify(entityManager).clear();
+        verify(entityManager).find(User.class, 1L, Collections.singletonMap(Queries.FETCH_GRAPH, graph));
     }
 
     @Test
     @DisplayName("Test that update method updates user and role correctly")
     void testUpdateUserAndRoleCorrectly() {
-        when(entityManager.getTransaction()).thenReturn(transaction);
         Role role = Role.builder().permission(RoleType.ADMIN).build();
         user.setRole(role);
         Role existingRole = Role.builder().id(2L).permission(RoleType.ADMIN).build();
@@ -292,15 +268,11 @@ class UserDaoImplTest {
         when(entityManager.createEntityGraph(User.class)).thenReturn(graph);
         when(entityManager.createQuery(roleCriteriaQuery)).thenReturn(roleQuery);
         when(entityManager.createQuery(criteriaUpdate)).thenReturn(typedQuery);
-        when(entityManager.find(User.class, 1L)).thenAnswer(invocation -> user);
-        when(typedQuery.setHint(Queries.FETCH_GRAPH, graph)).thenReturn(typedQuery);
+        when(entityManager.find(User.class, 1L, Collections.singletonMap(Queries.FETCH_GRAPH, graph)))
+                .thenAnswer(invocation -> user);
         when(roleQuery.setMaxResults(1)).thenReturn(roleQuery);
         when(roleQuery.getResultList()).thenReturn(Collections.singletonList(existingRole));
-        doNothing().when(orderGraph).addAttributeNodes(Queries.CERTIFICATES);
-        doNothing().when(certificateGraph).addAttributeNodes("tags");
-        doNothing().when(roleGraph).addAttributeNodes("authorities");
         doReturn(orderGraph).when(graph).addSubgraph("orders");
-        doReturn(roleGraph).when(graph).addSubgraph("role");
         doReturn(certificateGraph).when(orderGraph).addSubgraph(Queries.CERTIFICATES);
 
         User updatedUser = userDao.update(user);
@@ -309,9 +281,6 @@ class UserDaoImplTest {
         assertEquals(user.getUsername(), updatedUser.getUsername());
         assertEquals(user.getEmail(), updatedUser.getEmail());
         assertEquals(user.getPassword(), updatedUser.getPassword());
-        verify(factory).createEntityManager();
-        verify(entityManager).getTransaction();
-        verify(transaction).begin();
         verify(criteriaBuilder).createCriteriaUpdate(User.class);
         verify(criteriaUpdate).from(User.class);
         verify(criteriaUpdate).set(root.get("username"), user.getUsername());
@@ -320,22 +289,21 @@ class UserDaoImplTest {
         verify(criteriaUpdate).where(criteriaBuilder.equal(root.get("id"), user.getId()));
         verify(entityManager).createEntityGraph(User.class);
         verify(entityManager).createQuery(criteriaUpdate);
-        verify(typedQuery).setHint(Queries.FETCH_GRAPH, graph);
         verify(typedQuery).executeUpdate();
-        verify(entityManager).find(User.class, id);
-        verify(transaction).commit();
+        verify(entityManager).clear();
+        verify(entityManager).find(User.class, id, Collections.singletonMap(Queries.FETCH_GRAPH, graph));
     }
 
     @Test
     @DisplayName("Test that given an ID, getById method returns an Optional containing the user entity")
     void testGetUserById() {
-        when(factory.createEntityManager()).thenReturn(entityManager);
         when(entityManager.createEntityGraph(User.class)).thenReturn(graph);
+        doReturn(orderGraph).when(graph).addSubgraph("orders");
+        doReturn(certificateGraph).when(orderGraph).addSubgraph(Queries.CERTIFICATES);
         when(entityManager.find(User.class, id, Collections.singletonMap(Queries.FETCH_GRAPH, graph))).thenReturn(user);
         Optional<User> result = userDao.getById(id);
         assertTrue(result.isPresent());
         assertNotNull(result);
-        verify(factory).createEntityManager();
         verify(entityManager).createEntityGraph(User.class);
         verify(entityManager).find(User.class, 1L, Collections.singletonMap(Queries.FETCH_GRAPH, graph));
     }
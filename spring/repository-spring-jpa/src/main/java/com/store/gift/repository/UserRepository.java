@@ -5,9 +5,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -16,16 +23,18 @@ import java.util.Optional;
  * This repository provides CRUD operations for User entities, as well as additional query methods.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>,
+        JpaSpecificationExecutor<User> {
     /**
      * Retrieves a User entity by username.
      * This method retrieves a User entity from the repository based on the provided username.
-     * It fetches the associated role, role authorities, and orders in a single query using entity graph.
+     * It fetches the associated role, which the authorities of the principal derive from,
+     * in a single query using entity graph, like the auth-principal fetch plan of the DAOs.
      *
      * @param name the username to search for
      * @return an optional User entity
      */
-    @EntityGraph(attributePaths = {"role", "role.authorities", "orders"})
+    @EntityGraph(attributePaths = {"role"})
     Optional<User> findByUsername(String name);
 
     /**
@@ -40,4 +49,83 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @NonNull
     @EntityGraph(attributePaths = {"orders", "orders.certificates", "orders.certificates.tags", "role", "role.authorities"})
     Page<User> findAll(@NonNull Pageable pageable);
+
+    /**
+     * Retrieves the IDs of the soft-deleted users, the oldest first.
+     * The soft-deleted users are filtered out of the entity queries.
+     *
+     * @param limit the maximum number of IDs
+     * @return the IDs of the soft-deleted users
+     */
+    @Query(value = "SELECT user_id FROM users WHERE deleted = true ORDER BY user_id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findDeletedIds(@Param("limit") int limit);
+
+    /**
+     * Deletes the soft-deleted users with the specified IDs,
+     * with their tag spending, orders, order lines and tokens.
+     *
+     * @param ids the IDs of the soft-deleted users
+     */
+    @Transactional
+    default void purge(final Collection<Long> ids) {
+        deleteDependents(ids);
+        deleteDeleted(ids);
+    }
+
+    /**
+     * Deletes the users with the specified IDs,
+     * with their tag spending, orders, order lines and tokens.
+     *
+     * @param ids the IDs of the users
+     */
+    @Transactional
+    default void deleteWithDependents(final Collection<Long> ids) {
+        deleteDependents(ids);
+        deleteUsers(ids);
+    }
+
+    /**
+     * Deletes the rows referencing the users with the specified IDs,
+     * children before parents.
+     *
+     * @param ids the IDs of the users
+     */
+    default void deleteDependents(final Collection<Long> ids) {
+        deleteTagSpend(ids);
+        deleteInvoices(ids);
+        deleteOrderLines(ids);
+        deleteOrders(ids);
+        deleteTokens(ids);
+    }
+
+    @Modifying
+    @Query(value = "DELETE FROM tag_spend WHERE user_id IN (:ids)", nativeQuery = true)
+    void deleteTagSpend(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM invoices WHERE order_id IN "
+            + "(SELECT order_id FROM orders WHERE user_id IN (:ids))", nativeQuery = true)
+    void deleteInvoices(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_certificate WHERE order_id IN "
+            + "(SELECT order_id FROM orders WHERE user_id IN (:ids))", nativeQuery = true)
+    void deleteOrderLines(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE user_id IN (:ids)", nativeQuery = true)
+    void deleteOrders(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM tokens WHERE user_id IN (:ids)", nativeQuery = true)
+    void deleteTokens(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE user_id IN (:ids) AND deleted = true", nativeQuery = true)
+    void deleteDeleted(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "DELETE FROM users WHERE user_id IN (:ids)", nativeQuery = true)
+    void deleteUsers(@Param("ids") Collection<Long> ids);
 }
@@ -1,21 +1,35 @@
 package com.store.gift.repository.impl;
 
 import com.store.gift.dao.UserDao;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import com.store.gift.entity.User;
+import com.store.gift.exception.InvalidCursorException;
 import com.store.gift.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toSet;
 
 @RequiredArgsConstructor
 public class UserRepoImpl implements UserDao {
 
+    /**
+     * The property users are listed by with a cursor.
+     */
+    private static final String ID = "id";
+
     private final UserRepository userRepository;
 
     /**
@@ -31,6 +45,94 @@ public class UserRepoImpl implements UserDao {
                 .collect(toCollection(ArrayList::new));
     }
 
+    /**
+     * Retrieves users with keyset pagination.
+     * <p>
+     * The repository seeks on the user ID only, in the direction of the
+     * cursor or of the first sort order, fetching one extra row to detect
+     * whether another page exists.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the pagination information
+     * @return a page of users with the adjacent cursors
+     * @throws InvalidCursorException if the listing is sorted by another property
+     */
+    @Override
+    public CursorPage<User> getAllBy(
+            final Cursor cursor,
+            final Pageable pageable) {
+        Sort.Order order = cursor == null
+                ? pageable.getSort().stream().findFirst().orElse(Sort.Order.asc(ID))
+                : cursor.isAscending()
+                ? Sort.Order.asc(cursor.getProperty())
+                : Sort.Order.desc(cursor.getProperty());
+        if (!ID.equals(order.getProperty())) {
+            throw new InvalidCursorException(
+                    "Users can only be listed by cursor on " + ID + ", not " + order.getProperty());
+        }
+        boolean backward = cursor != null && cursor.isBackward();
+        boolean forward = order.isAscending() != backward;
+        Long lastId = cursor == null ? null : cursor.getId();
+        PageRequest request = PageRequest.of(0, pageable.getPageSize() + 1,
+                forward ? Sort.by(ID).ascending() : Sort.by(ID).descending());
+        List<User> rows = new ArrayList<>(userRepository.findAll(
+                (root, query, builder) -> lastId == null
+                        ? builder.conjunction()
+                        : forward
+                        ? builder.greaterThan(root.get(ID), lastId)
+                        : builder.lessThan(root.get(ID), lastId),
+                request).getContent());
+        boolean more = rows.size() > pageable.getPageSize();
+        List<User> content = new ArrayList<>(more
+                ? rows.subList(0, pageable.getPageSize())
+                : rows);
+        if (backward) {
+            Collections.reverse(content);
+        }
+        if (content.isEmpty()) {
+            return CursorPage.<User>builder().build();
+        }
+        return CursorPage.<User>builder()
+                .content(content)
+                .next(backward || more
+                        ? idCursor(content.get(content.size() - 1), order.isAscending(), false)
+                        : null)
+                .previous((backward ? more : lastId != null)
+                        ? idCursor(content.get(0), order.isAscending(), true)
+                        : null)
+                .build();
+    }
+
+    /**
+     * Counts all users.
+     *
+     * @return the number of users
+     */
+    @Override
+    public long count() {
+        return userRepository.count();
+    }
+
+    /**
+     * Creates an ID cursor pointing at the given user.
+     *
+     * @param user      the boundary user
+     * @param ascending whether the listing is ordered ascending by ID
+     * @param backward  whether the cursor seeks backwards
+     * @return the cursor of the user
+     */
+    private static Cursor idCursor(
+            final User user,
+            final boolean ascending,
+            final boolean backward) {
+        return Cursor.builder()
+                .property(ID)
+                .ascending(ascending)
+                .id(user.getId())
+                .backward(backward)
+                .build();
+    }
+
     /**
      * Retrieves an entity by its ID.
      *
@@ -94,4 +196,54 @@ public class UserRepoImpl implements UserDao {
     public void delete(final Long id) {
         userRepository.deleteById(id);
     }
+
+    /**
+     * Deletes the User entities with the specified IDs.
+     * <p>
+     * This method deletes the found User entities with their tag spending,
+     * orders, order lines and tokens in bulk, children before parents.
+     *
+     * @param ids the IDs of the User entities to be deleted
+     * @return the IDs of the User entities found and deleted
+     */
+    @Override
+    public Set<Long> deleteAll(final Collection<Long> ids) {
+        Set<Long> found = userRepository.findAllById(ids).stream()
+                .map(User::getId)
+                .collect(toSet());
+        if (!found.isEmpty()) {
+            userRepository.deleteWithDependents(found);
+        }
+        return found;
+    }
+
+    /**
+     * Flags the User entities with the specified IDs as deleted.
+     *
+     * @param ids the IDs of the User entities to be deleted
+     * @return the IDs of the User entities found and flagged
+     */
+    @Override
+    public Set<Long> softDeleteAll(final Collection<Long> ids) {
+        List<User> users = userRepository.findAllById(ids);
+        users.forEach(user -> user.setDeleted(true));
+        return userRepository.saveAll(users).stream()
+                .map(User::getId)
+                .collect(toSet());
+    }
+
+    /**
+     * Deletes soft-deleted User entities with their orders and tokens.
+     *
+     * @param limit the maximum number of User entities to purge
+     * @return the IDs of the purged User entities
+     */
+    @Override
+    public Set<Long> purgeDeleted(final int limit) {
+        List<Long> ids = userRepository.findDeletedIds(limit);
+        if (!ids.isEmpty()) {
+            userRepository.purge(ids);
+        }
+        return Set.copyOf(ids);
+    }
 }
@@ -1,14 +1,18 @@
 package com.store.gift.repository.impl;
 
 import com.store.gift.dao.UserDao;
+import com.store.gift.entity.Cursor;
 import com.store.gift.entity.User;
+import com.store.gift.exception.InvalidCursorException;
 import com.store.gift.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.util.List;
@@ -103,4 +107,13 @@ class UserRepoImplTest {
         Optional<User> result = userRepository.findById(id);
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    @DisplayName("Given a listing sorted by another property than the ID, when users are paged by cursor, then InvalidCursorException is thrown")
+    void testCursorRejectsOtherSorts() {
+        Pageable byName = PageRequest.of(0, 2, Sort.by("username"));
+        Cursor cursor = Cursor.builder().property("username").ascending(true).value("user").id(1L).build();
+        assertThrows(InvalidCursorException.class, () -> userDao.getAllBy(null, byName));
+        assertThrows(InvalidCursorException.class, () -> userDao.getAllBy(cursor, Pageable.ofSize(2)));
+    }
 }
@@ -1,15 +1,18 @@
 package com.store.gift.security.config;
 
+import com.store.gift.config.CurrentUserResolver;
 import com.store.gift.security.filter.JwtAuthorizationFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.CsrfConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
@@ -21,6 +24,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
@@ -98,6 +102,23 @@ public class WebSecurityConfig {
                 .and().build();
     }
 
+    /**
+     * Resolves the authenticated user of the request, the key of the
+     * read-your-writes window when reads are routed to replicas.
+     * <p>
+     * The method is static, so the data source does not depend on the
+     * security beans, which depend on the repositories themselves.
+     *
+     * @return The resolver of the current user.
+     */
+    @Bean
+    public static CurrentUserResolver currentUserResolver() {
+        return () -> Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
+                .filter(Authentication::isAuthenticated)
+                .filter(authentication -> !(authentication instanceof AnonymousAuthenticationToken))
+                .map(Authentication::getName);
+    }
+
     /**
      * Configures the CORS (Cross-Origin Resource Sharing) configuration source.
      *
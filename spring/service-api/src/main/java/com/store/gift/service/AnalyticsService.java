@@ -0,0 +1,47 @@
+package com.store.gift.service;
+
+import com.store.gift.dto.CertificateSalesDto;
+import com.store.gift.dto.Granularity;
+import com.store.gift.dto.RevenueDto;
+import com.store.gift.dto.TagRevenueDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service interface for the sales analytics of the orders.
+ * <p>
+ * The date ranges include both of their days.
+ */
+public interface AnalyticsService {
+
+    /**
+     * Retrieves the best-selling certificates, by order lines and then revenue.
+     *
+     * @param from  the first day of the range
+     * @param to    the last day of the range
+     * @param limit the maximum number of certificates
+     * @return the sales of the certificates
+     */
+    List<CertificateSalesDto> topCertificates(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * Retrieves the revenue of the certificates by tag, highest first.
+     *
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return the revenue of the tags
+     */
+    List<TagRevenueDto> revenueByTag(LocalDate from, LocalDate to);
+
+    /**
+     * Retrieves the revenue of every period of the range, periods without
+     * orders included.
+     *
+     * @param from        the first day of the range
+     * @param to          the last day of the range
+     * @param granularity the length of the periods
+     * @return the revenue of the periods in order
+     */
+    List<RevenueDto> revenue(LocalDate from, LocalDate to, Granularity granularity);
+}
@@ -0,0 +1,24 @@
+package com.store.gift.service;
+
+import com.store.gift.dto.ImportFormat;
+
+import java.io.OutputStream;
+
+/**
+ * Service interface for exporting the whole catalog of certificates.
+ */
+public interface CertificateExportService {
+
+    /**
+     * Writes all the certificates to the output as they are read.
+     * <p>
+     * The rows are written in the formats of the bulk import, so that
+     * an export can be imported again, and only one certificate is held
+     * in memory at a time.
+     *
+     * @param output the output of the certificates, left open
+     * @param format the format of the output
+     * @return the number of exported certificates
+     */
+    long exportCertificates(OutputStream output, ImportFormat format);
+}
@@ -0,0 +1,24 @@
+package com.store.gift.service;
+
+import com.store.gift.dto.ImportFormat;
+import com.store.gift.dto.ImportReport;
+
+import java.io.InputStream;
+
+/**
+ * Service interface for importing certificates in bulk.
+ */
+public interface CertificateImportService {
+
+    /**
+     * Imports the certificates read incrementally from the input.
+     * <p>
+     * Rows are validated one by one and saved in batched transactions,
+     * a rejected row does not stop the import of the others.
+     *
+     * @param input  the input of the certificates
+     * @param format the format of the input
+     * @return the report with the per-row errors
+     */
+    ImportReport importCertificates(InputStream input, ImportFormat format);
+}
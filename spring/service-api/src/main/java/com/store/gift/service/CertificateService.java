@@ -1,13 +1,20 @@
 package com.store.gift.service;
 
 import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.CertificateSlimDto;
+import com.store.gift.dto.DeleteReport;
 import com.store.gift.dto.PatchCertificateDto;
 import com.store.gift.dto.TagDto;
 import com.store.gift.entity.Criteria;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
+import com.store.gift.entity.Revision;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -24,12 +31,38 @@ public interface CertificateService {
     CertificateDto getById(Long id);
 
     /**
-     * Retrieves all certificates with pagination.
+     * Retrieves the revision of a certificate without reading the certificate.
+     *
+     * @param id the ID of the certificate.
+     * @return the revision, or empty if there is no such certificate.
+     */
+    Optional<Revision> getRevision(Long id);
+
+    /**
+     * Retrieves the revision of the catalog, shared by all the listings
+     * and searches of certificates, without reading any certificate.
+     *
+     * @return the revision of the catalog.
+     */
+    Revision getCatalogRevision();
+
+    /**
+     * Retrieves the catalog listing of certificates with pagination.
      *
      * @param pageable the pagination information.
-     * @return a List of certificates.
+     * @return a List of the listing columns and tag names of the certificates.
      */
-    List<CertificateDto> getCertificates(Pageable pageable);
+    List<CertificateSlimDto> getCertificates(Pageable pageable);
+
+    /**
+     * Retrieves the catalog listing of certificates with keyset pagination.
+     *
+     * @param cursor   the position to seek from, or null for the first page.
+     * @param pageable the page size and the sort of the first page.
+     * @return a page of the listing columns and tag names of the certificates
+     * with the next and previous cursors.
+     */
+    CursorPage<CertificateSlimDto> getCertificates(Cursor cursor, Pageable pageable);
 
     /**
      * Retrieves a certificate by its name.
@@ -46,6 +79,14 @@ public interface CertificateService {
      */
     void delete(Long id);
 
+    /**
+     * Deletes the certificates with the specified IDs in chunked transactions.
+     *
+     * @param ids the IDs of the certificates to delete
+     * @return the report with the outcome of every ID
+     */
+    DeleteReport deleteAll(Collection<Long> ids);
+
     /**
      * Updates a certificate.
      *
@@ -79,6 +120,15 @@ public interface CertificateService {
      */
     List<CertificateDto> findAllBy(Criteria criteria, Pageable pageable);
 
+    /**
+     * Searches certificates by the words of their name and description.
+     *
+     * @param query    the words to search for, the last may be incomplete.
+     * @param pageable the page, the results are ordered by relevance.
+     * @return a page of the matching certificates.
+     */
+    Page<CertificateDto> search(String query, Pageable pageable);
+
     /**
      * Retrieves all certificates associated with a user by user ID.
      *
@@ -2,6 +2,8 @@ package com.store.gift.service;
 
 import com.store.gift.dto.OrderDto;
 import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import com.store.gift.entity.Tag;
 import com.store.gift.entity.User;
 import org.springframework.data.domain.Page;
@@ -68,6 +70,15 @@ public interface OrderService {
      */
     Page<OrderDto> getAll(Pageable pageable);
 
+    /**
+     * Get orders with keyset pagination.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the page size and the sort of the first page
+     * @return the page of order DTOs with the adjacent cursors
+     */
+    CursorPage<OrderDto> getAll(Cursor cursor, Pageable pageable);
+
     /**
      * Find a certificate by ID.
      *
@@ -77,14 +88,17 @@ public interface OrderService {
     List<Certificate> findCertificateById(Set<Long> ids);
 
     /**
-     * Save an order.
+     * Save an order with a line per certificate.
+     * <p>
+     * The quantities are paired with the certificate IDs by position,
+     * and the quantities of a certificate listed more than once are added.
      *
      * @param username the user username
      * @param ids      the certificate IDs
-     * @param counters Set<Long> counters
+     * @param counters the quantities of the certificates, in the order of the IDs
      * @return the saved order DTO
      */
-    OrderDto save(String username, Set<Long> ids, List<Long> counters);
+    OrderDto save(String username, List<Long> ids, List<Long> counters);
 
     /**
      * Get an order by ID.
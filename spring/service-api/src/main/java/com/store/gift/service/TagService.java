@@ -1,8 +1,12 @@
 package com.store.gift.service;
 
+import com.store.gift.dto.DeleteReport;
 import com.store.gift.dto.TagDto;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -37,6 +41,15 @@ public interface TagService {
      */
     List<TagDto> getAll(Pageable pageable);
 
+    /**
+     * Get tags with keyset pagination.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the page size and the sort of the first page
+     * @return the page of tag DTOs with the adjacent cursors
+     */
+    CursorPage<TagDto> getAll(Cursor cursor, Pageable pageable);
+
     /**
      * Save a tag.
      *
@@ -51,4 +64,12 @@ public interface TagService {
      * @param id the tag ID
      */
     void delete(Long id);
+
+    /**
+     * Deletes the tags with the specified IDs in chunked transactions.
+     *
+     * @param ids the IDs of the tags to delete
+     * @return the report with the outcome of every ID
+     */
+    DeleteReport deleteAll(Collection<Long> ids);
 }
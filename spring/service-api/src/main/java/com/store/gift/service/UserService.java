@@ -1,11 +1,16 @@
 package com.store.gift.service;
 
+import com.store.gift.dto.DeleteReport;
 import com.store.gift.dto.UserDto;
 import com.store.gift.dto.UserSlimDto;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import com.store.gift.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+
 /**
  * Service interface for managing users.
  */
@@ -35,9 +40,27 @@ public interface UserService {
      */
     Page<UserDto> getAll(Pageable pageable);
 
+    /**
+     * Get users with keyset pagination.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the page size and the sort of the first page
+     * @return the page of user DTOs with the adjacent cursors
+     */
+    CursorPage<UserDto> getAll(Cursor cursor, Pageable pageable);
+
     UserDto save(UserSlimDto dto);
 
     UserDto update(UserSlimDto dto);
 
     void delete(Long id);
+
+    /**
+     * Deletes the users with the specified IDs, with their orders,
+     * in chunked transactions.
+     *
+     * @param ids the IDs of the users to delete
+     * @return the report with the outcome of every ID
+     */
+    DeleteReport deleteAll(Collection<Long> ids);
 }
@@ -0,0 +1,19 @@
+package com.store.gift.exception;
+
+/**
+ * Exception thrown when a request repeats an idempotency key
+ * whose first request is still running.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    /**
+     * Constructs a new IdempotencyConflictException
+     * with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public IdempotencyConflictException(
+            final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.store.gift.exception;
+
+/**
+ * Exception thrown when a batch of IDs to delete is empty, holds null or is too large.
+ */
+public class InvalidBatchException extends IllegalArgumentException {
+
+    /**
+     * Constructs a new InvalidBatchException
+     * with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InvalidBatchException(
+            final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.store.gift.exception;
+
+/**
+ * Exception thrown when certificates are requested in an unknown format.
+ */
+public class InvalidFormatException extends IllegalArgumentException {
+
+    /**
+     * Constructs a new InvalidFormatException
+     * with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InvalidFormatException(
+            final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.store.gift.exception;
+
+/**
+ * Exception thrown when an idempotency key is malformed or was used with other parameters.
+ */
+public class InvalidIdempotencyKeyException extends IllegalArgumentException {
+
+    /**
+     * Constructs a new InvalidIdempotencyKeyException
+     * with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InvalidIdempotencyKeyException(
+            final String message) {
+        super(message);
+    }
+}
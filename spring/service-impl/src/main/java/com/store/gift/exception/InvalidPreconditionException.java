@@ -0,0 +1,18 @@
+package com.store.gift.exception;
+
+/**
+ * Exception thrown when a conditional request header cannot be evaluated.
+ */
+public class InvalidPreconditionException extends IllegalArgumentException {
+
+    /**
+     * Constructs a new InvalidPreconditionException
+     * with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InvalidPreconditionException(
+            final String message) {
+        super(message);
+    }
+}
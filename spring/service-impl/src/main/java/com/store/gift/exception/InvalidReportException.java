@@ -0,0 +1,18 @@
+package com.store.gift.exception;
+
+/**
+ * Exception thrown when sales are requested for an invalid range or limit.
+ */
+public class InvalidReportException extends IllegalArgumentException {
+
+    /**
+     * Constructs a new InvalidReportException
+     * with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InvalidReportException(
+            final String message) {
+        super(message);
+    }
+}
@@ -1,7 +1,9 @@
 package com.store.gift.mapper;
 
 import com.store.gift.dto.OrderDto;
+import com.store.gift.dto.OrderLineDto;
 import com.store.gift.dto.OrderSlimDto;
+import com.store.gift.entity.Invoice;
 import com.store.gift.entity.Order;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -22,16 +24,30 @@ public interface OrderMapper {
      * @return the corresponding {@link OrderDto} DTO
      */
     @Mapping(source = "certificates", target = "certificateDtos")
+    @Mapping(source = "invoices", target = "lines")
     @Mapping(target = "user", ignore = true)
     OrderDto toDto(Order order);
 
+    /**
+     * Converts an {@link Invoice} line to an {@link OrderLineDto} DTO.
+     *
+     * @param invoice the {@link Invoice} line to convert
+     * @return the corresponding {@link OrderLineDto} DTO
+     */
+    @Mapping(source = "certificate.id", target = "certificateId")
+    OrderLineDto toLineDto(Invoice invoice);
+
     /**
      * Converts an {@link OrderDto} DTO to an {@link Order} entity.
+     * <p>
+     * The lines are not converted, they are fixed when the order is placed.
      *
      * @param orderDto the {@link OrderDto} DTO to convert
      * @return the corresponding {@link Order} entity
      */
     @Mapping(source = "user", target = "user")
+    @Mapping(source = "certificateDtos", target = "certificates")
+    @Mapping(target = "invoices", ignore = true)
     Order toEntity(OrderDto orderDto);
 
     /**
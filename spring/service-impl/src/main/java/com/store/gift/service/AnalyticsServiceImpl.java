@@ -0,0 +1,232 @@
+package com.store.gift.service;
+
+import com.store.gift.dao.SalesDao;
+import com.store.gift.dto.CertificateSalesDto;
+import com.store.gift.dto.Granularity;
+import com.store.gift.dto.RevenueDto;
+import com.store.gift.dto.TagRevenueDto;
+import com.store.gift.entity.SalesLine;
+import com.store.gift.exception.InvalidReportException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the AnalyticsService interface.
+ * <p>
+ * The sales of a range are assembled from daily sales: cached days are
+ * reused and every run of uncached days is scanned with one streamed query
+ * and aggregated by the {@link SalesAggregator}. Certificate and tag names
+ * are resolved when reporting, so renamed or retagged certificates do not
+ * make cached days stale.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class AnalyticsServiceImpl implements AnalyticsService {
+    /**
+     * The ordering of sales, most lines first, then highest revenue.
+     */
+    private static final Comparator<DailySales.Sales> BEST_SELLING = Comparator
+            .comparingLong(DailySales.Sales::lines)
+            .thenComparing(DailySales.Sales::revenue)
+            .reversed();
+    /**
+     * The data access object for the order lines.
+     */
+    private final SalesDao salesDao;
+    /**
+     * The fork/join aggregation of the scanned lines.
+     */
+    private final SalesAggregator aggregator;
+    /**
+     * The cached daily sales.
+     */
+    private final SalesCache cache;
+    /**
+     * The maximum number of days of a range.
+     */
+    @Value("${analytics.max-range-days:3660}")
+    private long maxRangeDays = 3660;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param from  the first day of the range
+     * @param to    the last day of the range
+     * @param limit the maximum number of certificates
+     * @return the sales of the certificates
+     * @throws InvalidReportException if the range or the limit is invalid
+     */
+    @Override
+    public List<CertificateSalesDto> topCertificates(
+            final LocalDate from,
+            final LocalDate to,
+            final int limit) {
+        if (limit < 1) {
+            throw new InvalidReportException("The limit must be positive");
+        }
+        List<Map.Entry<Long, DailySales.Sales>> top = total(daily(from, to))
+                .certificates().entrySet().stream()
+                .sorted(Map.Entry.<Long, DailySales.Sales>comparingByValue(BEST_SELLING)
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .toList();
+        Map<Long, String> names = salesDao.findCertificateNames(
+                top.stream().map(Map.Entry::getKey).toList());
+        return top.stream()
+                .map(entry -> CertificateSalesDto.builder()
+                        .id(entry.getKey())
+                        .name(names.get(entry.getKey()))
+                        .lines(entry.getValue().lines())
+                        .revenue(entry.getValue().revenue())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return the revenue of the tags
+     */
+    @Override
+    public List<TagRevenueDto> revenueByTag(
+            final LocalDate from,
+            final LocalDate to) {
+        Map<Long, DailySales.Sales> certificates = total(daily(from, to)).certificates();
+        Map<Long, List<String>> tagNames = salesDao.findTagNames(certificates.keySet());
+        Map<String, DailySales.Sales> tags = new HashMap<>();
+        certificates.forEach((id, sales) -> tagNames.getOrDefault(id, List.of())
+                .forEach(name -> tags.merge(name, sales, DailySales.Sales::plus)));
+        return tags.entrySet().stream()
+                .sorted(Map.Entry.<String, DailySales.Sales>comparingByValue(
+                                Comparator.comparing(DailySales.Sales::revenue).reversed())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> TagRevenueDto.builder()
+                        .name(entry.getKey())
+                        .lines(entry.getValue().lines())
+                        .revenue(entry.getValue().revenue())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param from        the first day of the range
+     * @param to          the last day of the range
+     * @param granularity the length of the periods
+     * @return the revenue of the periods in order
+     */
+    @Override
+    public List<RevenueDto> revenue(
+            final LocalDate from,
+            final LocalDate to,
+            final Granularity granularity) {
+        NavigableMap<LocalDate, DailySales> periods = new TreeMap<>();
+        daily(from, to).forEach((day, sales) -> periods.computeIfAbsent(
+                        granularity == Granularity.MONTH ? day.withDayOfMonth(1) : day,
+                        period -> new DailySales())
+                .add(sales));
+        return periods.entrySet().stream()
+                .map(entry -> RevenueDto.builder()
+                        .period(entry.getKey())
+                        .orders(entry.getValue().orders())
+                        .revenue(entry.getValue().revenue())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Returns the sales of every day of the range, from the cache where
+     * possible and scanned otherwise.
+     *
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return the sales by day, empty days included
+     * @throws InvalidReportException if the range is empty or too long
+     */
+    private NavigableMap<LocalDate, DailySales> daily(
+            final LocalDate from,
+            final LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new InvalidReportException("The range must start on or before its end");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new InvalidReportException(
+                    String.format("The range must not exceed %d days", maxRangeDays));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long version = cache.generation();
+        NavigableMap<LocalDate, DailySales> days = new TreeMap<>();
+        LocalDate uncached = null;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DailySales cached = cache.get(day).orElse(null);
+            if (cached == null) {
+                uncached = uncached == null ? day : uncached;
+            } else {
+                if (uncached != null) {
+                    days.putAll(scan(uncached, day, version, now));
+                    uncached = null;
+                }
+                days.put(day, cached);
+            }
+        }
+        if (uncached != null) {
+            days.putAll(scan(uncached, to.plusDays(1), version, now));
+        }
+        return days;
+    }
+
+    /**
+     * Scans and caches the sales of a run of days.
+     *
+     * @param from    the first day
+     * @param to      the day after the last day
+     * @param version the version of the cache read before the scan
+     * @param now     the time the scan started at
+     * @return the sales by day, empty days included
+     * @throws InvalidReportException if the range is empty or too long
+     */
+    private Map<LocalDate, DailySales> scan(
+            final LocalDate from,
+            final LocalDate to,
+            final long version,
+            final LocalDateTime now) {
+        Map<LocalDate, DailySales> days;
+        try (Stream<SalesLine> lines = salesDao.streamLines(from.atStartOfDay(), to.atStartOfDay())) {
+            days = aggregator.aggregate(lines);
+        }
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            days.putIfAbsent(day, new DailySales());
+        }
+        cache.put(days, version, now);
+        return days;
+    }
+
+    /**
+     * Returns the sum of the sales of the days, leaving them unchanged.
+     *
+     * @param days the sales by day
+     * @return the summed sales
+     */
+    private static DailySales total(final Map<LocalDate, DailySales> days) {
+        DailySales total = new DailySales();
+        days.values().forEach(total::add);
+        return total;
+    }
+}
@@ -0,0 +1,195 @@
+package com.store.gift.service;
+
+import com.store.gift.dto.DeleteOutcome;
+import com.store.gift.dto.DeleteReport;
+import com.store.gift.dto.DeleteStatus;
+import com.store.gift.exception.InvalidBatchException;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Batch deletes in chunked transactions.
+ * <p>
+ * The distinct IDs are deleted in chunks, each chunk with set-based
+ * statements in its own transaction, so that a large batch neither holds
+ * one long transaction nor pays a transaction per ID. When a chunk fails,
+ * its IDs are deleted one by one, so that one failing ID does not fail
+ * the others. The chunks are deleted through the {@link FanOut}, which
+ * runs them concurrently when it is enabled; each chunk is then still one
+ * transaction of its own, and the outcomes keep the order of the IDs.
+ * <p>
+ * The {@link Mode} tells the services whether certificates and users are
+ * deleted with their dependent rows, or flagged as deleted and left to
+ * the {@link SoftDeletePurger}.
+ */
+@Slf4j
+@Component
+public class BatchDeleter {
+    /**
+     * The modes of deleting certificates and users.
+     */
+    public enum Mode {
+        /**
+         * The rows are deleted with their dependent rows in the request.
+         */
+        HARD,
+        /**
+         * The rows are flagged as deleted in the request and purged later.
+         */
+        SOFT
+    }
+
+    private final Mode mode;
+    private final int chunkSize;
+    private final int maxIds;
+    private final FanOut fanOut;
+
+    /**
+     * Creates the batch deleter.
+     *
+     * @param mode      the mode of deleting certificates and users
+     * @param chunkSize the number of IDs deleted in one transaction
+     * @param maxIds    the maximum number of IDs of a batch
+     * @param fanOut    the runner of the chunks
+     */
+    public BatchDeleter(
+            @Value("${deletes.mode:HARD}") final Mode mode,
+            @Value("${deletes.chunk-size:500}") final int chunkSize,
+            @Value("${deletes.max-ids:10000}") final int maxIds,
+            final FanOut fanOut) {
+        this.mode = mode;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxIds = maxIds;
+        this.fanOut = fanOut;
+    }
+
+    /**
+     * Tells whether certificates and users are soft-deleted.
+     *
+     * @return true in the {@link Mode#SOFT} mode
+     */
+    public boolean soft() {
+        return mode == Mode.SOFT;
+    }
+
+    /**
+     * Deletes the IDs in chunks.
+     * <p>
+     * Must run outside of a transaction, so that every chunk commits on its own.
+     *
+     * @param ids    the IDs to delete
+     * @param delete the transactional delete of a chunk, returning the deleted IDs
+     * @return the report with the outcome of every ID
+     * @throws InvalidBatchException if the IDs are empty, hold null or are too many
+     */
+    public DeleteReport delete(
+            final Collection<Long> ids,
+            final Function<Collection<Long>, Set<Long>> delete) {
+        return delete(ids, delete, deleted -> {
+        });
+    }
+
+    /**
+     * Deletes the IDs in chunks, running an action after every chunk.
+     * <p>
+     * Must run outside of a transaction, so that every chunk commits on its own.
+     *
+     * @param ids       the IDs to delete
+     * @param delete    the transactional delete of a chunk, returning the deleted IDs
+     * @param onDeleted the action run with the IDs of every committed chunk
+     * @return the report with the outcome of every ID
+     * @throws InvalidBatchException if the IDs are empty, hold null or are too many
+     */
+    public DeleteReport delete(
+            final Collection<Long> ids,
+            final Function<Collection<Long>, Set<Long>> delete,
+            final Consumer<Set<Long>> onDeleted) {
+        if (ids == null || ids.isEmpty()) {
+            throw new InvalidBatchException("No IDs to delete");
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.contains(null)) {
+            throw new InvalidBatchException("IDs must not be null");
+        }
+        if (distinct.size() > maxIds) {
+            throw new InvalidBatchException(
+                    String.format("At most %d IDs can be deleted at once", maxIds));
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int start = 0; start < distinct.size(); start += chunkSize) {
+            chunks.add(distinct.subList(start, Math.min(distinct.size(), start + chunkSize)));
+        }
+        List<DeleteOutcome> outcomes = fanOut.map(chunks, chunk -> chunk(chunk, delete, onDeleted))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+        return DeleteReport.builder()
+                .requested(distinct.size())
+                .deleted(count(outcomes, DeleteStatus.DELETED))
+                .notFound(count(outcomes, DeleteStatus.NOT_FOUND))
+                .failed(count(outcomes, DeleteStatus.FAILED))
+                .outcomes(outcomes)
+                .build();
+    }
+
+    private static List<DeleteOutcome> chunk(
+            final List<Long> chunk,
+            final Function<Collection<Long>, Set<Long>> delete,
+            final Consumer<Set<Long>> onDeleted) {
+        try {
+            return outcomes(chunk, deleted(chunk, delete, onDeleted));
+        } catch (PersistenceException | DataAccessException | TransactionException e) {
+            log.warn("Deleting a chunk of {} IDs failed, deleting them one by one", chunk.size());
+            List<DeleteOutcome> outcomes = new ArrayList<>(chunk.size());
+            for (Long id : chunk) {
+                try {
+                    outcomes.addAll(outcomes(List.of(id), deleted(List.of(id), delete, onDeleted)));
+                } catch (PersistenceException | DataAccessException | TransactionException idException) {
+                    outcomes.add(new DeleteOutcome(id, DeleteStatus.FAILED, idException.getMessage()));
+                }
+            }
+            return outcomes;
+        }
+    }
+
+    private static Set<Long> deleted(
+            final List<Long> chunk,
+            final Function<Collection<Long>, Set<Long>> delete,
+            final Consumer<Set<Long>> onDeleted) {
+        Set<Long> deleted = delete.apply(chunk);
+        if (!deleted.isEmpty()) {
+            onDeleted.accept(deleted);
+        }
+        return deleted;
+    }
+
+    private static List<DeleteOutcome> outcomes(
+            final List<Long> chunk,
+            final Set<Long> deleted) {
+        return chunk.stream()
+                .map(id -> new DeleteOutcome(id, deleted.contains(id)
+                        ? DeleteStatus.DELETED
+                        : DeleteStatus.NOT_FOUND, null))
+                .toList();
+    }
+
+    private static long count(
+            final List<DeleteOutcome> outcomes,
+            final DeleteStatus status) {
+        return outcomes.stream()
+                .filter(outcome -> outcome.getStatus() == status)
+                .count();
+    }
+}
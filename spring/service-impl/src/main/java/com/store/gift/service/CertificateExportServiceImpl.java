@@ -0,0 +1,126 @@
+package com.store.gift.service;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.store.gift.dao.CertificateDao;
+import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.ImportFormat;
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Tag;
+import com.store.gift.mapper.CertificateMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the {@link CertificateExportService} interface.
+ * <p>
+ * The certificates are streamed from the DAO and written one at a time,
+ * in one read-only transaction, so that memory does not depend on the
+ * size of the catalog. The columns of the CSV rows are those read by
+ * {@link CertificateImportServiceImpl}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CertificateExportServiceImpl implements CertificateExportService {
+    /**
+     * The header of the CSV output.
+     */
+    static final List<String> CSV_HEADER = Arrays.asList("name", "description",
+            "shortDescription", "company", "price", "duration", "path", "tags");
+    /**
+     * The separator of the tag names in a CSV row.
+     */
+    private static final String TAG_SEPARATOR = "|";
+    /**
+     * Data Access Object for managing certificates.
+     */
+    private final CertificateDao certificateDao;
+    /**
+     * Mapper for mapping between certificate entities and DTOs.
+     */
+    private final CertificateMapper mapper;
+    /**
+     * The JSON mapper of the NDJSON rows.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Holds one connection for the whole export.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportCertificates(
+            final OutputStream output,
+            final ImportFormat format) {
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long count = certificateDao.streamAll(format == ImportFormat.CSV
+                ? csvRows(writer)
+                : ndjsonRows(writer));
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} certificates as {}", count, format);
+        return count;
+    }
+
+    /**
+     * Creates the writer of NDJSON rows, one certificate per line.
+     *
+     * @param writer the output
+     * @return the writer of the rows
+     */
+    private Consumer<Certificate> ndjsonRows(final Writer writer) {
+        ObjectWriter json = objectMapper.writerFor(CertificateDto.class);
+        return certificate -> {
+            try {
+                writer.write(json.writeValueAsString(mapper.toDto(certificate)));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Writes the CSV header and creates the writer of the CSV rows.
+     *
+     * @param writer the output
+     * @return the writer of the rows
+     */
+    private Consumer<Certificate> csvRows(final Writer writer) {
+        CsvWriter csv = new CsvWriter(writer);
+        csv.write(CSV_HEADER);
+        return certificate -> csv.write(Arrays.asList(
+                certificate.getName(),
+                certificate.getDescription(),
+                certificate.getShortDescription(),
+                certificate.getCompany(),
+                certificate.getPrice() == null ? null : certificate.getPrice().toPlainString(),
+                certificate.getDuration() == null ? null : String.valueOf(certificate.getDuration()),
+                certificate.getPath(),
+                certificate.getTags().stream()
+                        .map(Tag::getName)
+                        .sorted()
+                        .collect(Collectors.joining(TAG_SEPARATOR))));
+    }
+}
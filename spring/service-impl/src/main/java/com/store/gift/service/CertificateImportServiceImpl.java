@@ -0,0 +1,358 @@
+package com.store.gift.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.store.gift.dao.CertificateDao;
+import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.ImportError;
+import com.store.gift.dto.ImportFormat;
+import com.store.gift.dto.ImportReport;
+import com.store.gift.dto.TagDto;
+import com.store.gift.entity.Certificate;
+import com.store.gift.mapper.CertificateMapper;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the {@link CertificateImportService} interface.
+ * <p>
+ * The input is parsed one row at a time and valid rows are collected
+ * into batches; each batch is checked for existing names with one query
+ * and saved in its own transaction, so memory depends on the batch size
+ * and not on the size of the input.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CertificateImportServiceImpl implements CertificateImportService {
+    /**
+     * The separator of the tag names in a CSV row.
+     */
+    private static final String TAG_SEPARATOR = "\\|";
+    /**
+     * Data Access Object for managing certificates.
+     */
+    private final CertificateDao certificateDao;
+    /**
+     * Mapper for mapping between certificate entities and DTOs.
+     */
+    private final CertificateMapper mapper;
+    /**
+     * The JSON mapper of the NDJSON rows.
+     */
+    private final ObjectMapper objectMapper;
+    /**
+     * The validator of the imported certificates.
+     */
+    private final Validator validator;
+    /**
+     * The full-text index of the certificates.
+     */
+    private final CertificateSearchIndex searchIndex;
+    /**
+     * The number of certificates saved in one transaction.
+     */
+    @Value("${certificates.import.batch-size:500}")
+    private int batchSize = 500;
+    /**
+     * The maximum number of row errors listed in the report.
+     */
+    @Value("${certificates.import.max-errors:100}")
+    private int maxErrors = 100;
+
+    /**
+     * A parsed row, either a certificate or the reason it could not be parsed.
+     *
+     * @param number the number of the row
+     * @param dto    the parsed certificate, or null
+     * @param error  the parse error, or null
+     */
+    private record Row(long number, CertificateDto dto, String error) {
+    }
+
+    /**
+     * A source of parsed rows.
+     */
+    @FunctionalInterface
+    private interface Rows {
+        /**
+         * Parses the next row.
+         *
+         * @return the row, or null at the end of the input
+         */
+        Row next();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Runs outside of a transaction, every batch commits on its own.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportReport importCertificates(
+            final InputStream input,
+            final ImportFormat format) {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8));
+        Progress progress = new Progress();
+        Rows rows = format == ImportFormat.CSV
+                ? csvRows(new CsvReader(reader))
+                : ndjsonRows(reader);
+        List<Row> batch = new ArrayList<>(batchSize);
+        for (Row row = rows.next(); row != null; row = rows.next()) {
+            progress.rows++;
+            String error = row.error() == null ? validate(row.dto()) : row.error();
+            if (error != null) {
+                progress.fail(row.number(), error);
+            } else {
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    save(batch, progress);
+                    batch.clear();
+                }
+            }
+        }
+        save(batch, progress);
+        log.info("Imported {} of {} certificates", progress.imported, progress.rows);
+        return progress.report();
+    }
+
+    /**
+     * Saves one batch of valid rows, rejecting duplicate names.
+     * <p>
+     * When the batch fails as a whole, its rows are saved one by one
+     * so that only the failing rows are rejected.
+     *
+     * @param batch    the valid rows
+     * @param progress the progress of the import
+     */
+    private void save(
+            final List<Row> batch,
+            final Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> existing = certificateDao.findExistingNames(batch.stream()
+                .map(row -> row.dto().getName())
+                .collect(Collectors.toSet()));
+        Set<String> names = new HashSet<>();
+        List<Row> accepted = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            String name = row.dto().getName();
+            if (existing.contains(name) || !names.add(name)) {
+                progress.fail(row.number(), "Certificate already exists with name " + name);
+            } else {
+                accepted.add(row);
+            }
+        }
+        try {
+            certificateDao.saveAll(accepted.stream().map(this::toEntity).toList())
+                    .forEach(searchIndex::index);
+            progress.imported += accepted.size();
+        } catch (PersistenceException | DataAccessException | TransactionException e) {
+            log.warn("Batch of {} certificates failed, saving rows one by one", accepted.size());
+            for (Row row : accepted) {
+                try {
+                    certificateDao.saveAll(List.of(toEntity(row)))
+                            .forEach(searchIndex::index);
+                    progress.imported++;
+                } catch (PersistenceException | DataAccessException | TransactionException rowException) {
+                    progress.fail(row.number(), rowException.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a row to a new certificate entity.
+     *
+     * @param row the valid row
+     * @return the certificate to persist
+     */
+    private Certificate toEntity(final Row row) {
+        Certificate certificate = mapper.toEntity(row.dto());
+        certificate.setId(null);
+        return certificate;
+    }
+
+    /**
+     * Validates a certificate with the constraints of the DTO.
+     *
+     * @param dto the certificate
+     * @return the violations joined into one message, or null if valid
+     */
+    private String validate(final CertificateDto dto) {
+        Set<ConstraintViolation<CertificateDto>> violations = validator.validate(dto);
+        return violations.isEmpty() ? null : violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Creates the rows of an NDJSON input, one certificate per line.
+     * <p>
+     * A line longer than a CSV record is skipped and reported as a row error.
+     *
+     * @param reader the input
+     * @return the rows
+     */
+    private Rows ndjsonRows(final BufferedReader reader) {
+        ObjectReader json = objectMapper.readerFor(CertificateDto.class);
+        long[] line = {0};
+        return () -> {
+            try {
+                String text;
+                do {
+                    line[0]++;
+                    try {
+                        text = CsvReader.readLine(reader);
+                    } catch (IllegalArgumentException e) {
+                        return new Row(line[0], null, e.getMessage());
+                    }
+                } while (text != null && text.isBlank());
+                if (text == null) {
+                    return null;
+                }
+                try {
+                    return new Row(line[0], json.readValue(text), null);
+                } catch (JsonProcessingException e) {
+                    return new Row(line[0], null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Creates the rows of a CSV input with a header row.
+     * <p>
+     * The header names the columns {@code name}, {@code description},
+     * {@code shortDescription}, {@code company}, {@code price},
+     * {@code duration}, {@code path} and {@code tags}; unknown
+     * columns are ignored.
+     *
+     * @param csv the records of the input
+     * @return the rows
+     */
+    private Rows csvRows(final CsvReader csv) {
+        List<String> header = csv.next();
+        Map<String, Integer> columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i), i);
+            }
+        }
+        long[] record = {0};
+        return () -> {
+            record[0]++;
+            try {
+                List<String> fields = csv.next();
+                return fields == null ? null
+                        : new Row(record[0], toDto(columns, fields), null);
+            } catch (IllegalArgumentException e) {
+                return new Row(record[0], null, e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Maps the fields of a CSV record to a certificate.
+     *
+     * @param columns the column indexes by name
+     * @param fields  the fields of the record
+     * @return the certificate
+     * @throws IllegalArgumentException if a number field is malformed
+     */
+    private CertificateDto toDto(
+            final Map<String, Integer> columns,
+            final List<String> fields) {
+        String price = field(columns, fields, "price");
+        String duration = field(columns, fields, "duration");
+        String tags = field(columns, fields, "tags");
+        try {
+            return CertificateDto.builder()
+                    .name(field(columns, fields, "name"))
+                    .description(field(columns, fields, "description"))
+                    .shortDescription(field(columns, fields, "shortDescription"))
+                    .company(field(columns, fields, "company"))
+                    .price(price == null ? null : new BigDecimal(price))
+                    .duration(duration == null ? 0 : Integer.parseInt(duration))
+                    .path(field(columns, fields, "path"))
+                    .tags(tags == null ? new HashSet<>() : Arrays.stream(tags.split(TAG_SEPARATOR))
+                            .map(String::trim)
+                            .filter(name -> !name.isEmpty())
+                            .map(name -> TagDto.builder().name(name).build())
+                            .collect(Collectors.toSet()))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed number: price "
+                    + price + ", duration " + duration, e);
+        }
+    }
+
+    private static String field(
+            final Map<String, Integer> columns,
+            final List<String> fields,
+            final String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    /**
+     * The counters and the first errors of a running import.
+     */
+    private final class Progress {
+        private long rows;
+        private long imported;
+        private long failed;
+        private final List<ImportError> errors = new ArrayList<>();
+
+        private void fail(final long row, final String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportError(row, message));
+            }
+        }
+
+        private ImportReport report() {
+            return ImportReport.builder()
+                    .rows(rows)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.store.gift.service;
+
+import com.store.gift.dao.CertificateDao;
+import com.store.gift.entity.Certificate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the names and descriptions of certificates.
+ * <p>
+ * Texts are folded to lower case without diacritics and split into terms
+ * of letters and digits. Every term maps to the certificates containing it,
+ * weighted by the field it occurs in. A query matches the certificates that
+ * contain every query term, either as a whole term or as a prefix of one;
+ * the matches are ranked by the inverse document frequency of the terms.
+ * <p>
+ * The index is loaded from the database on the first search and then kept
+ * up to date by the services after their transactions commit.
+ */
+@Slf4j
+@Component
+public class CertificateSearchIndex {
+    /**
+     * The weight of a term occurring in the name.
+     */
+    static final float NAME_WEIGHT = 3f;
+    /**
+     * The weight of a term occurring in the description.
+     */
+    static final float DESCRIPTION_WEIGHT = 1f;
+    /**
+     * The factor of the score of a term matched only by prefix.
+     */
+    static final float PREFIX_WEIGHT = 0.5f;
+    /**
+     * The minimum length of a query term matched by prefix.
+     */
+    static final int MIN_PREFIX_LENGTH = 2;
+    /**
+     * The number of certificates read per query while loading.
+     */
+    static final int LOAD_SIZE = 1000;
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    /**
+     * The IDs of one page of matches and the number of all matches.
+     *
+     * @param ids   the IDs of the page in rank order
+     * @param total the number of all matches
+     */
+    public record Hits(List<Long> ids, long total) {
+    }
+
+    private final CertificateDao certificateDao;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> terms = new HashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Creates the index of the certificates.
+     *
+     * @param certificateDao the source of the certificates
+     */
+    public CertificateSearchIndex(final CertificateDao certificateDao) {
+        this.certificateDao = certificateDao;
+    }
+
+    /**
+     * Searches the certificates matching a query.
+     *
+     * @param query  the query text
+     * @param offset the number of matches to skip
+     * @param limit  the maximum number of matches to return
+     * @return the IDs of the matches in rank order and their total
+     */
+    public Hits search(
+            final String query,
+            final long offset,
+            final int limit) {
+        load();
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (words.isEmpty()) {
+            return new Hits(List.of(), 0);
+        }
+        Map<Long, Float> scores;
+        lock.readLock().lock();
+        try {
+            scores = score(words.get(0));
+            for (String word : words.subList(1, words.size())) {
+                Map<Long, Float> next = score(word);
+                scores.keySet().retainAll(next.keySet());
+                scores.replaceAll((id, score) -> score + next.get(id));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> ids = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Float>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+        return new Hits(ids, scores.size());
+    }
+
+    /**
+     * Indexes a saved or updated certificate once the
+     * current transaction, if any, has committed.
+     *
+     * @param certificate the certificate
+     */
+    public void index(final Certificate certificate) {
+        Long id = certificate.getId();
+        String name = certificate.getName();
+        String description = certificate.getDescription();
+        afterCommit(() -> apply(() -> put(id, name, description)));
+    }
+
+    /**
+     * Removes a deleted certificate once the
+     * current transaction, if any, has committed.
+     *
+     * @param id the ID of the certificate
+     */
+    public void remove(final Long id) {
+        afterCommit(() -> apply(() -> delete(id)));
+    }
+
+    /**
+     * Splits a text into normalized terms.
+     *
+     * @param text the text, may be null
+     * @return the terms in text order
+     */
+    static List<String> tokenize(final String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATOR.split(folded))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Scores the certificates matching one query term.
+     * Must be called with the read lock held.
+     *
+     * @param word the query term
+     * @return the scores by certificate ID
+     */
+    private Map<Long, Float> score(final String word) {
+        Map<Long, Float> scores = new HashMap<>();
+        Map<String, Map<Long, Float>> matches = word.length() >= MIN_PREFIX_LENGTH
+                ? postings.subMap(word, true, word + Character.MAX_VALUE, false)
+                : postings.subMap(word, true, word, true);
+        matches.forEach((term, documents) -> {
+            float idf = (float) Math.log(1 + (double) terms.size() / documents.size());
+            float factor = term.equals(word) ? idf : idf * PREFIX_WEIGHT;
+            documents.forEach((id, weight) -> scores.merge(id,
+                    factor * (float) Math.log1p(weight), Math::max));
+        });
+        return scores;
+    }
+
+    /**
+     * Adds or replaces a certificate. Must be called with the write lock held.
+     *
+     * @param id          the ID of the certificate
+     * @param name        the name
+     * @param description the description
+     */
+    private void put(
+            final Long id,
+            final String name,
+            final String description) {
+        delete(id);
+        Map<String, Float> weights = new HashMap<>();
+        tokenize(name).forEach(term -> weights.merge(term, NAME_WEIGHT, Float::sum));
+        tokenize(description).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Float::sum));
+        weights.forEach((term, weight) -> postings
+                .computeIfAbsent(term, key -> new HashMap<>())
+                .put(id, weight));
+        terms.put(id, weights.keySet());
+    }
+
+    /**
+     * Removes a certificate. Must be called with the write lock held.
+     *
+     * @param id the ID of the certificate
+     */
+    private void delete(final Long id) {
+        Set<String> indexed = terms.remove(id);
+        if (indexed != null) {
+            indexed.forEach(term -> {
+                Map<Long, Float> documents = postings.get(term);
+                documents.remove(id);
+                if (documents.isEmpty()) {
+                    postings.remove(term);
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies a change under the write lock. Changes made before the
+     * index is loaded are skipped, the load reads them from the database.
+     *
+     * @param change the change
+     */
+    private void apply(final Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads all certificates unless the index is already loaded.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            Long last = null;
+            List<Certificate> page;
+            do {
+                page = certificateDao.findTextAfter(last, LOAD_SIZE);
+                for (Certificate certificate : page) {
+                    put(certificate.getId(), certificate.getName(), certificate.getDescription());
+                    last = certificate.getId();
+                }
+            } while (page.size() == LOAD_SIZE);
+            loaded = true;
+            log.info("Indexed {} certificates with {} terms", terms.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs an action after the current transaction commits,
+     * or at once outside of a transaction.
+     *
+     * @param action the action
+     */
+    private static void afterCommit(final Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            action.run();
+                        }
+                    });
+        } else {
+            action.run();
+        }
+    }
+}
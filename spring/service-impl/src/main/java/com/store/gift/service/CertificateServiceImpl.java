@@ -2,10 +2,15 @@ package com.store.gift.service;
 
 import com.store.gift.dao.CertificateDao;
 import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.CertificateSlimDto;
+import com.store.gift.dto.DeleteReport;
 import com.store.gift.dto.PatchCertificateDto;
 import com.store.gift.dto.TagDto;
 import com.store.gift.entity.Certificate;
 import com.store.gift.entity.Criteria;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
+import com.store.gift.entity.Revision;
 import com.store.gift.entity.Tag;
 import com.store.gift.exception.CertificateAlreadyExistsException;
 import com.store.gift.exception.CertificateNotFoundException;
@@ -16,13 +21,19 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the {@link CertificateService} interface.
@@ -43,6 +54,18 @@ public class CertificateServiceImpl implements CertificateService {
      * Mapper for mapping between tag entities and DTOs.
      */
     private final TagMapper tagMapper;
+    /**
+     * The full-text index of the certificates.
+     */
+    private final CertificateSearchIndex searchIndex;
+    /**
+     * The cached daily sales, which include the order lines of the certificates.
+     */
+    private final SalesCache sales;
+    /**
+     * The chunked transactions of the batch deletes.
+     */
+    private final BatchDeleter batchDeleter;
 
     /**
      * Error message prefix for certificate not found.
@@ -67,17 +90,48 @@ public class CertificateServiceImpl implements CertificateService {
         return mapper.toDto(certificate);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Revision> getRevision(final Long id) {
+        return certificateDao.findRevision(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Revision getCatalogRevision() {
+        return certificateDao.findCatalogRevision();
+    }
+
     /**
      * {@inheritDoc}
      * <p>
-     * Retrieves all certificates with pagination.
-     * Returns a {@link Page} of {@link CertificateDto}.
+     * The listing is read as a projection, full certificates
+     * are only loaded for the detail and edit views.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<CertificateSlimDto> getCertificates(
+            final Pageable pageable) {
+        return certificateDao.findListingBy(pageable);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Retrieves the listing with keyset pagination as a projection.
      */
     @Override
-    public List<CertificateDto> getCertificates(
+    @Transactional(readOnly = true)
+    public CursorPage<CertificateSlimDto> getCertificates(
+            final Cursor cursor,
             final Pageable pageable) {
-        return mapper.toDtoList(
-                certificateDao.getAllBy(pageable));
+        return certificateDao.findListingBy(cursor, pageable);
     }
 
     /**
@@ -103,7 +157,8 @@ public class CertificateServiceImpl implements CertificateService {
     /**
      * {@inheritDoc}
      * <p>
-     * Deletes a certificate by its ID.
+     * Deletes a certificate by its ID, or flags it as deleted
+     * in the soft delete mode.
      *
      * @param id the ID of the certificate to delete
      */
@@ -111,7 +166,33 @@ public class CertificateServiceImpl implements CertificateService {
     @Transactional(rollbackFor = Exception.class)
     public void delete(final Long id) {
         Objects.requireNonNull(id, "Id should not be null");
-        certificateDao.delete(id);
+        if (!batchDeleter.soft()) {
+            certificateDao.delete(id);
+        } else if (certificateDao.softDeleteAll(List.of(id)).isEmpty()) {
+            throw new CertificateNotFoundException(
+                    String.format("%s id: %d", MESSAGE, id));
+        }
+        searchIndex.remove(id);
+        sales.invalidate();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Runs outside of a transaction, every chunk commits on its own.
+     *
+     * @param ids the IDs of the certificates to delete
+     * @return the report with the outcome of every ID
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DeleteReport deleteAll(final Collection<Long> ids) {
+        return batchDeleter.delete(ids, batchDeleter.soft()
+                ? certificateDao::softDeleteAll
+                : certificateDao::deleteAll, deleted -> {
+            deleted.forEach(searchIndex::remove);
+            sales.invalidate();
+        });
     }
 
     /**
@@ -129,6 +210,7 @@ public class CertificateServiceImpl implements CertificateService {
             final PatchCertificateDto dto) {
         Certificate updated = certificateDao
                 .update(mapper.toEntity(dto));
+        searchIndex.index(updated);
         return mapper.toDto(updated);
     }
 
@@ -152,6 +234,7 @@ public class CertificateServiceImpl implements CertificateService {
         }
         Certificate saved = certificateDao
                 .save(mapper.toEntity(dto));
+        searchIndex.index(saved);
         return mapper.toDto(saved);
     }
 
@@ -193,6 +276,40 @@ public class CertificateServiceImpl implements CertificateService {
                 .findByCriteria(criteria, pageable));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The page of IDs is ranked by the in-memory index,
+     * the database is only queried to load the certificates
+     * of the page, which are returned in rank order.
+     *
+     * @param query    the words to search for
+     * @param pageable the page information
+     * @return the {@link Page} of matching {@link CertificateDto}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CertificateDto> search(
+            final String query,
+            final Pageable pageable) {
+        CertificateSearchIndex.Hits hits = searchIndex.search(
+                query, pageable.getOffset(), pageable.getPageSize());
+        if (hits.ids().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.total());
+        }
+        Map<Long, Certificate> certificates = certificateDao
+                .findAllByIds(new HashSet<>(hits.ids()))
+                .stream()
+                .collect(Collectors.toMap(Certificate::getId,
+                        Function.identity(), (first, second) -> first));
+        List<CertificateDto> dtos = hits.ids().stream()
+                .map(certificates::get)
+                .filter(Objects::nonNull)
+                .map(mapper::toDto)
+                .toList();
+        return new PageImpl<>(dtos, pageable, hits.total());
+    }
+
     /**
      * {@inheritDoc}
      * <p>
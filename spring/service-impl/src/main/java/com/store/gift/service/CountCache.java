@@ -0,0 +1,143 @@
+package com.store.gift.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Totals of the paged listings.
+ * <p>
+ * In the {@link Mode#EXACT} mode every total is counted by the database.
+ * In the {@link Mode#CACHED} mode a total is kept per listing filter until
+ * a write to its region invalidates it or the time to live expires, so that
+ * large listings do not pay a count query on every request. The time to live
+ * bounds the staleness caused by writes that bypass the services.
+ */
+@Component
+public class CountCache {
+    /**
+     * The region of the order totals.
+     */
+    public static final String ORDERS = "orders";
+    /**
+     * The region of the user totals.
+     */
+    public static final String USERS = "users";
+
+    /**
+     * The modes of computing totals.
+     */
+    public enum Mode {
+        /**
+         * Every total is counted by the database.
+         */
+        EXACT,
+        /**
+         * Totals are cached until invalidated or expired.
+         */
+        CACHED
+    }
+
+    /**
+     * The cached total and the time it expires at.
+     *
+     * @param value     the total
+     * @param expiresAt the expiration time in milliseconds
+     */
+    private record Entry(long value, long expiresAt) {
+    }
+
+    private final Mode mode;
+    private final long ttl;
+    private final int maxEntries;
+    private final Map<String, Entry> totals = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates the cache of totals.
+     *
+     * @param mode       the mode of computing totals
+     * @param ttl        the time to live of a cached total in milliseconds
+     * @param maxEntries the maximum number of cached totals
+     */
+    public CountCache(
+            @Value("${pagination.count.mode:EXACT}") final Mode mode,
+            @Value("${pagination.count.ttl:30000}") final long ttl,
+            @Value("${pagination.count.max-entries:10000}") final int maxEntries) {
+        this.mode = mode;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the total of a listing.
+     *
+     * @param region  the region invalidated by writes
+     * @param filter  the filter of the listing within the region, or null
+     * @param counter the count query of the listing
+     * @return the total of the listing
+     */
+    public long count(
+            final String region,
+            final Object filter,
+            final LongSupplier counter) {
+        if (mode == Mode.EXACT) {
+            return counter.getAsLong();
+        }
+        String key = filter == null ? region : region + ":" + filter;
+        long now = System.currentTimeMillis();
+        Entry entry = totals.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.value();
+        }
+        long version = generation.get();
+        long value = counter.getAsLong();
+        if (totals.size() >= maxEntries) {
+            totals.clear();
+        }
+        totals.put(key, new Entry(value, now + ttl));
+        if (version != generation.get()) {
+            totals.remove(key);
+        }
+        return value;
+    }
+
+    /**
+     * Invalidates the totals of a region after a write.
+     * <p>
+     * Within a transaction the totals are invalidated again on completion,
+     * so totals counted before the commit are not cached.
+     *
+     * @param region the region written to
+     */
+    public void invalidate(final String region) {
+        evict(region);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(final int status) {
+                            evict(region);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Removes the totals of a region, totals being counted
+     * concurrently are not cached.
+     *
+     * @param region the region to evict
+     */
+    private void evict(final String region) {
+        generation.incrementAndGet();
+        totals.keySet().removeIf(key -> key.equals(region)
+                || key.startsWith(region + ":"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.store.gift.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental reader of comma-separated records.
+ * <p>
+ * Fields may be quoted with {@code "}, a quoted field may contain
+ * separators, line breaks and doubled quotes. Only one record is held
+ * in memory at a time.
+ */
+final class CsvReader {
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char LINE_FEED = '\n';
+    private static final char CARRIAGE_RETURN = '\r';
+    /**
+     * The maximum length of a record, bounding the memory of a malformed input.
+     */
+    static final int MAX_RECORD_LENGTH = 65_536;
+
+    private final BufferedReader reader;
+
+    /**
+     * Creates a reader of the records of the given input.
+     *
+     * @param reader the buffered input
+     */
+    CsvReader(final BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record, skipping blank lines.
+     *
+     * @return the fields of the record, or null at the end of the input
+     * @throws IllegalArgumentException if a quoted field is not closed
+     *                                  or the record is too long
+     * @throws UncheckedIOException     if the input cannot be read
+     */
+    List<String> next() {
+        try {
+            String line = readLine(reader);
+            while (line != null && line.isBlank()) {
+                line = readLine(reader);
+            }
+            if (line == null) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c == QUOTE && i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+                            field.append(QUOTE);
+                            i++;
+                        } else if (c == QUOTE) {
+                            quoted = false;
+                        } else {
+                            field.append(c);
+                        }
+                    } else if (c == QUOTE) {
+                        quoted = true;
+                    } else if (c == SEPARATOR) {
+                        fields.add(field.toString().trim());
+                        field.setLength(0);
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                line = readLine(reader);
+                if (line == null) {
+                    throw new IllegalArgumentException("Unclosed quoted field");
+                }
+                if (field.length() + line.length() > MAX_RECORD_LENGTH) {
+                    throw new IllegalArgumentException("Record exceeds "
+                            + MAX_RECORD_LENGTH + " characters");
+                }
+                field.append('\n');
+            }
+            fields.add(field.toString().trim());
+            return fields;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads one line of at most {@link #MAX_RECORD_LENGTH} characters.
+     * <p>
+     * Lines end with {@code \n} or {@code \r\n}. The rest of a longer line
+     * is skipped without being held in memory, so that reading can go on
+     * with the next line.
+     *
+     * @param reader the buffered input
+     * @return the line without its terminator, or null at the end of the input
+     * @throws IllegalArgumentException if the line is too long
+     * @throws IOException              if the input cannot be read
+     */
+    static String readLine(final BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (c >= 0 && c != LINE_FEED) {
+            if (line.length() == MAX_RECORD_LENGTH) {
+                do {
+                    c = reader.read();
+                } while (c >= 0 && c != LINE_FEED);
+                throw new IllegalArgumentException("Record exceeds "
+                        + MAX_RECORD_LENGTH + " characters");
+            }
+            line.append((char) c);
+            c = reader.read();
+        }
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == CARRIAGE_RETURN) {
+            line.setLength(end - 1);
+        }
+        return line.toString();
+    }
+}
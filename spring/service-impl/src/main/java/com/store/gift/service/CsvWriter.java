@@ -0,0 +1,65 @@
+package com.store.gift.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writer of comma-separated records, the counterpart of {@link CsvReader}.
+ * <p>
+ * A field is quoted when it contains a separator, a quote or a line break,
+ * and quotes within a quoted field are doubled. A null field is written empty.
+ */
+final class CsvWriter {
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private final Writer writer;
+
+    /**
+     * Creates a writer of records to the given output.
+     *
+     * @param writer the buffered output
+     */
+    CsvWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes one record followed by a line break.
+     *
+     * @param fields the fields of the record
+     * @throws UncheckedIOException if the output cannot be written
+     */
+    void write(final List<String> fields) {
+        try {
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    writer.write(SEPARATOR);
+                }
+                String field = fields.get(i);
+                if (field != null) {
+                    writer.write(needsQuotes(field) ? quote(field) : field);
+                }
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean needsQuotes(final String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == SEPARATOR || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(final String field) {
+        return QUOTE + field.replace("\"", "\"\"") + QUOTE;
+    }
+}
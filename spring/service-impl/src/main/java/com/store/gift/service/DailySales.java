@@ -0,0 +1,83 @@
+package com.store.gift.service;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The sales of a day: its orders, their revenue and the sales per certificate.
+ * <p>
+ * Instances are filled by a single thread and combined with {@link #add};
+ * once cached, a day is only read.
+ */
+final class DailySales {
+    /**
+     * The order lines of a certificate and their revenue.
+     *
+     * @param lines   the number of order lines
+     * @param revenue the revenue of the lines
+     */
+    record Sales(long lines, BigDecimal revenue) {
+        /**
+         * Returns the sum of these sales and the other ones.
+         *
+         * @param other the other sales
+         * @return the summed sales
+         */
+        Sales plus(final Sales other) {
+            return new Sales(lines + other.lines, revenue.add(other.revenue));
+        }
+    }
+
+    private long orders;
+    private BigDecimal revenue = BigDecimal.ZERO;
+    private final Map<Long, Sales> certificates = new HashMap<>();
+
+    /**
+     * Adds an order.
+     *
+     * @param cost the cost of the order
+     */
+    void addOrder(final BigDecimal cost) {
+        orders++;
+        revenue = revenue.add(cost);
+    }
+
+    /**
+     * Adds an order line.
+     *
+     * @param certificateId the ID of the ordered certificate
+     * @param share         the share of the order cost of the line
+     */
+    void addLine(
+            final Long certificateId,
+            final BigDecimal share) {
+        certificates.merge(certificateId, new Sales(1, share), Sales::plus);
+    }
+
+    /**
+     * Adds the sales of another day or part of a day.
+     *
+     * @param other the other sales, left unchanged
+     * @return these sales
+     */
+    DailySales add(final DailySales other) {
+        orders += other.orders;
+        revenue = revenue.add(other.revenue);
+        other.certificates.forEach((id, sales) -> certificates.merge(id, sales, Sales::plus));
+        return this;
+    }
+
+    long orders() {
+        return orders;
+    }
+
+    BigDecimal revenue() {
+        return revenue;
+    }
+
+    Map<Long, Sales> certificates() {
+        return Collections.unmodifiableMap(certificates);
+    }
+}
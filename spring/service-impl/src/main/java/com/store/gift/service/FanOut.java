@@ -0,0 +1,151 @@
+package com.store.gift.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs the independent blocking tasks of a service call concurrently.
+ * <p>
+ * In the {@link Mode#PLATFORM} mode the tasks run on a fixed pool of
+ * platform threads. In the {@link Mode#VIRTUAL} mode every task runs on
+ * a virtual thread of its own, which costs next to nothing while it waits
+ * on the database. Either way at most {@code maxConcurrency} tasks run at
+ * once across all callers: every task holds a JDBC connection, so it is the
+ * connection pool and not the threads that bounds the useful concurrency,
+ * and unbounded virtual threads would only queue on the pool until they
+ * time out. With a maximum of one, the tasks run on the calling thread.
+ * <p>
+ * The tasks run with the security context of the caller, so that their
+ * writes count towards the read-your-writes window of the caller's user.
+ * They run outside of the caller's transaction, each in its own.
+ */
+@Component
+public class FanOut implements DisposableBean {
+    /**
+     * The modes of running blocking work.
+     */
+    public enum Mode {
+        /**
+         * Blocking work runs on pooled platform threads.
+         */
+        PLATFORM,
+        /**
+         * Blocking work runs on a virtual thread per task.
+         */
+        VIRTUAL
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    /**
+     * Creates the fan-out.
+     *
+     * @param mode           the mode of running the tasks
+     * @param maxConcurrency the maximum number of tasks running at once,
+     *                       well below the size of the connection pool
+     */
+    public FanOut(
+            @Value("${threads.mode:PLATFORM}") final Mode mode,
+            @Value("${threads.fan-out.max-concurrency:1}") final int maxConcurrency) {
+        if (maxConcurrency <= 1) {
+            executor = null;
+            permits = null;
+            return;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        executor = new DelegatingSecurityContextExecutorService(mode == Mode.VIRTUAL
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fan-out-", 0).factory())
+                : Executors.newFixedThreadPool(maxConcurrency, task -> {
+                    Thread thread = new Thread(task, "fan-out-" + threads.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+        permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Applies a task to every item, concurrently unless the fan-out is off.
+     * <p>
+     * When a task fails, the tasks not yet started are cancelled and the
+     * failure is rethrown without waiting for the running ones.
+     *
+     * @param items the items
+     * @param task  the task, safe to run on another thread
+     * @param <T>   the type of the items
+     * @param <R>   the type of the results
+     * @return the results in the order of the items
+     */
+    public <T, R> List<R> map(
+            final List<T> items,
+            final Function<T, R> task) {
+        if (executor == null || items.size() < 2) {
+            return items.stream().map(task).toList();
+        }
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return task.apply(item);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        List<R> results = new ArrayList<>(items.size());
+        RuntimeException failure = null;
+        for (Future<R> future : futures) {
+            try {
+                if (failure == null) {
+                    results.add(future.get());
+                } else {
+                    future.cancel(false);
+                }
+            } catch (ExecutionException e) {
+                failure = unwrap(e.getCause());
+                futures.forEach(pending -> pending.cancel(false));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("Interrupted while waiting for the fanned-out tasks", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    private static RuntimeException unwrap(final Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * Shuts the executor down with the application context.
+     */
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
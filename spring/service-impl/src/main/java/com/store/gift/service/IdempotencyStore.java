@@ -0,0 +1,211 @@
+package com.store.gift.service;
+
+import com.store.gift.exception.IdempotencyConflictException;
+import com.store.gift.exception.InvalidIdempotencyKeyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Outcomes of idempotent requests, keyed by their user and the key
+ * the client chose for them.
+ * <p>
+ * The first request with a key runs its action. A request repeating the
+ * key while the action runs waits for it, up to the wait timeout, and
+ * shares its outcome, and one repeating it later gets the recorded result
+ * back, so that a request retried after a timeout is executed once. A
+ * duplicate that outwaits the timeout is rejected instead of holding its
+ * request thread for as long as the action runs. A failed action is not
+ * recorded and can be retried with the same key. A key must be repeated
+ * with the same parameters.
+ * <p>
+ * At most {@code maxEntries} results are kept, each for at most the time
+ * to live, and the oldest are dropped first, skipping the entries whose
+ * action still runs, so a key replayed after its result was dropped runs
+ * again. The action must commit before it returns, so that a recorded
+ * result is never rolled back.
+ */
+@Component
+public class IdempotencyStore {
+    /**
+     * The maximum length of a key.
+     */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * The result of an idempotent request.
+     *
+     * @param value    the result of the action
+     * @param replayed true if the result was recorded by an earlier request
+     * @param <T>      the type of the result
+     */
+    public record Outcome<T>(T value, boolean replayed) {
+    }
+
+    /**
+     * The parameters and the pending or completed result of a key.
+     *
+     * @param fingerprint the parameters of the first request
+     * @param result      the result of the action
+     * @param createdAt   the time the first request started at in milliseconds
+     */
+    private record Entry(Object fingerprint, CompletableFuture<Object> result, long createdAt) {
+    }
+
+    /**
+     * An entry in the order of its creation.
+     *
+     * @param id    the user and key of the entry
+     * @param entry the entry
+     */
+    private record Created(String id, Entry entry) {
+    }
+
+    private final long ttl;
+    private final int maxEntries;
+    private final long wait;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Created> created = new ConcurrentLinkedQueue<>();
+    private final Lock eviction = new ReentrantLock();
+
+    /**
+     * Creates the store.
+     *
+     * @param ttl        the time a result is kept in milliseconds
+     * @param maxEntries the maximum number of results kept
+     * @param wait       the time a duplicate waits for a pending result in milliseconds
+     */
+    public IdempotencyStore(
+            @Value("${idempotency.ttl:86400000}") final long ttl,
+            @Value("${idempotency.max-entries:10000}") final int maxEntries,
+            @Value("${idempotency.wait:10000}") final long wait) {
+        this.ttl = ttl;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.wait = Math.max(0, wait);
+    }
+
+    /**
+     * Runs an action once per user and key.
+     *
+     * @param user        the user the key belongs to
+     * @param key         the key chosen by the client
+     * @param fingerprint the parameters of the request, compared with equals
+     * @param action      the action, committed when it returns
+     * @param <T>         the type of the result
+     * @return the result of the action, or the result recorded for the key
+     * @throws InvalidIdempotencyKeyException if the key is blank or too long,
+     *                                        or was used with other parameters
+     * @throws IdempotencyConflictException    if the first request with the key
+     *                                        is still running after the wait
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(
+            final String user,
+            final String key,
+            final Object fingerprint,
+            final Supplier<T> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(String.format(
+                    "An idempotency key must have 1 to %d characters", MAX_KEY_LENGTH));
+        }
+        String id = user + '\n' + key;
+        long now = System.currentTimeMillis();
+        Entry fresh = new Entry(fingerprint, new CompletableFuture<>(), now);
+        Entry entry = entries.compute(id, (ignored, existing) ->
+                existing == null || expired(existing, now) ? fresh : existing);
+        if (entry != fresh) {
+            if (!entry.fingerprint().equals(fingerprint)) {
+                throw new InvalidIdempotencyKeyException(
+                        "Idempotency key " + key + " was used with other parameters");
+            }
+            return new Outcome<>((T) await(key, entry), true);
+        }
+        created.add(new Created(id, fresh));
+        evict(now);
+        try {
+            T value = action.get();
+            fresh.result().complete(value);
+            return new Outcome<>(value, false);
+        } catch (RuntimeException | Error e) {
+            entries.remove(id, fresh);
+            created.remove(new Created(id, fresh));
+            fresh.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the result of the first request with a key.
+     *
+     * @param key   the key chosen by the client
+     * @param entry the entry of the key
+     * @return the result of the action
+     * @throws IdempotencyConflictException if the action is still running after the wait
+     */
+    private Object await(
+            final String key,
+            final Entry entry) {
+        try {
+            return entry.result().get(wait, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause
+                    ? cause
+                    : new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException(
+                    "The request with idempotency key " + key + " is still running");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException(
+                    "Interrupted while waiting for the request with idempotency key " + key);
+        }
+    }
+
+    /**
+     * Drops the oldest results while the store is full, and the expired
+     * ones, skipping the pending entries. Only one thread evicts at a time,
+     * the others skip it.
+     *
+     * @param now the current time in milliseconds
+     */
+    private void evict(final long now) {
+        if (!eviction.tryLock()) {
+            return;
+        }
+        try {
+            Iterator<Created> oldest = created.iterator();
+            while (oldest.hasNext()) {
+                Created next = oldest.next();
+                if (!next.entry().result().isDone()) {
+                    continue;
+                }
+                if (entries.size() <= maxEntries && !expired(next.entry(), now)) {
+                    break;
+                }
+                oldest.remove();
+                entries.remove(next.id(), next.entry());
+            }
+        } finally {
+            eviction.unlock();
+        }
+    }
+
+    private boolean expired(
+            final Entry entry,
+            final long now) {
+        return entry.result().isDone() && now - entry.createdAt() >= ttl;
+    }
+}
@@ -5,11 +5,14 @@ import com.store.gift.dao.OrderDao;
 import com.store.gift.dao.UserDao;
 import com.store.gift.dto.OrderDto;
 import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import com.store.gift.entity.Invoice;
 import com.store.gift.entity.Order;
 import com.store.gift.entity.Tag;
 import com.store.gift.entity.User;
 import com.store.gift.exception.CertificateNotFoundException;
+import com.store.gift.exception.InvalidOrderException;
 import com.store.gift.exception.OrderNotFoundException;
 import com.store.gift.exception.UserNotFoundException;
 import com.store.gift.mapper.OrderMapper;
@@ -17,20 +20,23 @@ import jakarta.persistence.PersistenceException;
 import lombok.RequiredArgsConstructor;
 import org.hibernate.service.spi.ServiceException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.IntStream;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the OrderService interface.
@@ -55,65 +61,116 @@ public class OrderServiceImpl implements OrderService {
      * The mapper for converting Order entities to DTOs and vice versa.
      */
     private final OrderMapper orderMapper;
+    /**
+     * The totals of the paged order listings.
+     */
+    private final CountCache counts;
+    /**
+     * The cached daily sales of the analytics.
+     */
+    private final SalesCache sales;
 
     /**
      * {@inheritDoc}
      * <p>
-     * Saves an order.
+     * Saves an order with a line per certificate, priced at the current
+     * price of the certificate.
      *
-     * @param username the user ID
-     * @param counters Set<Long> counters
+     * @param username the username of the user
+     * @param ids      the IDs of the certificates
+     * @param counters the quantities of the certificates, in the order of the IDs
      * @return the saved order DTO
+     * @throws UserNotFoundException        if the user is not found
+     * @throws CertificateNotFoundException if one or more certificates are not found
+     * @throws InvalidOrderException        if the IDs and quantities do not match
+     *                                      or a quantity is not positive
      */
     @Override
     @Transactional(rollbackFor = Exception.class, isolation = Isolation.READ_COMMITTED)
-    public OrderDto save(final String username, final Set<Long> ids, final List<Long> counters) {
+    public OrderDto save(final String username, final List<Long> ids, final List<Long> counters) {
+        Map<Long, Long> quantities = quantities(ids, counters);
         User user = userDao.findByUsername(username).orElseThrow(() ->
                 new UserNotFoundException("UserNotFoundException"));
-        List<Certificate> certificates = certificateDao.findAllByIds(ids);
-
-        BigDecimal totalPrice = calculateTotalCost(certificates, counters);
-
-        Order order = Order.builder()
-                .certificates(new HashSet<>(certificates))
-                .cost(totalPrice)
-                .user(user)
-                .build();
-
-        if (certificates.size() != counters.size()) {
-            throw new IllegalArgumentException("Certificate and counter counts do not match.");
-        }
-
-//        List<Invoice> invoices = IntStream
-//                .range(0, certificates.size())
-//                .mapToObj(i -> orderDao.saveInvoice(
-//                        createInvoice(order, certificates.get(i), counters.get(i))))
-//                .toList();
-//
-//        order.setInvoices(invoices);
-
         try {
-            return orderMapper.toDto(orderDao.save(order));
+            return place(user, quantities);
         } catch (PersistenceException e) {
             throw new ServiceException("Failed to save the order", e);
         }
     }
 
-    private Invoice createInvoice(Order order, Certificate certificate, Long counter) {
-        Invoice invoice = new Invoice();
-        invoice.setOrder(order);
-        invoice.setCertificate(certificate);
-        invoice.setCounter(counter);
-        return invoice;
+    /**
+     * Pairs the certificate IDs with their quantities, adding the quantities
+     * of a certificate listed more than once.
+     *
+     * @param ids      the IDs of the certificates
+     * @param counters the quantities of the certificates, in the order of the IDs
+     * @return the quantities by certificate ID, in the order of the IDs
+     * @throws InvalidOrderException if the IDs and quantities do not match
+     *                               or a quantity is not positive
+     */
+    private static Map<Long, Long> quantities(final List<Long> ids, final List<Long> counters) {
+        if (ids.isEmpty()) {
+            throw new InvalidOrderException("An order needs at least one certificate.");
+        }
+        if (ids.size() != counters.size()) {
+            throw new InvalidOrderException("Certificate and counter counts do not match.");
+        }
+        Map<Long, Long> quantities = new LinkedHashMap<>();
+        Iterator<Long> counter = counters.iterator();
+        for (Long id : ids) {
+            Long quantity = counter.next();
+            if (id == null || quantity == null || quantity <= 0) {
+                throw new InvalidOrderException(
+                        "Every certificate needs an ID and a positive counter.");
+            }
+            try {
+                quantities.merge(id, quantity, Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new InvalidOrderException("The counter of certificate " + id + " is too large.", e);
+            }
+        }
+        return quantities;
     }
 
+    /**
+     * Places an order of the certificates in the given quantities.
+     * <p>
+     * The certificates are read in one query, the lines snapshot their
+     * prices and are inserted in JDBC batches with the order.
+     *
+     * @param user       the user placing the order
+     * @param quantities the quantities by certificate ID
+     * @return the saved order DTO
+     * @throws CertificateNotFoundException if one or more certificates are not found
+     */
+    private OrderDto place(final User user, final Map<Long, Long> quantities) {
+        Map<Long, Certificate> certificates = certificateDao.findAllByIds(quantities.keySet())
+                .stream()
+                .collect(Collectors.toMap(Certificate::getId, Function.identity()));
+        if (certificates.size() != quantities.size()) {
+            throw new CertificateNotFoundException(
+                    "One or more certificates not found");
+        }
+        Order order = Order.builder()
+                .user(user)
+                .certificates(new HashSet<>(certificates.values()))
+                .build();
+        List<Invoice> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> {
+            Certificate certificate = certificates.get(id);
+            lines.add(Invoice.builder()
+                    .order(order)
+                    .certificate(certificate)
+                    .quantity(quantity)
+                    .unitPrice(certificate.getPrice())
+                    .build());
+        });
+        order.setInvoices(new LinkedHashSet<>(lines));
+        order.setCost(PricingEngine.total(lines));
 
-    private BigDecimal calculateTotalCost(List<Certificate> certificates, List<Long> counters) {
-        return IntStream.range(0, certificates.size())
-                .mapToObj(i -> certificates.get(i).getPrice().multiply(
-                        BigDecimal.valueOf(counters.stream().skip(i).findFirst().orElse(0L))))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+        OrderDto saved = orderMapper.toDto(orderDao.save(order));
+        counts.invalidate(CountCache.ORDERS);
+        return saved;
     }
 
     /**
@@ -146,35 +203,24 @@ public class OrderServiceImpl implements OrderService {
      * @throws CertificateNotFoundException if one or more certificates are not found
      */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public OrderDto createOrder(
             final Long userId,
             final Set<Long> certificateIds) {
         User user = userDao.getById(userId)
                 .orElseThrow(() -> new UserNotFoundException(
                         String.format("User with id %d not found", userId)));
-        List<Certificate> certificates = certificateDao
-                .findAllByIds(certificateIds);
-        if (certificates.size() != certificateIds.size()) {
-            throw new CertificateNotFoundException(
-                    "One or more certificates not found");
-        }
-        Order order = Order.builder()
-                .user(user)
-                .certificates(new HashSet<>(certificates))
-                .orderDate(Timestamp.valueOf(LocalDateTime.now()))
-                .cost(certificates.stream()
-                        .map(Certificate::getPrice)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add))
-                .build();
-
-        return orderMapper.toDto(orderDao.save(order));
+        Map<Long, Long> quantities = new LinkedHashMap<>();
+        certificateIds.forEach(id -> quantities.put(id, 1L));
+        return place(user, quantities);
     }
 
     /**
      * {@inheritDoc}
      * <p>
      * Retrieves a page of orders for a specific user.
+     * <p>
+     * The total is counted only when it cannot be derived from the page.
      *
      * @param user     the user
      * @param pageable the pageable object for pagination
@@ -187,13 +233,17 @@ public class OrderServiceImpl implements OrderService {
             final Pageable pageable) {
         List<OrderDto> dtos = orderMapper.toDtoList(
                 orderDao.getUserOrders(user, pageable));
-        return new PageImpl<>(dtos, pageable, dtos.size());
+        return PageableExecutionUtils.getPage(dtos, pageable,
+                () -> counts.count(CountCache.ORDERS, user.getId(),
+                        () -> orderDao.countUserOrders(user.getId())));
     }
 
     /**
      * {@inheritDoc}
      * <p>
      * Retrieves a page of all orders.
+     * <p>
+     * The total is counted only when it cannot be derived from the page.
      *
      * @param pageable the pageable object for pagination
      * @return a page of order DTOs
@@ -204,7 +254,26 @@ public class OrderServiceImpl implements OrderService {
             final Pageable pageable) {
         List<OrderDto> dtos = orderMapper.toDtoList(
                 orderDao.getAllBy(pageable));
-        return new PageImpl<>(dtos, pageable, dtos.size());
+        return PageableExecutionUtils.getPage(dtos, pageable,
+                () -> counts.count(CountCache.ORDERS, null, orderDao::count));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Retrieves orders with keyset pagination.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the pageable object for pagination
+     * @return a page of order DTOs with the adjacent cursors
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDto> getAll(
+            final Cursor cursor,
+            final Pageable pageable) {
+        return orderDao.getAllBy(cursor, pageable)
+                .map(orderMapper::toDto);
     }
 
     /**
@@ -289,8 +358,10 @@ public class OrderServiceImpl implements OrderService {
     @Transactional
     public OrderDto update(
             final OrderDto dto) {
-        return orderMapper.toDto(orderDao.update(
+        OrderDto updated = orderMapper.toDto(orderDao.update(
                 orderMapper.toEntity(dto)));
+        sales.invalidate();
+        return updated;
     }
 
     /**
@@ -304,5 +375,7 @@ public class OrderServiceImpl implements OrderService {
     public void delete(
             final Long id) {
         orderDao.delete(id);
+        counts.invalidate(CountCache.ORDERS);
+        sales.invalidate();
     }
 }
@@ -0,0 +1,64 @@
+package com.store.gift.service;
+
+import com.store.gift.entity.Invoice;
+import com.store.gift.exception.InvalidOrderException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Totals the lines of an order in fixed-point arithmetic.
+ * <p>
+ * The prices are stored with two decimals, so every amount is an exact
+ * number of hundredths. The total is summed in one pass over the lines as
+ * a {@code long} of hundredths, with no {@link BigDecimal} arithmetic
+ * per line, and an amount that does not fit is rejected rather than
+ * rounded or wrapped around.
+ */
+final class PricingEngine {
+    /**
+     * The number of decimals of the prices and of the cost of an order.
+     */
+    static final int SCALE = 2;
+
+    private PricingEngine() {
+    }
+
+    /**
+     * Totals the lines of an order.
+     *
+     * @param lines the lines with their quantities and unit prices
+     * @return the total with {@value #SCALE} decimals
+     * @throws InvalidOrderException if a quantity is not positive, a price
+     *                               has more decimals or the total overflows
+     */
+    static BigDecimal total(final List<Invoice> lines) {
+        long total = 0;
+        try {
+            for (Invoice line : lines) {
+                long quantity = line.getQuantity();
+                if (quantity <= 0) {
+                    throw new InvalidOrderException(
+                            "The quantity of a line must be positive, not " + quantity);
+                }
+                total = Math.addExact(total,
+                        Math.multiplyExact(minorUnits(line.getUnitPrice()), quantity));
+            }
+        } catch (ArithmeticException e) {
+            throw new InvalidOrderException("The cost of the order cannot be priced exactly", e);
+        }
+        return BigDecimal.valueOf(total, SCALE);
+    }
+
+    /**
+     * Converts a price to hundredths.
+     *
+     * @throws ArithmeticException if the price has more decimals or does not fit a long
+     */
+    private static long minorUnits(final BigDecimal price) {
+        return price.setScale(SCALE, RoundingMode.UNNECESSARY)
+                .unscaledValue()
+                .longValueExact();
+    }
+}
@@ -0,0 +1,204 @@
+package com.store.gift.service;
+
+import com.store.gift.entity.SalesLine;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Aggregates streamed order lines into daily sales across the cores.
+ * <p>
+ * The lines are read from the stream on the calling thread and cut into
+ * chunks at order boundaries. Each chunk is aggregated on a fork/join pool,
+ * splitting itself in halves at order boundaries, while the next chunk is
+ * read, so that the scan of the database and the aggregation overlap. At
+ * most twice as many chunks as threads are in flight, which bounds the
+ * lines held in memory whatever the size of the range.
+ * <p>
+ * The cost of an order is shared by its lines in proportion to the current
+ * prices of their certificates, evenly when those are all zero, the last line
+ * taking the rounding remainder so that the shares add up to the cost.
+ */
+@Component
+public class SalesAggregator implements DisposableBean {
+    /**
+     * The number of lines a task aggregates without splitting.
+     */
+    private static final int LEAF_LINES = 2048;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxPending;
+
+    /**
+     * Creates the aggregator.
+     *
+     * @param parallelism the number of aggregating threads, or 0 for one per core
+     * @param chunkSize   the number of lines read before a chunk is submitted
+     */
+    public SalesAggregator(
+            @Value("${analytics.parallelism:0}") final int parallelism,
+            @Value("${analytics.chunk-size:20000}") final int chunkSize) {
+        int threads = parallelism > 0
+                ? parallelism
+                : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxPending = 2 * threads;
+    }
+
+    /**
+     * Aggregates the lines into the sales of their days.
+     *
+     * @param lines the order lines, the lines of an order following each other
+     * @return the sales by day of the orders
+     */
+    Map<LocalDate, DailySales> aggregate(final Stream<SalesLine> lines) {
+        Map<LocalDate, DailySales> days = new HashMap<>();
+        Deque<ForkJoinTask<Map<LocalDate, DailySales>>> pending = new ArrayDeque<>();
+        List<SalesLine> chunk = new ArrayList<>();
+        Iterator<SalesLine> iterator = lines.iterator();
+        while (iterator.hasNext()) {
+            SalesLine line = iterator.next();
+            if (chunk.size() >= chunkSize
+                    && !line.orderId().equals(chunk.get(chunk.size() - 1).orderId())) {
+                pending.add(pool.submit(new Chunk(chunk, 0, chunk.size())));
+                chunk = new ArrayList<>();
+                if (pending.size() > maxPending) {
+                    merge(days, pending.poll().join());
+                }
+            }
+            chunk.add(line);
+        }
+        if (!chunk.isEmpty()) {
+            pending.add(pool.submit(new Chunk(chunk, 0, chunk.size())));
+        }
+        while (!pending.isEmpty()) {
+            merge(days, pending.poll().join());
+        }
+        return days;
+    }
+
+    /**
+     * Shuts the pool down with the application context.
+     */
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Adds the sales of other days to the sales of the target.
+     *
+     * @param target the sales the other ones are added to
+     * @param other  the other sales
+     * @return the target
+     */
+    private static Map<LocalDate, DailySales> merge(
+            final Map<LocalDate, DailySales> target,
+            final Map<LocalDate, DailySales> other) {
+        other.forEach((day, sales) -> target.merge(day, sales, DailySales::add));
+        return target;
+    }
+
+    /**
+     * Adds the lines of an order to the sales of its day.
+     *
+     * @param days  the sales by day
+     * @param lines the lines
+     * @param from  the index of the first line of the order
+     * @param to    the index after the last line of the order
+     */
+    private static void addOrder(
+            final Map<LocalDate, DailySales> days,
+            final List<SalesLine> lines,
+            final int from,
+            final int to) {
+        SalesLine first = lines.get(from);
+        BigDecimal cost = first.cost();
+        DailySales day = days.computeIfAbsent(
+                first.orderDate().toLocalDateTime().toLocalDate(), key -> new DailySales());
+        day.addOrder(cost);
+        if (first.certificateId() == null) {
+            return;
+        }
+        BigDecimal prices = BigDecimal.ZERO;
+        for (int i = from; i < to; i++) {
+            prices = prices.add(price(lines.get(i)));
+        }
+        BigDecimal allocated = BigDecimal.ZERO;
+        for (int i = from; i < to; i++) {
+            BigDecimal share;
+            if (i == to - 1) {
+                share = cost.subtract(allocated);
+            } else if (prices.signum() == 0) {
+                share = cost.divide(BigDecimal.valueOf(to - from), cost.scale(), RoundingMode.HALF_EVEN);
+            } else {
+                share = cost.multiply(price(lines.get(i)))
+                        .divide(prices, cost.scale(), RoundingMode.HALF_EVEN);
+            }
+            allocated = allocated.add(share);
+            day.addLine(lines.get(i).certificateId(), share);
+        }
+    }
+
+    private static BigDecimal price(final SalesLine line) {
+        return line.price() == null ? BigDecimal.ZERO : line.price();
+    }
+
+    /**
+     * Aggregates a range of lines starting and ending at order boundaries.
+     */
+    private static final class Chunk extends RecursiveTask<Map<LocalDate, DailySales>> {
+        private final transient List<SalesLine> lines;
+        private final int from;
+        private final int to;
+
+        Chunk(final List<SalesLine> lines, final int from, final int to) {
+            this.lines = lines;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<LocalDate, DailySales> compute() {
+            if (to - from > LEAF_LINES) {
+                int middle = (from + to) >>> 1;
+                while (middle < to && lines.get(middle).orderId()
+                        .equals(lines.get(middle - 1).orderId())) {
+                    middle++;
+                }
+                if (middle < to) {
+                    Chunk left = new Chunk(lines, from, middle);
+                    left.fork();
+                    Map<LocalDate, DailySales> right = new Chunk(lines, middle, to).compute();
+                    return merge(left.join(), right);
+                }
+            }
+            Map<LocalDate, DailySales> days = new HashMap<>();
+            int start = from;
+            for (int i = from + 1; i <= to; i++) {
+                if (i == to || !lines.get(i).orderId().equals(lines.get(start).orderId())) {
+                    addOrder(days, lines, start, i);
+                    start = i;
+                }
+            }
+            return days;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.store.gift.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Daily sales kept for the analytics.
+ * <p>
+ * Only the sales of settled days are cached: days that ended longer than
+ * the settle time ago, so that orders committed late, or replicated late,
+ * are not missed. New orders fall on the current day and leave the cache
+ * valid; changes to past orders invalidate it. The time to live bounds the
+ * staleness caused by writes that bypass the services.
+ */
+@Component
+public class SalesCache {
+    /**
+     * The cached sales and the time they expire at.
+     *
+     * @param sales     the sales of the day
+     * @param expiresAt the expiration time in milliseconds
+     */
+    private record Entry(DailySales sales, long expiresAt) {
+    }
+
+    private final long ttl;
+    private final long settle;
+    private final int maxDays;
+    private final Map<LocalDate, Entry> days = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates the cache of daily sales.
+     *
+     * @param ttl     the time to live of the sales of a day in milliseconds
+     * @param settle  the time after the end of a day its sales are cached from, in milliseconds
+     * @param maxDays the maximum number of cached days
+     */
+    public SalesCache(
+            @Value("${analytics.cache.ttl:3600000}") final long ttl,
+            @Value("${analytics.cache.settle:300000}") final long settle,
+            @Value("${analytics.cache.max-days:3660}") final int maxDays) {
+        this.ttl = ttl;
+        this.settle = settle;
+        this.maxDays = maxDays;
+    }
+
+    /**
+     * Returns the version of the cache, to be read before the sales are scanned.
+     *
+     * @return the version
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached sales of a day.
+     *
+     * @param day the day
+     * @return the sales of the day, or empty if not cached
+     */
+    Optional<DailySales> get(final LocalDate day) {
+        Entry entry = days.get(day);
+        if (entry == null || entry.expiresAt() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.sales());
+    }
+
+    /**
+     * Caches the scanned sales of the settled days, unless
+     * the cache was invalidated since the version was read.
+     *
+     * @param sales   the sales by day, left unchanged afterwards
+     * @param version the version read before the scan
+     * @param now     the time the scan started at
+     */
+    void put(
+            final Map<LocalDate, DailySales> sales,
+            final long version,
+            final LocalDateTime now) {
+        long expiresAt = System.currentTimeMillis() + ttl;
+        LocalDateTime settled = now.minusNanos(settle * 1_000_000);
+        sales.forEach((day, daily) -> {
+            if (day.plusDays(1).atStartOfDay().isAfter(settled)) {
+                return;
+            }
+            if (days.size() >= maxDays) {
+                days.clear();
+            }
+            days.put(day, new Entry(daily, expiresAt));
+        });
+        if (version != generation.get()) {
+            days.keySet().removeAll(sales.keySet());
+        }
+    }
+
+    /**
+     * Invalidates the cached sales after a change to past orders.
+     * <p>
+     * Within a transaction the sales are invalidated again on completion,
+     * so sales scanned before the commit are not cached.
+     */
+    public void invalidate() {
+        evict();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(final int status) {
+                            evict();
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Removes all cached sales, sales being scanned
+     * concurrently are not cached.
+     */
+    private void evict() {
+        generation.incrementAndGet();
+        days.clear();
+    }
+}
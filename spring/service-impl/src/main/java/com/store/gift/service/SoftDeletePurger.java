@@ -0,0 +1,200 @@
+package com.store.gift.service;
+
+import com.store.gift.dao.CertificateDao;
+import com.store.gift.dao.UserDao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Purges the soft-deleted certificates and users in the background.
+ * <p>
+ * Every interval, within the off-peak window, the flagged rows are deleted
+ * with their dependent rows in small batches, each batch in a transaction
+ * of its own, pausing between the batches so that the purge does not hold
+ * locks or connections needed by the requests. A run stops after a maximum
+ * number of batches; the next run goes on where it stopped.
+ * <p>
+ * The purged rows, the failed batches and the time of every batch are
+ * published as the {@code store.purge.*} meters.
+ */
+@Slf4j
+@Component
+public class SoftDeletePurger implements DisposableBean {
+    private static final String CERTIFICATES = "certificates";
+    private static final String USERS = "users";
+
+    private final CertificateDao certificateDao;
+    private final UserDao userDao;
+    private final CountCache counts;
+    private final SalesCache sales;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long pause;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+    private final MeterRegistry registry;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the purger and schedules its runs when enabled.
+     *
+     * @param certificateDao the DAO of the certificates
+     * @param userDao        the DAO of the users
+     * @param counts         the totals of the paged listings
+     * @param sales          the cached daily sales
+     * @param batchSize      the number of rows purged in one transaction
+     * @param maxBatches     the maximum number of batches of a run
+     * @param pause          the pause between two batches in milliseconds
+     * @param interval       the time between the runs in milliseconds, not scheduled if not positive
+     * @param windowStart    the start of the off-peak window, as HH:mm
+     * @param windowEnd      the end of the off-peak window, as HH:mm, the window is the whole day if equal to the start
+     * @param meterRegistry  the optional registry for the purge metrics
+     */
+    public SoftDeletePurger(
+            final CertificateDao certificateDao,
+            final UserDao userDao,
+            final CountCache counts,
+            final SalesCache sales,
+            @Value("${deletes.purge.batch-size:100}") final int batchSize,
+            @Value("${deletes.purge.max-batches:100}") final int maxBatches,
+            @Value("${deletes.purge.pause:500}") final long pause,
+            @Value("${deletes.purge.interval:0}") final long interval,
+            @Value("${deletes.purge.window-start:00:00}") final String windowStart,
+            @Value("${deletes.purge.window-end:00:00}") final String windowEnd,
+            final ObjectProvider<MeterRegistry> meterRegistry) {
+        this.certificateDao = certificateDao;
+        this.userDao = userDao;
+        this.counts = counts;
+        this.sales = sales;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatches = Math.max(1, maxBatches);
+        this.pause = Math.max(0, pause);
+        this.windowStart = LocalTime.parse(windowStart);
+        this.windowEnd = LocalTime.parse(windowEnd);
+        this.registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        if (interval <= 0) {
+            scheduler = null;
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "soft-delete-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Purges the soft-deleted rows if the current time is off-peak.
+     */
+    void run() {
+        if (!isOffPeak(LocalTime.now())) {
+            return;
+        }
+        try {
+            purge();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Purging the soft-deleted rows failed", e);
+        }
+    }
+
+    /**
+     * Tells whether a time falls within the off-peak window,
+     * which may span midnight.
+     *
+     * @param time the time
+     * @return true if the rows may be purged at the time
+     */
+    boolean isOffPeak(final LocalTime time) {
+        if (windowStart.equals(windowEnd)) {
+            return true;
+        }
+        return windowStart.isBefore(windowEnd)
+                ? !time.isBefore(windowStart) && time.isBefore(windowEnd)
+                : !time.isBefore(windowStart) || time.isBefore(windowEnd);
+    }
+
+    /**
+     * Purges the soft-deleted certificates, then the soft-deleted users,
+     * batch by batch, up to the maximum number of batches.
+     *
+     * @return the number of purged rows
+     * @throws InterruptedException if interrupted while pausing
+     */
+    long purge() throws InterruptedException {
+        long purged = 0;
+        int batches = 0;
+        for (String entity : new String[]{CERTIFICATES, USERS}) {
+            IntFunction<Set<Long>> batch = CERTIFICATES.equals(entity)
+                    ? certificateDao::purgeDeleted
+                    : userDao::purgeDeleted;
+            int size = batchSize;
+            while (size == batchSize && batches < maxBatches) {
+                if (batches++ > 0 && pause > 0) {
+                    Thread.sleep(pause);
+                }
+                size = purgeBatch(entity, batch);
+                purged += size;
+            }
+        }
+        return purged;
+    }
+
+    private int purgeBatch(
+            final String entity,
+            final IntFunction<Set<Long>> batch) {
+        Timer.Sample sample = Timer.start(registry);
+        Set<Long> purged;
+        try {
+            purged = batch.apply(batchSize);
+        } catch (RuntimeException e) {
+            Counter.builder("store.purge.failures")
+                    .tag("entity", entity)
+                    .register(registry)
+                    .increment();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("store.purge.batch")
+                    .tag("entity", entity)
+                    .register(registry));
+        }
+        if (!purged.isEmpty()) {
+            Counter.builder("store.purge.rows")
+                    .tag("entity", entity)
+                    .register(registry)
+                    .increment(purged.size());
+            if (USERS.equals(entity)) {
+                counts.invalidate(CountCache.ORDERS);
+            }
+            sales.invalidate();
+            log.debug("Purged {} soft-deleted {}", purged.size(), entity);
+        }
+        return purged.size();
+    }
+
+    /**
+     * Stops the scheduled runs.
+     */
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
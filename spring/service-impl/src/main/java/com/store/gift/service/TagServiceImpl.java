@@ -1,7 +1,10 @@
 package com.store.gift.service;
 
 import com.store.gift.dao.TagDao;
+import com.store.gift.dto.DeleteReport;
 import com.store.gift.dto.TagDto;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import com.store.gift.entity.Tag;
 import com.store.gift.exception.TagAlreadyExistsException;
 import com.store.gift.exception.TagNotFoundException;
@@ -9,8 +12,10 @@ import com.store.gift.mapper.TagMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
@@ -31,6 +36,11 @@ public class TagServiceImpl implements TagService {
      */
     private final TagMapper tagMapper;
 
+    /**
+     * The chunked transactions of the batch deletes.
+     */
+    private final BatchDeleter batchDeleter;
+
     /**
      * The error message used when a tag is not found.
      */
@@ -91,6 +101,22 @@ public class TagServiceImpl implements TagService {
                 .toList();
     }
 
+    /**
+     * Retrieves tags with keyset pagination.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the pagination information
+     * @return the page of tag DTOs with the adjacent cursors
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<TagDto> getAll(
+            final Cursor cursor,
+            final Pageable pageable) {
+        return tagDao.getAllBy(cursor, pageable)
+                .map(tagMapper::toDto);
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -123,4 +149,18 @@ public class TagServiceImpl implements TagService {
         Objects.requireNonNull(id, "Id should not be null");
         tagDao.delete(id);
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Runs outside of a transaction, every chunk commits on its own.
+     *
+     * @param ids the IDs of the tags to delete
+     * @return the report with the outcome of every ID
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DeleteReport deleteAll(final Collection<Long> ids) {
+        return batchDeleter.delete(ids, tagDao::deleteAll);
+    }
 }
@@ -0,0 +1,86 @@
+package com.store.gift.service;
+
+import com.store.gift.dao.OrderDao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Backfill and consistency check of the per-user tag spending
+ * behind the most used tag of a user.
+ * <p>
+ * The spending is kept up to date as orders change. Orders written
+ * around the DAOs, as by the seed scripts or before the spending was
+ * kept, are counted by a backfill, run once at startup when
+ * {@code orders.tag-spend.backfill} is set. With {@code orders.tag-spend.check}
+ * the spending is compared to the orders at startup instead, and
+ * the users that drifted are rebuilt.
+ */
+@Slf4j
+@Component
+public class TagSpendMaintenance implements ApplicationRunner {
+    private final OrderDao orderDao;
+    private final boolean backfill;
+    private final boolean check;
+
+    /**
+     * Creates the maintenance of the tag spending.
+     *
+     * @param orderDao the DAO of the orders and their tag spending
+     * @param backfill whether the spending is rebuilt at startup
+     * @param check    whether the spending is checked at startup
+     */
+    public TagSpendMaintenance(
+            final OrderDao orderDao,
+            @Value("${orders.tag-spend.backfill:false}") final boolean backfill,
+            @Value("${orders.tag-spend.check:false}") final boolean check) {
+        this.orderDao = orderDao;
+        this.backfill = backfill;
+        this.check = check;
+    }
+
+    /**
+     * Runs the backfill or the check when enabled.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (backfill) {
+            backfill();
+        } else if (check) {
+            check();
+        }
+    }
+
+    /**
+     * Rebuilds the tag spending of all users from their orders.
+     *
+     * @return the number of tag spending rows written
+     */
+    public int backfill() {
+        int rows = orderDao.rebuildTagSpend();
+        log.info("Backfilled {} tag spending rows", rows);
+        return rows;
+    }
+
+    /**
+     * Compares the tag spending to the orders
+     * and rebuilds the users whose spending drifted.
+     *
+     * @return the IDs of the users whose spending was rebuilt
+     */
+    public List<Long> check() {
+        List<Long> stale = orderDao.findUsersWithStaleTagSpend();
+        if (!stale.isEmpty()) {
+            log.warn("Tag spending of {} users drifted from their orders, rebuilding {}",
+                    stale.size(), stale);
+            orderDao.rebuildTagSpend(stale);
+        }
+        return stale;
+    }
+}
@@ -1,19 +1,24 @@
 package com.store.gift.service;
 
 import com.store.gift.dao.UserDao;
+import com.store.gift.dto.DeleteReport;
 import com.store.gift.dto.UserDto;
 import com.store.gift.dto.UserSlimDto;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
 import com.store.gift.entity.User;
 import com.store.gift.exception.UserNotFoundException;
 import com.store.gift.mapper.UserMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -29,6 +34,9 @@ public class UserServiceImpl implements UserService {
 
     private final UserDao userDao;
     private final UserMapper mapper;
+    private final CountCache counts;
+    private final SalesCache sales;
+    private final BatchDeleter batchDeleter;
 
     /**
      * Get a user DTO by ID.
@@ -60,6 +68,8 @@ public class UserServiceImpl implements UserService {
 
     /**
      * Get all users with pagination.
+     * <p>
+     * The total is counted only when it cannot be derived from the page.
      *
      * @param pageable the pageable information
      * @return the page of user DTOs
@@ -69,7 +79,24 @@ public class UserServiceImpl implements UserService {
     public Page<UserDto> getAll(final Pageable pageable) {
         List<UserDto> dtos = mapper.toDtoList(
                 userDao.getAllBy(pageable));
-        return new PageImpl<>(dtos, pageable, dtos.size());
+        return PageableExecutionUtils.getPage(dtos, pageable,
+                () -> counts.count(CountCache.USERS, null, userDao::count));
+    }
+
+    /**
+     * Get users with keyset pagination.
+     *
+     * @param cursor   the position to seek from, or null for the first page
+     * @param pageable the pageable information
+     * @return the page of user DTOs with the adjacent cursors
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> getAll(
+            final Cursor cursor,
+            final Pageable pageable) {
+        return userDao.getAllBy(cursor, pageable)
+                .map(mapper::toDto);
     }
 
     /**
@@ -84,6 +111,7 @@ public class UserServiceImpl implements UserService {
             final UserSlimDto dto) {
         User user = userDao.save(
                 mapper.toEntity(dto));
+        counts.invalidate(CountCache.USERS);
         return mapper.toDto(user);
     }
 
@@ -103,7 +131,8 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Deletes a user by ID.
+     * Deletes a user by ID, or flags the user as deleted
+     * in the soft delete mode.
      *
      * @param id The ID of the user to delete.
      */
@@ -111,6 +140,33 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void delete(
             final Long id) {
-        userDao.delete(id);
+        if (batchDeleter.soft()) {
+            userDao.softDeleteAll(List.of(id));
+        } else {
+            userDao.delete(id);
+        }
+        counts.invalidate(CountCache.USERS);
+        counts.invalidate(CountCache.ORDERS);
+        sales.invalidate();
+    }
+
+    /**
+     * Deletes users by ID in chunked transactions.
+     * <p>
+     * Runs outside of a transaction, every chunk commits on its own.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return The report with the outcome of every ID.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DeleteReport deleteAll(final Collection<Long> ids) {
+        return batchDeleter.delete(ids, batchDeleter.soft()
+                ? userDao::softDeleteAll
+                : userDao::deleteAll, deleted -> {
+            counts.invalidate(CountCache.USERS);
+            counts.invalidate(CountCache.ORDERS);
+            sales.invalidate();
+        });
     }
 }
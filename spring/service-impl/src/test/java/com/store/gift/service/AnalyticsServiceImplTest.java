@@ -0,0 +1,135 @@
+package com.store.gift.service;
+
+import com.store.gift.dao.SalesDao;
+import com.store.gift.dto.CertificateSalesDto;
+import com.store.gift.dto.Granularity;
+import com.store.gift.dto.RevenueDto;
+import com.store.gift.dto.TagRevenueDto;
+import com.store.gift.entity.SalesLine;
+import com.store.gift.exception.InvalidReportException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AnalyticsServiceImplTest {
+    private static final LocalDate JANUARY = LocalDate.of(2023, 1, 31);
+    private static final LocalDate FEBRUARY = LocalDate.of(2023, 2, 1);
+
+    @Mock
+    private SalesDao salesDao;
+    private SalesAggregator aggregator;
+    private SalesCache cache;
+    private AnalyticsServiceImpl service;
+
+    private static SalesLine line(
+            final long orderId,
+            final LocalDate day,
+            final String cost,
+            final long certificateId) {
+        return new SalesLine(orderId, Timestamp.valueOf(day.atTime(10, 0)),
+                new BigDecimal(cost), certificateId, new BigDecimal(cost));
+    }
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new SalesAggregator(2, 100);
+        cache = new SalesCache(60_000, 0, 100);
+        service = new AnalyticsServiceImpl(salesDao, aggregator, cache);
+        when(salesDao.streamLines(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> Stream.of(
+                                line(1, JANUARY, "10.00", 1),
+                                line(2, FEBRUARY, "4.00", 2),
+                                line(3, FEBRUARY, "10.00", 1))
+                        .filter(line -> !line.orderDate().toLocalDateTime()
+                                .isBefore(invocation.getArgument(0, LocalDateTime.class)))
+                        .filter(line -> line.orderDate().toLocalDateTime()
+                                .isBefore(invocation.getArgument(1, LocalDateTime.class))));
+    }
+
+    @AfterEach
+    void close() {
+        aggregator.destroy();
+    }
+
+    @Test
+    @DisplayName("Given orders of two months, when the monthly revenue is read, then every month is reported")
+    void testRevenueByMonth() {
+        List<RevenueDto> revenue = service.revenue(JANUARY.minusDays(30), FEBRUARY.plusDays(27), Granularity.MONTH);
+        assertEquals(List.of(JANUARY.withDayOfMonth(1), FEBRUARY),
+                revenue.stream().map(RevenueDto::getPeriod).toList());
+        assertEquals(List.of(1L, 2L), revenue.stream().map(RevenueDto::getOrders).toList());
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("14.00")),
+                revenue.stream().map(RevenueDto::getRevenue).toList());
+    }
+
+    @Test
+    @DisplayName("Given settled days, when a range is read twice, then the orders are scanned once")
+    void testCachedDays() {
+        assertEquals(2, service.revenue(JANUARY, FEBRUARY, Granularity.DAY).size());
+        assertEquals(2, service.revenue(JANUARY, FEBRUARY, Granularity.DAY).size());
+        verify(salesDao, times(1)).streamLines(any(LocalDateTime.class), any(LocalDateTime.class));
+        service.revenue(JANUARY.minusDays(1), FEBRUARY.plusDays(1), Granularity.DAY);
+        verify(salesDao).streamLines(JANUARY.minusDays(1).atStartOfDay(), JANUARY.atStartOfDay());
+        verify(salesDao).streamLines(FEBRUARY.plusDays(1).atStartOfDay(), FEBRUARY.plusDays(2).atStartOfDay());
+        cache.invalidate();
+        service.revenue(JANUARY, FEBRUARY, Granularity.DAY);
+        verify(salesDao, times(2)).streamLines(JANUARY.atStartOfDay(), FEBRUARY.plusDays(1).atStartOfDay());
+    }
+
+    @Test
+    @DisplayName("Given sold certificates, when the top certificates are read, then they are ordered by lines")
+    void testTopCertificates() {
+        when(salesDao.findCertificateNames(List.of(1L))).thenReturn(Map.of(1L, "Massage"));
+        List<CertificateSalesDto> top = service.topCertificates(JANUARY, FEBRUARY, 1);
+        assertEquals(1, top.size());
+        assertEquals("Massage", top.get(0).getName());
+        assertEquals(2, top.get(0).getLines());
+        assertEquals(new BigDecimal("20.00"), top.get(0).getRevenue());
+    }
+
+    @Test
+    @DisplayName("Given tagged certificates, when the revenue by tag is read, then each line counts for its tags")
+    void testRevenueByTag() {
+        when(salesDao.findTagNames(anyCollection()))
+                .thenReturn(Map.of(1L, List.of("spa", "winter"), 2L, List.of("winter")));
+        List<TagRevenueDto> tags = service.revenueByTag(JANUARY, FEBRUARY);
+        assertEquals(List.of("winter", "spa"), tags.stream().map(TagRevenueDto::getName).toList());
+        assertEquals(List.of(new BigDecimal("24.00"), new BigDecimal("20.00")),
+                tags.stream().map(TagRevenueDto::getRevenue).toList());
+    }
+
+    @Test
+    @DisplayName("Given an invalid range or limit, when the analytics are read, then they are rejected")
+    void testInvalidArguments() {
+        assertThrows(InvalidReportException.class,
+                () -> service.revenue(FEBRUARY, JANUARY, Granularity.DAY));
+        assertThrows(InvalidReportException.class,
+                () -> service.revenue(JANUARY, JANUARY.plusYears(20), Granularity.DAY));
+        assertThrows(InvalidReportException.class,
+                () -> service.topCertificates(JANUARY, FEBRUARY, 0));
+    }
+}
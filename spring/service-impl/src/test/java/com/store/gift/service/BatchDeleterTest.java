@@ -0,0 +1,75 @@
+package com.store.gift.service;
+
+import com.store.gift.dto.DeleteOutcome;
+import com.store.gift.dto.DeleteReport;
+import com.store.gift.dto.DeleteStatus;
+import com.store.gift.exception.InvalidBatchException;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchDeleterTest {
+    private final Set<Long> existing = new HashSet<>(Set.of(1L, 2L, 3L, 5L));
+    private final List<List<Long>> chunks = new ArrayList<>();
+    private final List<Set<Long>> committed = new ArrayList<>();
+
+    private Set<Long> delete(final Collection<Long> ids) {
+        chunks.add(List.copyOf(ids));
+        if (ids.contains(3L)) {
+            throw new PersistenceException("Certificate 3 is locked");
+        }
+        Set<Long> deleted = new HashSet<>(ids);
+        deleted.retainAll(existing);
+        existing.removeAll(deleted);
+        return deleted;
+    }
+
+    @Test
+    @DisplayName("Given IDs over several chunks, when deleted, then every distinct ID has an outcome in order")
+    void testChunks() {
+        BatchDeleter deleter = new BatchDeleter(BatchDeleter.Mode.HARD, 2, 100, new FanOut(FanOut.Mode.PLATFORM, 1));
+        DeleteReport report = deleter.delete(List.of(1L, 2L, 2L, 4L, 5L), this::delete, committed::add);
+        assertEquals(List.of(List.of(1L, 2L), List.of(4L, 5L)), chunks);
+        assertEquals(List.of(Set.of(1L, 2L), Set.of(5L)), committed);
+        assertEquals(4, report.getRequested());
+        assertEquals(3, report.getDeleted());
+        assertEquals(1, report.getNotFound());
+        assertEquals(List.of(
+                new DeleteOutcome(1L, DeleteStatus.DELETED, null),
+                new DeleteOutcome(2L, DeleteStatus.DELETED, null),
+                new DeleteOutcome(4L, DeleteStatus.NOT_FOUND, null),
+                new DeleteOutcome(5L, DeleteStatus.DELETED, null)), report.getOutcomes());
+    }
+
+    @Test
+    @DisplayName("Given a failing ID, when its chunk fails, then the other IDs of the chunk are deleted one by one")
+    void testFailedChunk() {
+        BatchDeleter deleter = new BatchDeleter(BatchDeleter.Mode.HARD, 10, 100, new FanOut(FanOut.Mode.PLATFORM, 1));
+        DeleteReport report = deleter.delete(List.of(1L, 3L, 5L), this::delete, committed::add);
+        assertEquals(List.of(List.of(1L, 3L, 5L), List.of(1L), List.of(3L), List.of(5L)), chunks);
+        assertEquals(2, report.getDeleted());
+        assertEquals(1, report.getFailed());
+        assertEquals(new DeleteOutcome(3L, DeleteStatus.FAILED, "Certificate 3 is locked"),
+                report.getOutcomes().get(1));
+    }
+
+    @Test
+    @DisplayName("Given no IDs or too many IDs, when deleted, then the batch is rejected")
+    void testLimits() {
+        BatchDeleter deleter = new BatchDeleter(BatchDeleter.Mode.HARD, 10, 2, new FanOut(FanOut.Mode.PLATFORM, 1));
+        assertThrows(InvalidBatchException.class,
+                () -> deleter.delete(List.of(), this::delete));
+        assertThrows(InvalidBatchException.class,
+                () -> deleter.delete(List.of(1L, 2L, 5L), this::delete));
+        assertEquals(List.of(), chunks);
+    }
+}
@@ -0,0 +1,86 @@
+package com.store.gift.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.store.gift.dao.CertificateDao;
+import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.ImportFormat;
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Tag;
+import com.store.gift.mapper.CertificateMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CertificateExportServiceTest {
+    @Mock
+    private CertificateDao certificateDao;
+    @Mock
+    private CertificateMapper mapper;
+    private CertificateExportService service;
+    private final List<Certificate> certificates = List.of(
+            Certificate.builder().id(1L).name("Winter").description("Snow, ice and \"fun\"")
+                    .price(new BigDecimal("10.00")).duration(30).build()
+                    .addTag(Tag.builder().name("season").build())
+                    .addTag(Tag.builder().name("cold").build()),
+            Certificate.builder().id(2L).name("Spring").description("Two\nlines")
+                    .price(BigDecimal.ONE).duration(60).build());
+
+    @BeforeEach
+    void setUp() {
+        service = new CertificateExportServiceImpl(certificateDao, mapper, new ObjectMapper());
+        when(certificateDao.streamAll(any())).thenAnswer(invocation -> {
+            certificates.forEach(invocation.<Consumer<Certificate>>getArgument(0));
+            return (long) certificates.size();
+        });
+    }
+
+    private String export(final ImportFormat format) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals(2, service.exportCertificates(output, format));
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Given certificates, when exported as CSV, then the rows read back as they were written")
+    void testExportCsv() {
+        CsvReader csv = new CsvReader(new BufferedReader(new StringReader(export(ImportFormat.CSV))));
+
+        assertEquals(CertificateExportServiceImpl.CSV_HEADER, csv.next());
+        assertEquals(List.of("Winter", "Snow, ice and \"fun\"", "", "", "10.00", "30", "", "cold|season"),
+                csv.next());
+        assertEquals(List.of("Spring", "Two\nlines", "", "", "1", "60", "", ""), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    @DisplayName("Given certificates, when exported as NDJSON, then every certificate is one line")
+    void testExportNdjson() throws Exception {
+        when(mapper.toDto(any(Certificate.class))).thenAnswer(invocation -> {
+            Certificate certificate = invocation.getArgument(0);
+            return CertificateDto.builder().id(certificate.getId()).name(certificate.getName()).build();
+        });
+        String[] lines = export(ImportFormat.NDJSON).split("\n");
+
+        assertEquals(2, lines.length);
+        ObjectMapper json = new ObjectMapper();
+        assertEquals("Winter", json.readValue(lines[0], CertificateDto.class).getName());
+        assertEquals(2L, json.readValue(lines[1], CertificateDto.class).getId());
+    }
+}
@@ -0,0 +1,153 @@
+package com.store.gift.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.store.gift.dao.CertificateDao;
+import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.ImportError;
+import com.store.gift.dto.ImportFormat;
+import com.store.gift.dto.ImportReport;
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Tag;
+import com.store.gift.mapper.CertificateMapper;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CertificateImportServiceTest {
+    @Mock
+    private CertificateDao certificateDao;
+    @Mock
+    private CertificateMapper mapper;
+    @Mock
+    private CertificateSearchIndex searchIndex;
+    private CertificateImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CertificateImportServiceImpl(certificateDao, mapper, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), searchIndex);
+        lenient().when(mapper.toEntity(any(CertificateDto.class))).thenAnswer(invocation -> {
+            CertificateDto dto = invocation.getArgument(0);
+            Certificate certificate = Certificate.builder()
+                    .id(dto.getId())
+                    .name(dto.getName())
+                    .description(dto.getDescription())
+                    .build();
+            dto.getTags().forEach(tag -> certificate.addTag(Tag.builder().name(tag.getName()).build()));
+            return certificate;
+        });
+        lenient().when(certificateDao.findExistingNames(anySet())).thenReturn(Set.of("Existing"));
+    }
+
+    private InputStream input(final String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Given a CSV input, when it is imported, then valid rows are saved and invalid rows are reported")
+    void testImportCsv() {
+        String csv = """
+                name,price,duration,tags,description
+                Winter,10.00,30,season|cold,"Snow, ice and ""fun""\"
+                Existing,10.00,30,,Taken
+                Summer,abc,30,,Broken price
+
+                ,20.00,45,,No name
+                Spring,30.00,60,season,"Two
+                lines"
+                """;
+        ImportReport report = service.importCertificates(input(csv), ImportFormat.CSV);
+
+        assertEquals(5, report.getRows());
+        assertEquals(2, report.getImported());
+        assertEquals(3, report.getFailed());
+        assertEquals(List.of(3L, 4L, 2L), report.getErrors().stream().map(ImportError::getRow).toList());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Certificate>> saved = ArgumentCaptor.forClass(List.class);
+        verify(certificateDao).saveAll(saved.capture());
+        assertEquals(List.of("Winter", "Spring"), saved.getValue().stream().map(Certificate::getName).toList());
+        assertEquals("Snow, ice and \"fun\"", captured(saved, "Winter").getDescription());
+        assertEquals(Set.of("season", "cold"), captured(saved, "Winter").getTags().stream()
+                .map(Tag::getName).collect(Collectors.toSet()));
+    }
+
+    @Test
+    @DisplayName("Given an NDJSON input, when it is imported, then malformed lines are reported by line number")
+    void testImportNdjson() {
+        String ndjson = """
+                {"id":99,"name":"Winter","price":10.00,"duration":30,"tags":[{"name":"season"}]}
+                {"name":"Summer",
+                {"name":"Winter","price":20.00,"duration":30,"tags":[]}
+                """;
+        ImportReport report = service.importCertificates(input(ndjson), ImportFormat.NDJSON);
+
+        assertEquals(3, report.getRows());
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(2L, 3L), report.getErrors().stream().map(ImportError::getRow).toList());
+    }
+
+    @Test
+    @DisplayName("Given an NDJSON line longer than a record, when it is imported, then it is reported and the next line is read")
+    void testImportNdjsonLongLine() {
+        String ndjson = "{\"name\":\"" + "x".repeat(CsvReader.MAX_RECORD_LENGTH) + "\"}\r\n"
+                + "{\"name\":\"Winter\",\"price\":10.00,\"duration\":30,\"tags\":[]}\r\n";
+        ImportReport report = service.importCertificates(input(ndjson), ImportFormat.NDJSON);
+
+        assertEquals(2, report.getRows());
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(new ImportError(1, "Record exceeds " + CsvReader.MAX_RECORD_LENGTH + " characters")),
+                report.getErrors());
+    }
+
+    @Test
+    @DisplayName("Given a batch that fails, when it is imported, then rows are saved one by one")
+    void testImportBatchFailure() {
+        doAnswer(invocation -> {
+            List<Certificate> certificates = invocation.getArgument(0);
+            if (certificates.size() > 1 || "Broken".equals(certificates.get(0).getName())) {
+                throw new PersistenceException("constraint violation");
+            }
+            return certificates;
+        }).when(certificateDao).saveAll(anyList());
+        String csv = "name,price,duration\nWinter,1,1\nBroken,1,1\nSummer,1,1\n";
+
+        ImportReport report = service.importCertificates(input(csv), ImportFormat.CSV);
+
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(new ImportError(2, "constraint violation")), report.getErrors());
+        verify(certificateDao, times(4)).saveAll(anyList());
+        verify(searchIndex, times(2)).index(any(Certificate.class));
+    }
+
+    private static Certificate captured(
+            final ArgumentCaptor<List<Certificate>> captor,
+            final String name) {
+        return captor.getValue().stream()
+                .filter(certificate -> name.equals(certificate.getName()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,94 @@
+package com.store.gift.service;
+
+import com.store.gift.dao.CertificateDao;
+import com.store.gift.entity.Certificate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CertificateSearchIndexTest {
+    @Mock
+    private CertificateDao certificateDao;
+    private CertificateSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CertificateSearchIndex(certificateDao);
+        lenient().when(certificateDao.findTextAfter(isNull(), anyInt())).thenReturn(List.of(
+                certificate(1L, "Winter spa", "A relaxing day in the sauna"),
+                certificate(2L, "Ski pass", "Winter season on the slopes"),
+                certificate(3L, "Café tour", "Coffee tasting for two")));
+    }
+
+    private static Certificate certificate(
+            final Long id,
+            final String name,
+            final String description) {
+        return Certificate.builder().id(id).name(name).description(description).build();
+    }
+
+    @Test
+    @DisplayName("Given a text, when it is tokenized, then terms are folded to lower case without diacritics")
+    void testTokenize() {
+        assertEquals(List.of("cafe", "creme", "brulee", "2x"),
+                CertificateSearchIndex.tokenize("Café-Crème  brûlée, 2x!"));
+        assertEquals(List.of(), CertificateSearchIndex.tokenize(null));
+    }
+
+    @Test
+    @DisplayName("Given a term in a name and a description, when searched, then the name match ranks first")
+    void testRanking() {
+        assertEquals(new CertificateSearchIndex.Hits(List.of(1L, 2L), 2),
+                index.search("WINTER", 0, 10));
+    }
+
+    @Test
+    @DisplayName("Given an incomplete word, when searched, then terms starting with it match")
+    void testPrefix() {
+        assertEquals(List.of(1L), index.search("sau", 0, 10).ids());
+        assertEquals(List.of(3L), index.search("cafe coff", 0, 10).ids());
+        assertEquals(List.of(), index.search("s", 0, 10).ids());
+    }
+
+    @Test
+    @DisplayName("Given several words, when searched, then only certificates containing all of them match")
+    void testAllWords() {
+        assertEquals(List.of(2L), index.search("winter slopes", 0, 10).ids());
+        assertEquals(0, index.search("winter coffee", 0, 10).total());
+    }
+
+    @Test
+    @DisplayName("Given a page beyond the first, when searched, then the total counts all matches")
+    void testPaging() {
+        CertificateSearchIndex.Hits hits = index.search("winter", 1, 1);
+        assertEquals(List.of(2L), hits.ids());
+        assertEquals(2, hits.total());
+    }
+
+    @Test
+    @DisplayName("Given a loaded index, when certificates change, then the index is updated without reloading")
+    void testIncrementalUpdates() {
+        index.search("winter", 0, 10);
+        index.index(certificate(2L, "Summer pass", "Beach season"));
+        index.index(certificate(4L, "Winter cabin", "Mountain weekend"));
+        index.remove(1L);
+
+        assertEquals(List.of(4L), index.search("winter", 0, 10).ids());
+        assertEquals(List.of(2L), index.search("beach", 0, 10).ids());
+        assertEquals(0, index.search("sauna", 0, 10).total());
+        verify(certificateDao, times(1)).findTextAfter(isNull(), anyInt());
+    }
+}
@@ -31,7 +31,9 @@ class CertificateServiceExceptionTest {
     @Mock
     private TagMapper tagMapper = mock(TagMapper.class);
     @InjectMocks
-    private CertificateService service = new CertificateServiceImpl(dao, mapper, tagMapper);
+    private CertificateService service = new CertificateServiceImpl(dao, mapper, tagMapper,
+            mock(CertificateSearchIndex.class), mock(SalesCache.class),
+            new BatchDeleter(BatchDeleter.Mode.HARD, 500, 10_000, new FanOut(FanOut.Mode.PLATFORM, 1)));
     private static final String message = "An error occurred";
 
     @Test
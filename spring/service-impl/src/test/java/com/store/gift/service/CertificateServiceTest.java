@@ -56,6 +56,10 @@ class CertificateServiceTest {
     private CertificateMapper certificateMapper = mock(CertificateMapper.class);
     @Mock
     private TagMapper tagMapper = mock(TagMapper.class);
+    @Mock
+    private CertificateSearchIndex searchIndex = mock(CertificateSearchIndex.class);
+    @Mock
+    private SalesCache sales = mock(SalesCache.class);
     @InjectMocks
     private CertificateService service;
     public List<Certificate> certificates;
@@ -77,7 +81,8 @@ class CertificateServiceTest {
     @BeforeEach
     public void setUp() {
         pageable = PageRequest.of(0, 25, Sort.by("name").ascending());
-        service = new CertificateServiceImpl(certificateDao, certificateMapper, tagMapper);
+        service = new CertificateServiceImpl(certificateDao, certificateMapper, tagMapper, searchIndex, sales,
+                new BatchDeleter(BatchDeleter.Mode.HARD, 500, 10_000, new FanOut(FanOut.Mode.PLATFORM, 1)));
         certificate = Certificate.builder().id(1L).name("Gift").name("Certificate").build();
         certificateDto = CertificateDto.builder()
                 .id(1L).name("Test Certificate")
@@ -188,10 +193,11 @@ class CertificateServiceTest {
     @DisplayName("Given a pageable object, when findAllWithPageable is called, then return the paginated result")
     void testGetAll(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        when(certificateDao.getAllBy(pageable)).thenReturn(expectedCertificates);
-        List<CertificateDto> actualCertificates = service.getCertificates(pageable);
-        assertEquals(certificateMapper.toDtoList(expectedCertificates), actualCertificates);
-        verify(certificateDao).getAllBy(pageable);
+        when(certificateDao.findListingBy(pageable)).thenReturn(slimDtos);
+        List<CertificateSlimDto> actualCertificates = service.getCertificates(pageable);
+        assertEquals(slimDtos, actualCertificates);
+        verify(certificateDao).findListingBy(pageable);
+        verify(certificateDao, times(0)).getAllBy(pageable);
     }
 
     @ParameterizedTest(name = "Test #{index} - Certificate ID: {0}")
@@ -254,6 +260,7 @@ class CertificateServiceTest {
         when(certificateMapper.toDto(certificate)).thenReturn(certificateDto);
         service.delete(id);
         verify(certificateDao).delete(id);
+        verify(searchIndex).remove(id);
     }
 
     @ParameterizedTest
@@ -261,12 +268,9 @@ class CertificateServiceTest {
     @DisplayName("Given no tags, when getAllCertificatesWithoutTags is called, then return all certificates without tags")
     void testGetAllCertificatesWithoutTags(String tagName, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, tagName));
-        when(certificateDao.getAllBy(pageable)).thenReturn(certificates);
-        when(certificateMapper.toCertificateSlimDto(certificates)).thenReturn(slimDtos);
-        List<CertificateDto> result = service.getCertificates(pageable);
-        result.forEach(dto -> assertThat(dto).isNotNull().isInstanceOf(CertificateDto.class));
-        when(certificateDao.getAllBy(pageable)).thenReturn(certificates);
-        when(certificateMapper.toCertificateSlimDto(certificates)).thenReturn(slimDtos);
+        when(certificateDao.findListingBy(pageable)).thenReturn(slimDtos);
+        List<CertificateSlimDto> result = service.getCertificates(pageable);
+        result.forEach(dto -> assertThat(dto).isNotNull().isInstanceOf(CertificateSlimDto.class));
         assertNotNull(result);
     }
 
@@ -430,15 +434,14 @@ class CertificateServiceTest {
     @Test
     @DisplayName("Given a Pageable object, when getCertificates method is called, then a list of CertificateDto is returned")
     void testGetCertificates() {
-        List<CertificateDto> certificateDtos = Arrays.asList(mock(CertificateDto.class), mock(CertificateDto.class));
-        when(certificateDao.getAllBy(pageable)).thenReturn(certificates);
-        when(certificateMapper.toDtoList(certificates)).thenReturn(certificateDtos);
-        List<CertificateDto> result = service.getCertificates(pageable);
-        assertThat(result).usingRecursiveComparison().isEqualTo(certificateDtos);
-        result.forEach(certificateDto -> assertThat(certificateDto).isNotNull().isInstanceOf(CertificateDto.class));
+        List<CertificateSlimDto> certificateDtos = Arrays.asList(
+                mock(CertificateSlimDto.class), mock(CertificateSlimDto.class));
+        when(certificateDao.findListingBy(pageable)).thenReturn(certificateDtos);
+        List<CertificateSlimDto> result = service.getCertificates(pageable);
+        result.forEach(certificateDto -> assertThat(certificateDto).isNotNull()
+                .isInstanceOf(CertificateSlimDto.class));
         assertSame(certificateDtos, result);
-        verify(certificateDao).getAllBy(pageable);
-        verify(certificateMapper).toDtoList(certificates);
+        verify(certificateDao).findListingBy(pageable);
     }
 
     @ParameterizedTest
@@ -491,6 +494,26 @@ class CertificateServiceTest {
         result.forEach(dto -> assertThat(dto).usingRecursiveComparison().isNotNull().isInstanceOf(CertificateDto.class));
     }
 
+    @Test
+    @DisplayName("Given a search query, when search is called, then return the indexed matches in rank order")
+    void testSearch() {
+        Pageable pageable = PageRequest.of(1, 2);
+        Certificate first = expectedCertificates.get(0);
+        Certificate second = expectedCertificates.get(1);
+        CertificateDto firstDto = CertificateDto.builder().id(1L).build();
+        CertificateDto secondDto = CertificateDto.builder().id(2L).build();
+        when(searchIndex.search("winter gift", 2, 2))
+                .thenReturn(new CertificateSearchIndex.Hits(List.of(2L, 3L, 1L), 5));
+        when(certificateDao.findAllByIds(Set.of(1L, 2L, 3L))).thenReturn(List.of(first, second));
+        when(certificateMapper.toDto(first)).thenReturn(firstDto);
+        when(certificateMapper.toDto(second)).thenReturn(secondDto);
+
+        Page<CertificateDto> result = service.search("winter gift", pageable);
+
+        assertEquals(List.of(secondDto, firstDto), result.getContent());
+        assertEquals(5, result.getTotalElements());
+    }
+
     @Test
     @DisplayName("Given a valid certificate ID, when getById is called, then return the corresponding CertificateDto")
     void testGetById() {
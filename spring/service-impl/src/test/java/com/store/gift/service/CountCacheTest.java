@@ -0,0 +1,58 @@
+package com.store.gift.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CountCacheTest {
+    private final AtomicLong queries = new AtomicLong();
+
+    private long count() {
+        return queries.incrementAndGet();
+    }
+
+    @Test
+    @DisplayName("Given the exact mode, when totals are requested, then every total is counted")
+    void testExact() {
+        CountCache cache = new CountCache(CountCache.Mode.EXACT, 30_000, 100);
+        cache.count(CountCache.ORDERS, null, this::count);
+        cache.count(CountCache.ORDERS, null, this::count);
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    @DisplayName("Given the cached mode, when totals are requested, then each filter is counted once")
+    void testCached() {
+        CountCache cache = new CountCache(CountCache.Mode.CACHED, 30_000, 100);
+        assertEquals(1, cache.count(CountCache.ORDERS, null, this::count));
+        assertEquals(1, cache.count(CountCache.ORDERS, null, this::count));
+        assertEquals(2, cache.count(CountCache.ORDERS, 7L, this::count));
+        assertEquals(2, cache.count(CountCache.ORDERS, 7L, this::count));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    @DisplayName("Given cached totals, when a region is written, then only the totals of the region are counted again")
+    void testInvalidate() {
+        CountCache cache = new CountCache(CountCache.Mode.CACHED, 30_000, 100);
+        cache.count(CountCache.ORDERS, null, this::count);
+        cache.count(CountCache.ORDERS, 7L, this::count);
+        cache.count(CountCache.USERS, null, this::count);
+        cache.invalidate(CountCache.ORDERS);
+        assertEquals(4, cache.count(CountCache.ORDERS, null, this::count));
+        assertEquals(5, cache.count(CountCache.ORDERS, 7L, this::count));
+        assertEquals(3, cache.count(CountCache.USERS, null, this::count));
+    }
+
+    @Test
+    @DisplayName("Given an expired total, when it is requested, then it is counted again")
+    void testExpired() {
+        CountCache cache = new CountCache(CountCache.Mode.CACHED, 0, 100);
+        cache.count(CountCache.USERS, null, this::count);
+        cache.count(CountCache.USERS, null, this::count);
+        assertEquals(2, queries.get());
+    }
+}
@@ -0,0 +1,83 @@
+package com.store.gift.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutTest {
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String task(final int item) {
+        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.decrementAndGet();
+        }
+        return item + " " + SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
+    @ParameterizedTest
+    @EnumSource(FanOut.Mode.class)
+    @DisplayName("Given items, when fanned out, then the results keep their order within the concurrency limit")
+    void testMap(final FanOut.Mode mode) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+        FanOut fanOut = new FanOut(mode, 3);
+        try {
+            List<Integer> items = IntStream.range(0, 20).boxed().toList();
+            assertEquals(items.stream().map(item -> item + " alice").toList(), fanOut.map(items, this::task));
+            assertTrue(peak.get() <= 3);
+            assertNotEquals(1, peak.get());
+        } finally {
+            fanOut.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Given a failing task, when fanned out, then its failure is rethrown")
+    void testFailure() {
+        FanOut fanOut = new FanOut(FanOut.Mode.VIRTUAL, 2);
+        try {
+            IllegalArgumentException failure = assertThrows(IllegalArgumentException.class,
+                    () -> fanOut.map(List.of(1, 2, 3), item -> {
+                        if (item == 2) {
+                            throw new IllegalArgumentException("broken " + item);
+                        }
+                        return item;
+                    }));
+            assertEquals("broken 2", failure.getMessage());
+        } finally {
+            fanOut.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Given a concurrency of one, when fanned out, then the tasks run on the calling thread")
+    void testInline() {
+        Thread caller = Thread.currentThread();
+        assertEquals(List.of(true, true), new FanOut(FanOut.Mode.VIRTUAL, 1)
+                .map(List.of(1, 2), item -> Thread.currentThread() == caller));
+    }
+}
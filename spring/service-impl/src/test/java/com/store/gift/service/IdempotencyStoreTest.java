@@ -0,0 +1,149 @@
+package com.store.gift.service;
+
+import com.store.gift.exception.IdempotencyConflictException;
+import com.store.gift.exception.InvalidIdempotencyKeyException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTest {
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private String place() {
+        return "order " + runs.incrementAndGet();
+    }
+
+    @Test
+    @DisplayName("Given a repeated key, when executed, then the recorded result is replayed")
+    void testReplay() {
+        IdempotencyStore store = new IdempotencyStore(60_000, 10, 60_000);
+        IdempotencyStore.Outcome<String> first = store.execute("alice", "key", List.of(1L), this::place);
+        IdempotencyStore.Outcome<String> retry = store.execute("alice", "key", List.of(1L), this::place);
+        assertEquals("order 1", first.value());
+        assertFalse(first.replayed());
+        assertEquals(new IdempotencyStore.Outcome<>("order 1", true), retry);
+        assertEquals("order 2", store.execute("bob", "key", List.of(1L), this::place).value());
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> store.execute("alice", "key", List.of(2L), this::place));
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> store.execute("alice", " ", List.of(1L), this::place));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("Given concurrent duplicates, when executed, then they share the outcome of one run")
+    void testCoalesce() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(60_000, 10, 60_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<IdempotencyStore.Outcome<String>> first = executor.submit(() ->
+                    store.execute("alice", "key", List.of(1L), () -> {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return place();
+                    }));
+            started.await();
+            Future<IdempotencyStore.Outcome<String>> duplicate = executor.submit(() ->
+                    store.execute("alice", "key", List.of(1L), this::place));
+            release.countDown();
+            assertEquals("order 1", first.get().value());
+            assertEquals("order 1", duplicate.get().value());
+            assertTrue(duplicate.get().replayed());
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("Given a failed run, when the key is repeated, then the action runs again")
+    void testFailure() {
+        IdempotencyStore store = new IdempotencyStore(60_000, 10, 60_000);
+        assertThrows(IllegalStateException.class, () -> store.execute("alice", "key", List.of(1L), () -> {
+            throw new IllegalStateException("unavailable");
+        }));
+        assertEquals("order 1", store.execute("alice", "key", List.of(1L), this::place).value());
+    }
+
+    @Test
+    @DisplayName("Given a full or expired store, when executed, then the oldest results are dropped")
+    void testEviction() {
+        IdempotencyStore full = new IdempotencyStore(60_000, 2, 60_000);
+        full.execute("alice", "1", List.of(1L), this::place);
+        full.execute("alice", "2", List.of(1L), this::place);
+        full.execute("alice", "3", List.of(1L), this::place);
+        assertTrue(full.execute("alice", "3", List.of(1L), this::place).replayed());
+        assertFalse(full.execute("alice", "1", List.of(1L), this::place).replayed());
+
+        IdempotencyStore expiring = new IdempotencyStore(0, 10, 60_000);
+        expiring.execute("alice", "key", List.of(1L), this::place);
+        assertFalse(expiring.execute("alice", "key", List.of(1L), this::place).replayed());
+    }
+
+    @Test
+    @DisplayName("Given a duplicate outwaiting the first run, when executed, then it is rejected as a conflict")
+    void testWaitTimeout() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(60_000, 10, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<IdempotencyStore.Outcome<String>> first = executor.submit(() ->
+                    store.execute("alice", "key", List.of(1L), () -> {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return place();
+                    }));
+            started.await();
+            assertThrows(IdempotencyConflictException.class,
+                    () -> store.execute("alice", "key", List.of(1L), this::place));
+            release.countDown();
+            assertEquals("order 1", first.get().value());
+        }
+        assertTrue(store.execute("alice", "key", List.of(1L), this::place).replayed());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("Given a pending oldest entry, when the store is full, then the results after it are dropped")
+    void testEvictionSkipsPending() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(60_000, 1, 60_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<IdempotencyStore.Outcome<String>> pending = executor.submit(() ->
+                    store.execute("alice", "1", List.of(1L), () -> {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "pending";
+                    }));
+            started.await();
+            store.execute("alice", "2", List.of(1L), this::place);
+            store.execute("alice", "3", List.of(1L), this::place);
+            assertFalse(store.execute("alice", "2", List.of(1L), this::place).replayed());
+            release.countDown();
+            assertEquals("pending", pending.get().value());
+        }
+    }
+}
@@ -12,6 +12,7 @@ import com.store.gift.entity.Order;
 import com.store.gift.entity.Tag;
 import com.store.gift.entity.User;
 import com.store.gift.exception.CertificateNotFoundException;
+import com.store.gift.exception.InvalidOrderException;
 import com.store.gift.exception.OrderNotFoundException;
 import com.store.gift.exception.TagNotFoundException;
 import com.store.gift.exception.UserNotFoundException;
@@ -23,6 +24,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -61,6 +63,10 @@ class OrderServiceImplTest {
     private CertificateDao certificateDao;
     @Mock
     private OrderMapper orderMapper;
+    @Mock
+    private CountCache counts;
+    @Mock
+    private SalesCache sales;
     @InjectMocks
     private OrderServiceImpl orderService;
     private final Long orderId = 1L;
@@ -141,10 +147,49 @@ class OrderServiceImplTest {
     @DisplayName("Call the save method and verify that it throws a UserNotFoundException return an empty Optional")
     void testSaveThrowsUserNotFoundException() {
         when(userDao.findByUsername(user.getUsername())).thenReturn(Optional.empty());
-        Set<Long> ids = new HashSet<>(Arrays.asList(1L, 2L));
+        List<Long> ids = Arrays.asList(1L, 2L);
         assertThrows(UserNotFoundException.class, () -> orderService.save(user.getUsername(), ids, new ArrayList<>(ids)));
     }
 
+    @Test
+    @DisplayName("Given repeated certificates, when an order is saved, then a line per certificate is priced exactly")
+    void testSaveMergesLinesAndPricesThem() {
+        when(userDao.findByUsername(user.getUsername())).thenReturn(Optional.of(user));
+        when(certificateDao.findAllByIds(Set.of(id, id2))).thenReturn(List.of(certificate2, certificate));
+        when(orderDao.save(any(Order.class))).thenReturn(order);
+        when(orderMapper.toDto(order)).thenReturn(orderDto);
+        orderService.save(user.getUsername(), List.of(id, id2, id), List.of(2L, 3L, 1L));
+        ArgumentCaptor<Order> placed = ArgumentCaptor.forClass(Order.class);
+        verify(orderDao).save(placed.capture());
+        List<Invoice> lines = List.copyOf(placed.getValue().getInvoices());
+        assertEquals(List.of(id, id2), lines.stream().map(line -> line.getCertificate().getId()).toList());
+        assertEquals(List.of(3L, 3L), lines.stream().map(Invoice::getQuantity).toList());
+        assertEquals(List.of(certificate.getPrice(), certificate2.getPrice()),
+                lines.stream().map(Invoice::getUnitPrice).toList());
+        assertEquals(new BigDecimal("360.00"), placed.getValue().getCost());
+        verify(counts).invalidate(CountCache.ORDERS);
+    }
+
+    @ParameterizedTest
+    @DisplayName("Given mismatched certificates and counters, when an order is saved, then it is rejected")
+    @CsvSource({
+            "'1,2', '1'",
+            "'1', '0'",
+            "'1', '-1'",
+            "'', ''"
+    })
+    void testSaveRejectsMismatchedCounters(String ids, String counters) {
+        assertThrows(InvalidOrderException.class, () -> orderService.save(user.getUsername(),
+                longs(ids), longs(counters)));
+        verifyNoMoreInteractions(userDao, certificateDao, orderDao);
+    }
+
+    private static List<Long> longs(final String values) {
+        return values.isEmpty()
+                ? List.of()
+                : Arrays.stream(values.split(",")).map(Long::valueOf).toList();
+    }
+
     @Test
     @DisplayName("Get Order by ID")
     void testGetById() {
@@ -440,7 +485,7 @@ class OrderServiceImplTest {
 
     @Test
     void saveOrderTest() {
-        Set<Long> ids = new HashSet<>(Arrays.asList(1L, 2L));
+        List<Long> ids = Arrays.asList(1L, 2L);
         Certificate certificate1 = new Certificate();
         certificate1.setId(1L);
         certificate1.setPrice(new BigDecimal("50.0"));
@@ -455,7 +500,7 @@ class OrderServiceImplTest {
                 .build();
 
         Invoice invoice = new Invoice();
-        order.setInvoices(Collections.singletonList(invoice));
+        order.setInvoices(Collections.singleton(invoice));
 
         Order savedOrder = Order.builder()
                 .id(1L)
@@ -463,11 +508,11 @@ class OrderServiceImplTest {
                 .certificates(order.getCertificates())
                 .cost(order.getCost())
                 .user(order.getUser())
-                .invoices(Collections.singletonList(invoice))
+                .invoices(Collections.singleton(invoice))
                 .build();
 
         when(userDao.findByUsername(user.getUsername())).thenReturn(Optional.of(user));
-        when(certificateDao.findAllByIds(ids)).thenReturn(certificates);
+        when(certificateDao.findAllByIds(new HashSet<>(ids))).thenReturn(certificates);
         doReturn(savedOrder).when(orderDao).save(any(Order.class));
         when(orderMapper.toDto(savedOrder)).thenReturn(expectedOrderDto);
         OrderDto result = orderService.save(user.getUsername(), ids, new ArrayList<>(ids));
@@ -483,6 +528,7 @@ class OrderServiceImplTest {
         when(orderMapper.toDto(order)).thenReturn(expectedOrderDto);
         OrderDto actualOrderDto = orderService.update(orderDto);
         assertNotNull(actualOrderDto);
+        verify(sales).invalidate();
     }
 
     @Test
@@ -490,5 +536,6 @@ class OrderServiceImplTest {
         doNothing().when(orderDao).delete(id);
         orderService.delete(id);
         verify(orderDao).delete(id);
+        verify(sales).invalidate();
     }
 }
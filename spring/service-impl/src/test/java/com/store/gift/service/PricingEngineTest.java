@@ -0,0 +1,57 @@
+package com.store.gift.service;
+
+import com.store.gift.entity.Invoice;
+import com.store.gift.exception.InvalidOrderException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PricingEngineTest {
+
+    private static Invoice line(final String price, final long quantity) {
+        return Invoice.builder().unitPrice(new BigDecimal(price)).quantity(quantity).build();
+    }
+
+    @Test
+    @DisplayName("Given lines, when totalled, then the cost is exact with two decimals")
+    void testTotal() {
+        assertEquals(new BigDecimal("0.00"), PricingEngine.total(List.of()));
+        assertEquals(new BigDecimal("0.30"), PricingEngine.total(List.of(line("0.1", 1), line("0.20", 1))));
+        assertEquals(new BigDecimal("1237.25"), PricingEngine.total(List.of(
+                line("19.99", 3), line("100", 10), line("0.01", 17), line("117.11", 1), line("60", 1))));
+    }
+
+    @Test
+    @DisplayName("Given a thousand lines, when totalled, then the cost matches the sum of the line prices")
+    void testThousandLines() {
+        List<Invoice> lines = IntStream.rangeClosed(1, 1_000)
+                .mapToObj(i -> line(i + ".99", i))
+                .toList();
+        BigDecimal expected = lines.stream()
+                .map(line -> line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(expected, PricingEngine.total(lines));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Given a line that cannot be priced exactly, when totalled, then it is rejected")
+    @CsvSource({
+            "0.001, 1",
+            "1.00, 0",
+            "1.00, -1",
+            "92233720368547758.07, 2",
+            "1.00, 9223372036854775807"
+    })
+    void testRejected(String price, long quantity) {
+        List<Invoice> lines = List.of(line(price, quantity));
+        assertThrows(InvalidOrderException.class, () -> PricingEngine.total(lines));
+    }
+}
@@ -0,0 +1,81 @@
+package com.store.gift.service;
+
+import com.store.gift.entity.SalesLine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalesAggregatorTest {
+    private static final LocalDate DAY = LocalDate.of(2023, 5, 1);
+
+    private SalesAggregator aggregator;
+
+    private static SalesLine line(
+            final long orderId,
+            final LocalDate day,
+            final String cost,
+            final Long certificateId,
+            final String price) {
+        return new SalesLine(orderId, Timestamp.valueOf(day.atTime(12, 0)), new BigDecimal(cost),
+                certificateId, price == null ? null : new BigDecimal(price));
+    }
+
+    @AfterEach
+    void close() {
+        aggregator.destroy();
+    }
+
+    @Test
+    @DisplayName("Given an order of several lines, when aggregated, then its cost is shared by the prices of the lines")
+    void testShares() {
+        aggregator = new SalesAggregator(1, 100);
+        Map<LocalDate, DailySales> days = aggregator.aggregate(Stream.of(
+                line(1, DAY, "10.00", 1L, "1.00"),
+                line(1, DAY, "10.00", 2L, "2.00"),
+                line(2, DAY, "5.00", 1L, "0.00"),
+                line(2, DAY, "5.00", 3L, "0.00"),
+                line(3, DAY, "0.00", null, null)));
+        DailySales day = days.get(DAY);
+        assertEquals(3, day.orders());
+        assertEquals(new BigDecimal("15.00"), day.revenue());
+        assertEquals(new DailySales.Sales(2, new BigDecimal("5.83")), day.certificates().get(1L));
+        assertEquals(new DailySales.Sales(1, new BigDecimal("6.67")), day.certificates().get(2L));
+        assertEquals(new DailySales.Sales(1, new BigDecimal("2.50")), day.certificates().get(3L));
+    }
+
+    @Test
+    @DisplayName("Given many orders over many chunks, when aggregated in parallel, then the totals match a sequential sum")
+    void testParallel() {
+        aggregator = new SalesAggregator(4, 7);
+        List<SalesLine> lines = new ArrayList<>();
+        for (long order = 1; order <= 20_000; order++) {
+            LocalDate day = DAY.plusDays(order % 3);
+            for (long certificate = 1; certificate <= 1 + order % 3; certificate++) {
+                lines.add(line(order, day, "3.00", certificate, "1.00"));
+            }
+        }
+        Map<LocalDate, DailySales> days = aggregator.aggregate(lines.stream());
+        assertEquals(3, days.size());
+        long orders = days.values().stream().mapToLong(DailySales::orders).sum();
+        BigDecimal revenue = days.values().stream().map(DailySales::revenue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long lineCount = days.values().stream()
+                .flatMap(day -> day.certificates().values().stream())
+                .mapToLong(DailySales.Sales::lines).sum();
+        assertEquals(20_000, orders);
+        assertEquals(new BigDecimal("60000.00"), revenue);
+        assertEquals(lines.size(), lineCount);
+        assertEquals(new DailySales.Sales(6667, new BigDecimal("6667.00")),
+                days.get(DAY.plusDays(2)).certificates().get(3L));
+    }
+}
@@ -0,0 +1,55 @@
+package com.store.gift.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesCacheTest {
+    private static final LocalDate DAY = LocalDate.of(2023, 5, 1);
+    private static final long MINUTE = 60_000;
+
+    @Test
+    @DisplayName("Given scanned days, when cached, then only the settled days are kept")
+    void testSettledDays() {
+        SalesCache cache = new SalesCache(MINUTE, MINUTE, 100);
+        LocalDateTime now = DAY.plusDays(1).atStartOfDay().plusSeconds(30);
+        cache.put(Map.of(DAY.minusDays(1), new DailySales(), DAY, new DailySales(),
+                DAY.plusDays(1), new DailySales()), cache.generation(), now);
+        assertTrue(cache.get(DAY.minusDays(1)).isPresent());
+        assertFalse(cache.get(DAY).isPresent());
+        assertFalse(cache.get(DAY.plusDays(1)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Given cached days, when invalidated, then no day is cached")
+    void testInvalidate() {
+        SalesCache cache = new SalesCache(MINUTE, 0, 100);
+        cache.put(Map.of(DAY, new DailySales()), cache.generation(), LocalDateTime.now());
+        cache.invalidate();
+        assertFalse(cache.get(DAY).isPresent());
+    }
+
+    @Test
+    @DisplayName("Given an invalidation during a scan, when the scan is cached, then its days are dropped")
+    void testConcurrentInvalidation() {
+        SalesCache cache = new SalesCache(MINUTE, 0, 100);
+        long version = cache.generation();
+        cache.invalidate();
+        cache.put(Map.of(DAY, new DailySales()), version, LocalDateTime.now());
+        assertFalse(cache.get(DAY).isPresent());
+    }
+
+    @Test
+    @DisplayName("Given an expired day, when it is requested, then it is not cached")
+    void testExpired() {
+        SalesCache cache = new SalesCache(0, 0, 100);
+        cache.put(Map.of(DAY, new DailySales()), cache.generation(), LocalDateTime.now());
+        assertFalse(cache.get(DAY).isPresent());
+    }
+}
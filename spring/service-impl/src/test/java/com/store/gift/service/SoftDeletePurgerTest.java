@@ -0,0 +1,115 @@
+package com.store.gift.service;
+
+import com.store.gift.dao.CertificateDao;
+import com.store.gift.dao.UserDao;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SoftDeletePurgerTest {
+    private CertificateDao certificateDao;
+    private UserDao userDao;
+    private CountCache counts;
+    private SalesCache sales;
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        certificateDao = mock(CertificateDao.class);
+        userDao = mock(UserDao.class);
+        counts = mock(CountCache.class);
+        sales = mock(SalesCache.class);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @SuppressWarnings("unchecked")
+    private SoftDeletePurger purger(
+            final int maxBatches,
+            final String windowStart,
+            final String windowEnd) {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(registry);
+        return new SoftDeletePurger(certificateDao, userDao, counts, sales,
+                2, maxBatches, 0, 0, windowStart, windowEnd, provider);
+    }
+
+    private double purged(final String entity) {
+        return registry.get("store.purge.rows").tag("entity", entity).counter().count();
+    }
+
+    @Test
+    @DisplayName("Given soft-deleted rows, when purged, then full batches are followed until a partial one")
+    void testPurgeInBatches() throws InterruptedException {
+        when(certificateDao.purgeDeleted(2)).thenReturn(Set.of(1L, 2L), Set.of(3L));
+        when(userDao.purgeDeleted(2)).thenReturn(Set.of());
+        assertEquals(3, purger(10, "00:00", "00:00").purge());
+        verify(certificateDao, times(2)).purgeDeleted(2);
+        verify(userDao, times(1)).purgeDeleted(2);
+        verify(sales, times(2)).invalidate();
+        verify(counts, never()).invalidate(CountCache.ORDERS);
+        assertEquals(3, purged("certificates"));
+        assertEquals(3, registry.get("store.purge.batch").timers().stream()
+                .mapToLong(Timer::count)
+                .sum());
+    }
+
+    @Test
+    @DisplayName("Given more rows than a run may purge, when purged, then the run stops after the maximum batches")
+    void testMaxBatches() throws InterruptedException {
+        when(certificateDao.purgeDeleted(2)).thenReturn(Set.of(1L, 2L));
+        when(userDao.purgeDeleted(2)).thenReturn(Set.of(7L));
+        assertEquals(4, purger(2, "00:00", "00:00").purge());
+        verify(userDao, never()).purgeDeleted(2);
+    }
+
+    @Test
+    @DisplayName("Given purged users, when purged, then the order totals are invalidated")
+    void testPurgeUsers() throws InterruptedException {
+        when(certificateDao.purgeDeleted(2)).thenReturn(Set.of());
+        when(userDao.purgeDeleted(2)).thenReturn(Set.of(7L));
+        assertEquals(1, purger(10, "00:00", "00:00").purge());
+        verify(counts).invalidate(CountCache.ORDERS);
+        assertEquals(1, purged("users"));
+    }
+
+    @Test
+    @DisplayName("Given a failing batch, when purged, then the failure is counted")
+    void testFailure() {
+        when(certificateDao.purgeDeleted(2)).thenThrow(new PersistenceException("locked"));
+        SoftDeletePurger purger = purger(10, "00:00", "00:00");
+        assertThrows(PersistenceException.class, purger::purge);
+        assertEquals(1, registry.get("store.purge.failures").tag("entity", "certificates").counter().count());
+    }
+
+    @Test
+    @DisplayName("Given an off-peak window, when checked, then only the times within it are off-peak")
+    void testOffPeakWindow() {
+        SoftDeletePurger night = purger(10, "22:00", "04:00");
+        assertTrue(night.isOffPeak(LocalTime.of(23, 0)));
+        assertTrue(night.isOffPeak(LocalTime.of(3, 59)));
+        assertFalse(night.isOffPeak(LocalTime.of(12, 0)));
+        SoftDeletePurger early = purger(10, "01:00", "05:00");
+        assertTrue(early.isOffPeak(LocalTime.of(1, 0)));
+        assertFalse(early.isOffPeak(LocalTime.of(5, 0)));
+        assertTrue(purger(10, "00:00", "00:00").isOffPeak(LocalTime.NOON));
+    }
+}
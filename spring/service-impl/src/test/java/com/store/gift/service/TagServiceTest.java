@@ -2,6 +2,8 @@ package com.store.gift.service;
 
 import com.store.gift.dao.TagDao;
 import com.store.gift.dao.TagDaoImpl;
+import com.store.gift.dto.DeleteReport;
+import com.store.gift.dto.DeleteStatus;
 import com.store.gift.dto.TagDto;
 import com.store.gift.entity.Tag;
 import com.store.gift.exception.TagAlreadyExistsException;
@@ -24,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -43,7 +46,8 @@ class TagServiceTest {
     @Mock
     private TagMapper tagMapper = mock(TagMapper.class);
     @InjectMocks
-    private final TagService tagService = new TagServiceImpl(tagDao, tagMapper);
+    private final TagService tagService = new TagServiceImpl(tagDao, tagMapper,
+            new BatchDeleter(BatchDeleter.Mode.HARD, 500, 10_000, new FanOut(FanOut.Mode.PLATFORM, 1)));
     private List<Tag> tags;
     private List<TagDto> tagDtos;
     private final Long id = 1L;
@@ -210,6 +214,16 @@ class TagServiceTest {
         verify(tagDao, times(1)).delete(id);
     }
 
+    @Test
+    @DisplayName("Delete tags by ids in one chunk")
+    void testDeleteAll() {
+        when(tagDao.deleteAll(List.of(1L, 2L))).thenReturn(Set.of(1L));
+        DeleteReport report = tagService.deleteAll(List.of(1L, 2L, 1L));
+        assertEquals(2, report.getRequested());
+        assertEquals(1, report.getDeleted());
+        assertEquals(DeleteStatus.NOT_FOUND, report.getOutcomes().get(1).getStatus());
+    }
+
     @Test
     @DisplayName("test getById returns TagDto when tag exists")
     void testGetByIdReturnsTagDtoWhenTagExists() {
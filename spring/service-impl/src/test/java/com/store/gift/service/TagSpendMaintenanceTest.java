@@ -0,0 +1,47 @@
+package com.store.gift.service;
+
+import com.store.gift.dao.OrderDao;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TagSpendMaintenanceTest {
+    @Mock
+    private OrderDao orderDao;
+
+    @Test
+    @DisplayName("Given the backfill is enabled, when the application starts, then the spending of all users is rebuilt")
+    void testBackfill() {
+        when(orderDao.rebuildTagSpend()).thenReturn(3);
+        new TagSpendMaintenance(orderDao, true, true).run(null);
+        verify(orderDao).rebuildTagSpend();
+        verify(orderDao, never()).findUsersWithStaleTagSpend();
+    }
+
+    @Test
+    @DisplayName("Given users with stale spending, when checked, then only those users are rebuilt")
+    void testCheckRebuildsStaleUsers() {
+        when(orderDao.findUsersWithStaleTagSpend()).thenReturn(List.of(2L, 5L));
+        assertEquals(List.of(2L, 5L), new TagSpendMaintenance(orderDao, false, true).check());
+        verify(orderDao).rebuildTagSpend(List.of(2L, 5L));
+    }
+
+    @Test
+    @DisplayName("Given consistent spending, when checked, then nothing is rebuilt")
+    void testCheckConsistent() {
+        when(orderDao.findUsersWithStaleTagSpend()).thenReturn(List.of());
+        new TagSpendMaintenance(orderDao, false, true).run(null);
+        verify(orderDao, never()).rebuildTagSpend(any());
+    }
+}
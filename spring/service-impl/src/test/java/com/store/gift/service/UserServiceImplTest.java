@@ -19,6 +19,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -37,6 +38,8 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -49,6 +52,12 @@ class UserServiceImplTest {
     private UserDao userDao;
     @Mock
     private UserMapper mapper;
+    @Mock
+    private CountCache counts;
+    @Mock
+    private SalesCache sales;
+    @Mock
+    private BatchDeleter batchDeleter;
     @InjectMocks
     private UserServiceImpl userService;
     private final Pageable pageable = PageRequest.of(0, 25, Sort.by("name").ascending());
@@ -103,6 +112,24 @@ class UserServiceImplTest {
         verifyNoMoreInteractions(userDao, mapper);
     }
 
+    @Test
+    @DisplayName("Given a full page, when getAll method is called, then the total is the count of all users")
+    void getAllTotalTest() {
+        Pageable firstTwo = PageRequest.of(0, 2);
+        List<User> users = Arrays.asList(
+                User.builder().id(1L).username("Olivia").build(),
+                User.builder().id(2L).username("Emma").build());
+        List<UserDto> dtos = Arrays.asList(
+                UserDto.builder().id(1L).username("Olivia").build(),
+                UserDto.builder().id(2L).username("Emma").build());
+        when(userDao.getAllBy(firstTwo)).thenReturn(users);
+        when(mapper.toDtoList(users)).thenReturn(dtos);
+        when(counts.count(eq(CountCache.USERS), isNull(), any())).thenReturn(42L);
+        Page<UserDto> page = userService.getAll(firstTwo);
+        assertEquals(42L, page.getTotalElements());
+        assertEquals(21, page.getTotalPages());
+    }
+
     @ParameterizedTest
     @DisplayName("Given an ID, when findById method is called and a user is found, then an Optional containing the user entity is returned")
     @CsvSource({
@@ -212,6 +239,7 @@ class UserServiceImplTest {
         doNothing().when(userDao).delete(anyLong());
         assertDoesNotThrow(() -> userService.delete(id));
         verify(userDao, times(1)).delete(anyLong());
+        verify(sales).invalidate();
     }
 
     private static User getUser(Long userId, String password, String username, String email, String role) {
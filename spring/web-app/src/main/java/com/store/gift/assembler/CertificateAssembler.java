@@ -2,15 +2,16 @@ package com.store.gift.assembler;
 
 import com.store.gift.controller.CertificateController;
 import com.store.gift.dto.CertificateDto;
-import com.store.gift.dto.PatchCertificateDto;
 import lombok.NonNull;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.stream.StreamSupport;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -23,6 +24,21 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public class CertificateAssembler
         implements RepresentationModelAssembler
         <CertificateDto, EntityModel<CertificateDto>> {
+    /**
+     * The links of a certificate, shared with the catalog listing.
+     */
+    static final List<LinkTemplate> LINKS = List.of(
+            LinkTemplate.of(id -> methodOn(CertificateController.class)
+                    .getCertificateById(id, null), IanaLinkRelations.SELF),
+            LinkTemplate.of(id -> methodOn(CertificateController.class)
+                    .getTagsByCertificateId(id), "tags"),
+            LinkTemplate.of(id -> methodOn(CertificateController.class)
+                    .delete(id), "delete"),
+            LinkTemplate.of(id -> methodOn(CertificateController.class)
+                    .create(null), "create"),
+            LinkTemplate.of(id -> methodOn(CertificateController.class)
+                    .update(id, null, null), "update"));
+
     /**
      * Converts a CertificateDto into an EntityModel representation.
      *
@@ -33,24 +49,7 @@ public class CertificateAssembler
     @Override
     public EntityModel<CertificateDto> toModel(
             final CertificateDto dto) {
-        return EntityModel.of(dto,
-                linkTo(methodOn(CertificateController.class)
-                        .getCertificateById(dto.getId())).withSelfRel(),
-                linkTo(methodOn(CertificateController.class)
-                        .getTagsByCertificateId(dto.getId())).withRel("tags"),
-                linkTo(methodOn(CertificateController.class)
-                        .delete(dto.getId())).withRel("delete"),
-                linkTo(methodOn(CertificateController.class)
-                        .create(dto)).withRel("create"),
-                linkTo(methodOn(CertificateController.class)
-                        .update(dto.getId(), PatchCertificateDto
-                                .builder()
-                                .duration(dto.getDuration())
-                                .price(dto.getPrice())
-                                .id(dto.getId())
-                                .build()))
-                        .withRel("update")
-        );
+        return EntityModel.of(dto, LinkTemplate.expand(LINKS, dto.getId()));
     }
 
     /**
@@ -72,7 +71,7 @@ public class CertificateAssembler
                         .toList(),
                 linkTo(methodOn(CertificateController.class)
                         .getAll(PageRequest.of(0, 25,
-                                Sort.by(Sort.Direction.ASC, "id"))))
+                                Sort.by(Sort.Direction.ASC, "id")), null))
                         .withSelfRel());
     }
 }
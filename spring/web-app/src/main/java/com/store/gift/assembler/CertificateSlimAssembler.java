@@ -0,0 +1,92 @@
+package com.store.gift.assembler;
+
+import com.store.gift.controller.CertificateController;
+import com.store.gift.dto.CertificateSlimDto;
+import com.store.gift.entity.CursorPage;
+import lombok.NonNull;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.StreamSupport;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Component class for assembling representations of the catalog listing.
+ * <p>
+ * The links of a {@link CertificateSlimDto} are the same as those
+ * of a full certificate, the detail view is reached by its self link.
+ */
+@Component
+public class CertificateSlimAssembler
+        implements RepresentationModelAssembler
+        <CertificateSlimDto, CertificateSlimDto> {
+    /**
+     * Adds the links of a certificate to a CertificateSlimDto.
+     *
+     * @param dto the CertificateSlimDto to convert
+     * @return the CertificateSlimDto with its links
+     */
+    @NonNull
+    @Override
+    public CertificateSlimDto toModel(
+            final CertificateSlimDto dto) {
+        return dto.add(LinkTemplate.expand(
+                CertificateAssembler.LINKS, dto.getId()));
+    }
+
+    /**
+     * Converts a collection of CertificateSlimDto
+     * into a CollectionModel representation.
+     *
+     * @param entities the collection of CertificateSlimDto to convert
+     * @return the CollectionModel representation of the listing
+     */
+    @NonNull
+    @Override
+    public CollectionModel<CertificateSlimDto> toCollectionModel(
+            final Iterable<? extends CertificateSlimDto> entities) {
+        return CollectionModel.of(StreamSupport
+                        .stream(entities.spliterator(), false)
+                        .map(this::toModel)
+                        .toList(),
+                linkTo(methodOn(CertificateController.class)
+                        .getAll(PageRequest.of(0, 25,
+                                Sort.by(Sort.Direction.ASC, "id")), null))
+                        .withSelfRel());
+    }
+
+    /**
+     * Converts a keyset page of the listing into a
+     * {@link CollectionModel} with links to the adjacent pages.
+     *
+     * @param page     the keyset page to be converted
+     * @param pageable the page size and sort of the listing
+     * @return the {@link CollectionModel} with {@code next}
+     * and {@code prev} cursor links when such pages exist
+     */
+    @NonNull
+    public CollectionModel<CertificateSlimDto> toCollectionModel(
+            final CursorPage<CertificateSlimDto> page,
+            final Pageable pageable) {
+        CollectionModel<CertificateSlimDto> model =
+                toCollectionModel(page.getContent());
+        if (page.getNext() != null) {
+            model.add(linkTo(methodOn(CertificateController.class)
+                    .getAllAfter(page.getNext().encode(), pageable, null))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        if (page.getPrevious() != null) {
+            model.add(linkTo(methodOn(CertificateController.class)
+                    .getAllAfter(page.getPrevious().encode(), pageable, null))
+                    .withRel(IanaLinkRelations.PREV));
+        }
+        return model;
+    }
+}
@@ -0,0 +1,138 @@
+package com.store.gift.assembler;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * A link to a controller method taking an ID, expanded by concatenation.
+ * <p>
+ * Building a link with {@code linkTo(methodOn(...))} proxies the controller,
+ * records the invocation and resolves the mapping of the method every time,
+ * and the assemblers build several links for every item of a page. The path
+ * and query of the link are derived once instead, on first use, by invoking
+ * the method with a marker in place of the ID. Expanding the template only
+ * joins the base URI of the current request, resolved once per request,
+ * the parts of the path and the ID.
+ */
+final class LinkTemplate {
+    private static final long MARKER = Long.MIN_VALUE;
+    private static final String BASE = LinkTemplate.class.getName() + ".BASE";
+
+    private final LongFunction<Object> invocation;
+    private final LinkRelation relation;
+    private volatile String[] parts;
+
+    private LinkTemplate(
+            final LongFunction<Object> invocation,
+            final LinkRelation relation) {
+        this.invocation = invocation;
+        this.relation = relation;
+    }
+
+    /**
+     * Creates the template of the links made by a controller method.
+     *
+     * @param invocation the invocation of the method on {@code methodOn},
+     *                   with the ID as its path variable
+     * @param relation   the relation of the links
+     * @return the template
+     */
+    static LinkTemplate of(
+            final LongFunction<Object> invocation,
+            final LinkRelation relation) {
+        return new LinkTemplate(invocation, relation);
+    }
+
+    /**
+     * Creates the template of the links made by a controller method.
+     *
+     * @param invocation the invocation of the method on {@code methodOn},
+     *                   with the ID as its path variable
+     * @param relation   the relation of the links
+     * @return the template
+     */
+    static LinkTemplate of(
+            final LongFunction<Object> invocation,
+            final String relation) {
+        return of(invocation, LinkRelation.of(relation));
+    }
+
+    /**
+     * Expands templates with the same ID.
+     *
+     * @param templates the templates
+     * @param id        the ID
+     * @return the links in the order of the templates
+     */
+    static List<Link> expand(
+            final List<LinkTemplate> templates,
+            final Long id) {
+        String base = base();
+        List<Link> links = new ArrayList<>(templates.size());
+        for (LinkTemplate template : templates) {
+            links.add(template.expand(base, id));
+        }
+        return links;
+    }
+
+    private Link expand(
+            final String base,
+            final Long id) {
+        String[] path = parts;
+        if (path == null) {
+            path = derive(base);
+            parts = path;
+        }
+        return Link.of(path.length == 1
+                ? base + path[0]
+                : base + path[0] + id + path[1], relation);
+    }
+
+    /**
+     * Derives the path and query of the link around the marker,
+     * relative to the servlet mapping of the request.
+     */
+    private String[] derive(final String base) {
+        URI uri = URI.create(linkTo(invocation.apply(MARKER)).withRel(relation).expand().getHref());
+        String path = uri.getRawPath();
+        String mapping = URI.create(base).getRawPath();
+        if (mapping != null && !mapping.isEmpty() && path.startsWith(mapping)) {
+            path = path.substring(mapping.length());
+        }
+        if (uri.getRawQuery() != null) {
+            path = path + "?" + uri.getRawQuery();
+        }
+        String marker = String.valueOf(MARKER);
+        int at = path.indexOf(marker);
+        return at < 0
+                ? new String[]{path}
+                : new String[]{path.substring(0, at), path.substring(at + marker.length())};
+    }
+
+    /**
+     * Returns the base URI of the current request up to its servlet mapping,
+     * or an empty base outside of a request, so that the links are relative.
+     */
+    private static String base() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "";
+        }
+        Object base = attributes.getAttribute(BASE, RequestAttributes.SCOPE_REQUEST);
+        if (base == null) {
+            base = ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString();
+            attributes.setAttribute(BASE, base, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (String) base;
+    }
+}
@@ -3,14 +3,18 @@ package com.store.gift.assembler;
 import com.store.gift.controller.CertificateController;
 import com.store.gift.controller.OrderController;
 import com.store.gift.dto.OrderDto;
+import com.store.gift.entity.CursorPage;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.stream.StreamSupport;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -24,6 +28,12 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @Component
 public class OrderAssembler implements
         RepresentationModelAssembler<OrderDto, EntityModel<OrderDto>> {
+    private static final List<LinkTemplate> LINKS = List.of(
+            LinkTemplate.of(id -> methodOn(OrderController.class)
+                    .getOrderById(id), IanaLinkRelations.SELF),
+            LinkTemplate.of(id -> methodOn(CertificateController.class)
+                    .getAllByOrderId(id), "certificates"));
+
     /**
      * Converts the given {@link OrderDto} entity
      * into an {@link EntityModel<OrderDto>}.
@@ -35,9 +45,7 @@ public class OrderAssembler implements
     @Override
     public EntityModel<OrderDto> toModel(
             @NonNull final OrderDto dto) {
-        return EntityModel.of(dto,
-                linkTo(methodOn(OrderController.class).getOrderById(dto.getId())).withSelfRel(),
-                linkTo(methodOn(CertificateController.class).getAllByOrderId(dto.getId())).withRel("certificates"));
+        return EntityModel.of(dto, LinkTemplate.expand(LINKS, dto.getId()));
     }
 
     /**
@@ -62,4 +70,32 @@ public class OrderAssembler implements
                                         .ascending())))
                         .withSelfRel());
     }
+
+    /**
+     * Converts a keyset page of {@link OrderDto} entities
+     * into a {@link CollectionModel} with links to the adjacent pages.
+     *
+     * @param page     the keyset page to be converted
+     * @param pageable the page size and sort of the listing
+     * @return the {@link CollectionModel} with {@code next}
+     * and {@code prev} cursor links when such pages exist
+     */
+    @NonNull
+    public CollectionModel<EntityModel<OrderDto>> toCollectionModel(
+            final CursorPage<OrderDto> page,
+            final Pageable pageable) {
+        CollectionModel<EntityModel<OrderDto>> model =
+                toCollectionModel(page.getContent());
+        if (page.getNext() != null) {
+            model.add(linkTo(methodOn(OrderController.class)
+                    .getAllOrdersAfter(page.getNext().encode(), pageable))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        if (page.getPrevious() != null) {
+            model.add(linkTo(methodOn(OrderController.class)
+                    .getAllOrdersAfter(page.getPrevious().encode(), pageable))
+                    .withRel(IanaLinkRelations.PREV));
+        }
+        return model;
+    }
 }
@@ -2,14 +2,18 @@ package com.store.gift.assembler;
 
 import com.store.gift.controller.TagController;
 import com.store.gift.dto.TagDto;
+import com.store.gift.entity.CursorPage;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.stream.StreamSupport;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -23,6 +27,12 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @Component
 public class TagAssembler implements
         RepresentationModelAssembler<TagDto, EntityModel<TagDto>> {
+    private static final List<LinkTemplate> LINKS = List.of(
+            LinkTemplate.of(id -> methodOn(TagController.class)
+                    .getById(id), IanaLinkRelations.SELF),
+            LinkTemplate.of(id -> methodOn(TagController.class)
+                    .delete(id), "delete"));
+
     /**
      * Converts the given {@link TagDto} entity into an {@link EntityModel<TagDto>}.
      *
@@ -32,10 +42,7 @@ public class TagAssembler implements
     @NonNull
     @Override
     public EntityModel<TagDto> toModel(@NonNull final TagDto dto) {
-        return EntityModel.of(dto,
-                linkTo(methodOn(TagController.class).getById(dto.getId())).withSelfRel(),
-                linkTo(methodOn(TagController.class).delete(dto.getId())).withRel("delete")
-        );
+        return EntityModel.of(dto, LinkTemplate.expand(LINKS, dto.getId()));
     }
 
     /**
@@ -60,4 +67,32 @@ public class TagAssembler implements
                                 Sort.by("id").ascending())))
                         .withSelfRel());
     }
+
+    /**
+     * Converts a keyset page of {@link TagDto} entities
+     * into a {@link CollectionModel} with links to the adjacent pages.
+     *
+     * @param page     the keyset page to be converted
+     * @param pageable the page size and sort of the listing
+     * @return the {@link CollectionModel} with {@code next}
+     * and {@code prev} cursor links when such pages exist
+     */
+    @NonNull
+    public CollectionModel<EntityModel<TagDto>> toCollectionModel(
+            final CursorPage<TagDto> page,
+            final Pageable pageable) {
+        CollectionModel<EntityModel<TagDto>> model =
+                toCollectionModel(page.getContent());
+        if (page.getNext() != null) {
+            model.add(linkTo(methodOn(TagController.class)
+                    .getAllAfter(page.getNext().encode(), pageable))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        if (page.getPrevious() != null) {
+            model.add(linkTo(methodOn(TagController.class)
+                    .getAllAfter(page.getPrevious().encode(), pageable))
+                    .withRel(IanaLinkRelations.PREV));
+        }
+        return model;
+    }
 }
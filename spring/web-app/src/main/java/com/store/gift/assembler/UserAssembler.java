@@ -4,14 +4,18 @@ import com.store.gift.controller.CertificateController;
 import com.store.gift.controller.OrderController;
 import com.store.gift.controller.UserController;
 import com.store.gift.dto.UserDto;
+import com.store.gift.entity.CursorPage;
 import lombok.NonNull;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.stream.StreamSupport;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -24,6 +28,15 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @Component
 public class UserAssembler implements
         RepresentationModelAssembler<UserDto, EntityModel<UserDto>> {
+    private static final List<LinkTemplate> LINKS = List.of(
+            LinkTemplate.of(id -> methodOn(UserController.class)
+                    .getUser(id), IanaLinkRelations.SELF),
+            LinkTemplate.of(id -> methodOn(OrderController.class)
+                    .getAllOrdersByUserId(id,
+                            PageRequest.of(0, 25, Sort.by("name").ascending())), "orders"),
+            LinkTemplate.of(id -> methodOn(CertificateController.class)
+                    .getUserCertificates(id), "certificates"));
+
     /**
      * Converts the given {@link UserDto} entity into an {@link EntityModel<UserDto>}.
      *
@@ -34,18 +47,7 @@ public class UserAssembler implements
     @Override
     public EntityModel<UserDto> toModel(
             final UserDto userDto) {
-        return EntityModel.of(userDto,
-                linkTo(methodOn(UserController.class)
-                        .getUser(userDto.getId()))
-                        .withSelfRel(),
-                linkTo(methodOn(OrderController.class)
-                        .getAllOrdersByUserId(userDto.getId(),
-                                PageRequest.of(0, 25, Sort.by("name").ascending())))
-                        .withRel("orders"),
-                linkTo(methodOn(CertificateController.class)
-                        .getUserCertificates(userDto.getId()))
-                        .withRel("certificates")
-        );
+        return EntityModel.of(userDto, LinkTemplate.expand(LINKS, userDto.getId()));
     }
 
     /**
@@ -70,4 +72,32 @@ public class UserAssembler implements
                                 Sort.by("name").ascending())))
                         .withSelfRel());
     }
+
+    /**
+     * Converts a keyset page of {@link UserDto} entities
+     * into a {@link CollectionModel} with links to the adjacent pages.
+     *
+     * @param page     the keyset page to be converted
+     * @param pageable the page size and sort of the listing
+     * @return the {@link CollectionModel} with {@code next}
+     * and {@code prev} cursor links when such pages exist
+     */
+    @NonNull
+    public CollectionModel<EntityModel<UserDto>> toCollectionModel(
+            final CursorPage<UserDto> page,
+            final Pageable pageable) {
+        CollectionModel<EntityModel<UserDto>> model =
+                toCollectionModel(page.getContent());
+        if (page.getNext() != null) {
+            model.add(linkTo(methodOn(UserController.class)
+                    .getUsersAfter(page.getNext().encode(), pageable))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        if (page.getPrevious() != null) {
+            model.add(linkTo(methodOn(UserController.class)
+                    .getUsersAfter(page.getPrevious().encode(), pageable))
+                    .withRel(IanaLinkRelations.PREV));
+        }
+        return model;
+    }
 }
@@ -0,0 +1,51 @@
+package com.store.gift.config;
+
+import com.store.gift.service.FanOut;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration of the threads serving the requests.
+ * <p>
+ * In the {@link FanOut.Mode#VIRTUAL} mode of {@code threads.mode} the
+ * embedded Tomcat runs every request on a virtual thread of its own
+ * instead of its pool of {@code server.tomcat.threads.max} platform
+ * threads, so that a request blocked on JDBC no longer holds an OS thread
+ * and the number of concurrent requests is bounded by
+ * {@code server.tomcat.max-connections} instead. The connection pool is
+ * then the only limit on concurrent database work: it is not to be grown
+ * with the number of requests, the requests beyond it wait for a
+ * connection up to {@code spring.datasource.hikari.connection-timeout}.
+ * <p>
+ * A virtual thread blocking inside a {@code synchronized} block pins its
+ * carrier thread. The PostgreSQL driver guards its connections with locks
+ * instead of monitors from 42.6.0 on; run with
+ * {@code -Djdk.tracePinnedThreads=short} to find other pinning code.
+ */
+@Slf4j
+@Configuration
+public class ThreadsConfig {
+    /**
+     * Runs the requests of the embedded Tomcat on virtual threads
+     * in the {@link FanOut.Mode#VIRTUAL} mode.
+     *
+     * @param mode the mode of running blocking work
+     * @return the customizer of the protocol handler
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsCustomizer(
+            @Value("${threads.mode:PLATFORM}") final FanOut.Mode mode) {
+        return protocolHandler -> {
+            if (mode == FanOut.Mode.VIRTUAL) {
+                log.info("Serving requests on virtual threads");
+                protocolHandler.setExecutor(Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name("http-virtual-", 0).factory()));
+            }
+        };
+    }
+}
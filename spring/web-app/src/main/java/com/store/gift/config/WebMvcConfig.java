@@ -3,12 +3,14 @@ package com.store.gift.config;
 import com.store.gift.entity.SecurityUser;
 import com.store.gift.handler.ResponseMessage;
 import com.store.gift.repository.UserRepository;
+import com.store.gift.service.FanOut;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,6 +25,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
 import org.springframework.web.servlet.config.annotation.DefaultServletHandlerConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
@@ -31,7 +34,9 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON;
@@ -49,6 +54,21 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Value("${server.servlet.context-path}")
     private String contextPath;
 
+    /**
+     * The timeout of asynchronous requests, such as streamed exports.
+     * {@link EnableWebMvc} turns off the auto-configuration that would
+     * otherwise apply the {@code spring.mvc.async.*} properties.
+     */
+    @Value("${spring.mvc.async.request-timeout:30m}")
+    private Duration asyncRequestTimeout;
+
+    /**
+     * The mode of running blocking work, which also applies
+     * to the bodies streamed by asynchronous requests.
+     */
+    @Value("${threads.mode:PLATFORM}")
+    private FanOut.Mode threadsMode;
+
     /**
      * Adds view controllers for specific paths.
      *
@@ -83,6 +103,22 @@ public class WebMvcConfig implements WebMvcConfigurer {
         configurer.defaultContentType(APPLICATION_JSON);
     }
 
+    /**
+     * Configures the timeout of asynchronous requests, and runs them
+     * on virtual threads in the {@link FanOut.Mode#VIRTUAL} mode.
+     *
+     * @param configurer the async support configurer
+     */
+    @Override
+    public void configureAsyncSupport(
+            final AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeout.toMillis());
+        if (threadsMode == FanOut.Mode.VIRTUAL) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("mvc-async-", 0).factory())));
+        }
+    }
+
     /**
      * Creates a handler mapping for serving the favicon.ico file.
      *
@@ -0,0 +1,91 @@
+package com.store.gift.controller;
+
+import com.store.gift.dto.CertificateSalesDto;
+import com.store.gift.dto.Granularity;
+import com.store.gift.dto.RevenueDto;
+import com.store.gift.dto.TagRevenueDto;
+import com.store.gift.service.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE;
+
+/**
+ * Controller class for the sales analytics of the orders.
+ * <p>
+ * The ranges are given as ISO dates and include both days.
+ * The endpoints are restricted to administrators.
+ */
+@RestController
+@RequiredArgsConstructor
+@CrossOrigin(origins = {
+        "http://192.168.31.177:4200",
+        "http://localhost:5500",
+        "http://localhost:4200",
+        "http://127.0.0.1:5500",
+        "http://127.0.0.1:8080",
+        "http://127.0.0.1:4200",
+        "https://gift-store-angular.netlify.app",
+        "https://gift-store-certificate.netlify.app",
+        "https://gift-store.onrender.com"})
+@RequestMapping(value = "/analytics")
+public class AnalyticsController {
+    /**
+     * The service computing the analytics.
+     */
+    private final AnalyticsService analyticsService;
+
+    /**
+     * Retrieves the best-selling certificates of a range.
+     *
+     * @param from  the first day of the range
+     * @param to    the last day of the range
+     * @param limit the maximum number of certificates
+     * @return the sales of the certificates
+     */
+    @GetMapping(value = "/certificates")
+    public List<CertificateSalesDto> topCertificates(
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate to,
+            @RequestParam(defaultValue = "10") final int limit) {
+        return analyticsService.topCertificates(from, to, limit);
+    }
+
+    /**
+     * Retrieves the revenue by tag of a range.
+     *
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return the revenue of the tags
+     */
+    @GetMapping(value = "/tags")
+    public List<TagRevenueDto> revenueByTag(
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate to) {
+        return analyticsService.revenueByTag(from, to);
+    }
+
+    /**
+     * Retrieves the revenue per day or month of a range.
+     *
+     * @param from        the first day of the range
+     * @param to          the last day of the range
+     * @param granularity the length of the periods
+     * @return the revenue of the periods in order
+     */
+    @GetMapping(value = "/revenue")
+    public List<RevenueDto> revenue(
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DATE) final LocalDate to,
+            @RequestParam(defaultValue = "DAY") final Granularity granularity) {
+        return analyticsService.revenue(from, to, granularity);
+    }
+}
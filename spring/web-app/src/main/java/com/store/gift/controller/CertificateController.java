@@ -1,11 +1,21 @@
 package com.store.gift.controller;
 
 import com.store.gift.assembler.CertificateAssembler;
+import com.store.gift.assembler.CertificateSlimAssembler;
 import com.store.gift.assembler.TagAssembler;
 import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.CertificateSlimDto;
+import com.store.gift.dto.DeleteReport;
+import com.store.gift.dto.ImportFormat;
+import com.store.gift.dto.ImportReport;
 import com.store.gift.dto.PatchCertificateDto;
 import com.store.gift.dto.TagDto;
 import com.store.gift.entity.Criteria;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.Revision;
+import com.store.gift.exception.InvalidFormatException;
+import com.store.gift.service.CertificateExportService;
+import com.store.gift.service.CertificateImportService;
 import com.store.gift.service.CertificateService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -14,7 +24,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -24,12 +37,18 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
@@ -53,10 +72,18 @@ import static org.springframework.http.HttpStatus.NO_CONTENT;
         "https://gift-store.onrender.com"})
 @RequestMapping(value = "/certificates")
 public class CertificateController {
+    /**
+     * The media type of the CSV bulk import and export.
+     */
+    private static final String TEXT_CSV_VALUE = "text/csv";
     /**
      * The Certificate assembler for converting Certificate entities to DTOs.
      */
     private final CertificateAssembler assembler;
+    /**
+     * The assembler adding links to the rows of the catalog listing.
+     */
+    private final CertificateSlimAssembler slimAssembler;
     /**
      * The tag assembler for converting tag entities to DTOs.
      */
@@ -65,72 +92,173 @@ public class CertificateController {
      * The Certificate service for performing tag-related operations.
      */
     private final CertificateService certificateService;
+    /**
+     * The service importing certificates in bulk.
+     */
+    private final CertificateImportService importService;
+    /**
+     * The service exporting the whole catalog.
+     */
+    private final CertificateExportService exportService;
 
     /**
      * Retrieves a certificate by its ID.
      *
-     * @param id the ID of the certificate
-     * @return the EntityModel representation of the certificate
+     * <p>
+     * The version and the last update date are read first, and a request
+     * whose If-None-Match or If-Modified-Since still holds is answered
+     * with 304 without reading the certificate.
+     *
+     * @param id      the ID of the certificate
+     * @param request the request, with its conditional headers
+     * @return the EntityModel representation of the certificate,
+     * tagged with its version, or null if not modified
      */
     @GetMapping("/{id}")
-    public EntityModel<CertificateDto> getCertificateById(
-            @Valid @PathVariable final Long id) {
-        return assembler.toModel(
-                certificateService.getById(id));
+    public ResponseEntity<EntityModel<CertificateDto>> getCertificateById(
+            @Valid @PathVariable final Long id,
+            final WebRequest request) {
+        Optional<Revision> revision = certificateService.getRevision(id);
+        if (revision.isPresent() && ETags.notModified(request, revision.get())) {
+            return null;
+        }
+        return ResponseEntity.ok(assembler.toModel(
+                certificateService.getById(id)));
     }
 
     /**
-     * Retrieves all certificates.
+     * Retrieves the catalog listing of certificates.
+     * <p>
+     * The rows hold the listing columns and the tag names only,
+     * the full certificate is returned by its self link.
      *
      * @param pageable the pageable information for pagination and sorting
-     * @return the CollectionModel representation of all slim certificates
+     * @param request  the request, with its conditional headers
+     * @return the CollectionModel representation of all slim certificates,
+     * or null if the catalog is not modified
      */
     @GetMapping
-    public CollectionModel<EntityModel<CertificateDto>> getAll(
+    public CollectionModel<CertificateSlimDto> getAll(
             @PageableDefault(size = 25, sort = {"id"},
-                    direction = Sort.Direction.ASC) final Pageable pageable) {
-        return assembler.toCollectionModel(
+                    direction = Sort.Direction.ASC) final Pageable pageable,
+            final WebRequest request) {
+        if (ETags.catalogNotModified(request, certificateService.getCatalogRevision())) {
+            return null;
+        }
+        return slimAssembler.toCollectionModel(
                 certificateService.getCertificates(pageable));
     }
 
+    /**
+     * Retrieves the catalog listing of certificates with keyset pagination.
+     * <p>
+     * An empty cursor starts from the first page, the response links
+     * to the adjacent pages with opaque {@code next} and {@code prev} cursors.
+     *
+     * @param after    the opaque cursor to seek from
+     * @param pageable the page size and the sort of the first page
+     * @param request  the request, with its conditional headers
+     * @return the CollectionModel with the cursor links,
+     * or null if the catalog is not modified
+     */
+    @GetMapping(params = "after")
+    public CollectionModel<CertificateSlimDto> getAllAfter(
+            @RequestParam(required = false) final String after,
+            @PageableDefault(size = 25, sort = {"id"},
+                    direction = Sort.Direction.ASC) final Pageable pageable,
+            final WebRequest request) {
+        if (ETags.catalogNotModified(request, certificateService.getCatalogRevision())) {
+            return null;
+        }
+        return slimAssembler.toCollectionModel(
+                certificateService.getCertificates(Cursor.decode(after), pageable),
+                pageable);
+    }
+
     /**
      * Searches for certificates based on the provided criteria.
      *
-     * @param name        the name of the certificate (optional)
-     * @param description the description of the certificate (optional)
-     * @param tagNames    the list of tag names associated with the certificate (optional)
-     * @param pageable    the pagination information
-     * @return the collection of certificate DTOs matching the search criteria
+     * @param name             the name of the certificate (optional)
+     * @param description      the description of the certificate (optional)
+     * @param tagNames         the list of tag names associated with the certificate (optional)
+     * @param allTags          whether all the tag names are required instead of any (optional)
+     * @param excludedTagNames the list of tag names the certificate must not have (optional)
+     * @param pageable         the pagination information
+     * @param request          the request, with its conditional headers
+     * @return the collection of certificate DTOs matching the search criteria,
+     * or null if the catalog is not modified
      */
     @GetMapping(value = "/search")
     public CollectionModel<EntityModel<CertificateDto>> search(
             @RequestParam(required = false) final String name,
             @RequestParam(required = false) final String description,
             @RequestParam(required = false) final List<String> tagNames,
+            @RequestParam(defaultValue = "false") final boolean allTags,
+            @RequestParam(required = false) final List<String> excludedTagNames,
             @PageableDefault(size = 25, sort = {"id"},
-                    direction = Sort.Direction.ASC) final Pageable pageable) {
+                    direction = Sort.Direction.ASC) final Pageable pageable,
+            final WebRequest request) {
+        if (ETags.catalogNotModified(request, certificateService.getCatalogRevision())) {
+            return null;
+        }
         return assembler.toCollectionModel(
                 certificateService.findAllBy(
                         Criteria.builder()
                                 .name(name)
                                 .description(description)
-                                .tagNames(tagNames).build(),
+                                .tagNames(tagNames)
+                                .allTags(allTags)
+                                .excludedTagNames(excludedTagNames).build(),
                         pageable));
     }
 
+    /**
+     * Searches certificates by the words of their name and description.
+     * <p>
+     * The matches are ranked in memory by relevance, a certificate
+     * must contain every word and the words may be incomplete.
+     *
+     * @param q        the words to search for
+     * @param pageable the pagination information
+     * @param request  the request, with its conditional headers
+     * @return the page of certificates in relevance order,
+     * or null if the catalog is not modified
+     */
+    @GetMapping(value = "/search", params = "q")
+    public CollectionModel<EntityModel<CertificateDto>> searchText(
+            @RequestParam final String q,
+            @PageableDefault(size = 25) final Pageable pageable,
+            final WebRequest request) {
+        if (ETags.catalogNotModified(request, certificateService.getCatalogRevision())) {
+            return null;
+        }
+        return assembler.toCollectionModel(
+                certificateService.search(q, pageable));
+    }
+
     /**
      * Updates a certificate.
+     * <p>
+     * If-Match, when present, must hold the entity tag of the current
+     * version, otherwise the update is rejected with 412.
      *
-     * @param id  the ID of the certificate to update
-     * @param dto the updated certificate data
-     * @return the EntityModel representation of the updated certificate
+     * @param id      the ID of the certificate to update
+     * @param dto     the updated certificate data
+     * @param ifMatch the entity tag the update is based on, if any
+     * @return the EntityModel representation of the updated certificate,
+     * tagged with its new version
      */
     @PatchMapping(value = "/{id}")
-    public EntityModel<CertificateDto> update(
+    public ResponseEntity<EntityModel<CertificateDto>> update(
             @Valid @PathVariable final Long id,
-            @Valid @RequestBody final PatchCertificateDto dto) {
+            @Valid @RequestBody final PatchCertificateDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
         dto.setId(id);
-        return assembler.toModel(certificateService.update(dto));
+        if (ifMatch != null) {
+            dto.setVersion(ETags.version(ifMatch));
+        }
+        CertificateDto updated = certificateService.update(dto);
+        return ETags.ok(assembler.toModel(updated), updated.getVersion());
     }
 
     /**
@@ -146,6 +274,63 @@ public class CertificateController {
         return certificateService.save(dto);
     }
 
+    /**
+     * Imports certificates in bulk from a streamed request body.
+     * <p>
+     * The body is either NDJSON, one certificate per line, or CSV
+     * with a header row and tags separated by {@code |}. The rows
+     * are read incrementally and saved in batched transactions.
+     *
+     * @param contentType the content type selecting the format
+     * @param body        the request body
+     * @return the report with the per-row errors
+     */
+    @PostMapping(value = "/bulk", consumes = {
+            MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public ImportReport importCertificates(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) final String contentType,
+            final InputStream body) {
+        ImportFormat format = MediaType.parseMediaType(contentType)
+                .isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? ImportFormat.CSV
+                : ImportFormat.NDJSON;
+        return importService.importCertificates(body, format);
+    }
+
+    /**
+     * Exports all certificates, streamed as they are read.
+     * <p>
+     * The certificates are read from a forward-only cursor and written
+     * to the response on an async thread, so neither the catalog nor the
+     * response is held in memory. The output can be imported back with
+     * {@code /bulk}.
+     *
+     * @param format the format, {@code ndjson} or {@code csv}
+     * @return the streamed body
+     * @throws InvalidFormatException if the format is unknown
+     */
+    @GetMapping("/export")
+    @PreAuthorize("isAuthenticated() && hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCertificates(
+            @RequestParam(defaultValue = "ndjson") final String format) {
+        ImportFormat exportFormat;
+        try {
+            exportFormat = ImportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidFormatException("Unknown export format: " + format);
+        }
+        boolean csv = exportFormat == ImportFormat.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv
+                        ? MediaType.parseMediaType(TEXT_CSV_VALUE)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "certificates.csv" : "certificates.ndjson")
+                        .build()
+                        .toString())
+                .body(output -> exportService.exportCertificates(output, exportFormat));
+    }
+
     /**
      * Deletes a certificate by its ID.
      *
@@ -159,6 +344,18 @@ public class CertificateController {
         return new ResponseEntity<>(NO_CONTENT);
     }
 
+    /**
+     * Deletes the certificates with the given IDs in chunked transactions.
+     *
+     * @param ids the IDs of the certificates to delete
+     * @return the report with the outcome of every ID
+     */
+    @DeleteMapping(params = "ids")
+    public DeleteReport deleteAll(
+            @RequestParam final List<Long> ids) {
+        return certificateService.deleteAll(ids);
+    }
+
     /**
      * Retrieves the tags associated with a certificate.
      *
@@ -0,0 +1,106 @@
+package com.store.gift.controller;
+
+import com.store.gift.entity.Revision;
+import com.store.gift.exception.InvalidPreconditionException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Entity tags of the versioned resources.
+ * <p>
+ * The strong entity tag of a certificate or an order is the version of its
+ * entity. A client sends the tag it read back in {@code If-Match}, and an
+ * update based on an older version is rejected with 412 Precondition Failed
+ * instead of overwriting the newer one.
+ * <p>
+ * The listings and searches share the weak entity tag of the catalog,
+ * so that a GET can be answered with 304 Not Modified from the revision
+ * alone, before any certificate is read or assembled.
+ */
+final class ETags {
+    private static final String ANY = "*";
+    private static final String WEAK = "W/";
+    private static final String QUOTE = "\"";
+
+    private ETags() {
+    }
+
+    /**
+     * Builds an OK response with the entity tag of the version.
+     *
+     * @param body    the body of the response
+     * @param version the version of the entity, or null for no tag
+     * @param <T>     the type of the body
+     * @return the response
+     */
+    static <T> ResponseEntity<T> ok(
+            final T body,
+            final Long version) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (version != null) {
+            response.eTag(QUOTE + version + QUOTE);
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Checks the conditional headers of a request against the revision
+     * of a certificate, setting the validators on the response.
+     *
+     * @param request  the request
+     * @param revision the revision of the certificate
+     * @return true if the response was set to 304 and needs no body
+     */
+    static boolean notModified(
+            final WebRequest request,
+            final Revision revision) {
+        return request.checkNotModified(QUOTE + revision.tag() + QUOTE,
+                revision.lastModified() == null ? -1 : revision.lastModified().getTime());
+    }
+
+    /**
+     * Checks {@code If-None-Match} of a request against the revision
+     * of the catalog, setting the weak entity tag on the response.
+     *
+     * @param request  the request
+     * @param revision the revision of the catalog
+     * @return true if the response was set to 304 and needs no body
+     */
+    static boolean catalogNotModified(
+            final WebRequest request,
+            final Revision revision) {
+        return request.checkNotModified(WEAK + QUOTE + revision.tag() + QUOTE);
+    }
+
+    /**
+     * Returns the version an {@code If-Match} header requires.
+     * <p>
+     * Entity tags are compared strongly, so a weak tag or a tag
+     * that is not a version matches no version of the entity.
+     *
+     * @param ifMatch the header, or null if absent
+     * @return the required version, or null if any version matches
+     * @throws InvalidPreconditionException      if the header lists several tags
+     * @throws OptimisticLockingFailureException if the tag matches no version
+     */
+    static Long version(final String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.contains(",")) {
+            throw new InvalidPreconditionException("If-Match must hold a single entity tag");
+        }
+        if (!tag.startsWith(WEAK) && tag.length() > 2
+                && tag.startsWith(QUOTE) && tag.endsWith(QUOTE)) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // not a version, matches none
+            }
+        }
+        throw new OptimisticLockingFailureException(
+                "If-Match " + tag + " matches no version");
+    }
+}
@@ -2,7 +2,9 @@ package com.store.gift.controller;
 
 import com.store.gift.assembler.OrderAssembler;
 import com.store.gift.dto.OrderDto;
+import com.store.gift.entity.Cursor;
 import com.store.gift.entity.Tag;
+import com.store.gift.service.IdempotencyStore;
 import com.store.gift.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +13,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -20,14 +23,13 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
@@ -52,10 +54,22 @@ import static org.springframework.http.HttpStatus.NO_CONTENT;
         "https://gift-store-certificate.netlify.app",
         "https://gift-store.onrender.com"})
 public class OrderController {
+    /**
+     * The header carrying the key of an idempotent request.
+     */
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    /**
+     * The header telling whether a response was recorded by an earlier request.
+     */
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
     /**
      * The tag service for performing tag-related operations.
      */
     private final OrderService orderService;
+    /**
+     * The outcomes of the orders placed with an idempotency key.
+     */
+    private final IdempotencyStore idempotency;
 
     /**
      * The Order assembler for converting tag entities to DTOs.
@@ -64,21 +78,36 @@ public class OrderController {
 
     /**
      * Creates a new order for the specified user and certificate.
+     * <p>
+     * With an {@code Idempotency-Key} header the order is placed once per
+     * user and key: a retry gets the original order back, marked with
+     * {@code Idempotent-Replayed: true}, and a retry sent while the first
+     * request is still running waits for it instead of placing the order
+     * again, and gets 409 Conflict if it is still running after
+     * {@code idempotency.wait}.
      *
-     * @param username         the ID of the user
-     * @param certificateIds the ID of the certificate
+     * @param username       the ID of the user
+     * @param certificateIds the IDs of the certificates
+     * @param counters       the quantities of the certificates, in the order of the IDs
+     * @param idempotencyKey the key of the request chosen by the client, or null
      * @return the created order DTO
      */
     @PostMapping("/{username}")
-    @ResponseStatus(CREATED)
-    public EntityModel<OrderDto> create(
+    public ResponseEntity<EntityModel<OrderDto>> create(
             @PathVariable final String username,
-            @RequestParam final Set<Long> certificateIds,
-            @RequestParam final List<Long> counters
-
-            ) {
-        return assembler.toModel(
-                orderService.save(username, certificateIds, counters));
+            @RequestParam final List<Long> certificateIds,
+            @RequestParam final List<Long> counters,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) final String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(CREATED).body(assembler.toModel(
+                    orderService.save(username, certificateIds, counters)));
+        }
+        IdempotencyStore.Outcome<OrderDto> outcome = idempotency.execute(
+                username, idempotencyKey, List.of(certificateIds, counters),
+                () -> orderService.save(username, certificateIds, counters));
+        return ResponseEntity.status(CREATED)
+                .header(IDEMPOTENT_REPLAYED, String.valueOf(outcome.replayed()))
+                .body(assembler.toModel(outcome.value()));
     }
 
     /**
@@ -111,17 +140,37 @@ public class OrderController {
                 orderService.getAll(pageable));
     }
 
+    /**
+     * Retrieves orders with keyset pagination.
+     * <p>
+     * An empty cursor starts from the first page, the response links
+     * to the adjacent pages with opaque {@code next} and {@code prev} cursors.
+     *
+     * @param after    the opaque cursor to seek from
+     * @param pageable the page size and the sort of the first page
+     * @return the CollectionModel with the cursor links
+     */
+    @GetMapping(params = "after")
+    public CollectionModel<EntityModel<OrderDto>> getAllOrdersAfter(
+            @RequestParam(required = false) final String after,
+            @PageableDefault(size = 25, sort = {"id"},
+                    direction = Sort.Direction.ASC) final Pageable pageable) {
+        return assembler.toCollectionModel(
+                orderService.getAll(Cursor.decode(after), pageable),
+                pageable);
+    }
+
     /**
      * Retrieves an order by its ID.
      *
      * @param id the ID of the order.
-     * @return the order resource.
+     * @return the order resource, tagged with its version.
      */
     @GetMapping("/{id}")
-    public EntityModel<OrderDto> getOrderById(
+    public ResponseEntity<EntityModel<OrderDto>> getOrderById(
             @PathVariable final Long id) {
-        return assembler.toModel(
-                orderService.getById(id));
+        OrderDto dto = orderService.getById(id);
+        return ETags.ok(assembler.toModel(dto), dto.getVersion());
     }
 
     /**
@@ -157,18 +206,26 @@ public class OrderController {
 
     /**
      * Updates an existing order with the given ID using the provided order DTO.
+     * <p>
+     * If-Match, when present, must hold the entity tag of the current
+     * version, otherwise the update is rejected with 412.
      *
-     * @param id  the ID of the order to be updated
-     * @param dto the updated order DTO
-     * @return the updated order as an EntityModel
+     * @param id      the ID of the order to be updated
+     * @param dto     the updated order DTO
+     * @param ifMatch the entity tag the update is based on, if any
+     * @return the updated order as an EntityModel, tagged with its new version
      */
     @PatchMapping(value = "/{id}")
-    public EntityModel<OrderDto> update(
+    public ResponseEntity<EntityModel<OrderDto>> update(
             @Valid @PathVariable final Long id,
-            @Valid @RequestBody final OrderDto dto) {
+            @Valid @RequestBody final OrderDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
         dto.setId(id);
-        return assembler.toModel(
-                orderService.update(dto));
+        if (ifMatch != null) {
+            dto.setVersion(ETags.version(ifMatch));
+        }
+        OrderDto updated = orderService.update(dto);
+        return ETags.ok(assembler.toModel(updated), updated.getVersion());
     }
 
     /**
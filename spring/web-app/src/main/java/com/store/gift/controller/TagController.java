@@ -1,7 +1,9 @@
 package com.store.gift.controller;
 
 import com.store.gift.assembler.TagAssembler;
+import com.store.gift.dto.DeleteReport;
 import com.store.gift.dto.TagDto;
+import com.store.gift.entity.Cursor;
 import com.store.gift.service.TagService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
@@ -17,9 +19,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 
@@ -67,6 +72,26 @@ public class TagController {
         return tagAssembler.toCollectionModel(tagService.getAll(pageable));
     }
 
+    /**
+     * Retrieves tags with keyset pagination.
+     * <p>
+     * An empty cursor starts from the first page, the response links
+     * to the adjacent pages with opaque {@code next} and {@code prev} cursors.
+     *
+     * @param after    the opaque cursor to seek from
+     * @param pageable the page size and the sort of the first page
+     * @return the CollectionModel with the cursor links
+     */
+    @GetMapping(params = "after")
+    public CollectionModel<EntityModel<TagDto>> getAllAfter(
+            @RequestParam(required = false) final String after,
+            @PageableDefault(size = 25, sort = {"id"},
+                    direction = Sort.Direction.ASC) final Pageable pageable) {
+        return tagAssembler.toCollectionModel(
+                tagService.getAll(Cursor.decode(after), pageable),
+                pageable);
+    }
+
     /**
      * Creates a new tag.
      *
@@ -92,4 +117,16 @@ public class TagController {
         tagService.delete(id);
         return new ResponseEntity<>(NO_CONTENT);
     }
+
+    /**
+     * Deletes the tags with the given IDs in chunked transactions.
+     *
+     * @param ids the IDs of the tags to delete
+     * @return the report with the outcome of every ID
+     */
+    @DeleteMapping(params = "ids")
+    public DeleteReport deleteAll(
+            @RequestParam final List<Long> ids) {
+        return tagService.deleteAll(ids);
+    }
 }
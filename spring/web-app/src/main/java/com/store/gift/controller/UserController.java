@@ -1,8 +1,10 @@
 package com.store.gift.controller;
 
 import com.store.gift.assembler.UserAssembler;
+import com.store.gift.dto.DeleteReport;
 import com.store.gift.dto.UserDto;
 import com.store.gift.dto.UserSlimDto;
+import com.store.gift.entity.Cursor;
 import com.store.gift.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,9 +22,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 
@@ -76,6 +81,26 @@ public class UserController {
                 userService.getAll(pageable));
     }
 
+    /**
+     * Retrieves users with keyset pagination.
+     * <p>
+     * An empty cursor starts from the first page, the response links
+     * to the adjacent pages with opaque {@code next} and {@code prev} cursors.
+     *
+     * @param after    the opaque cursor to seek from
+     * @param pageable the page size and the sort of the first page
+     * @return the CollectionModel with the cursor links
+     */
+    @GetMapping(params = "after")
+    public CollectionModel<EntityModel<UserDto>> getUsersAfter(
+            @RequestParam(required = false) final String after,
+            @PageableDefault(size = 25, sort = {"id"},
+                    direction = Sort.Direction.ASC) final Pageable pageable) {
+        return assembler.toCollectionModel(
+                userService.getAll(Cursor.decode(after), pageable),
+                pageable);
+    }
+
     /**
      * Creates a new user.
      *
@@ -116,4 +141,17 @@ public class UserController {
         userService.delete(id);
         return new ResponseEntity<>(NO_CONTENT);
     }
+
+    /**
+     * Deletes the users with the given IDs, with their orders,
+     * in chunked transactions.
+     *
+     * @param ids the IDs of the users to delete
+     * @return the report with the outcome of every ID
+     */
+    @DeleteMapping(params = "ids")
+    public DeleteReport deleteAll(
+            @RequestParam final List<Long> ids) {
+        return userService.deleteAll(ids);
+    }
 }
@@ -2,10 +2,20 @@ package com.store.gift.handler;
 
 import com.store.gift.exception.CertificateAlreadyExistsException;
 import com.store.gift.exception.CertificateNotFoundException;
+import com.store.gift.exception.IdempotencyConflictException;
+import com.store.gift.exception.InvalidBatchException;
+import com.store.gift.exception.InvalidCursorException;
+import com.store.gift.exception.InvalidFormatException;
+import com.store.gift.exception.InvalidIdempotencyKeyException;
+import com.store.gift.exception.InvalidOrderException;
+import com.store.gift.exception.InvalidPreconditionException;
+import com.store.gift.exception.InvalidReportException;
 import com.store.gift.exception.ResourceNotFoundException;
 import com.store.gift.exception.TagAlreadyExistsException;
 import com.store.gift.exception.TagNotFoundException;
+import jakarta.persistence.OptimisticLockException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -18,6 +28,7 @@ import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.METHOD_NOT_ALLOWED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
 
 /**
  * Controller advice for handling exceptions
@@ -43,6 +54,24 @@ public class ErrorHandlerController extends ResponseEntityExceptionHandler {
         );
     }
 
+    /**
+     * Handles IdempotencyConflictException, thrown for a request
+     * repeating the key of a request that is still running,
+     * and generates a conflict response.
+     *
+     * @param exception the IdempotencyConflictException to handle
+     * @return the ResponseEntity with the conflict response
+     */
+    @ResponseStatus(CONFLICT)
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<Object> handleIdempotencyConflictException(
+            final IdempotencyConflictException exception) {
+        return buildErrorResponse(
+                exception.getMessage(),
+                CONFLICT
+        );
+    }
+
     /**
      * Handles ResourceNotFoundException
      * and generates a not found response.
@@ -79,16 +108,24 @@ public class ErrorHandlerController extends ResponseEntityExceptionHandler {
     }
 
     /**
-     * Handles CertificateAlreadyExistsException
-     * and TagAlreadyExistsException
-     * and generates a bad request response.
+     * Handles CertificateAlreadyExistsException,
+     * TagAlreadyExistsException, InvalidReportException,
+     * InvalidBatchException, InvalidPreconditionException,
+     * InvalidFormatException, InvalidIdempotencyKeyException and
+     * InvalidOrderException and generates a bad request response.
      *
      * @param exception the RuntimeException to handle
      * @return the ResponseEntity with the bad request response
      */
     @ResponseStatus(BAD_REQUEST)
     @ExceptionHandler({CertificateAlreadyExistsException.class,
-            TagAlreadyExistsException.class})
+            TagAlreadyExistsException.class,
+            InvalidReportException.class,
+            InvalidBatchException.class,
+            InvalidPreconditionException.class,
+            InvalidFormatException.class,
+            InvalidIdempotencyKeyException.class,
+            InvalidOrderException.class})
     public ResponseEntity<Object> handleEntityIsExistsException(
             final RuntimeException exception) {
         return buildErrorResponse(
@@ -97,6 +134,42 @@ public class ErrorHandlerController extends ResponseEntityExceptionHandler {
         );
     }
 
+    /**
+     * Handles updates based on a stale version of an entity,
+     * whether rejected by If-Match or by the version check
+     * on flush, and generates a precondition failed response.
+     *
+     * @param exception the optimistic locking failure to handle
+     * @return the ResponseEntity with the precondition failed response
+     */
+    @ResponseStatus(PRECONDITION_FAILED)
+    @ExceptionHandler({OptimisticLockException.class,
+            OptimisticLockingFailureException.class})
+    public ResponseEntity<Object> handleOptimisticLockException(
+            final RuntimeException exception) {
+        return buildErrorResponse(
+                exception.getMessage(),
+                PRECONDITION_FAILED
+        );
+    }
+
+    /**
+     * Handles InvalidCursorException, thrown for a malformed
+     * pagination cursor, and generates a bad request response.
+     *
+     * @param exception the InvalidCursorException to handle
+     * @return the ResponseEntity with the bad request response
+     */
+    @ResponseStatus(BAD_REQUEST)
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursorException(
+            final InvalidCursorException exception) {
+        return buildErrorResponse(
+                exception.getMessage(),
+                BAD_REQUEST
+        );
+    }
+
     /**
      * Handles general exceptions
      * and generates an internal server error response.
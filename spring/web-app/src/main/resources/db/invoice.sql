@@ -1,9 +1,12 @@
+CREATE SEQUENCE IF NOT EXISTS invoice_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS invoices
 (
-    id             BIGSERIAL PRIMARY KEY,
-    counter        BIGINT,
-    order_id       BIGINT,
-    certificate_id BIGINT,
+    id             BIGINT PRIMARY KEY DEFAULT nextval('invoice_id_seq'),
+    quantity       BIGINT         NOT NULL,
+    unit_price     NUMERIC(19, 2) NOT NULL,
+    order_id       BIGINT         NOT NULL,
+    certificate_id BIGINT         NOT NULL,
     FOREIGN KEY (order_id) REFERENCES orders (order_id),
     FOREIGN KEY (certificate_id) REFERENCES gift_certificates (id)
-);
\ No newline at end of file
+);
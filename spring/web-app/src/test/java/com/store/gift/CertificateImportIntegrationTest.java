@@ -0,0 +1,63 @@
+package com.store.gift;
+
+import com.store.gift.dto.ImportError;
+import com.store.gift.dto.ImportFormat;
+import com.store.gift.dto.ImportReport;
+import com.store.gift.service.CertificateImportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DirtiesContext
+@SpringBootTest
+class CertificateImportIntegrationTest {
+    private static final List<String> NAMES = List.of("Import Winter", "Import Broken", "Import Summer");
+    @Autowired
+    private CertificateImportService importService;
+    @Autowired
+    private TransactionTemplate transactions;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @AfterEach
+    void deleteImported() {
+        transactions.executeWithoutResult(status -> entityManager
+                .createNativeQuery("DELETE FROM gift_certificates WHERE name IN (:names)")
+                .setParameter("names", NAMES)
+                .executeUpdate());
+    }
+
+    @Test
+    @DisplayName("Given a batch with a row violating a column constraint, when it is imported, then the other rows are saved")
+    void testImportBatchWithConstraintViolation() {
+        String ndjson = String.format("""
+                {"name":"%s","description":"Snow","price":10.00,"duration":30}
+                {"name":"%s","description":"Too long","shortDescription":"%s","price":10.00,"duration":30}
+                {"name":"%s","description":"Sun","price":20.00,"duration":30}
+                """, NAMES.get(0), NAMES.get(1), "c".repeat(300), NAMES.get(2));
+
+        ImportReport report = importService.importCertificates(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ImportFormat.NDJSON);
+
+        assertEquals(3, report.getRows());
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(2L), report.getErrors().stream().map(ImportError::getRow).toList());
+        assertEquals(List.of(NAMES.get(0), NAMES.get(2)), transactions.execute(status -> entityManager
+                .createQuery("SELECT c.name FROM Certificate c WHERE c.name IN :names ORDER BY c.name DESC",
+                        String.class)
+                .setParameter("names", NAMES)
+                .getResultList()));
+    }
+}
@@ -0,0 +1,82 @@
+package com.store.gift;
+
+import com.store.gift.dao.UserDao;
+import com.store.gift.entity.Certificate;
+import com.store.gift.entity.Invoice;
+import com.store.gift.entity.Order;
+import com.store.gift.entity.Tag;
+import com.store.gift.entity.TagSpend;
+import com.store.gift.entity.User;
+import com.store.gift.repository.UserRepository;
+import com.store.gift.repository.impl.UserRepoImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class UserRepositoryDataJpaTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    private User user;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(User.builder()
+                .username("purged").email("purged@gift.store").password("password").build());
+        Tag tag = entityManager.persist(Tag.builder().name("purged").build());
+        Certificate certificate = entityManager.persist(Certificate.builder()
+                .name("purged").description("purged").price(BigDecimal.TEN).duration(10).build().addTag(tag));
+        order = Order.builder().user(user).cost(BigDecimal.valueOf(20)).certificates(new HashSet<>(Set.of(certificate))).build();
+        order.getInvoices().add(Invoice.builder().order(order).certificate(certificate)
+                .quantity(2L).unitPrice(BigDecimal.TEN).build());
+        entityManager.persist(order);
+        entityManager.persist(TagSpend.builder().user(user).tag(tag).lines(1).cost(BigDecimal.valueOf(20)).build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long count(final String table) {
+        return ((Number) entityManager.getEntityManager()
+                .createNativeQuery("SELECT COUNT(*) FROM " + table + " WHERE order_id = :id")
+                .setParameter("id", order.getId())
+                .getSingleResult()).longValue();
+    }
+
+    @Test
+    @DisplayName("Given a soft-deleted user with an order with lines, when the user is purged, then its rows are deleted")
+    void testPurgeDeletesOrderLines() {
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE users SET deleted = true WHERE user_id = :id")
+                .setParameter("id", user.getId())
+                .executeUpdate();
+        userRepository.purge(List.of(user.getId()));
+        assertEquals(0, count("invoices"));
+        assertEquals(0, count("order_certificate"));
+        assertEquals(0, count("orders"));
+        assertEquals(List.of(), userRepository.findDeletedIds(10));
+    }
+
+    @Test
+    @DisplayName("Given a user with an order with lines, when the user is deleted, then its rows are deleted")
+    void testDeleteAllDeletesOrders() {
+        UserDao userDao = new UserRepoImpl(userRepository);
+        assertEquals(Set.of(user.getId()), userDao.deleteAll(List.of(user.getId(), Long.MAX_VALUE)));
+        assertEquals(0, count("invoices"));
+        assertEquals(0, count("orders"));
+        assertEquals(Optional.empty(), userRepository.findById(user.getId()));
+    }
+}
@@ -0,0 +1,127 @@
+package com.store.gift.assembler;
+
+import com.store.gift.controller.CertificateController;
+import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.PatchCertificateDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Compares assembling a page of certificates with links built on the
+ * controller proxies, as the assembler did before, to the link templates.
+ * Every iteration runs in a request of its own, so that the base URI
+ * cached per request is resolved again.
+ * <p>
+ * Run with {@code mvn -pl web-app test -Dbenchmark=true -Dtest=AssemblerBenchmarkTest}.
+ */
+@Slf4j
+@org.junit.jupiter.api.Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AssemblerBenchmarkTest {
+    private final CertificateAssembler assembler = new CertificateAssembler();
+
+    @BeforeEach
+    void setUp() {
+        request();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static void request() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setServerName("gift.store");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static <T> long measure(
+            final int warmups,
+            final int iterations,
+            final Supplier<T> task) {
+        for (int i = 0; i < warmups; i++) {
+            request();
+            task.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            request();
+            task.get();
+        }
+        return (System.nanoTime() - start) / iterations / 1_000;
+    }
+
+    @ParameterizedTest
+    @DisplayName("Links built on the controller proxies versus the link templates")
+    @ValueSource(ints = {25, 100})
+    void compare(int size) {
+        List<CertificateDto> page = LongStream.rangeClosed(1, size)
+                .mapToObj(id -> CertificateDto.builder()
+                        .id(id)
+                        .name("certificate" + id)
+                        .price(BigDecimal.TEN)
+                        .duration(10)
+                        .build())
+                .toList();
+        long proxies = measure(2_000, 2_000, () -> legacy(page));
+        long templates = measure(2_000, 2_000, () -> assembler.toCollectionModel(page));
+        log.info("size={} proxies={}us templates={}us", size, proxies, templates);
+
+        assertEquals(links(legacy(page)), links(assembler.toCollectionModel(page)));
+    }
+
+    private static List<String> links(final CollectionModel<EntityModel<CertificateDto>> model) {
+        return model.getContent().stream()
+                .flatMap(item -> item.getLinks().stream())
+                .map(link -> link.getRel().value() + " " + link.getHref())
+                .toList();
+    }
+
+    private static CollectionModel<EntityModel<CertificateDto>> legacy(final List<CertificateDto> page) {
+        return CollectionModel.of(page.stream()
+                        .map(dto -> EntityModel.of(dto,
+                                linkTo(methodOn(CertificateController.class)
+                                        .getCertificateById(dto.getId(), null)).withSelfRel(),
+                                linkTo(methodOn(CertificateController.class)
+                                        .getTagsByCertificateId(dto.getId())).withRel("tags"),
+                                linkTo(methodOn(CertificateController.class)
+                                        .delete(dto.getId())).withRel("delete"),
+                                linkTo(methodOn(CertificateController.class)
+                                        .create(dto)).withRel("create"),
+                                linkTo(methodOn(CertificateController.class)
+                                        .update(dto.getId(), PatchCertificateDto
+                                                .builder()
+                                                .duration(dto.getDuration())
+                                                .price(dto.getPrice())
+                                                .id(dto.getId())
+                                                .build(), null))
+                                        .withRel("update")))
+                        .toList(),
+                linkTo(methodOn(CertificateController.class)
+                        .getAll(PageRequest.of(0, 25,
+                                Sort.by(Sort.Direction.ASC, "id")), null))
+                        .withSelfRel());
+    }
+}
@@ -0,0 +1,60 @@
+package com.store.gift.assembler;
+
+import com.store.gift.dto.CertificateSlimDto;
+import com.store.gift.entity.Cursor;
+import com.store.gift.entity.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CertificateSlimAssemblerTest {
+    private CertificateSlimAssembler assembler;
+    private CertificateSlimDto dto;
+
+    @BeforeEach
+    void setUp() {
+        assembler = new CertificateSlimAssembler();
+        dto = CertificateSlimDto.builder()
+                .id(1L)
+                .name("Certificate 1")
+                .description("Certificate 1 Description")
+                .price(BigDecimal.TEN)
+                .duration(10)
+                .tagNames(List.of("spa", "winter"))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Given a listing row, when toModel is called, then the certificate links are added")
+    void testToModel() {
+        CertificateSlimDto model = assembler.toModel(dto);
+        assertTrue(model.getLink("self").isPresent());
+        assertTrue(model.getLink("tags").isPresent());
+        assertTrue(model.getLink("update").isPresent());
+        assertEquals(List.of("spa", "winter"), model.getTagNames());
+    }
+
+    @Test
+    @DisplayName("Given a keyset page, when toCollectionModel is called, then only the existing adjacent pages are linked")
+    void testToCollectionModelWithCursors() {
+        CursorPage<CertificateSlimDto> page = CursorPage.<CertificateSlimDto>builder()
+                .content(List.of(dto))
+                .next(Cursor.builder().property("id").ascending(true).id(1L).build())
+                .build();
+        CollectionModel<CertificateSlimDto> model =
+                assembler.toCollectionModel(page, PageRequest.of(0, 25));
+        assertEquals(1, model.getContent().size());
+        assertTrue(model.getLink(IanaLinkRelations.NEXT).isPresent());
+        assertFalse(model.getLink(IanaLinkRelations.PREV).isPresent());
+    }
+}
@@ -0,0 +1,105 @@
+package com.store.gift.assembler;
+
+import com.store.gift.controller.CertificateController;
+import com.store.gift.controller.OrderController;
+import com.store.gift.controller.TagController;
+import com.store.gift.controller.UserController;
+import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.OrderDto;
+import com.store.gift.dto.TagDto;
+import com.store.gift.dto.UserDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+class LinkTemplateTest {
+    private static final long ID = 7L;
+
+    @BeforeEach
+    void setUp() {
+        request("gift.store");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static void request(final String host) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setServerName(host);
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static String href(final WebMvcLinkBuilder builder) {
+        return builder.withSelfRel().expand().getHref();
+    }
+
+    private static String href(final EntityModel<?> model, final String relation) {
+        return model.getRequiredLink(relation).getHref();
+    }
+
+    @Test
+    @DisplayName("Given a certificate, when assembled, then the links equal the ones built on the controller")
+    void testCertificateLinks() {
+        EntityModel<CertificateDto> model = new CertificateAssembler()
+                .toModel(CertificateDto.builder().id(ID).build());
+        assertEquals(href(linkTo(methodOn(CertificateController.class).getCertificateById(ID, null))),
+                href(model, IanaLinkRelations.SELF.value()));
+        assertEquals(href(linkTo(methodOn(CertificateController.class).getTagsByCertificateId(ID))),
+                href(model, "tags"));
+        assertEquals(href(linkTo(methodOn(CertificateController.class).delete(ID))),
+                href(model, "delete"));
+        assertEquals(href(linkTo(methodOn(CertificateController.class).create(null))),
+                href(model, "create"));
+        assertEquals(href(linkTo(methodOn(CertificateController.class).update(ID, null, null))),
+                href(model, "update"));
+    }
+
+    @Test
+    @DisplayName("Given orders, tags and users, when assembled, then the links equal the ones built on the controllers")
+    void testOtherLinks() {
+        EntityModel<OrderDto> order = new OrderAssembler().toModel(OrderDto.builder().id(ID).build());
+        assertEquals(href(linkTo(methodOn(OrderController.class).getOrderById(ID))),
+                href(order, IanaLinkRelations.SELF.value()));
+        assertEquals(href(linkTo(methodOn(CertificateController.class).getAllByOrderId(ID))),
+                href(order, "certificates"));
+        EntityModel<TagDto> tag = new TagAssembler().toModel(TagDto.builder().id(ID).build());
+        assertEquals(href(linkTo(methodOn(TagController.class).getById(ID))),
+                href(tag, IanaLinkRelations.SELF.value()));
+        assertEquals(href(linkTo(methodOn(TagController.class).delete(ID))),
+                href(tag, "delete"));
+        EntityModel<UserDto> user = new UserAssembler().toModel(UserDto.builder().id(ID).build());
+        assertEquals(href(linkTo(methodOn(UserController.class).getUser(ID))),
+                href(user, IanaLinkRelations.SELF.value()));
+        assertEquals(href(linkTo(methodOn(OrderController.class).getAllOrdersByUserId(ID,
+                        PageRequest.of(0, 25, Sort.by("name").ascending())))),
+                href(user, "orders"));
+        assertEquals(href(linkTo(methodOn(CertificateController.class).getUserCertificates(ID))),
+                href(user, "certificates"));
+    }
+
+    @Test
+    @DisplayName("Given requests to other hosts, when assembled, then each link is based on its own request")
+    void testBasePerRequest() {
+        TagAssembler assembler = new TagAssembler();
+        assembler.toModel(TagDto.builder().id(ID).build());
+        request("mirror.gift.store");
+        assertEquals("http://mirror.gift.store:8080/tags/8",
+                href(assembler.toModel(TagDto.builder().id(8L).build()), IanaLinkRelations.SELF.value()));
+    }
+}
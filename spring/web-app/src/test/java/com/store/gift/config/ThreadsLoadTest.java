@@ -0,0 +1,158 @@
+package com.store.gift.config;
+
+import com.store.gift.RestApiApplication;
+import com.store.gift.service.FanOut;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the throughput and the 99th percentile latency of the
+ * application serving requests on platform threads and on virtual threads.
+ * <p>
+ * The application is started once per mode on a random port with a fresh
+ * in-memory database. Every client is a virtual thread sending requests
+ * back to back through one shared HTTP client, which keeps a connection
+ * per concurrent request, first for a warm-up period, then for the
+ * measured period. The latencies are counted in buckets of
+ * a millisecond. The clients share the JVM of the application, so the
+ * figures compare the modes rather than size a deployment.
+ * <p>
+ * Run with {@code mvn -pl web-app test -Dbenchmark=true -Dtest=ThreadsLoadTest},
+ * with an open files limit above twice the number of clients. The path
+ * requested defaults to a certificate and is set with {@code -Dload.path}.
+ */
+@Slf4j
+@org.junit.jupiter.api.Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ThreadsLoadTest {
+    private static final String PATH = System.getProperty("load.path", "/api/certificates/1");
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASURED = Duration.ofSeconds(30);
+    private static final int MAX_MILLIS = 60_000;
+
+    /**
+     * The outcome of a load period.
+     *
+     * @param requests   the number of successful requests
+     * @param errors     the number of failed requests
+     * @param throughput the successful requests per second
+     * @param p99        the 99th percentile latency in milliseconds
+     */
+    private record Result(long requests, long errors, double throughput, long p99) {
+    }
+
+    @ParameterizedTest
+    @DisplayName("Requests served on platform threads versus virtual threads")
+    @ValueSource(ints = {1_000, 5_000, 10_000})
+    void compare(int clients) throws InterruptedException {
+        Result platform = run(FanOut.Mode.PLATFORM, clients);
+        Result virtual = run(FanOut.Mode.VIRTUAL, clients);
+        log.info("clients={} platform: {}/s p99={}ms errors={} virtual: {}/s p99={}ms errors={}",
+                clients,
+                Math.round(platform.throughput()), platform.p99(), platform.errors(),
+                Math.round(virtual.throughput()), virtual.p99(), virtual.errors());
+
+        assertTrue(platform.requests() > 0);
+        assertTrue(virtual.requests() > 0);
+    }
+
+    private static Result run(
+            final FanOut.Mode mode,
+            final int clients) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(RestApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "threads.mode=" + mode,
+                        "spring.datasource.url=jdbc:h2:mem:load_" + UUID.randomUUID()
+                                + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + PATH);
+            load(uri, clients, WARMUP);
+            return load(uri, clients, MEASURED);
+        }
+    }
+
+    private static Result load(
+            final URI uri,
+            final int clients,
+            final Duration duration) throws InterruptedException {
+        AtomicLongArray latencies = new AtomicLongArray(MAX_MILLIS + 1);
+        LongAdder errors = new LongAdder();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .build()) {
+            for (int i = 0; i < clients; i++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent);
+                                latencies.incrementAndGet((int) Math.min(millis, MAX_MILLIS));
+                            } else {
+                                errors.increment();
+                            }
+                        } catch (IOException e) {
+                            errors.increment();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(duration.toSeconds() + MAX_MILLIS / 1_000, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long requests = 0;
+        for (int millis = 0; millis <= MAX_MILLIS; millis++) {
+            requests += latencies.get(millis);
+        }
+        return new Result(requests, errors.sum(), requests / seconds, percentile(latencies, requests, 0.99));
+    }
+
+    private static long percentile(
+            final AtomicLongArray latencies,
+            final long requests,
+            final double percentile) {
+        long rank = (long) Math.ceil(requests * percentile);
+        long seen = 0;
+        for (int millis = 0; millis <= MAX_MILLIS; millis++) {
+            seen += latencies.get(millis);
+            if (seen >= rank && seen > 0) {
+                return millis;
+            }
+        }
+        return MAX_MILLIS;
+    }
+}
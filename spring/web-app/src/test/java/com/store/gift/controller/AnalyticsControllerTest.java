@@ -0,0 +1,113 @@
+package com.store.gift.controller;
+
+import com.store.gift.dto.CertificateSalesDto;
+import com.store.gift.dto.Granularity;
+import com.store.gift.dto.RevenueDto;
+import com.store.gift.dto.TagRevenueDto;
+import com.store.gift.exception.InvalidReportException;
+import com.store.gift.service.AnalyticsService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+@DirtiesContext
+@SpringBootTest
+@AutoConfigureMockMvc
+class AnalyticsControllerTest {
+    String admin = "ROLE_ADMIN";
+    String user = "ROLE_USER";
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AnalyticsService analyticsService;
+
+    LocalDate from = LocalDate.of(2023, 1, 1);
+    LocalDate to = LocalDate.of(2023, 3, 31);
+
+    @Test
+    @DisplayName("Test topCertificates - Retrieves the best-selling certificates of a range")
+    void topCertificatesTest() throws Exception {
+        given(analyticsService.topCertificates(from, to, 5)).willReturn(List.of(
+                CertificateSalesDto.builder().id(1L).name("Massage").lines(3).revenue(BigDecimal.TEN).build()));
+
+        mockMvc.perform(get("/analytics/certificates")
+                        .param("from", "2023-01-01")
+                        .param("to", "2023-03-31")
+                        .param("limit", "5")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].lines").value(3));
+    }
+
+    @Test
+    @DisplayName("Test revenueByTag - Retrieves the revenue by tag of a range")
+    void revenueByTagTest() throws Exception {
+        given(analyticsService.revenueByTag(from, to)).willReturn(List.of(
+                TagRevenueDto.builder().name("spa").lines(2).revenue(BigDecimal.ONE).build()));
+
+        mockMvc.perform(get("/analytics/tags")
+                        .param("from", "2023-01-01")
+                        .param("to", "2023-03-31")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("spa"));
+    }
+
+    @Test
+    @DisplayName("Test revenue - Retrieves the revenue per month of a range")
+    void revenueTest() throws Exception {
+        given(analyticsService.revenue(from, to, Granularity.MONTH)).willReturn(List.of(
+                RevenueDto.builder().period(from).orders(4).revenue(BigDecimal.TEN).build()));
+
+        mockMvc.perform(get("/analytics/revenue")
+                        .param("from", "2023-01-01")
+                        .param("to", "2023-03-31")
+                        .param("granularity", "MONTH")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].orders").value(4));
+    }
+
+    @Test
+    @DisplayName("Test revenue - Rejects a range ending before it starts")
+    void invalidRangeTest() throws Exception {
+        given(analyticsService.revenue(to, from, Granularity.DAY))
+                .willThrow(new InvalidReportException("The range must start on or before its end"));
+
+        mockMvc.perform(get("/analytics/revenue")
+                        .param("from", "2023-03-31")
+                        .param("to", "2023-01-01")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test revenue - Denies the analytics to users")
+    void forbiddenTest() throws Exception {
+        mockMvc.perform(get("/analytics/revenue")
+                        .param("from", "2023-01-01")
+                        .param("to", "2023-03-31")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(user))))
+                .andExpect(status().isForbidden());
+    }
+}
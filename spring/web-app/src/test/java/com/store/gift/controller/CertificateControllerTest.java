@@ -1,8 +1,11 @@
 package com.store.gift.controller;
 
 import com.store.gift.dto.CertificateDto;
+import com.store.gift.dto.CertificateSlimDto;
+import com.store.gift.dto.PatchCertificateDto;
 import com.store.gift.dto.TagDto;
 import com.store.gift.entity.Criteria;
+import com.store.gift.entity.Revision;
 import com.store.gift.entity.Role;
 import com.store.gift.entity.RoleType;
 import com.store.gift.entity.User;
@@ -19,27 +22,36 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -48,6 +60,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest
 @AutoConfigureMockMvc
 class CertificateControllerTest {
+    private static final String CATALOG = "5-9-1700000000000-5-2-2";
+    private static final Timestamp MODIFIED = Timestamp.valueOf("2023-11-14 22:13:20");
     Long id = 1101L;
     String username = "User";
     String email = "user@i.ua";
@@ -63,8 +77,10 @@ class CertificateControllerTest {
 
     @BeforeEach
     void clearDatabase() {
+        when(service.getCatalogRevision()).thenReturn(new Revision(CATALOG, null));
         userDetails = User.builder().id(id).role(Role.builder().permission(RoleType.USER)
                 .build()).email(email).password(password).username(username).build();
+        entityManager.createQuery("DELETE FROM TagSpend").executeUpdate();
         entityManager.createQuery("DELETE FROM Order").executeUpdate();
         entityManager.createQuery("DELETE FROM User").executeUpdate();
     }
@@ -98,6 +114,97 @@ class CertificateControllerTest {
         verify(service).getById(1L);
     }
 
+    @Test
+    @DisplayName("Given a versioned certificate, when getById, then its revision is the entity tag and the last modification")
+    void testGetCertificateETag() throws Exception {
+        when(service.getRevision(1L)).thenReturn(Optional.of(new Revision("4", MODIFIED)));
+        when(service.getById(1L)).thenReturn(dto);
+        mockMvc.perform(get("/certificates/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, MODIFIED.getTime()));
+    }
+
+    @Test
+    @DisplayName("Given a current entity tag, when getById, then 304 is answered without reading the certificate")
+    void testGetCertificateNotModified() throws Exception {
+        when(service.getRevision(1L)).thenReturn(Optional.of(new Revision("4", MODIFIED)));
+        mockMvc.perform(get("/certificates/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"4\"")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/certificates/1")
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED.getTime() + 1000)
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isNotModified());
+        verify(service, never()).getById(1L);
+    }
+
+    @Test
+    @DisplayName("Given the current catalog tag, when getAll, then 304 is answered without reading the listing")
+    void testGetAllNotModified() throws Exception {
+        mockMvc.perform(get("/certificates")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"" + CATALOG + "\"")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isNotModified());
+        verify(service, never()).getCertificates(any(Pageable.class));
+        mockMvc.perform(get("/certificates/search")
+                        .param("name", "Java")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"stale\"")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"" + CATALOG + "\""));
+    }
+
+    @Test
+    @DisplayName("Given a stale If-Match, when update, then the update is rejected with 412")
+    void testUpdateStaleVersion() throws Exception {
+        when(service.update(any(PatchCertificateDto.class)))
+                .thenThrow(new OptimisticLockingFailureException("Certificate 1 is at version 3, not 2"));
+        mockMvc.perform(patch("/certificates/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":10}")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isPreconditionFailed());
+        verify(service).update(argThat(patch -> Long.valueOf(1L).equals(patch.getId())
+                && Long.valueOf(2L).equals(patch.getVersion())));
+    }
+
+    @Test
+    @DisplayName("Given a weak If-Match, when update, then no version matches and the service is not called")
+    void testUpdateWeakETag() throws Exception {
+        mockMvc.perform(patch("/certificates/1")
+                        .header(HttpHeaders.IF_MATCH, "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":10}")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isPreconditionFailed());
+        verify(service, never()).update(any(PatchCertificateDto.class));
+    }
+
+    @Test
+    @DisplayName("Given an If-Match with several tags, when update, then the update is rejected with 400")
+    void testUpdateSeveralETags() throws Exception {
+        mockMvc.perform(patch("/certificates/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\", \"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":10}")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).update(any(PatchCertificateDto.class));
+    }
+
+    @Test
+    @DisplayName("Given an unknown format, when export, then the export is rejected with 400")
+    void testExportUnknownFormat() throws Exception {
+        mockMvc.perform(get("/certificates/export")
+                        .param("format", "xml")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isBadRequest());
+    }
+
     @ParameterizedTest
     @CsvSource({
             "1, Java, description, 10, 30, Spring, Season",
@@ -108,20 +215,22 @@ class CertificateControllerTest {
     })
     @DisplayName("Given pageable information, when getAll, then return all certificates with pagination")
     void getAllTest(long id, String name, String description, BigDecimal price, long id2, String name2, String desc) throws Exception {
-        CertificateDto certificateDto = CertificateDto.builder()
+        CertificateSlimDto certificateDto = CertificateSlimDto.builder()
                 .id(id)
                 .price(price)
                 .name(name)
                 .description(description)
+                .tagNames(List.of(desc))
                 .build();
-        CertificateDto certificateDto2 = CertificateDto.builder()
+        CertificateSlimDto certificateDto2 = CertificateSlimDto.builder()
                 .id(id2)
                 .price(price)
                 .name(name2)
                 .description(desc)
+                .tagNames(List.of())
                 .build();
 
-        List<CertificateDto> certificateDtoList = Arrays.asList(certificateDto, certificateDto2);
+        List<CertificateSlimDto> certificateDtoList = Arrays.asList(certificateDto, certificateDto2);
         given(service.getCertificates(any(Pageable.class))).willReturn(certificateDtoList);
 
         mockMvc.perform(get("/certificates")
@@ -129,6 +238,8 @@ class CertificateControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$._embedded").exists())
                 .andExpect(jsonPath("$._embedded.certificateDtoList").isArray())
+                .andExpect(jsonPath("$._embedded.certificateDtoList[0].tagNames[0]").value(desc))
+                .andExpect(jsonPath("$._embedded.certificateDtoList[0]._links.self").exists())
                 .andReturn();
     }
 
@@ -163,6 +274,18 @@ class CertificateControllerTest {
                 .andReturn();
     }
 
+    @Test
+    @DisplayName("Given a text query, when search, then return the ranked certificates from the index")
+    void searchTextTest() throws Exception {
+        given(service.search(any(String.class), any(Pageable.class)))
+                .willReturn(new PageImpl<>(List.of(dto)));
+        mockMvc.perform(get("/certificates/search")
+                        .param("q", "test certif"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.certificateDtoList[0].name").value(dto.getName()));
+        verify(service).search(any(String.class), any(Pageable.class));
+    }
+
     @Test
     @DisplayName("Given certificate ID, when delete, then delete the corresponding certificate")
     void deleteTest() throws Exception {
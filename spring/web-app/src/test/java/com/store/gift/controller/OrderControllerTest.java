@@ -2,6 +2,7 @@ package com.store.gift.controller;
 
 import com.store.gift.dto.OrderDto;
 import com.store.gift.entity.Tag;
+import com.store.gift.exception.InvalidOrderException;
 import com.store.gift.service.OrderService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -22,14 +23,16 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -63,7 +66,7 @@ class OrderControllerTest {
     @Test
     @DisplayName("Create Order: Given valid user ID and certificate IDs, when create order, then return HTTP status 201")
     void testCreateOrderShouldReturnHttpStatusCreated() throws Exception {
-        when(orderService.save(eq(admin), anySet(), anyList())).thenReturn(orderDto);
+        when(orderService.save(eq(admin), anyList(), anyList())).thenReturn(orderDto);
         mockMvc.perform(post("/orders/{username}", admin)
                         .param("certificateIds", String.valueOf(id))
                         .param("counters", String.valueOf(id))
@@ -71,6 +74,41 @@ class OrderControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    @DisplayName("Create Order: Given unmatched counters, when create order, then return HTTP status 400")
+    void testCreateOrderShouldReturnBadRequestWhenCountersDoNotMatch() throws Exception {
+        when(orderService.save(eq(admin), anyList(), anyList()))
+                .thenThrow(new InvalidOrderException("Certificate and counter counts do not match."));
+        mockMvc.perform(post("/orders/{username}", admin)
+                        .param("certificateIds", String.valueOf(id))
+                        .param("counters", "1", "2")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Create Order: Given a repeated idempotency key, when create order, then the order is placed once")
+    void testCreateOrderShouldReplayWhenIdempotencyKeyRepeats() throws Exception {
+        when(orderService.save(eq(admin), anyList(), anyList())).thenReturn(orderDto);
+        for (String replayed : new String[]{"false", "true"}) {
+            mockMvc.perform(post("/orders/{username}", admin)
+                            .header(OrderController.IDEMPOTENCY_KEY, "order-replay")
+                            .param("certificateIds", String.valueOf(id))
+                            .param("counters", String.valueOf(id))
+                            .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string(OrderController.IDEMPOTENT_REPLAYED, replayed))
+                    .andExpect(jsonPath("$.id").value(1));
+        }
+        verify(orderService, times(1)).save(eq(admin), anyList(), anyList());
+        mockMvc.perform(post("/orders/{username}", admin)
+                        .header(OrderController.IDEMPOTENCY_KEY, "order-replay")
+                        .param("certificateIds", "2")
+                        .param("counters", String.valueOf(id))
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Get all orders by user ID: Given valid user ID, when get all orders, then return the collection of orders")
     void testGetAllOrdersByUserIdShouldReturnOrderCollection() throws Exception {
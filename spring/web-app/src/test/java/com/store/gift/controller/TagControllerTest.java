@@ -1,6 +1,10 @@
 package com.store.gift.controller;
 
+import com.store.gift.dto.DeleteOutcome;
+import com.store.gift.dto.DeleteReport;
+import com.store.gift.dto.DeleteStatus;
 import com.store.gift.dto.TagDto;
+import com.store.gift.exception.InvalidBatchException;
 import com.store.gift.service.TagService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
@@ -106,4 +110,33 @@ class TagControllerTest {
                 .andExpect(status().isNoContent());
         verify(tagService, times(1)).delete(id);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test deleteAll - Deletes tags by IDs and reports every ID")
+    void deleteAllTest() throws Exception {
+        given(tagService.deleteAll(List.of(id, id2))).willReturn(DeleteReport.builder()
+                .requested(2).deleted(1).notFound(1)
+                .outcomes(List.of(new DeleteOutcome(id, DeleteStatus.DELETED, null),
+                        new DeleteOutcome(id2, DeleteStatus.NOT_FOUND, null)))
+                .build());
+
+        mockMvc.perform(delete("/tags")
+                        .param("ids", "1", "2")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1))
+                .andExpect(jsonPath("$.outcomes[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    @DisplayName("Test deleteAll - Rejects a batch of too many IDs with a bad request")
+    void deleteAllRejectedTest() throws Exception {
+        given(tagService.deleteAll(List.of(id, id2)))
+                .willThrow(new InvalidBatchException("At most 1 IDs can be deleted at once"));
+
+        mockMvc.perform(delete("/tags")
+                        .param("ids", "1", "2")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(admin))))
+                .andExpect(status().isBadRequest());
+    }
+}
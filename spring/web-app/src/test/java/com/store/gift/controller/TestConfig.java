@@ -1,6 +1,7 @@
 package com.store.gift.controller;
 
 import com.store.gift.assembler.CertificateAssembler;
+import com.store.gift.assembler.CertificateSlimAssembler;
 import com.store.gift.assembler.OrderAssembler;
 import com.store.gift.assembler.TagAssembler;
 import com.store.gift.assembler.UserAssembler;
@@ -28,6 +29,11 @@ public class TestConfig {
         return new CertificateAssembler();
     }
 
+    @Bean
+    public CertificateSlimAssembler certificateSlimAssembler() {
+        return new CertificateSlimAssembler();
+    }
+
     @Bean
     public TagAssembler tagAssembler() {
         return new TagAssembler();
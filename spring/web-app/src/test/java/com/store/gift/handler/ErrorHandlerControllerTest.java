@@ -1,5 +1,7 @@
 package com.store.gift.handler;
 
+import com.store.gift.exception.IdempotencyConflictException;
+import com.store.gift.exception.InvalidCursorException;
 import com.store.gift.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -33,6 +35,22 @@ class ErrorHandlerControllerTest {
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    void handleInvalidCursorExceptionShouldReturnBadRequestResponse() {
+        ResponseEntity<Object> response = exceptionHandler
+                .handleInvalidCursorException(
+                        new InvalidCursorException("Invalid cursor: x"));
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void handleIdempotencyConflictExceptionShouldReturnConflictResponse() {
+        ResponseEntity<Object> response = exceptionHandler
+                .handleIdempotencyConflictException(
+                        new IdempotencyConflictException("The request with idempotency key k is still running"));
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
     @Test
     void testHashCode() {
         ResponseMessage message2 = new ResponseMessage(HttpStatus.OK, "message2");